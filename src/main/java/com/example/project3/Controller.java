@@ -1,6 +1,7 @@
 package com.example.project3;
 
 import com.example.project3.sourcefiles.*;
+import com.example.project3.util.BusinessClock;
 import com.example.project3.util.Date;
 import com.example.project3.util.List;
 import javafx.event.ActionEvent;
@@ -15,7 +16,16 @@ import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 
 public class Controller {
+    private static final int ARCHIVE_PAGE = 50; // closures shown per page of the archive
+    private static final File CHECKPOINTS = new File("bank.checkpoint");
+    private static final int MERGE_EVERY = 8; // checkpoints chained before they are merged into a new snapshot
+    private static final File JOURNAL = new File("bank.journal");
+    private static final int JOURNAL_FLUSH_BYTES = 64 << 10;
+    private static final long JOURNAL_FLUSH_MILLIS = 5;
     private AccountDatabase db = new AccountDatabase();
+    private final BusinessClock clock = BusinessClock.getDefault();
+    private Checkpoint checkpoints;
+    private final List<ActivityFeed> feeds = new List<>();
     @FXML
     private TextField firstNameField, lastNameField, initialDepositField, accountNumberField, depositWithdrawAmt,
             closeAcctFName, closeAcctLName;
@@ -41,7 +51,9 @@ public class Controller {
     private ToggleGroup accountType;
 
     /**
-     * Sets up the controller by adding listeners and filling the combo boxes.
+     * Sets up the controller by adding listeners and filling the combo boxes,
+     * and restores the accounts saved in the bank.checkpoint directory and the changes journaled in bank.journal since.
+     * Every change made from then on is journaled.
      */
     @FXML
     public void initialize(){
@@ -70,8 +82,43 @@ public class Controller {
         );
         cdTermComboBox.getItems().addAll("3","6","9", "12", "24");
 
+        Journal journal = null;
+        try {
+            checkpoints = new Checkpoint(CHECKPOINTS, MERGE_EVERY);
+            journal = new Journal(JOURNAL, JOURNAL_FLUSH_BYTES, JOURNAL_FLUSH_MILLIS);
+            AccountDatabase restored = checkpoints.exists() ? checkpoints.restore() : new AccountDatabase();
+            journal.replay(restored);
+            db = restored;
+            db.journalTo(journal);
+        } catch (IOException e) {
+            // Leave the saved accounts and the journal as they are; nothing is saved over them this session.
+            checkpoints = null;
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException ignored) {
+                    // nothing was journaled
+                }
+            }
+            showAlert("Error", "Failed to restore the accounts from " + CHECKPOINTS.getName() + ": " + e.getMessage()
+                    + "\nChanges will not be saved until " + CHECKPOINTS.getName() + " and " + JOURNAL.getName() + " are repaired.");
+        }
+        db.setClock(clock);
+    }
 
-
+    /**
+     * Saves the accounts that changed since the last checkpoint to the bank.checkpoint directory,
+     * to be restored the next time the application starts.
+     */
+    public void saveSnapshot() {
+        if (checkpoints == null) {
+            return;
+        }
+        try {
+            checkpoints.checkpoint(db);
+        } catch (IOException e) {
+            showAlert("Error", "Failed to save the accounts: " + e.getMessage());
+        }
     }
 
     /**
@@ -195,7 +242,7 @@ public class Controller {
                 return;
             }
 
-            Profile profile = new Profile(firstName, lastName, dob);
+            Profile profile = ProfilePool.intern(firstName, lastName, dob);
             AccountType acctType = getSelectedAccountType();
 
             if (acctType == null) {
@@ -219,18 +266,13 @@ public class Controller {
                 return;
             }
 
-            AccountNumber accountNumber = new AccountNumber(branch, acctType);
-            Account newAccount = null;
-
-            if (checkingRadio.isSelected()) {
-                newAccount = new Checking(accountNumber, profile, initialBalance);
-
-            } else if (collegeCheckingRadio.isSelected()) {
+            // every check comes before the account number is drawn, so a rejected form does not use up a serial
+            Campus campus = null;
+            if (collegeCheckingRadio.isSelected()) {
                 if(!isEligibleForCollege(dob)){
                     showAlert("Error", "Not eligible for college checking. Must be 24 years or younger.");
                     return;
                 }
-                Campus campus = null;
                 if (nbRadio.isSelected()) {
                     campus = Campus.NEW_BRUNSWICK;
                 } else if (newarkRadio.isSelected()) {
@@ -241,24 +283,11 @@ public class Controller {
                     showAlert("Error", "Please select a campus.");
                     return;
                 }
-                newAccount = new CollegeChecking(accountNumber, profile, initialBalance, campus);
-
-            } else if (savingsRadio.isSelected()) {
-                isLoyal = loyalCustomerCheckBox.isSelected();
-                Savings savingsAccount = new Savings(accountNumber, profile, initialBalance);
-                savingsAccount.setLoyal(isLoyal);
-                newAccount = savingsAccount;
-
             } else if (moneyMarketRadio.isSelected()) {
                 if(initialBalance < 2000){
                     showAlert("Error", "Minimum of $2,000 required to open a Money Market Account.");
                     return;
                 }
-                isLoyal = loyalCustomerCheckBox.isSelected();
-                MoneyMarket moneyMarketAccount = new MoneyMarket(accountNumber, profile, initialBalance);
-                moneyMarketAccount.setLoyal(isLoyal);
-                newAccount = moneyMarketAccount;
-
             } else if (cdRadio.isSelected()) {
                 if (dateOpen == null || cdTermComboBox.getValue() == null) {
                     showAlert("Error", "Please select a date and term for the CD.");
@@ -270,13 +299,35 @@ public class Controller {
                     return;
                 }
 
-                int term = Integer.parseInt(cdTermComboBox.getValue());
-
                 if (!dateOpen.isValid()) {
                     showAlert("Error", "Invalid open date.");
                     return;
                 }
+            }
 
+            AccountNumber accountNumber = new AccountNumber(branch, acctType);
+            Account newAccount = null;
+
+            if (checkingRadio.isSelected()) {
+                newAccount = new Checking(accountNumber, profile, initialBalance);
+
+            } else if (collegeCheckingRadio.isSelected()) {
+                newAccount = new CollegeChecking(accountNumber, profile, initialBalance, campus);
+
+            } else if (savingsRadio.isSelected()) {
+                isLoyal = loyalCustomerCheckBox.isSelected();
+                Savings savingsAccount = new Savings(accountNumber, profile, initialBalance);
+                savingsAccount.setLoyal(isLoyal);
+                newAccount = savingsAccount;
+
+            } else if (moneyMarketRadio.isSelected()) {
+                isLoyal = loyalCustomerCheckBox.isSelected();
+                MoneyMarket moneyMarketAccount = new MoneyMarket(accountNumber, profile, initialBalance);
+                moneyMarketAccount.setLoyal(isLoyal);
+                newAccount = moneyMarketAccount;
+
+            } else if (cdRadio.isSelected()) {
+                int term = Integer.parseInt(cdTermComboBox.getValue());
                 newAccount = new CertificateDeposit(accountNumber, profile, initialBalance, term, dateOpen);
             }
 
@@ -290,6 +341,8 @@ public class Controller {
 
         } catch (NumberFormatException e) {
             showAlert("Error", "Invalid amount format.");
+        } catch (IllegalStateException e) {
+            showAlert("Error", e.getMessage());
         }
     }
 
@@ -315,13 +368,7 @@ public class Controller {
             }
 
             // Find account in the database
-            Account account = null;
-            for (Account acct : db) {
-                if (acct.getAccountNumber().toString().equals(acctNum)) {
-                    account = acct;
-                    break;
-                }
-            }
+            Account account = db.getAccount(acctNum);
 
             if (account == null) {
                 showAlert("Error", "Account not found.");
@@ -364,13 +411,7 @@ public class Controller {
             }
 
             // Find account in the database
-            Account account = null;
-            for (Account acct : db) {
-                if (acct.getAccountNumber().toString().equals(acctNum)) {
-                    account = acct;
-                    break;
-                }
-            }
+            Account account = db.getAccount(acctNum);
 
             if (account == null) {
                 showAlert("Error", "Account not found.");
@@ -413,25 +454,15 @@ public class Controller {
             }
 
             // Find the account in the database
-            Account accountToClose = null;
-            for (Account acct : db) {
-                if (acct.getAccountNumber().toString().equals(acctNum)) {
-                    accountToClose = acct;
-                    break;
-                }
-            }
+            Account accountToClose = db.getAccount(acctNum);
 
             if (accountToClose == null) {
                 showAlert("Error", "Account does not exist.");
                 return;
             }
 
-            if(findAccountByNumber(accountToClose.getAccountNumber())){
-                db.remove(accountToClose);
-                showAlert("Success", "Account closed successfully on: " + dateClosed);
-            } else{
-                showAlert("Error", "Account does not exist.");
-            }
+            db.remove(accountToClose);
+            showAlert("Success", "Account closed successfully on: " + dateClosed);
 
 
         } catch (Exception e) {
@@ -524,8 +555,9 @@ public class Controller {
             try {
                 StringBuilder result = new StringBuilder();
 
-                // Process activities and accumulate the output
-                List<String> activities = db.processActivities(file);  // Assuming it returns List<String>
+                // Process the activities not processed yet and accumulate the output
+                List<String> activities = feed(file).catchUp(true);
+                saveSnapshot();
 
                 // Append the list as a string
                 for (String activity : activities) {
@@ -545,6 +577,21 @@ public class Controller {
         }
     }
 
+    /**
+     * Finds the feed reading an activities file, opening it the first time.
+     * The feed remembers how far the file was processed, so loading it again only processes the lines added since.
+     */
+    private ActivityFeed feed(File file) throws IOException {
+        for (ActivityFeed feed : feeds) {
+            if (feed.source().getAbsoluteFile().equals(file.getAbsoluteFile())) {
+                return feed;
+            }
+        }
+        ActivityFeed feed = new ActivityFeed(db, file);
+        feeds.add(feed);
+        return feed;
+    }
+
     /**
      * Shows accounts sorted by branch in a text area.
      */
@@ -589,11 +636,27 @@ public class Controller {
      */
     @FXML
     public void printArchive() {
-        String result = db.printArchive();
-        if (result.isEmpty()) {
+        int pages = db.getArchive().pages(ARCHIVE_PAGE);
+        if (pages == 0) {
             showAlert("Information", "No accounts in archive.");
-        } else {
-            showTextArea("Archived Accounts", result);
+            return;
+        }
+        ButtonType next = new ButtonType("Next", ButtonBar.ButtonData.NEXT_FORWARD);
+        for (int page = 0; page < pages; page++) {
+            TextArea textArea = new TextArea(db.printArchivePage(page, ARCHIVE_PAGE));
+            textArea.setEditable(false);
+
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("Archived Accounts (page " + (page + 1) + " of " + pages + ")");
+            alert.getDialogPane().setContent(textArea);
+            if (page + 1 < pages) {
+                alert.getButtonTypes().setAll(next, ButtonType.CLOSE);
+            } else {
+                alert.getButtonTypes().setAll(ButtonType.CLOSE);
+            }
+            if (alert.showAndWait().orElse(ButtonType.CLOSE) != next) {
+                break;
+            }
         }
     }
 
@@ -621,8 +684,7 @@ public class Controller {
                 return null; // Handle case where no date is selected
             }
             LocalDate localDate = datePicker.getValue();
-            // Assuming your custom Date class accepts date in the "MM/DD/YYYY" format
-            return new Date(localDate.getMonthValue() + "/" + localDate.getDayOfMonth() + "/" + localDate.getYear());
+            return new Date(localDate.getYear(), localDate.getMonthValue(), localDate.getDayOfMonth());
         } catch (DateTimeParseException e) {
             showAlert("Error", "Invalid date format. Please select a valid date.");
             return null;
@@ -636,17 +698,7 @@ public class Controller {
      * @return returns true if individual is at least 18, otherwise false.
      */
     private boolean isAgeAtLeast18(Date dob) {
-        LocalDate currentDate = LocalDate.now();
-        LocalDate birthDate = LocalDate.of(dob.getYear(), dob.getMonth(), dob.getDay());
-
-
-        int age = currentDate.getYear() - birthDate.getYear();
-        if(currentDate.getMonthValue() < birthDate.getMonthValue() ||
-                (currentDate.getMonthValue() == birthDate.getMonthValue() && currentDate.getDayOfMonth() < birthDate.getDayOfMonth())){
-            age --;
-        }
-
-        return age >= 18;
+        return clock.ageOf(dob) >= 18;
     }
 
     /**
@@ -655,9 +707,7 @@ public class Controller {
      * @return returns true if individual is at below 24, otherwise false.
      */
     private boolean isEligibleForCollege(Date dob) {
-        int currentYear = java.time.Year.now().getValue();
-        int birthYear = dob.getYear();
-        int age = currentYear - birthYear;
+        int age = clock.today().getYear() - dob.getYear();
 
         return age < 24;
     }
@@ -671,8 +721,8 @@ public class Controller {
      * @return true if a duplicate is found; false if not.
      */
     private boolean isDuplicateAccount(Profile profile, AccountType acctType, int cdTerm) {
-        for (Account acc : db) {  // Iterate over the db collection
-            if (acc.getHolder().equals(profile) && acc.getAccountNumber().getType() == acctType) {
+        for (Account acc : db.getAccounts(profile)) {  // Only the holder's own accounts
+            if (acc.getAccountNumber().getType() == acctType) {
 
                 // Handle CD accounts separately by term
                 if (acctType == AccountType.CD && acc instanceof CertificateDeposit) {
@@ -763,22 +813,6 @@ public class Controller {
         alert.showAndWait();
     }
 
-    /**
-     * Searches for account in database using account number
-     * @param acctNum account number to check for
-     * @return returns account associated with account number if found, otherwise returns null
-     */
-    private boolean findAccountByNumber(AccountNumber acctNum) {
-        for (int i = 0; i < db.size(); i++) {
-            Account account = db.get(i);
-            if (account != null && account.getAccountNumber().equals(acctNum)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-
     @FXML
     /**
      * Clears all input fields.
@@ -14,6 +14,8 @@ public class Main extends Application {
         Scene scene = new Scene(fxmlLoader.load(), 700, 600);
         stage.setTitle("RU Banking - Transaction Manager");
         stage.setScene(scene);
+        Controller controller = fxmlLoader.getController();
+        stage.setOnHidden(event -> controller.saveSnapshot());
         stage.show();
     }
 
@@ -1,11 +1,13 @@
 package com.example.project3.sourcefiles;
 
-import com.example.project3.util.List;
-
-import java.text.DecimalFormat;
+import com.example.project3.util.BusinessClock;
+import com.example.project3.util.Date;
+import com.example.project3.util.Money;
 
 /**
  * Represents an abstract bank account class with an account number, holder, and balance.
+ * Amounts are kept as a long number of cents (see {@link Money}), so postings, interest and fees are exact.
+ * The balance and other changing state live in one row of an {@link AccountStore}; the account is a view over that row.
  * This class implements the Comparable interface to allow ordering of accounts
  * based on their account numbers.
  * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
@@ -13,33 +15,55 @@ import java.text.DecimalFormat;
 public abstract class Account implements Comparable<Account> {
     protected AccountNumber number;
     protected Profile holder;
-    protected double balance;
-    protected List<Activity> activities;
+    protected ActivityLog activities;
+    AccountStore store;
+    int row;
+    int changeSlot = -1; // position in the database's change set, -1 while unchanged since the last checkpoint
 
     /**
      * Constructs an Account with the specified account number, holder, and balance.
      * @param number  the account number associated with this account.
      * @param holder  the profile of the account holder.
-     * @param balance the initial balance of the account.
+     * @param balance the initial balance of the account, in dollars.
      */
     public Account(AccountNumber number, Profile holder, double balance) {
         this.number = number;
         this.holder = holder;
-        this.balance = balance;
-        this.activities = new List<>();
+        this.activities = new ActivityLog();
+        this.store = AccountStore.detached();
+        this.row = store.append(this);
+        store.setBalance(row, Money.ofDollars(balance));
+    }
+
+    /**
+     * Points this account at a row of a store, after the row has moved.
+     * @param store the store holding the row
+     * @param row   the row
+     */
+    void bind(AccountStore store, int row) {
+        this.store = store;
+        this.row = row;
+    }
+
+    /**
+     * Reads the balance from the account's row.
+     * @return the balance, in cents
+     */
+    protected long balance() {
+        return store.balance(row);
     }
 
     /**
      * Calculates the interest earned on the account balance.
-     * @return the amount of interest earned
+     * @return the amount of interest earned, in cents
      */
-    public abstract double interest();
+    public abstract long interest();
 
     /**
      * Calculates the monthly fee for maintaining the account.
-     * @return the fee amount
+     * @return the fee amount, in cents
      */
-    public abstract double fee();
+    public abstract long fee();
 
     /**
      * Generates an account statement as a string including transaction history,
@@ -47,85 +71,52 @@ public abstract class Account implements Comparable<Account> {
      * @return a string representing the account statement
      */
     public String statement() {
-        StringBuilder statement = new StringBuilder();
-        statement.append(printActivities());
-        double interestEarned = interest();
-        double monthlyFee = fee();
-        statement.append(printInterestFee(interestEarned, monthlyFee));
-        statement.append(updateBalance(interestEarned, monthlyFee));
-        return statement.toString();
+        return store.appendStatement(new StringBuilder(), row).toString();
     }
 
 
     /**
-     * Returns a string representation of the recorded activities of the account.
-     * @return a string containing the activities
-     */
-    private String printActivities() {
-        StringBuilder activitiesDetails = new StringBuilder();
-        if (activities.isEmpty()) {
-            activitiesDetails.append("No activities for ").append(holder.getFname()).append(" ").append(holder.getLname()).append("\n");
-        } else {
-            activitiesDetails.append(holder.getFname()).append(" ")
-                    .append(holder.getLname()).append(" ")
-                    .append(holder.getDob()).append("\n")
-                    .append("[Account #] ").append(number).append("\n")
-                    .append("[Activity]\n");
-            for (Activity a : activities) {
-                activitiesDetails.append(a).append("\n");
-            }
-        }
-        return activitiesDetails.toString();
-    }
-
-    /**
-     * Returns a string representing the interest earned and the monthly fee.
-     * @param interest the interest earned
-     * @param fee      the monthly fee
-     * @return a string containing the interest and fee details
+     * Records an activity in the account's transaction history.
+     * @param a the activity to record
      */
-    private String printInterestFee(double interest, double fee) {
-        DecimalFormat df = new DecimalFormat("#,##0.00");
-        return "[interest] $" + df.format(interest) + " [Fee] $" + df.format(fee) + "\n";
+    public void addActivity(Activity a) {
+        activities.add(a);
     }
 
     /**
-     * Returns a string representing the updated balance after applying interest and deducting fees.
-     * @param interest the interest earned
-     * @param fee      the monthly fee
-     * @return a string containing the updated balance
+     * Deposits a specified amount into the account and records the transaction, dated by the default business clock.
+     * @param cents the amount to deposit, in cents
      */
-    private String updateBalance(double interest, double fee) {
-        balance = balance + interest - fee;
-        DecimalFormat df = new DecimalFormat("#,##0.00");
-        return "[Balance] $" + df.format(balance) + "\n";
+    public void deposit(long cents) {
+        deposit(cents, BusinessClock.getDefault().today());
     }
 
-
     /**
-     * Records an activity in the account's transaction history.
-     * @param a the activity to record
+     * Deposits a specified amount into the account and records the transaction on the given day.
+     * @param cents the amount to deposit, in cents
+     * @param day   the date of the transaction
      */
-    public void addActivity(Activity a) {
-        activities.add(a);
+    public void deposit(long cents, Date day) {
+        store.setBalance(row, store.balance(row) + cents);
+        activities.add('D', cents, number.getBranch(), day, false);
     }
 
     /**
-     * Deposits a specified amount into the account and records the transaction.
-     * @param amount the amount to deposit
+     * Withdraws a specified amount from the account and records the transaction, dated by the default business clock.
+     * @param cents the amount to withdraw, in cents
      */
-    public void deposit(double amount) {
-        balance += amount;
-        addActivity(new Activity('D', amount, number.getBranch()));
+    public void withdraw(long cents) {
+        withdraw(cents, BusinessClock.getDefault().today());
     }
 
     /**
-     * Withdraws a specified amount from the account and records the transaction.
-     * @param amount the amount to withdraw
+     * Withdraws a specified amount from the account and records the transaction on the given day.
+     * @param cents the amount to withdraw, in cents
+     * @param day   the date of the transaction
      */
-    public void withdraw(double amount) {
-        balance -= amount;
-        addActivity(new Activity('W', amount, number.getBranch()));
+    public void withdraw(long cents, Date day) {
+        store.setBalance(row, store.balance(row) - cents);
+        activities.add('W', cents, number.getBranch(), day, false);
     }
 
 
@@ -160,24 +151,33 @@ public abstract class Account implements Comparable<Account> {
      */
     @Override
     public String toString() {
-        DecimalFormat df = new DecimalFormat("#,##0.00");
-        return "Account#[" + number + "] Holder[" + holder + "] Balance[$" + df.format(balance) + "]";
+        StringBuilder sb = new StringBuilder(96);
+        sb.append("Account#[").append(number).append("] Holder[").append(holder).append("] Balance[$");
+        return Money.format(sb, balance()).append("]").toString();
     }
 
     /**
      * Gets the current balance of the account.
-     * @return the balance
+     * @return the balance, in dollars
      */
     public double getBalance() {
-        return balance;
+        return Money.toDollars(balance());
+    }
+
+    /**
+     * Gets the current balance of the account.
+     * @return the balance, in cents
+     */
+    public long getBalanceCents() {
+        return balance();
     }
 
     /**
      * Sets the balance of the account.
-     * @param balance the new balance
+     * @param cents the new balance, in cents
      */
-    public void setBalance(double balance) {
-        this.balance = balance;
+    public void setBalanceCents(long cents) {
+        store.setBalance(row, cents);
     }
 
     /**
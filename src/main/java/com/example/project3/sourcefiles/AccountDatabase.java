@@ -1,14 +1,21 @@
 package com.example.project3.sourcefiles;
 
+import com.example.project3.util.BusinessClock;
 import com.example.project3.util.Date;
+import com.example.project3.util.IntMap;
 import com.example.project3.util.List;
+import com.example.project3.util.Money;
+import com.example.project3.util.ObjectMap;
 import com.example.project3.util.Sort;
+import com.example.project3.util.SortedView;
 
 import java.io.File;
 import java.io.IOException;
-import java.text.DecimalFormat;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Scanner;
-import java.util.StringTokenizer;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * AccountDatabase extends a generic List of Accounts.
@@ -18,14 +25,481 @@ import java.util.StringTokenizer;
  * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
  */
 public class AccountDatabase extends List<Account> {
+    private static final int ESTIMATED_LINE_BYTES = 40; // a typical line of accounts.txt or activities.txt
+
     private Archive archive;
+    private AccountStore store; // the columns behind every open account
+    private volatile MappedAccountStore unread; // a reopened ledger whose records are not all listed yet, null once they are
+    private IntMap<Account> numberIndex; // account number key -> open account
+    private ObjectMap<Profile, List<Account>> holderIndex; // holder -> that holder's open accounts
+    private SortedView<Account> byBranch; // county, city, account number
+    private SortedView<Account> byHolder; // holder, account number
+    private SortedView<Account> byType;   // type, account number
+    private ActivitySpill spill;          // where older postings go, null to keep them all in memory
+    private int retainedActivities;
+    private ChangeSet changes;            // what changed since the last checkpoint, null unless checkpoints are taken
+    private Journal journal;              // where every change is logged, null if changes are not journaled
+    private long journaled;               // the last journal entry the accounts reflect, while no journal is attached
+    private BusinessClock clock = BusinessClock.getDefault(); // dates postings and journal entries
+    private int transactionWindow = TransactionIds.DEFAULT_GENERATION;
+    private TransactionIds transactionIds; // created for the first activity line with a transaction id
+    private final FeedOffsets feedOffsets = new FeedOffsets();
 
     /**
      * Constructs an AccountDatabase instance and initializes an Archive for closed accounts.
      */
     public AccountDatabase() {
+        this(new HeapAccountStore(), new Archive());
+    }
+
+    /**
+     * Constructs an AccountDatabase keeping its accounts in the given store and its closed accounts in the given archive.
+     * @param store   the store for the accounts' state
+     * @param archive the archive for closed accounts
+     */
+    private AccountDatabase(AccountStore store, Archive archive) {
         super();
-        archive = new Archive();
+        this.archive = archive;
+        this.store = store;
+        numberIndex = new IntMap<>();
+        holderIndex = new ObjectMap<>();
+        byBranch = Sort.view('B');
+        byHolder = Sort.view('H');
+        byType = Sort.view('T');
+    }
+
+    /**
+     * Opens a database kept in a memory-mapped ledger file, creating the file if needed.
+     * Accounts already in the ledger are restored, so accounts.txt does not need to be read again.
+     * Closed accounts are archived in a directory next to the ledger, named after it with ".archive" appended.
+     * <p>
+     * Restoring reads no account up front: only the serials of the saved account numbers are reserved.
+     * A looked-up account is read from its record on first use. Adding, removing, loyalty updates, statements
+     * and reports work on the records themselves; only the calls that hand out every account or a position
+     * list the rest, see {@link #readLedger()}.
+     * @param ledger the ledger file
+     * @return the database
+     * @throws IOException if the ledger cannot be opened or is not a ledger file
+     */
+    public static AccountDatabase mapped(File ledger) throws IOException {
+        MappedAccountStore records = new MappedAccountStore(ledger);
+        Archive archive = new Archive(new File(ledger.getAbsoluteFile().getParentFile(), ledger.getName() + ".archive"));
+        AccountDatabase db = new AccountDatabase(records, archive);
+        for (int row = 0; row < records.size(); row++) {
+            AccountNumber number = AccountNumber.ofKey(records.key(row));
+            SerialAllocator.shared().reserve(number.getBranch(), number.getType(), number.getSerial());
+        }
+        if (records.size() > 0) {
+            db.unread = records;
+        }
+        return db;
+    }
+
+    /**
+     * Lists every record of a reopened ledger in row order, so each account's position is its row again,
+     * and indexes the accounts by holder and in the sorted report views.
+     * Records already looked up keep their accounts. Nothing is journaled and no record is written.
+     */
+    private synchronized void readLedger() {
+        MappedAccountStore records = unread;
+        if (records == null)
+            return;
+        unread = null;
+        int count = records.size();
+        ensureCapacity(count);
+        for (int row = 0; row < count; row++) {
+            int key = records.key(row);
+            Account acct = numberIndex.get(key);
+            if (acct == null) {
+                acct = bindRecord(records, row, key);
+            }
+            super.add(acct);
+            index(acct);
+        }
+    }
+
+    /**
+     * Looks up an account of a reopened ledger that is not fully listed, reading its record on first use.
+     * @param key the account number's key
+     * @return the account, or null if no open account has that number
+     */
+    private synchronized Account lookUnread(int key) {
+        Account acct = numberIndex.get(key);
+        MappedAccountStore records = unread;
+        if (acct != null || records == null)
+            return acct;
+        int row = records.find(key);
+        return row == -1 ? null : bindRecord(records, row, key);
+    }
+
+    /**
+     * Reads an account from its ledger record and indexes it by account number.
+     */
+    private Account bindRecord(MappedAccountStore records, int row, int key) {
+        Account acct = records.bind(row);
+        if (spill != null) {
+            acct.activities.spillTo(spill, retainedActivities);
+        }
+        numberIndex.put(key, acct);
+        return acct;
+    }
+
+    /**
+     * Writes the database's account records, archive and journal to disk, if they are kept in files.
+     */
+    public void flush() {
+        store.force();
+        archive.flush();
+        if (journal != null) {
+            journal.sync();
+        }
+    }
+
+    /**
+     * Sets the clock that dates the database's postings and journal entries.
+     * @param clock the business clock
+     */
+    public void setClock(BusinessClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Retrieves the clock that dates the database's postings and journal entries.
+     * @return the business clock, the default one at the time the database was created unless replaced
+     */
+    public BusinessClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Logs every later change to a journal: openings, deposits, withdrawals, closings, removals and statements.
+     * Replay the journal with {@link Journal#replay(AccountDatabase)} before attaching it.
+     * @param journal the journal
+     */
+    public void journalTo(Journal journal) {
+        journal.advanceTo(journaled);
+        this.journal = journal;
+    }
+
+    /**
+     * Retrieves the journal the database's changes are logged to.
+     * @return the journal, or null if changes are not journaled
+     */
+    Journal journal() {
+        return journal;
+    }
+
+    /**
+     * Retrieves the last journal entry the accounts reflect.
+     * @return the entry's sequence number, 0 if none
+     */
+    long journalPosition() {
+        return journal != null ? journal.position() : journaled;
+    }
+
+    /**
+     * Records the last journal entry the accounts reflect, after restoring them from a snapshot or a journal.
+     * @param position the entry's sequence number
+     */
+    void setJournalPosition(long position) {
+        journaled = position;
+    }
+
+    /**
+     * Bounds the postings each account keeps in memory; older ones are written to the spill and read back
+     * only when a statement or history needs them. Applies to the open accounts and to every account added later.
+     * @param spill    the store for older postings
+     * @param retained the number of recent postings kept in memory per account, at least 1
+     */
+    public void retainActivities(ActivitySpill spill, int retained) {
+        if (retained < 1) {
+            throw new IllegalArgumentException("At least 1 posting must be retained.");
+        }
+        this.spill = spill;
+        this.retainedActivities = retained;
+        MappedAccountStore records = unread;
+        if (records != null) {
+            // only the accounts already read; the rest pick the spill up when they are read
+            for (int row = 0; row < records.size(); row++) {
+                if (records.views[row] != null) {
+                    records.views[row].activities.spillTo(spill, retained);
+                }
+            }
+            return;
+        }
+        for (Account acct : this) {
+            acct.activities.spillTo(spill, retained);
+        }
+    }
+
+    /**
+     * Starts listing the accounts that deposits, withdrawals, statements, closings and loyalty changes touch,
+     * so a checkpoint can save just those. Changes made straight through an account, bypassing the database, are not seen.
+     */
+    void trackChanges() {
+        if (changes == null) {
+            changes = new ChangeSet();
+        }
+    }
+
+    /**
+     * Hands over the changes listed since the last call and starts a new list.
+     * @return the changes, or null if changes are not tracked
+     */
+    ChangeSet takeChanges() {
+        ChangeSet taken = changes;
+        if (taken != null) {
+            taken.release();
+            changes = new ChangeSet();
+        }
+        return taken;
+    }
+
+    /**
+     * Marks an account changed since the last checkpoint, if changes are tracked.
+     */
+    private void touch(Account acct) {
+        if (changes != null) {
+            changes.touch(acct);
+        }
+    }
+
+    /**
+     * Marks the account of a row changed since the last checkpoint, if changes are tracked,
+     * reading it from a reopened ledger only then.
+     */
+    private void touchRow(int row) {
+        if (changes != null) {
+            Account acct = store.view(row);
+            changes.touch(acct != null ? acct : lookUnread(store.key(row)));
+        }
+    }
+
+    /**
+     * Adds an account to the database, moves its row into the database's store, indexes it by account number and holder,
+     * and refreshes the loyalty status of that holder's accounts.
+     * @param acct the account to add
+     * @throws IllegalArgumentException if an open account already has the same account number
+     */
+    @Override
+    public void add(Account acct) {
+        int key = acct.getAccountNumber().getKey();
+        MappedAccountStore records = unread;
+        if (records != null ? records.find(key) != -1 : numberIndex.containsKey(key)) {
+            throw new IllegalArgumentException("Account " + acct.getAccountNumber() + " is already open.");
+        }
+        if (records == null) {
+            super.add(acct);
+        }
+        store.adopt(acct);
+        if (spill != null) {
+            acct.activities.spillTo(spill, retainedActivities);
+        }
+        numberIndex.put(key, acct);
+        if (records == null) {
+            index(acct); // a reopened ledger is indexed once it is listed
+        }
+        if (changes != null) {
+            changes.record(acct, ChangeSet.ADD);
+        }
+        if (journal != null) {
+            journal.opened(acct, clock.today());
+        }
+        updateLoyaltyStatus(acct.getHolder());
+    }
+
+    /**
+     * Indexes a listed account by holder and adds it to the sorted report views.
+     * @param acct the account
+     */
+    private void index(Account acct) {
+        List<Account> owned = holderIndex.get(acct.getHolder());
+        if (owned == null) {
+            owned = new List<>();
+            holderIndex.put(acct.getHolder(), owned);
+        }
+        owned.add(acct);
+        byBranch.add(acct);
+        byHolder.add(acct);
+        byType.add(acct);
+    }
+
+    /**
+     * Adds every account of a list, indexing each one like {@link #add(Account)}.
+     * @param accounts the accounts to add
+     */
+    @Override
+    public void addAll(List<? extends Account> accounts) {
+        ensureCapacity(size() + accounts.size());
+        for (Account acct : accounts) {
+            add(acct);
+        }
+    }
+
+    /**
+     * Adds every account of an array, indexing each one like {@link #add(Account)}.
+     * @param accounts the accounts to add
+     */
+    @Override
+    public void addAll(Account[] accounts) {
+        ensureCapacity(size() + accounts.length);
+        for (Account acct : accounts) {
+            add(acct);
+        }
+    }
+
+    /**
+     * Makes sure the database, its store and its hash indexes can hold the given number of accounts without growing.
+     * @param minCapacity the number of accounts that must fit
+     */
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        super.ensureCapacity(minCapacity);
+        store.ensureCapacity(minCapacity);
+        numberIndex.ensureCapacity(minCapacity);
+        holderIndex.ensureCapacity(minCapacity);
+    }
+
+    /**
+     * Removes an account from the database without archiving it, moving the last account into its place.
+     * Nothing refers to the account number any more, so its serial is released to the shared allocator.
+     * @param acct the account to remove
+     */
+    @Override
+    public void remove(Account acct) {
+        int index = indexOfAccount(acct);
+        if (index == -1)
+            return;
+        takeOut(index);
+        AccountNumber number = acct.getAccountNumber();
+        SerialAllocator.shared().release(number.getBranch(), number.getType(), number.getSerial());
+        if (changes != null) {
+            changes.record(acct, ChangeSet.DROP);
+        }
+        if (journal != null) {
+            journal.dropped(acct, clock.today());
+        }
+        updateLoyaltyStatus(acct.getHolder());
+    }
+
+    /**
+     * Finds the position of this exact account object in the database.
+     * Account.equals() matches any account of the same holder and type, so it cannot be used here.
+     * An open account's position is its row in the database's store: both are appended to on add,
+     * and both fill a removed account's place with the last one.
+     * @param acct the account to find
+     * @return the position of the account, or -1 if it is not in the database
+     */
+    private int indexOfAccount(Account acct) {
+        int row = acct.row;
+        return acct.store == store && row < store.size() && store.view(row) == acct ? row : -1;
+    }
+
+    /**
+     * Takes an account out of the database and its indexes, moving the last account into its place.
+     * A reopened ledger that is not fully listed only moves the last record.
+     */
+    private void takeOut(int index) {
+        Account acct = store.view(index);
+        if (unread == null) {
+            int last = super.size() - 1;
+            super.set(index, super.get(last));
+            super.removeAt(last);
+        }
+        unindex(acct);
+    }
+
+    /**
+     * Drops an account from the account number and holder indexes and the sorted report views,
+     * and moves its row out of the database's store.
+     * @param acct the account that left the database
+     */
+    private void unindex(Account acct) {
+        store.release(acct);
+        byBranch.remove(acct);
+        byHolder.remove(acct);
+        byType.remove(acct);
+        int key = acct.getAccountNumber().getKey();
+        if (numberIndex.get(key) == acct) {
+            numberIndex.remove(key);
+        }
+        List<Account> owned = holderIndex.get(acct.getHolder());
+        if (owned != null) {
+            for (int i = 0; i < owned.size(); i++) {
+                if (owned.get(i) == acct) {
+                    owned.removeAt(i);
+                    break;
+                }
+            }
+            if (owned.isEmpty()) {
+                holderIndex.remove(acct.getHolder());
+            }
+        }
+    }
+
+    /**
+     * Retrieves the open accounts of a holder.
+     * @param holder the account holder
+     * @return the holder's accounts in the order they were opened, empty if there are none
+     */
+    public List<Account> getAccounts(Profile holder) {
+        MappedAccountStore records = unread;
+        if (records != null) {
+            List<Account> owned = new List<>();
+            for (int row : heldRows(records, holder)) {
+                owned.add(lookUnread(records.key(row)));
+            }
+            return owned;
+        }
+        List<Account> owned = holderIndex.get(holder);
+        return owned == null ? new List<>() : owned;
+    }
+
+    /**
+     * Finds the records of a holder in a reopened ledger that is not fully listed, in row order.
+     * Only records with the holder's date of birth have their names read.
+     * @param records the ledger
+     * @param holder  the account holder
+     * @return the holder's rows
+     */
+    private static int[] heldRows(MappedAccountStore records, Profile holder) {
+        int[] rows = new int[4];
+        int n = 0;
+        for (int row = 0; row < records.size(); row++) {
+            if (records.heldBy(row, holder)) {
+                if (n == rows.length) {
+                    rows = Arrays.copyOf(rows, n * 2);
+                }
+                rows[n++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, n);
+    }
+
+    /**
+     * Looks up an open account by its 9 digit account number string.
+     * @param accountNumStr the account number as a string
+     * @return the account, or null if the number is invalid or no open account has it
+     */
+    public Account getAccount(String accountNumStr) {
+        int key = AccountNumber.parseKey(accountNumStr);
+        return key == -1 ? null : lookUp(key);
+    }
+
+    /**
+     * Looks up an open account by its account number.
+     * @param number the account number
+     * @return the account, or null if no open account has that number
+     */
+    public Account getAccount(AccountNumber number) {
+        return lookUp(number.getKey());
+    }
+
+    /**
+     * Looks up an open account by its account number's key.
+     */
+    private Account lookUp(int key) {
+        return unread == null ? numberIndex.get(key) : lookUnread(key);
     }
 
     /**
@@ -37,16 +511,41 @@ public class AccountDatabase extends List<Account> {
     }
 
     /**
-     * Print statements for all accounts.
+     * Returns one page of archived accounts, newest closures first.
+     * @param page     the page number, starting at 0
+     * @param pageSize the number of closures per page
+     * @return the closures on the page, one per line
+     */
+    public String printArchivePage(int page, int pageSize) {
+        return archive.printPage(page, pageSize);
+    }
+
+    /**
+     * Retrieves the archive of closed accounts, for close-date and holder queries.
+     * @return the archive
+     */
+    public Archive getArchive() {
+        return archive;
+    }
+
+    /**
+     * Print statements for all accounts, in list order, which is row order.
+     * Each statement is built from the account's row in the store, see {@link AccountStore#appendStatement}.
      */
     public String printStatements() {
         if (this.isEmpty()) {
             return "No accounts available.";
         }
 
+        if (journal != null) {
+            journal.statements(clock.today());
+        }
         StringBuilder statements = new StringBuilder();
-        for (Account acct : this) {
-            statements.append(acct.statement()).append("\n");
+        for (int row = 0; row < store.size(); row++) {
+            long before = store.balance(row);
+            touchRow(row);
+            store.appendStatement(statements, row).append("\n");
+            refreshLoyaltyAfter(row, before);
         }
         return statements.toString();
     }
@@ -60,17 +559,13 @@ public class AccountDatabase extends List<Account> {
             return "No accounts available.";
         }
 
-        Sort.account(this, 'T');  // Sort by Type
         StringBuilder sb = new StringBuilder();
         sb.append("*List of accounts ordered by account type and number.\n");
 
         String currentType = "";
-        DecimalFormat df = new DecimalFormat("#,##0.00");
-
-        for (Account account : this) {
-            updateLoyaltyStatus(account.getHolder());
 
-            String typeCode = account.getAccountNumber().getType().getCode();
+        for (int row : reportRows(byType, 'T')) {
+            String typeCode = store.type(row).getCode();
             String typeName = switch (typeCode) {
                 case "01" -> "CHECKING";
                 case "02" -> "SAVINGS";
@@ -88,30 +583,7 @@ public class AccountDatabase extends List<Account> {
                 currentType = typeName;
             }
 
-            String loyaltyTag = (account instanceof Savings savingsAcc && savingsAcc.isLoyal) ? " [LOYAL]" : "";
-
-            if (account instanceof MoneyMarket mmAccount) {
-                sb.append(String.format("Account#[%s] Holder[%s] Balance[$%s] Branch[%s]%s Withdrawal[%d]\n",
-                        mmAccount.getAccountNumber(), mmAccount.getHolder(), df.format(mmAccount.getBalance()),
-                        mmAccount.getAccountNumber().getBranch().name(),
-                        mmAccount.isLoyal() ? " [LOYAL]" : "",
-                        mmAccount.getWithdrawalCount()));
-            } else if (account instanceof CertificateDeposit cdAccount) {
-                sb.append(String.format("Account#[%s] Holder[%s] Balance[$%s] Branch[%s] Term[%d] Date opened[%s] Maturity date[%s]\n",
-                        cdAccount.getAccountNumber(), cdAccount.getHolder(), df.format(cdAccount.getBalance()),
-                        cdAccount.getAccountNumber().getBranch().name(), cdAccount.getTerm(),
-                        cdAccount.getOpenDate(), cdAccount.getMaturityDate()));
-            } else if (account instanceof CollegeChecking campusAcc) {
-                sb.append(String.format("Account#[%s] Holder[%s] Balance[$%s] Branch[%s] Campus[%s]\n",
-                        campusAcc.getAccountNumber(), campusAcc.getHolder(), df.format(campusAcc.getBalance()),
-                        campusAcc.getAccountNumber().getBranch().name(),
-                        campusAcc.getCampus().name()));
-            } else {
-                sb.append(String.format("Account#[%s] Holder[%s] Balance[$%s] Branch[%s]%s\n",
-                        account.getAccountNumber(), account.getHolder(), df.format(account.getBalance()),
-                        account.getAccountNumber().getBranch().name(),
-                        loyaltyTag));
-            }
+            appendReportLine(sb, row);
         }
 
         sb.append("*end of list.");
@@ -128,20 +600,13 @@ public class AccountDatabase extends List<Account> {
             return "No accounts available.";
         }
 
-        Sort.account(this, 'B');
-
         StringBuilder sb = new StringBuilder();
         sb.append("*List of accounts ordered by branch location (county, city).\n");
 
         String currentCounty = "";
-        String currentCity = "";
-        DecimalFormat df = new DecimalFormat("#,##0.00");
-
-        for (Account account : this) {
-            updateLoyaltyStatus(account.getHolder());
 
-            String county = account.getAccountNumber().getBranch().getCounty();
-            String city = account.getAccountNumber().getBranch().name();
+        for (int row : reportRows(byBranch, 'B')) {
+            String county = store.branch(row).getCounty();
 
             if (!county.equals(currentCounty)) {
                 if (!currentCounty.isEmpty()) {
@@ -149,33 +614,9 @@ public class AccountDatabase extends List<Account> {
                 }
                 sb.append("County: ").append(county).append("\n");
                 currentCounty = county;
-                currentCity = city;
             }
 
-            String loyaltyTag = (account instanceof Savings savingsAcc && savingsAcc.isLoyal) ? " [LOYAL]" : "";
-
-            if (account instanceof MoneyMarket mmAccount) {
-                sb.append(String.format("Account#[%s] Holder[%s] Balance[$%s] Branch[%s]%s Withdrawal[%d]\n",
-                        mmAccount.getAccountNumber(), mmAccount.getHolder(), df.format(mmAccount.getBalance()),
-                        mmAccount.getAccountNumber().getBranch().name(),
-                        mmAccount.isLoyal() ? " [LOYAL]" : "",
-                        mmAccount.getWithdrawalCount()));
-            } else if (account instanceof CertificateDeposit cdAccount) {
-                sb.append(String.format("Account#[%s] Holder[%s] Balance[$%s] Branch[%s] Term[%d] Date opened[%s] Maturity date[%s]\n",
-                        cdAccount.getAccountNumber(), cdAccount.getHolder(), df.format(cdAccount.getBalance()),
-                        cdAccount.getAccountNumber().getBranch().name(), cdAccount.getTerm(),
-                        cdAccount.getOpenDate(), cdAccount.getMaturityDate()));
-            } else if (account instanceof CollegeChecking campusAcc) {
-                sb.append(String.format("Account#[%s] Holder[%s] Balance[$%s] Branch[%s] Campus[%s]\n",
-                        campusAcc.getAccountNumber(), campusAcc.getHolder(), df.format(campusAcc.getBalance()),
-                        campusAcc.getAccountNumber().getBranch().name(),
-                        campusAcc.getCampus().name()));
-            } else {
-                sb.append(String.format("Account#[%s] Holder[%s] Balance[$%s] Branch[%s]%s\n",
-                        account.getAccountNumber(), account.getHolder(), df.format(account.getBalance()),
-                        account.getAccountNumber().getBranch().name(),
-                        loyaltyTag));
-            }
+            appendReportLine(sb, row);
         }
 
         sb.append("*end of list.");
@@ -192,148 +633,244 @@ public class AccountDatabase extends List<Account> {
             return "No accounts available.";
         }
 
-        Sort.account(this, 'H'); // Sorting by Holder
-
         StringBuilder sb = new StringBuilder();
         sb.append("*List of accounts ordered by account holder and number.\n");
 
-        DecimalFormat df = new DecimalFormat("#,##0.00");
 
-        for (Account account : this) {
-            updateLoyaltyStatus(account.getHolder()); // Ensure loyalty status is updated
+        for (int row : reportRows(byHolder, 'H')) {
+            appendReportLine(sb, row);
+        }
 
-            String loyaltyTag = (account instanceof Savings savingsAcc && savingsAcc.isLoyal) ? " [LOYAL]" : "";
+        sb.append("*end of list.");
+        return sb.toString();
+    }
 
-            if (account instanceof MoneyMarket mmAccount) {
-                sb.append(String.format("Account#[%s] Holder[%s] Balance[$%s] Branch[%s]%s Withdrawal[%d]\n",
-                        mmAccount.getAccountNumber(), mmAccount.getHolder(), df.format(mmAccount.getBalance()),
-                        mmAccount.getAccountNumber().getBranch().name(),
-                        mmAccount.isLoyal() ? " [LOYAL]" : "",
-                        mmAccount.getWithdrawalCount()));
-            }
-            else if (account instanceof CertificateDeposit cdAccount) {
-                sb.append(String.format("Account#[%s] Holder[%s] Balance[$%s] Branch[%s] Term[%d] Date opened[%s] Maturity date[%s]\n",
-                        cdAccount.getAccountNumber(), cdAccount.getHolder(), df.format(cdAccount.getBalance()),
-                        cdAccount.getAccountNumber().getBranch().name(), cdAccount.getTerm(),
-                        cdAccount.getOpenDate(), cdAccount.getMaturityDate()));
+    /**
+     * Lists the rows of the open accounts in a report's order, from the report's sorted view.
+     * While a reopened ledger is not fully listed, its records are sorted by their packed numbers instead,
+     * and by their holders for the holder report, without reading their accounts.
+     * @param view the report's sorted view
+     * @param key  the report's sorting criteria, see {@link Sort#view(char)}
+     * @return the rows in report order
+     */
+    private int[] reportRows(SortedView<Account> view, char key) {
+        MappedAccountStore records = unread;
+        if (records == null) {
+            int[] rows = new int[super.size()];
+            int i = 0;
+            for (Account account : view) {
+                rows[i++] = account.row;
             }
-            else if (account instanceof CollegeChecking campusAcc) {
-                sb.append(String.format("Account#[%s] Holder[%s] Balance[$%s] Branch[%s] Campus[%s]\n",
-                        campusAcc.getAccountNumber(), campusAcc.getHolder(), df.format(campusAcc.getBalance()),
-                        campusAcc.getAccountNumber().getBranch().name(),
-                        campusAcc.getCampus().name()));
+            return rows;
+        }
+        int count = records.size();
+        int[] rows = new int[count];
+        if (key != 'H') {
+            long[] keys = new long[count];
+            for (int row = 0; row < count; row++) {
+                keys[row] = Sort.sortKey(records.key(row), key);
             }
-            else {
-                sb.append(String.format("Account#[%s] Holder[%s] Balance[$%s] Branch[%s]%s\n",
-                        account.getAccountNumber(), account.getHolder(), df.format(account.getBalance()),
-                        account.getAccountNumber().getBranch().name(),
-                        loyaltyTag));
+            Arrays.sort(keys);
+            for (int i = 0; i < count; i++) {
+                rows[i] = records.find((int) keys[i]); // the account number is the low half of the key
             }
+            return rows;
         }
+        Profile[] holders = new Profile[count];
+        Integer[] order = new Integer[count];
+        for (int row = 0; row < count; row++) {
+            holders[row] = records.holder(row);
+            order[row] = row;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int cmp = holders[a].compareTo(holders[b]);
+            return cmp != 0 ? cmp : Integer.compare(records.key(a), records.key(b));
+        });
+        for (int i = 0; i < count; i++) {
+            rows[i] = order[i];
+        }
+        return rows;
+    }
 
-        sb.append("*end of list.");
-        return sb.toString();
+    /**
+     * Appends one account's line of the PT, PB and PH reports, reading only the account's row in the store.
+     * @param sb  the report being built
+     * @param row the account's row
+     */
+    private void appendReportLine(StringBuilder sb, int row) {
+        Branch branch = store.branch(row);
+        sb.append("Account#[");
+        AccountNumber.appendKey(sb, store.key(row)).append("] Holder[").append(store.holder(row)).append("] Balance[$");
+        Money.format(sb, store.balance(row)).append("] Branch[").append(branch.name()).append(']');
+
+        switch (store.type(row)) {
+            case MONEY_MARKET:
+                sb.append(store.loyal(row) ? " [LOYAL]" : "")
+                        .append(" Withdrawal[").append(store.withdrawals(row)).append(']');
+                break;
+            case CD:
+                Date opened = Date.ofEpochDay(store.openDate(row));
+                sb.append(" Term[").append(store.term(row))
+                        .append("] Date opened[").append(opened)
+                        .append("] Maturity date[").append(opened.plusMonths(store.term(row))).append(']');
+                break;
+            case COLLEGE_CHECKING:
+                sb.append(" Campus[").append(store.campus(row).name()).append(']');
+                break;
+            case SAVINGS:
+                sb.append(store.loyal(row) ? " [LOYAL]" : "");
+                break;
+            default:
+                break;
+        }
+        sb.append('\n');
     }
 
 
     /**
-     * Loads accounts from a file.
+     * Loads accounts from a file, streaming it through an {@link AccountLoader}.
+     * Lines that do not describe a valid account are skipped, and reported in the result.
      * @param file the given file to load accounts from
+     * @return the counts, rejected lines and throughput of the load
+     * @throws IOException if the file cannot be read
      */
-    public void loadAccounts(File file) throws IOException {
-        Scanner sc = new Scanner(file);
-        while (sc.hasNextLine()) {
-            String line = sc.nextLine().trim();
-            if (line.isEmpty()) continue;
+    public AccountLoader.Result loadAccounts(File file) throws IOException {
+        ensureCapacity(size() + estimateLines(file));
+        return new AccountLoader(this).load(file);
+    }
 
-            StringTokenizer tokens = new StringTokenizer(line, ",");
-            if (tokens.countTokens() < 6) {
-                continue;
-            }
+    /**
+     * Estimates the number of lines in a text file from its size, to pre-size lists before loading it.
+     * @param file the file to be read
+     * @return the estimated line count
+     */
+    private static int estimateLines(File file) {
+        return (int) Math.min(Integer.MAX_VALUE - 8, file.length() / ESTIMATED_LINE_BYTES + 1);
+    }
 
-            String type = tokens.nextToken().trim().toLowerCase();
-            String branch = tokens.nextToken().trim().toUpperCase();
-            String fname = tokens.nextToken().trim();
-            String lname = tokens.nextToken().trim();
-            String dobStr = tokens.nextToken().trim();
-            String depositStr = tokens.nextToken().trim();
-
-            double deposit;
-            try {
-                deposit = Double.parseDouble(depositStr);
-            } catch (NumberFormatException e) {
-                continue;
-            }
+    /**
+     * Sets how many recent transaction ids are remembered to skip repeated activity lines:
+     * at least the given number, and at most twice as many. Ids seen so far are forgotten.
+     * @param ids the number of ids, at least 1
+     */
+    public void setTransactionWindow(int ids) {
+        if (ids < 1) {
+            throw new IllegalArgumentException("At least 1 transaction id must be remembered.");
+        }
+        transactionWindow = ids;
+        transactionIds = null;
+    }
 
-            Date dob = new Date(dobStr);
-            if (!dob.isValid()) {
-                continue;
-            }
+    /**
+     * Retrieves the transaction ids seen recently, creating the set the first time.
+     * @return the transaction ids
+     */
+    TransactionIds transactionIds() {
+        if (transactionIds == null) {
+            transactionIds = new TransactionIds(transactionWindow);
+        }
+        return transactionIds;
+    }
 
-            Profile profile = new Profile(fname, lname, dob);
-            Account newAccount = null;
-
-            try {
-                Branch branchEnum = Branch.valueOf(branch);
-
-                switch (type) {
-                    case "checking":
-                        newAccount = new Checking(new AccountNumber(branchEnum, AccountType.CHECKING), profile, deposit);
-                        break;
-                    case "savings":
-                        newAccount = new Savings(new AccountNumber(branchEnum, AccountType.SAVINGS), profile, deposit);
-                        break;
-                    case "moneymarket":
-                        newAccount = new MoneyMarket(new AccountNumber(branchEnum, AccountType.MONEY_MARKET), profile, deposit);
-                        break;
-                    case "college":
-                        if (!tokens.hasMoreTokens()) {
-                            continue;
-                        }
-                        String campusCode = tokens.nextToken().trim();
-                        Campus campus = Campus.fromCode(campusCode);
-                        if (campus == null) {
-                            continue;
-                        }
-                        newAccount = new CollegeChecking(new AccountNumber(branchEnum, AccountType.COLLEGE_CHECKING), profile, deposit, campus);
-                        break;
-                    case "certificate":
-                        if (tokens.countTokens() < 2) {
-                            continue;
-                        }
-                        int term = Integer.parseInt(tokens.nextToken().trim());
-                        String openDateStr = tokens.nextToken().trim();
-                        Date openDate = new Date(openDateStr);
-                        if (!openDate.isValid()) {
-                            continue;
-                        }
-                        newAccount = new CertificateDeposit(new AccountNumber(branchEnum, AccountType.CD), profile, deposit, term, openDate);
-                        break;
-                    default:
-                        continue;
-                }
-            } catch (IllegalArgumentException e) {
-                continue;
-            }
+    /**
+     * Opens a batch in the journal: the changes journaled until {@link #commitBatch()} are replayed together or not at all.
+     * No other change may be made meanwhile.
+     */
+    void beginBatch() {
+        if (journal != null) {
+            journal.beginBatch(clock.today());
+        }
+    }
 
-            if (newAccount != null) {
-                this.add(newAccount);
-            }
+    /**
+     * Commits the batch opened by {@link #beginBatch()}, so replay applies its changes.
+     */
+    void commitBatch() {
+        if (journal != null) {
+            journal.commitBatch(clock.today());
+        }
+    }
 
-            for (Account acc : this) {
-                updateLoyaltyStatus(acc.getHolder());
-            }
+    /**
+     * Retrieves the offset an activity feed reached in a file, as journaled and checkpointed with the postings.
+     * @param path the file's absolute path
+     * @return the offset, or -1 if no feed reached one in this database
+     */
+    long feedOffset(String path) {
+        return feedOffsets.get(path);
+    }
+
+    /**
+     * Records the offset an activity feed reached in a file, once the lines before it are posted,
+     * and journals it after their postings.
+     * @param path   the file's absolute path
+     * @param offset the number of bytes of the file applied
+     */
+    void feedReached(String path, long offset) {
+        if (journal != null) {
+            journal.feedReached(path, offset, clock.today());
+        }
+        feedOffsets.set(path, offset);
+    }
+
+    /**
+     * Retrieves the offsets activity feeds reached, to save them with a snapshot or checkpoint.
+     * @return the offsets
+     */
+    FeedOffsets feedOffsets() {
+        return feedOffsets;
+    }
+
+    /**
+     * Claims a transaction id after its posting succeeded, so later lines carrying it are skipped,
+     * and lists it for the next checkpoint. Postings of different holders may claim from different threads.
+     * @param fp the id's fingerprint, from {@link TransactionIds#fingerprint(String)}
+     */
+    synchronized void claimTransaction(long fp) {
+        transactionIds().add(fp);
+        if (changes != null) {
+            changes.claim(fp);
+        }
+    }
 
+    /**
+     * Retrieves the number of bytes {@link #writeTransactionIds(ByteBuffer)} writes.
+     * @return the size of the remembered transaction ids
+     */
+    long transactionIdBytes() {
+        return 4 + 8L * (transactionIds == null ? 0 : transactionIds.size());
+    }
+
+    /**
+     * Writes the remembered transaction ids to a snapshot: their count, then their fingerprints.
+     * @param out the buffer to write to
+     */
+    void writeTransactionIds(ByteBuffer out) {
+        if (transactionIds == null) {
+            out.putInt(0);
+        } else {
+            transactionIds.writeTo(out);
+        }
+    }
+
+    /**
+     * Remembers the transaction ids saved in a snapshot or checkpoint, in the order they were written.
+     * @param in the buffer, positioned at the ids' count
+     */
+    void readTransactionIds(ByteBuffer in) {
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            transactionIds().add(in.getLong());
         }
-        sc.close();
     }
 
     /**
      * Processes the deposit and withdraw activities from a file.
+     * A line may end with a transaction id; a line whose id was seen recently is skipped.
      * @param file The given file to process activities from
      */
     public List<String> processActivities(File file) {
-        List<String> messages = new List<>();
+        List<String> messages = new List<>(estimateLines(file) + 2);
 
         try {
             Scanner fileScanner = new Scanner(file);
@@ -343,39 +880,7 @@ public class AccountDatabase extends List<Account> {
                 String line = fileScanner.nextLine().trim();
                 if (line.isEmpty()) continue;
 
-                StringTokenizer tokens = new StringTokenizer(line, ",");
-                if (tokens.countTokens() < 5) {
-                    messages.add("Invalid transaction format: " + line);
-                    continue;
-                }
-
-                String type = tokens.nextToken().trim();
-                String accountNum = tokens.nextToken().trim();
-                String date = tokens.nextToken().trim();
-                String location = tokens.nextToken().trim().toUpperCase();
-                String amountStr = tokens.nextToken().trim();
-
-                double amount;
-                try {
-                    amount = Double.parseDouble(amountStr);
-                } catch (NumberFormatException e) {
-                    messages.add("Invalid amount format: " + amountStr);
-                    continue;
-                }
-
-                boolean success = false;
-                if (type.equals("D")) {
-                    success = deposit(accountNum, amount);
-                } else if (type.equals("W")) {
-                    success = withdraw(accountNum, amount);
-                }
-
-                if (success) {
-                    messages.add(String.format("%s::%s::%s[ATM]::%s::$%,.2f",
-                            accountNum, date, location, type.equals("D") ? "deposit" : "withdrawal", amount));
-                } else {
-                    messages.add("Transaction failed for account: " + accountNum);
-                }
+                messages.add(ActivityIngest.apply(this, ActivityIngest.parse(line)));
             }
 
             fileScanner.close();
@@ -387,108 +892,266 @@ public class AccountDatabase extends List<Account> {
         return messages;
     }
 
+    /**
+     * Processes the deposit and withdraw activities from a file in parallel on the common fork-join pool.
+     * @param file The given file to process activities from
+     * @return the same messages as {@link #processActivities(File)}, in file order
+     */
+    public List<String> processActivitiesParallel(File file) {
+        return processActivitiesParallel(file, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Processes the deposit and withdraw activities from a file in parallel.
+     * The file is parsed in chunks, and postings are applied concurrently in partitions by account holder,
+     * so each account sees its postings in file order. No other thread may change the database meanwhile.
+     * @param file The given file to process activities from
+     * @param pool the pool to parse and apply on
+     * @return the same messages as {@link #processActivities(File)}, in file order
+     */
+    public List<String> processActivitiesParallel(File file, ForkJoinPool pool) {
+        List<String> messages = new List<>(estimateLines(file) + 2);
+        try {
+            String[] results = ActivityIngest.run(this, file, pool);
+            messages.add("Processing \"" + file.getName() + "\"...");
+            messages.addAll(results);
+            messages.add("Account activities in \"" + file.getName() + "\" processed.");
+        } catch (IOException e) {
+            messages.add("Error processing file: " + e.getMessage());
+        }
+        return messages;
+    }
+
+    /**
+     * Applies the activities of a file all or nothing, validating on the common fork-join pool.
+     * @param file the activities file
+     * @return whether the file was applied, and every line that failed validation and why
+     * @throws IOException if the file cannot be read
+     */
+    public ActivityBatch.Result processActivitiesBatch(File file) throws IOException {
+        return processActivitiesBatch(file, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Applies the activities of a file all or nothing. Every line is validated in parallel first: it must parse,
+     * name a deposit or withdrawal to an open account and a transaction id not seen before, and each withdrawal must
+     * be covered by the balance the lines before it leave. The postings are applied only if every line passes.
+     * No other thread may change the database meanwhile.
+     * @param file the activities file
+     * @param pool the pool to parse and validate on
+     * @return whether the file was applied, and every line that failed validation and why
+     * @throws IOException if the file cannot be read
+     */
+    public ActivityBatch.Result processActivitiesBatch(File file, ForkJoinPool pool) throws IOException {
+        return new ActivityBatch(this, pool).run(file);
+    }
 
     /**
      * Updates the loyalty status of a given account holder based on account ownership and balance.
+     * Only the holder's own accounts are visited, through the holder index.
      * @param holder the account holder whose loyalty status needs to be updated
      */
     public void updateLoyaltyStatus(Profile holder) {
+        MappedAccountStore records = unread;
+        if (records != null) {
+            updateLoyaltyRows(records, holder);
+            return;
+        }
+        List<Account> owned = holderIndex.get(holder);
+        if (owned == null) {
+            return;
+        }
         boolean hasRegularChecking = false;
         boolean hasMoneyMarketWithEnoughBalance = false;
 
         // Check if the holder has a regular checking account or a qualifying Money Market account
-        for (Account acc : this) {
-            if (acc instanceof Checking && acc.getHolder().equals(holder)) {
+        for (Account acc : owned) {
+            if (acc instanceof Checking) {
                 hasRegularChecking = true;
             }
-            if (acc instanceof MoneyMarket && acc.getHolder().equals(holder) && acc.getBalance() >= 5000) {
+            if (acc instanceof MoneyMarket && acc.getBalanceCents() >= MoneyMarket.LOYALTY_BALANCE) {
                 hasMoneyMarketWithEnoughBalance = true;
             }
         }
 
         // Update only Savings and Money Market accounts
-        for (Account acc : this) {
-            if (acc instanceof Savings && !(acc instanceof CertificateDeposit) && acc.getHolder().equals(holder)) {
-                ((Savings) acc).setLoyal(hasRegularChecking);
-            }
-            if (acc instanceof MoneyMarket && acc.getHolder().equals(holder)) {
+        for (Account acc : owned) {
+            if (acc instanceof MoneyMarket) {
+                if (((MoneyMarket) acc).isLoyal() != hasMoneyMarketWithEnoughBalance) {
+                    touch(acc);
+                }
                 ((MoneyMarket) acc).setLoyal(hasMoneyMarketWithEnoughBalance);
+            } else if (acc instanceof Savings && !(acc instanceof CertificateDeposit)) {
+                if (((Savings) acc).isLoyal() != hasRegularChecking) {
+                    touch(acc);
+                }
+                ((Savings) acc).setLoyal(hasRegularChecking);
             }
         }
     }
 
+    /**
+     * Updates the loyalty status of a holder's records in a reopened ledger that is not fully listed,
+     * by the same rules as {@link #updateLoyaltyStatus(Profile)}. The flags are written to the records;
+     * an account is read only if its flag changes while changes are tracked.
+     * @param records the ledger
+     * @param holder  the account holder
+     */
+    private void updateLoyaltyRows(MappedAccountStore records, Profile holder) {
+        int[] owned = heldRows(records, holder);
+        boolean hasRegularChecking = false;
+        boolean hasMoneyMarketWithEnoughBalance = false;
+        for (int row : owned) {
+            AccountType type = records.type(row);
+            if (type == AccountType.CHECKING || type == AccountType.COLLEGE_CHECKING) {
+                hasRegularChecking = true;
+            }
+            if (type == AccountType.MONEY_MARKET && records.balance(row) >= MoneyMarket.LOYALTY_BALANCE) {
+                hasMoneyMarketWithEnoughBalance = true;
+            }
+        }
+        for (int row : owned) {
+            AccountType type = records.type(row);
+            boolean loyal = type == AccountType.MONEY_MARKET ? hasMoneyMarketWithEnoughBalance : hasRegularChecking;
+            if ((type == AccountType.MONEY_MARKET || type == AccountType.SAVINGS) && records.loyal(row) != loyal) {
+                touchRow(row);
+                records.setLoyal(row, loyal);
+            }
+        }
+    }
 
+    /**
+     * Refreshes the holder's loyalty status if a Money Market balance crossed the loyalty threshold.
+     * @param acct   the account whose balance changed
+     * @param before the balance before the change, in cents
+     */
+    private void refreshLoyaltyAfter(Account acct, long before) {
+        refreshLoyaltyAfter(acct.row, before);
+    }
 
-
+    /**
+     * Refreshes the holder's loyalty status if the Money Market balance in a row crossed the loyalty threshold.
+     * @param row    the row whose balance changed
+     * @param before the balance before the change, in cents
+     */
+    private void refreshLoyaltyAfter(int row, long before) {
+        if (store.type(row) == AccountType.MONEY_MARKET
+                && (before >= MoneyMarket.LOYALTY_BALANCE) != (store.balance(row) >= MoneyMarket.LOYALTY_BALANCE)) {
+            updateLoyaltyStatus(store.holder(row));
+        }
+    }
 
     /**
      * Deposits to an account given its 9 digit account number string.
      * @param accountNumStr the account number as a string
-     * @param amount the deposit amount
+     * @param amount the deposit amount, in dollars
      * @return true if successful, false otherwise.
      */
     public boolean deposit(String accountNumStr, double amount) {
-        AccountNumber num = buildAccountNumberFromString(accountNumStr);
-        if (num == null) {
+        return depositCents(accountNumStr, Money.ofDollars(amount));
+    }
+
+    /**
+     * Deposits to an account given its 9 digit account number string.
+     * @param accountNumStr the account number as a string
+     * @param cents the deposit amount, in cents
+     * @return true if successful, false otherwise.
+     */
+    public boolean depositCents(String accountNumStr, long cents) {
+        Account acct = getAccount(accountNumStr);
+        if (acct == null) {
             return false;
         }
-        for (Account acct : this) {
-            if (acct.getAccountNumber().equals(num)) {
-                acct.deposit(amount);
-                return true;
-            }
+        depositTo(acct, cents);
+        return true;
+    }
+
+    /**
+     * Deposits to an open account and refreshes its holder's loyalty status if needed.
+     * @param acct  the account
+     * @param cents the deposit amount, in cents
+     */
+    void depositTo(Account acct, long cents) {
+        depositTo(acct, cents, 0);
+    }
+
+    /**
+     * Deposits to an open account, claims the posting's transaction id and refreshes its holder's loyalty status if needed.
+     * The id is journaled with the posting.
+     * @param acct  the account
+     * @param cents the deposit amount, in cents
+     * @param txn   the fingerprint of the posting's transaction id, 0 if it has none
+     */
+    void depositTo(Account acct, long cents, long txn) {
+        long before = acct.getBalanceCents();
+        Date today = clock.today();
+        touch(acct);
+        if (journal != null) {
+            journal.deposited(acct, cents, txn, today);
+        }
+        acct.deposit(cents, today);
+        if (txn != 0) {
+            claimTransaction(txn);
         }
-        return false;
+        refreshLoyaltyAfter(acct, before);
     }
 
     /**
      * Withdraws from an account given its 9 digit account number string.
      * @param accountNumStr the account number as a string
-     * @param amount the withdrawal amount
+     * @param amount the withdrawal amount, in dollars
      * @return true if successful, false otherwise.
      */
     public boolean withdraw(String accountNumStr, double amount) {
-        AccountNumber num = buildAccountNumberFromString(accountNumStr);
-        if (num == null)
+        return withdrawCents(accountNumStr, Money.ofDollars(amount));
+    }
+
+    /**
+     * Withdraws from an account given its 9 digit account number string.
+     * @param accountNumStr the account number as a string
+     * @param cents the withdrawal amount, in cents
+     * @return true if successful, false otherwise.
+     */
+    public boolean withdrawCents(String accountNumStr, long cents) {
+        Account acct = getAccount(accountNumStr);
+        if (acct == null)
             return false;
-        for (Account acct : this) {
-            if (acct.getAccountNumber().equals(num)) {
-                if (acct.getBalance() < amount)
-                    return false;
-                acct.withdraw(amount);
-                return true;
-            }
-        }
-        return false;
+        return withdrawFrom(acct, cents);
     }
 
     /**
-     * Helper method to build an AccountNumber from a 9 digit string.
+     * Withdraws from an open account if the balance covers it, and refreshes its holder's loyalty status if needed.
+     * @param acct  the account
+     * @param cents the withdrawal amount, in cents
+     * @return true if successful, false if the balance is too low
      */
-    AccountNumber buildAccountNumberFromString(String s) {
-        if (s.length() != 9)
-            return null;
-        String branchCode = s.substring(0, 3);
-        String typeCode = s.substring(3, 5);
-        String serial = s.substring(5);
-        Branch branch = null;
-        for (Branch b : Branch.values()) {
-            if (b.getBranchCode().equals(branchCode)) {
-                branch = b;
-                break;
-            }
+    boolean withdrawFrom(Account acct, long cents) {
+        return withdrawFrom(acct, cents, 0);
+    }
+
+    /**
+     * Withdraws from an open account if the balance covers it, claims the posting's transaction id only then,
+     * and refreshes its holder's loyalty status if needed. The id is journaled with the posting.
+     * @param acct  the account
+     * @param cents the withdrawal amount, in cents
+     * @param txn   the fingerprint of the posting's transaction id, 0 if it has none
+     * @return true if successful, false if the balance is too low
+     */
+    boolean withdrawFrom(Account acct, long cents, long txn) {
+        long before = acct.getBalanceCents();
+        if (before < cents)
+            return false;
+        Date today = clock.today();
+        touch(acct);
+        if (journal != null) {
+            journal.withdrew(acct, cents, txn, today);
         }
-        if (branch == null)
-            return null;
-        AccountType type = AccountType.fromCode(typeCode);
-        if (type == null)
-            return null;
-        try {
-            Integer.parseInt(serial);
-        } catch (NumberFormatException e) {
-            return null;
+        acct.withdraw(cents, today);
+        if (txn != 0) {
+            claimTransaction(txn);
         }
-        return new AccountNumber(branch, type, serial);
+        refreshLoyaltyAfter(acct, before);
+        return true;
     }
 
     /**
@@ -497,19 +1160,115 @@ public class AccountDatabase extends List<Account> {
      * @param closingDate the date when the account is closed
      */
     public void remove(Account acct, Date closingDate) {
-        int index = -1;
-        for (int i = 0; i < this.size(); i++) {
-            if (this.get(i).equals(acct)) {
-                index = i;
-                break;
-            }
-        }
+        int index = indexOfAccount(acct);
         if (index == -1)
             return;
-        acct.setBalance(0);
-        archive.add(acct, closingDate);
-        this.set(index, this.get(this.size() - 1));
-        this.remove(this.get(this.size() - 1));
+        if (journal != null) {
+            journal.closed(acct, closingDate, clock.today());
+        }
+        long finalBalance = acct.getBalanceCents();
+        acct.setBalanceCents(0);
+        archive.add(acct, closingDate, finalBalance);
+        closeAt(index);
+    }
+
+    /**
+     * Replays the removal of an account recorded in a checkpoint; the archive already holds any closure.
+     * @param acct the account
+     * @param kind ChangeSet.CLOSE for a closing, ChangeSet.DROP for a removal without archiving
+     */
+    void replayRemoval(Account acct, int kind) {
+        if (kind == ChangeSet.DROP) {
+            remove(acct);
+            return;
+        }
+        int index = indexOfAccount(acct);
+        if (index != -1) {
+            acct.setBalanceCents(0);
+            closeAt(index);
+        }
+    }
+
+    /**
+     * Takes a closed account out of the database, moving the last account into its place.
+     */
+    private void closeAt(int index) {
+        Account acct = store.view(index);
+        takeOut(index);
+        if (changes != null) {
+            changes.record(acct, ChangeSet.CLOSE);
+        }
         updateLoyaltyStatus(acct.getHolder());
     }
+
+    /**
+     * Counts the open accounts, without reading a reopened ledger's records.
+     * @return the number of open accounts
+     */
+    @Override
+    public int size() {
+        MappedAccountStore records = unread;
+        return records != null ? records.size() : super.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean contains(Account acct) {
+        readLedger();
+        return super.contains(acct);
+    }
+
+    /**
+     * Not supported: removing by position would bypass the indexes, the store and the journal.
+     * Use {@link #remove(Account)} or {@link #remove(Account, Date)}.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public Account removeAt(int index) {
+        throw new UnsupportedOperationException("Remove accounts with remove(Account) or remove(Account, Date).");
+    }
+
+    @Override
+    public Account get(int index) {
+        readLedger();
+        return super.get(index);
+    }
+
+    /**
+     * Not supported: replacing by position would bypass the indexes, the store and the journal.
+     * Use {@link #remove(Account)} and {@link #add(Account)}.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void set(int index, Account acct) {
+        throw new UnsupportedOperationException("Replace accounts with remove(Account) and add(Account).");
+    }
+
+    @Override
+    public int indexOf(Account acct) {
+        readLedger();
+        return super.indexOf(acct);
+    }
+
+    @Override
+    public Account[] getObjects() {
+        readLedger();
+        return super.getObjects();
+    }
+
+    @Override
+    public Iterator<Account> iterator() {
+        readLedger();
+        return super.iterator();
+    }
+
+    @Override
+    public String toString() {
+        readLedger();
+        return super.toString();
+    }
 }
@@ -0,0 +1,438 @@
+package com.example.project3.sourcefiles;
+
+import com.example.project3.util.Date;
+import com.example.project3.util.Money;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Loads accounts.txt into a database by streaming the file through a byte buffer.
+ * Lines are split and fields are matched in place, against the bytes in the buffer; the only strings built
+ * are the holder's names. Every rejected line is reported with its line number and the reason it was rejected,
+ * and the load reports how fast it went.
+ * A line is "type,branch,first name,last name,date of birth,initial deposit", followed by the campus code for
+ * college checking, or the term and open date for a certificate of deposit. Blank lines are skipped.
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+public class AccountLoader {
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final int MAX_FIELDS = 8;
+    private static final Branch[] BRANCHES = Branch.values();
+    private static final Campus[] CAMPUSES = Campus.values();
+
+    /**
+     * Why a line of accounts.txt was not loaded.
+     */
+    public enum Rejection {
+        MISSING_FIELDS,
+        BAD_AMOUNT,
+        BAD_DATE_OF_BIRTH,
+        UNKNOWN_BRANCH,
+        UNKNOWN_TYPE,
+        BAD_CAMPUS,
+        BAD_TERM,
+        BAD_OPEN_DATE,
+        NO_SERIALS
+    }
+
+    /**
+     * The outcome of a load: how many accounts were added, which lines were rejected and why, and how long it took.
+     */
+    public static final class Result {
+        private int lines;
+        private int loaded;
+        private long bytes;
+        private long nanos;
+        private int rejected;
+        private int[] rejectedLines = new int[8];
+        private byte[] reasons = new byte[8];
+        private final int[] counts = new int[Rejection.values().length];
+
+        private void reject(int line, Rejection reason) {
+            if (rejected == rejectedLines.length) {
+                rejectedLines = Arrays.copyOf(rejectedLines, rejected * 2);
+                reasons = Arrays.copyOf(reasons, rejected * 2);
+            }
+            rejectedLines[rejected] = line;
+            reasons[rejected++] = (byte) reason.ordinal();
+            counts[reason.ordinal()]++;
+        }
+
+        /**
+         * Retrieves the number of lines read, blank ones included.
+         * @return the number of lines
+         */
+        public int getLines() {
+            return lines;
+        }
+
+        /**
+         * Retrieves the number of accounts added to the database.
+         * @return the number of accounts loaded
+         */
+        public int getLoaded() {
+            return loaded;
+        }
+
+        /**
+         * Retrieves the number of lines that were rejected.
+         * @return the number of rejected lines
+         */
+        public int getRejected() {
+            return rejected;
+        }
+
+        /**
+         * Retrieves the line number of a rejected line.
+         * @param i the index of the rejection, in file order
+         * @return the line number, starting at 1
+         */
+        public int getRejectedLine(int i) {
+            return rejectedLines[i];
+        }
+
+        /**
+         * Retrieves why a line was rejected.
+         * @param i the index of the rejection, in file order
+         * @return the reason
+         */
+        public Rejection getRejection(int i) {
+            return Rejection.values()[reasons[i]];
+        }
+
+        /**
+         * Counts the lines rejected for a reason.
+         * @param reason the reason
+         * @return the number of lines rejected for it
+         */
+        public int count(Rejection reason) {
+            return counts[reason.ordinal()];
+        }
+
+        /**
+         * Retrieves the size of the file that was read.
+         * @return the number of bytes read
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Retrieves how long the load took.
+         * @return the elapsed time in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Computes the load's throughput in lines.
+         * @return lines read per second
+         */
+        public double linesPerSecond() {
+            return nanos == 0 ? 0 : lines * 1e9 / nanos;
+        }
+
+        /**
+         * Computes the load's throughput in bytes.
+         * @return megabytes read per second
+         */
+        public double megabytesPerSecond() {
+            return nanos == 0 ? 0 : bytes * 1e9 / nanos / (1 << 20);
+        }
+
+        /**
+         * Returns a one-line summary of the load.
+         * @return the counts and throughput of the load
+         */
+        @Override
+        public String toString() {
+            return String.format("%d accounts loaded, %d lines rejected, %d lines in %.1f ms (%.0f lines/s, %.1f MB/s)",
+                    loaded, rejected, lines, nanos / 1e6, linesPerSecond(), megabytesPerSecond());
+        }
+    }
+
+    /**
+     * A view of part of the buffer as characters, so the text parsers can read a field without a substring.
+     * Characters are read one per byte, which suits the ASCII fields; toString() decodes the bytes as UTF-8, for names.
+     */
+    private static final class Field implements CharSequence {
+        private byte[] bytes;
+        private int from;
+        private int to;
+
+        Field set(byte[] bytes, int from, int to) {
+            this.bytes = bytes;
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return to - from;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[from + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        boolean equalsIgnoreCase(String s) {
+            if (s.length() != to - from)
+                return false;
+            for (int i = 0; i < s.length(); i++) {
+                if (Character.toUpperCase(charAt(i)) != Character.toUpperCase(s.charAt(i)))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+        }
+    }
+
+    private final AccountDatabase db;
+    private final int[] starts = new int[MAX_FIELDS];
+    private final int[] ends = new int[MAX_FIELDS];
+    private final Field field = new Field();
+    // branch and type pairs that ran out of serials during this load; nothing frees a serial while loading
+    private final boolean[] exhausted = new boolean[BRANCHES.length * AccountType.values().length];
+
+    /**
+     * Constructs a loader adding accounts to the given database.
+     * @param db the database to load into
+     */
+    public AccountLoader(AccountDatabase db) {
+        this.db = db;
+    }
+
+    /**
+     * Loads every line of a file, adding each valid account to the database in file order.
+     * @param file the accounts file
+     * @return the counts, rejections and throughput of the load
+     * @throws IOException if the file cannot be read
+     */
+    public Result load(File file) throws IOException {
+        Result result = new Result();
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(BUFFER_BYTES);
+            int scanned = 0; // bytes of the buffer already searched for a newline
+            while (true) {
+                int n = channel.read(buf);
+                if (n > 0) {
+                    result.bytes += n;
+                }
+                byte[] b = buf.array();
+                int limit = buf.position();
+                int lineStart = 0;
+                for (int i = scanned; i < limit; i++) {
+                    if (b[i] == '\n') {
+                        parseLine(b, lineStart, i, ++result.lines, result);
+                        lineStart = i + 1;
+                    }
+                }
+                if (n < 0) {
+                    if (lineStart < limit) {
+                        parseLine(b, lineStart, limit, ++result.lines, result);
+                    }
+                    break;
+                }
+                // keep the partial last line at the front of the buffer, growing it for a line longer than the buffer
+                int partial = limit - lineStart;
+                if (partial == b.length) {
+                    buf = ByteBuffer.wrap(Arrays.copyOf(b, b.length * 2));
+                } else {
+                    System.arraycopy(b, lineStart, b, 0, partial);
+                }
+                buf.position(partial);
+                scanned = partial;
+            }
+        }
+        result.nanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Parses one line and adds its account, or records why it was rejected.
+     */
+    private void parseLine(byte[] b, int from, int to, int line, Result result) {
+        int fields = split(b, from, to);
+        if (fields == 0)
+            return; // blank line
+        Rejection reason = addAccount(b, fields);
+        if (reason == null) {
+            result.loaded++;
+        } else {
+            result.reject(line, reason);
+        }
+    }
+
+    /**
+     * Splits a line on commas into trimmed fields, skipping empty runs between commas the way StringTokenizer does.
+     * @return the number of fields found, at most MAX_FIELDS
+     */
+    private int split(byte[] b, int from, int to) {
+        int fields = 0;
+        int i = from;
+        while (i < to && fields < MAX_FIELDS) {
+            while (i < to && b[i] == ',') {
+                i++;
+            }
+            if (i == to)
+                break;
+            int s = i;
+            while (i < to && b[i] != ',') {
+                i++;
+            }
+            int e = i;
+            while (s < e && b[s] <= ' ') {
+                s++;
+            }
+            while (e > s && b[e - 1] <= ' ') {
+                e--;
+            }
+            if (fields == 0 && s == e && i == to)
+                break; // only whitespace
+            starts[fields] = s;
+            ends[fields++] = e;
+        }
+        return fields;
+    }
+
+    private Field field(byte[] b, int i) {
+        return field.set(b, starts[i], ends[i]);
+    }
+
+    /**
+     * Builds the account of a split line and adds it to the database.
+     * @return null if the account was added, otherwise why it was not
+     */
+    private Rejection addAccount(byte[] b, int fields) {
+        if (fields < 6)
+            return Rejection.MISSING_FIELDS;
+        long cents;
+        try {
+            cents = Money.parse(field(b, 5), 0, field.length());
+        } catch (NumberFormatException e) {
+            return Rejection.BAD_AMOUNT;
+        }
+        Date dob = parseDate(b, 4);
+        if (dob == null)
+            return Rejection.BAD_DATE_OF_BIRTH;
+        Branch branch = null;
+        field(b, 1);
+        for (Branch candidate : BRANCHES) {
+            if (field.equalsIgnoreCase(candidate.name())) {
+                branch = candidate;
+                break;
+            }
+        }
+        if (branch == null)
+            return Rejection.UNKNOWN_BRANCH;
+
+        AccountType type;
+        Campus campus = null;
+        int term = 0;
+        Date openDate = null;
+        field(b, 0);
+        if (field.equalsIgnoreCase("checking")) {
+            type = AccountType.CHECKING;
+        } else if (field.equalsIgnoreCase("savings")) {
+            type = AccountType.SAVINGS;
+        } else if (field.equalsIgnoreCase("moneymarket")) {
+            type = AccountType.MONEY_MARKET;
+        } else if (field.equalsIgnoreCase("college")) {
+            type = AccountType.COLLEGE_CHECKING;
+            if (fields < 7)
+                return Rejection.BAD_CAMPUS;
+            field(b, 6);
+            for (Campus candidate : CAMPUSES) {
+                if (candidate.getCode().contentEquals(field)) {
+                    campus = candidate;
+                    break;
+                }
+            }
+            if (campus == null)
+                return Rejection.BAD_CAMPUS;
+        } else if (field.equalsIgnoreCase("certificate")) {
+            type = AccountType.CD;
+            if (fields < 8)
+                return fields < 7 ? Rejection.BAD_TERM : Rejection.BAD_OPEN_DATE;
+            term = parseInt(b, starts[6], ends[6]);
+            if (term == Integer.MIN_VALUE)
+                return Rejection.BAD_TERM;
+            openDate = parseDate(b, 7);
+            if (openDate == null)
+                return Rejection.BAD_OPEN_DATE;
+        } else {
+            return Rejection.UNKNOWN_TYPE;
+        }
+
+        Profile holder = ProfilePool.intern(field(b, 2).toString(), field(b, 3).toString(), dob);
+        // the serial is drawn last, once nothing else can reject the line
+        int pair = branch.ordinal() * AccountType.values().length + type.ordinal();
+        if (exhausted[pair])
+            return Rejection.NO_SERIALS;
+        AccountNumber number;
+        try {
+            number = new AccountNumber(branch, type);
+        } catch (IllegalStateException e) {
+            exhausted[pair] = true;
+            return Rejection.NO_SERIALS;
+        }
+        Account acct = AccountStore.open(number, holder, campus, term, openDate, cents);
+        db.add(acct);
+        return null;
+    }
+
+    /**
+     * Parses a field as a valid date.
+     * @return the date, or null if the field is not a valid date
+     */
+    private Date parseDate(byte[] b, int i) {
+        try {
+            Date date = Date.parse(field(b, i), 0, field.length());
+            return date.isValid() ? date : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a signed decimal int in place.
+     * @return the value, or Integer.MIN_VALUE if the text is not an int
+     */
+    private static int parseInt(byte[] b, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (b[i] == '-' || b[i] == '+')) {
+            negative = b[i++] == '-';
+        }
+        if (i == to)
+            return Integer.MIN_VALUE;
+        long value = 0;
+        for (; i < to; i++) {
+            if (b[i] < '0' || b[i] > '9')
+                return Integer.MIN_VALUE;
+            value = value * 10 + (b[i] - '0');
+            if (value > Integer.MAX_VALUE)
+                return Integer.MIN_VALUE;
+        }
+        return (int) (negative ? -value : value);
+    }
+}
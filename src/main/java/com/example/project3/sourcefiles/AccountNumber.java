@@ -1,29 +1,48 @@
 package com.example.project3.sourcefiles;
-import java.util.Random;
 
 /**
  * Represents an account number, which is associated with a branch and account type.
- * The account number is a 4-digit randomly generated number.
+ * The account number is a 4-digit number issued by a {@link SerialAllocator}, unique per branch and type.
+ * Branch, type and serial are packed into a single int, so comparisons and hashing never touch strings.
  * This class implements the Comparable interface to allow ordering of account numbers.
  * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
  */
 public class AccountNumber implements Comparable<AccountNumber> {
-    private static final int SEED = 9999;
-    private static final Random random = new Random(SEED);
-    private Branch branch;
-    private AccountType type;
-    private String number; // 4-digit string
+    private static final Branch[] BRANCHES = Branch.values();
+    private static final AccountType[] TYPES = AccountType.values();
+    private static final int[] BRANCH_CODES = codesOf(BRANCHES);
+    private static final int[] TYPE_CODES = codesOf(TYPES);
+    private static final int SERIAL_BITS = 14; // serials run up to 9999
+    private static final int TYPE_BITS = 3;
+    private static final int TYPE_SHIFT = SERIAL_BITS;
+    private static final int BRANCH_SHIFT = SERIAL_BITS + TYPE_BITS;
+    private static final int SERIAL_MASK = (1 << SERIAL_BITS) - 1;
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+
+    private final int packed; // branch ordinal, type ordinal, serial
+    private String text; // the 9 digit form, rendered on first use
 
     /**
      * Constructs an AccountNumber with a specified branch and account type.
-     * A random 4 digit number is generated for this account.
+     * A free 4 digit number is drawn from the shared serial allocator.
      * @param branch the branch associated with the account.
      * @param type   the type of the account.
+     * @throws IllegalStateException if the branch has no serials left for the account type.
      */
     public AccountNumber(Branch branch, AccountType type) {
-        this.branch = branch;
-        this.type = type;
-        this.number = generateNumber();
+        this(branch, type, SerialAllocator.shared());
+    }
+
+    /**
+     * Constructs an AccountNumber with a specified branch and account type,
+     * drawing a free 4 digit number from the given allocator.
+     * @param branch    the branch associated with the account.
+     * @param type      the type of the account.
+     * @param allocator the allocator that issues the serial.
+     * @throws IllegalStateException if the branch has no serials left for the account type.
+     */
+    public AccountNumber(Branch branch, AccountType type, SerialAllocator allocator) {
+        this(branch, type, allocator.allocate(branch, type));
     }
 
     /**
@@ -33,52 +52,162 @@ public class AccountNumber implements Comparable<AccountNumber> {
      * @param serial the predefined serial number for the account.
      */
     public AccountNumber(Branch branch, AccountType type, String serial) {
-        this.branch = branch;
-        this.type = type;
-        this.number = serial;
+        this(branch, type, Integer.parseInt(serial));
+    }
+
+    /**
+     * Constructs an AccountNumber with a specified branch, account type, and numeric serial number.
+     * @param branch the branch associated with the account.
+     * @param type   the type of the account.
+     * @param serial the serial number, 0 to 9999.
+     */
+    public AccountNumber(Branch branch, AccountType type, int serial) {
+        if (serial < 0 || serial > 9999)
+            throw new IllegalArgumentException("Serial out of range: " + serial);
+        this.packed = pack(branch.ordinal(), type.ordinal(), serial);
+    }
+
+    /**
+     * Constructs an AccountNumber from its packed key.
+     * @param key a key returned by {@link #getKey()}.
+     */
+    private AccountNumber(int key) {
+        this.packed = key;
+    }
+
+    /**
+     * Rebuilds an account number from its packed key, e.g. one read back from a saved ledger.
+     * @param key a key returned by {@link #getKey()}.
+     * @return returns the account number.
+     */
+    static AccountNumber ofKey(int key) {
+        return new AccountNumber(key);
+    }
+
+    /**
+     * Packs a branch ordinal, type ordinal and serial into one int.
+     * Ordinals follow the order of the branch and type codes, so packed keys order like the 9 digit strings.
+     */
+    private static int pack(int branch, int type, int serial) {
+        return branch << BRANCH_SHIFT | type << TYPE_SHIFT | serial;
+    }
+
+    /**
+     * Reads the numeric code of each branch.
+     */
+    private static int[] codesOf(Branch[] branches) {
+        int[] codes = new int[branches.length];
+        for (int i = 0; i < branches.length; i++) {
+            codes[i] = Integer.parseInt(branches[i].getBranchCode());
+        }
+        return codes;
+    }
+
+    /**
+     * Reads the numeric code of each account type.
+     */
+    private static int[] codesOf(AccountType[] types) {
+        int[] codes = new int[types.length];
+        for (int i = 0; i < types.length; i++) {
+            codes[i] = Integer.parseInt(types[i].getCode());
+        }
+        return codes;
     }
 
     /**
-     * Generates a 4 digit random number formatted as a string.
-     * @return returns a randomly generated 4 digit string.
+     * Finds the position of a code in a code table.
+     * @return returns the ordinal with that code, or -1 if there is none.
      */
-    private String generateNumber() {
-        int num = random.nextInt(SEED);
-        return String.format("%04d", num);
+    private static int ordinalOf(int[] codes, int code) {
+        for (int i = 0; i < codes.length; i++) {
+            if (codes[i] == code)
+                return i;
+        }
+        return -1;
     }
 
     /**
      * Retrieves the branch associated with this account number.
      * @return returns the branch of the account.
      */
-    public Branch getBranch() { return branch; }
+    public Branch getBranch() { return branchOf(packed); }
 
     /**
      * Retrieves the account type associated with this account number.
      * @return returns the account type.
      */
-    public AccountType getType() { return type; }
+    public AccountType getType() { return typeOf(packed); }
 
     /**
-     * Updates the account type for this account number.
-     * @param newType the new account type to be assigned.
+     * Retrieves the 4 digit serial of this account number.
+     * @return returns the serial, 0 to 9999.
      */
-    public void setType(AccountType newType) { this.type = newType; }
+    public int getSerial() { return packed & SERIAL_MASK; }
+
+    /**
+     * Reads the branch out of a packed key.
+     * @param key a key returned by {@link #getKey()}.
+     * @return returns the branch.
+     */
+    public static Branch branchOf(int key) {
+        return BRANCHES[key >>> BRANCH_SHIFT];
+    }
+
+    /**
+     * Reads the account type out of a packed key.
+     * @param key a key returned by {@link #getKey()}.
+     * @return returns the account type.
+     */
+    public static AccountType typeOf(int key) {
+        return TYPES[(key >>> TYPE_SHIFT) & TYPE_MASK];
+    }
+
+    /**
+     * Returns the packed account number: branch ordinal, then type ordinal, then serial.
+     * Keys order the same way as the 9 digit strings. Used as the key of the account-number index in {@link AccountDatabase}.
+     * @return returns the packed value of the account number.
+     */
+    public int getKey() {
+        return packed;
+    }
+
+    /**
+     * Parses a 9 digit account number string straight to its packed key without building an AccountNumber.
+     * The branch and account type codes must both exist.
+     * @param s the account number as a string.
+     * @return returns the packed key, or -1 if the string is not a valid account number.
+     */
+    public static int parseKey(String s) {
+        if (s == null || s.length() != 9)
+            return -1;
+        int value = 0;
+        for (int i = 0; i < 9; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            value = value * 10 + (c - '0');
+        }
+        int branch = ordinalOf(BRANCH_CODES, value / 1_000_000);
+        int type = ordinalOf(TYPE_CODES, value / 10_000 % 100);
+        if (branch == -1 || type == -1)
+            return -1;
+        return pack(branch, type, value % 10_000);
+    }
 
     /**
      * Compares this account number with another account number.
      * Comparison is based on the numerical value of the account number.
      * @param other the account number to compare against.
-     * @return returns 0 if the numbers are equal, -1 if this account number is smaller, 1 if it is larger.
+     * @return returns 0 if the numbers are equal, a negative number if this account number is smaller, a positive number if it is larger.
      */
     @Override
     public int compareTo(AccountNumber other) {
-        return this.toString().compareTo(other.toString());
+        return Integer.compare(this.packed, other.packed);
     }
 
     /**
      * Checks whether this account number is equal to another object.
-     * Two account numbers are considered equal if their string representations match.
+     * Two account numbers are considered equal if they have the same branch, type and serial.
      * @param obj the object to compare against.
      * @return returns true if the account numbers are equal, false otherwise.
      */
@@ -86,17 +215,56 @@ public class AccountNumber implements Comparable<AccountNumber> {
     public boolean equals(Object obj) {
         if (this == obj) return true;
         if (!(obj instanceof AccountNumber)) return false;
-        AccountNumber other = (AccountNumber) obj;
-        return this.toString().equals(other.toString());
+        return this.packed == ((AccountNumber) obj).packed;
+    }
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}.
+     * @return returns the hash code of the account number.
+     */
+    @Override
+    public int hashCode() {
+        return packed;
     }
 
     /**
      * Returns a string representation of the account number.
      * The string consists of the branch code, account type code, and the 4-digit account number.
+     * It is rendered on first use and cached.
      * @return returns a formatted string representing the full account number.
      */
     @Override
     public String toString() {
-        return branch.getBranchCode() + type.getCode() + number;
+        String s = text;
+        if (s == null) {
+            s = new String(digits(packed));
+            text = s;
+        }
+        return s;
+    }
+
+    /**
+     * Appends the 9 digit form of a packed key without building an AccountNumber.
+     * @param sb  the buffer to append to.
+     * @param key a key returned by {@link #getKey()}.
+     * @return returns the buffer, for chaining.
+     */
+    static StringBuilder appendKey(StringBuilder sb, int key) {
+        return sb.append(digits(key));
+    }
+
+    /**
+     * Renders a packed key as its branch code, account type code and 4-digit serial.
+     */
+    private static char[] digits(int key) {
+        int value = BRANCH_CODES[key >>> BRANCH_SHIFT] * 1_000_000
+                + TYPE_CODES[(key >>> TYPE_SHIFT) & TYPE_MASK] * 10_000
+                + (key & SERIAL_MASK);
+        char[] digits = new char[9];
+        for (int i = 8; i >= 0; i--) {
+            digits[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return digits;
     }
 }
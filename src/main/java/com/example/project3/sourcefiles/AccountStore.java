@@ -0,0 +1,412 @@
+package com.example.project3.sourcefiles;
+
+import com.example.project3.util.Date;
+import com.example.project3.util.Money;
+
+/**
+ * Row storage for accounts: each account is one row, and an {@link Account} is a view over its row.
+ * A row holds the account's packed number, type, branch, holder, campus and postings, and its changing state:
+ * balance, loyalty flag, withdrawal count, CD term and open date.
+ * Month-end work runs over rows, see {@link #interest(int)}, {@link #fee(int)} and {@link #appendStatement(StringBuilder, int)},
+ * so a scan of a store reads its columns and never walks the account objects.
+ * A database keeps its accounts in a {@link HeapAccountStore} or a {@link MappedAccountStore}; an account that is
+ * not in a database keeps its state in a single detached row, see {@link #detached()}.
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+public abstract class AccountStore {
+
+    /**
+     * Creates the row of an account that is not in a database: the state of one account in a few fields,
+     * reading the account's number, holder and postings from the account itself.
+     * @return an empty detached row; appending binds the account to row 0
+     */
+    static AccountStore detached() {
+        return new Detached();
+    }
+
+    /**
+     * Retrieves the number of rows in the store.
+     * @return the number of accounts stored
+     */
+    public abstract int size();
+
+    /**
+     * Retrieves the account viewing a row.
+     * @param row the row
+     * @return the account bound to the row
+     */
+    public abstract Account view(int row);
+
+    /**
+     * Retrieves the packed account number of a row.
+     * @param row the row
+     * @return the account number's key
+     */
+    abstract int key(int row);
+
+    /**
+     * Retrieves the account type of a row.
+     * @param row the row
+     * @return the account type
+     */
+    abstract AccountType type(int row);
+
+    /**
+     * Retrieves the branch of a row.
+     * @param row the row
+     * @return the branch
+     */
+    abstract Branch branch(int row);
+
+    /**
+     * Retrieves the holder of a row, the profile the account was opened with.
+     * @param row the row
+     * @return the account holder
+     */
+    abstract Profile holder(int row);
+
+    /**
+     * Retrieves the campus of a college checking row.
+     * @param row the row
+     * @return the campus, or null for other accounts
+     */
+    abstract Campus campus(int row);
+
+    /**
+     * Retrieves the postings of a row.
+     * @param row the row
+     * @return the account's activity log, or null if the row has no postings in memory
+     */
+    abstract ActivityLog log(int row);
+
+    abstract long balance(int row);
+
+    abstract void setBalance(int row, long cents);
+
+    abstract boolean loyal(int row);
+
+    abstract void setLoyal(int row, boolean value);
+
+    abstract int withdrawals(int row);
+
+    abstract void setWithdrawals(int row, int count);
+
+    abstract int term(int row);
+
+    abstract void setTerm(int row, int months);
+
+    abstract int openDate(int row);
+
+    abstract void setOpenDate(int row, int epochDay);
+
+    /**
+     * Appends a row for an account, taking its number, holder, campus and postings from the account;
+     * the caller sets or copies its changing state.
+     * @param acct the account viewing the row
+     * @return the new row
+     */
+    abstract int append(Account acct);
+
+    /**
+     * Removes a row by moving the last row into its place and rebinding the account that viewed it.
+     * @param row the row to remove
+     */
+    abstract void drop(int row);
+
+    /**
+     * Makes room for the given number of rows.
+     * @param minCapacity the number of rows that must fit
+     */
+    public abstract void ensureCapacity(int minCapacity);
+
+    /**
+     * Writes any buffered rows to durable storage. Rows kept on the heap have nothing to write.
+     */
+    public void force() {
+    }
+
+    /**
+     * Moves an account's row from its current store into this one and rebinds the account.
+     * @param acct the account to move
+     */
+    void adopt(Account acct) {
+        AccountStore from = acct.store;
+        if (from == this)
+            return;
+        int row = append(acct);
+        copyState(from, acct.row, this, row);
+        from.drop(acct.row);
+        acct.bind(this, row);
+    }
+
+    /**
+     * Moves an account's row out of this store into a detached row, so the account stays readable.
+     * @param acct the account to move out
+     */
+    void release(Account acct) {
+        if (acct.store != this)
+            return;
+        AccountStore own = detached();
+        int row = own.append(acct);
+        copyState(this, acct.row, own, row);
+        drop(acct.row);
+        acct.bind(own, row);
+    }
+
+    /**
+     * Copies the changing state of an account between rows.
+     */
+    private static void copyState(AccountStore from, int i, AccountStore to, int j) {
+        to.setBalance(j, from.balance(i));
+        to.setLoyal(j, from.loyal(i));
+        to.setWithdrawals(j, from.withdrawals(i));
+        to.setTerm(j, from.term(i));
+        to.setOpenDate(j, from.openDate(i));
+    }
+
+    /**
+     * Computes a row's monthly interest by the rules of its account type.
+     * @param row the row
+     * @return the interest earned, in cents
+     */
+    long interest(int row) {
+        long cents = balance(row);
+        switch (type(row)) {
+            case CHECKING:
+            case COLLEGE_CHECKING:
+                return Checking.monthlyInterest(cents);
+            case SAVINGS:
+                return Savings.monthlyInterest(cents, loyal(row));
+            case MONEY_MARKET:
+                return MoneyMarket.monthlyInterest(cents, loyal(row));
+            default:
+                return CertificateDeposit.monthlyInterest(cents, term(row));
+        }
+    }
+
+    /**
+     * Computes a row's monthly fee by the rules of its account type.
+     * @param row the row
+     * @return the fee, in cents
+     */
+    long fee(int row) {
+        switch (type(row)) {
+            case CHECKING:
+                return Checking.monthlyFee(balance(row));
+            case SAVINGS:
+                return Savings.monthlyFee(balance(row));
+            case MONEY_MARKET:
+                return MoneyMarket.monthlyFee(balance(row), withdrawals(row));
+            default:
+                return 0; // college checking and CDs have no fee
+        }
+    }
+
+    /**
+     * Appends a row's statement: its postings, the interest earned and fee charged, and the balance after
+     * applying both, which is written back to the row.
+     * @param sb  the buffer to write to
+     * @param row the row
+     * @return the buffer, for chaining
+     */
+    StringBuilder appendStatement(StringBuilder sb, int row) {
+        Profile holder = holder(row);
+        ActivityLog activities = log(row);
+        if (activities == null || activities.isEmpty()) {
+            sb.append("No activities for ").append(holder.getFname()).append(" ").append(holder.getLname()).append("\n");
+        } else {
+            sb.append(holder.getFname()).append(" ")
+                    .append(holder.getLname()).append(" ")
+                    .append(holder.getDob()).append("\n")
+                    .append("[Account #] ");
+            AccountNumber.appendKey(sb, key(row)).append("\n")
+                    .append("[Activity]\n");
+            activities.appendLines(sb);
+        }
+        long interest = interest(row);
+        long fee = fee(row);
+        sb.append("[interest] $");
+        Money.format(sb, interest).append(" [Fee] $");
+        Money.format(sb, fee).append("\n");
+        long balance = balance(row) + interest - fee;
+        setBalance(row, balance);
+        sb.append("[Balance] $");
+        return Money.format(sb, balance).append("\n");
+    }
+
+    /**
+     * Builds a new account outside of any database with an exact opening balance in cents,
+     * as its constructor would with the same balance in dollars.
+     * @param number   the account number
+     * @param holder   the account holder
+     * @param campus   the campus of a college checking account, null for other accounts
+     * @param term     the term of a certificate of deposit, in months
+     * @param openDate the open date of a certificate of deposit, null for other accounts
+     * @param cents    the opening balance, in cents
+     * @return the account
+     */
+    static Account open(AccountNumber number, Profile holder, Campus campus, int term, Date openDate, long cents) {
+        Account acct;
+        switch (number.getType()) {
+            case CHECKING:
+                acct = new Checking(number, holder, 0);
+                break;
+            case SAVINGS:
+                acct = new Savings(number, holder, 0);
+                break;
+            case MONEY_MARKET:
+                acct = new MoneyMarket(number, holder, 0);
+                break;
+            case COLLEGE_CHECKING:
+                acct = new CollegeChecking(number, holder, 0, campus);
+                break;
+            default:
+                acct = new CertificateDeposit(number, holder, 0, term, openDate);
+                break;
+        }
+        acct.store.setBalance(acct.row, cents);
+        if (acct instanceof MoneyMarket && cents >= MoneyMarket.LOYALTY_BALANCE) {
+            acct.store.setLoyal(acct.row, true);
+        }
+        return acct;
+    }
+
+    /**
+     * Rebuilds a saved account outside of any database, with its saved state in a detached row.
+     * @param number      the account number
+     * @param holder      the account holder
+     * @param campus      the campus of a college checking account, null for other accounts
+     * @param term        the term of a certificate of deposit, in months
+     * @param openDay     the open date of a certificate of deposit, as an epoch day
+     * @param balance     the balance, in cents
+     * @param loyal       the loyalty flag
+     * @param withdrawals the withdrawal count
+     * @return the account
+     */
+    static Account rebuild(AccountNumber number, Profile holder, Campus campus, int term, int openDay,
+                           long balance, boolean loyal, int withdrawals) {
+        Account acct = open(number, holder, campus, term,
+                number.getType() == AccountType.CD ? Date.ofEpochDay(openDay) : null, balance);
+        acct.store.setLoyal(acct.row, loyal);
+        acct.store.setWithdrawals(acct.row, withdrawals);
+        return acct;
+    }
+
+    /**
+     * The single row of an account outside of any database. Only the changing state is kept here;
+     * the number, holder, campus and postings are read from the account.
+     */
+    private static final class Detached extends AccountStore {
+        private Account acct;
+        private long balance;
+        private boolean loyal;
+        private int withdrawals;
+        private byte term;
+        private int openDate;
+
+        @Override
+        public int size() {
+            return acct == null ? 0 : 1;
+        }
+
+        @Override
+        public Account view(int row) {
+            return acct;
+        }
+
+        @Override
+        int key(int row) {
+            return acct.number.getKey();
+        }
+
+        @Override
+        AccountType type(int row) {
+            return acct.number.getType();
+        }
+
+        @Override
+        Branch branch(int row) {
+            return acct.number.getBranch();
+        }
+
+        @Override
+        Profile holder(int row) {
+            return acct.holder;
+        }
+
+        @Override
+        Campus campus(int row) {
+            return acct instanceof CollegeChecking college ? college.getCampus() : null;
+        }
+
+        @Override
+        ActivityLog log(int row) {
+            return acct.activities;
+        }
+
+        @Override
+        long balance(int row) {
+            return balance;
+        }
+
+        @Override
+        void setBalance(int row, long cents) {
+            balance = cents;
+        }
+
+        @Override
+        boolean loyal(int row) {
+            return loyal;
+        }
+
+        @Override
+        void setLoyal(int row, boolean value) {
+            loyal = value;
+        }
+
+        @Override
+        int withdrawals(int row) {
+            return withdrawals;
+        }
+
+        @Override
+        void setWithdrawals(int row, int count) {
+            withdrawals = count;
+        }
+
+        @Override
+        int term(int row) {
+            return term;
+        }
+
+        @Override
+        void setTerm(int row, int months) {
+            term = (byte) months;
+        }
+
+        @Override
+        int openDate(int row) {
+            return openDate;
+        }
+
+        @Override
+        void setOpenDate(int row, int epochDay) {
+            openDate = epochDay;
+        }
+
+        @Override
+        int append(Account acct) {
+            this.acct = acct;
+            return 0;
+        }
+
+        @Override
+        void drop(int row) {
+            acct = null;
+        }
+
+        @Override
+        public void ensureCapacity(int minCapacity) {
+        }
+    }
+}
@@ -1,9 +1,8 @@
 package com.example.project3.sourcefiles;
 
+import com.example.project3.util.BusinessClock;
 import com.example.project3.util.Date;
-
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import com.example.project3.util.Money;
 
 /**
  * Represents an account activity such as a deposit or withdrawal.
@@ -15,23 +14,87 @@ public class Activity implements Comparable<Activity> {
     private Date date;
     private Branch location;
     private char type;   // 'D' or 'W'
-    private double amount;
+    private long amount; // in cents
     private boolean atm; // true if ATM transaction
 
     /**
      * Constructs an Activity with given type, amount, and branch location.
-     * Date is set to today's date.
+     * Date is set to today's date from the default business clock.
+     * @param type     'D' for a deposit or 'W' for a withdrawal
+     * @param amount   the amount of the transaction, in cents
+     * @param location the branch where the transaction took place
+     */
+    public Activity(char type, long amount, Branch location) {
+        this(type, amount, location, BusinessClock.getDefault().today());
+    }
+
+    /**
+     * Constructs an Activity with given type, amount, branch location and date.
+     * @param type     'D' for a deposit or 'W' for a withdrawal
+     * @param amount   the amount of the transaction, in cents
+     * @param location the branch where the transaction took place
+     * @param date     the date of the transaction
+     */
+    public Activity(char type, long amount, Branch location, Date date) {
+        this(type, amount, location, date, false);
+    }
+
+    /**
+     * Constructs an Activity with given type, amount, branch location, date and ATM flag.
+     * @param type     'D' for a deposit or 'W' for a withdrawal
+     * @param amount   the amount of the transaction, in cents
+     * @param location the branch where the transaction took place
+     * @param date     the date of the transaction
+     * @param atm      true if the transaction was made at an ATM
      */
-    public Activity(char type, double amount, Branch location) {
+    public Activity(char type, long amount, Branch location, Date date, boolean atm) {
         this.type = type;
         this.amount = amount;
-        LocalDate now = LocalDate.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("M/d/yyyy");
-        this.date = new Date(now.format(formatter));
-        this.atm = false;
+        this.date = date;
+        this.atm = atm;
         this.location = location;
     }
 
+    /**
+     * Retrieves the date of the transaction.
+     * @return the transaction date
+     */
+    public Date getDate() {
+        return date;
+    }
+
+    /**
+     * Retrieves the branch where the transaction took place.
+     * @return the branch location
+     */
+    public Branch getLocation() {
+        return location;
+    }
+
+    /**
+     * Retrieves the transaction type.
+     * @return 'D' for a deposit or 'W' for a withdrawal
+     */
+    public char getType() {
+        return type;
+    }
+
+    /**
+     * Retrieves the amount of the transaction.
+     * @return the amount, in cents
+     */
+    public long getAmount() {
+        return amount;
+    }
+
+    /**
+     * Checks whether the transaction was made at an ATM.
+     * @return true if it was an ATM transaction
+     */
+    public boolean isAtm() {
+        return atm;
+    }
+
     /**
      * Compares this activity with another activity based on the transaction date.
      * @param other the other activity to compare to
@@ -51,11 +114,21 @@ public class Activity implements Comparable<Activity> {
      */
     @Override
     public String toString() {
-        if(type == 'W'){
-            return "\t" + date + "::" + location + "::withdrawal::"+ " $" + String.format("%.2f", amount) + (atm ? " (ATM)" : "");
-        } else{
-            return "\t" + date + "::" + location + "::deposit::"+ " $" + String.format("%.2f", amount) + (atm ? " (ATM)" : "");
-        }
+        return appendTo(new StringBuilder(64)).toString();
+    }
 
+    /**
+     * Appends the string representation of this activity to a buffer, without intermediate strings.
+     * @param sb the buffer to write to
+     * @return the buffer, for chaining
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        sb.append('\t').append(date).append("::").append(location)
+                .append(type == 'W' ? "::withdrawal::" : "::deposit::").append(" $");
+        Money.formatPlain(sb, amount);
+        if (atm) {
+            sb.append(" (ATM)");
+        }
+        return sb;
     }
 }
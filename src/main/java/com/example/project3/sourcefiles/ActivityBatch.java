@@ -0,0 +1,333 @@
+package com.example.project3.sourcefiles;
+
+import com.example.project3.util.IntMap;
+import com.example.project3.util.List;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Applies an activities file all or nothing. Every line is validated first, in parallel, without changing the database:
+ * the line must parse, name a known type and an open account, carry a transaction id not seen before, and every
+ * withdrawal must be covered by the account's balance as it stands after the lines before it, Money Market excess
+ * withdrawal fees included. If any line fails, nothing is applied and the result lists every failing line and why.
+ * Otherwise the postings are applied in file order in one pass over the accounts already looked up, journaled as one
+ * batch with their transaction ids, so a crash part way leaves none of them to replay.
+ * <p>
+ * Balances are simulated in partitions by account, run concurrently; a posting only changes its own account's balance,
+ * so each partition sees the same balances as applying the whole file in order would.
+ * No other thread may change the database while a batch runs.
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+public class ActivityBatch {
+    private static final int PARTITIONS_PER_THREAD = 4;
+    private static final int RANGE = 4096; // lines checked per task
+
+    /**
+     * Why a line of an activities file failed validation.
+     */
+    public enum Rejection {
+        BAD_FORMAT,
+        BAD_AMOUNT,
+        UNKNOWN_TYPE,
+        UNKNOWN_ACCOUNT,
+        DUPLICATE_ID,
+        INSUFFICIENT_FUNDS
+    }
+
+    /**
+     * The outcome of a batch: whether it was applied, which lines failed and why, and how long each phase took.
+     */
+    public static final class Result {
+        private boolean committed;
+        private int postings;
+        private int rejected;
+        private int[] rejectedLines = new int[8];
+        private byte[] reasons = new byte[8];
+        private String[] accounts = new String[8];
+        private final int[] counts = new int[Rejection.values().length];
+        private long validateNanos;
+        private long commitNanos;
+
+        private void reject(int line, Rejection reason, String account) {
+            if (rejected == rejectedLines.length) {
+                rejectedLines = Arrays.copyOf(rejectedLines, rejected * 2);
+                reasons = Arrays.copyOf(reasons, rejected * 2);
+                accounts = Arrays.copyOf(accounts, rejected * 2);
+            }
+            rejectedLines[rejected] = line;
+            accounts[rejected] = account;
+            reasons[rejected++] = (byte) reason.ordinal();
+            counts[reason.ordinal()]++;
+        }
+
+        /**
+         * Checks whether the batch was applied.
+         * @return true if every posting was applied, false if none was
+         */
+        public boolean isCommitted() {
+            return committed;
+        }
+
+        /**
+         * Retrieves the number of non-blank lines in the file.
+         * @return the number of postings
+         */
+        public int getPostings() {
+            return postings;
+        }
+
+        /**
+         * Retrieves the number of lines that failed validation.
+         * @return the number of rejected lines
+         */
+        public int getRejected() {
+            return rejected;
+        }
+
+        /**
+         * Retrieves the line number of a rejected line.
+         * @param i the index of the rejection, in file order
+         * @return the line number, starting at 1
+         */
+        public int getRejectedLine(int i) {
+            return rejectedLines[i];
+        }
+
+        /**
+         * Retrieves why a line was rejected.
+         * @param i the index of the rejection, in file order
+         * @return the reason
+         */
+        public Rejection getRejection(int i) {
+            return Rejection.values()[reasons[i]];
+        }
+
+        /**
+         * Retrieves the account number a rejected line gave.
+         * @param i the index of the rejection, in file order
+         * @return the account number as written, or null if the line could not be split into fields
+         */
+        public String getRejectedAccount(int i) {
+            return accounts[i];
+        }
+
+        /**
+         * Counts the lines rejected for a reason.
+         * @param reason the reason
+         * @return the number of lines rejected for it
+         */
+        public int count(Rejection reason) {
+            return counts[reason.ordinal()];
+        }
+
+        /**
+         * Retrieves how long validation took, parsing included.
+         * @return the elapsed time in nanoseconds
+         */
+        public long getValidateNanos() {
+            return validateNanos;
+        }
+
+        /**
+         * Retrieves how long applying the postings took.
+         * @return the elapsed time in nanoseconds, 0 if the batch was rejected
+         */
+        public long getCommitNanos() {
+            return commitNanos;
+        }
+
+        /**
+         * Lists the rejected lines, one per line, after the summary.
+         * @return the summary and the rejected lines
+         */
+        public String report() {
+            StringBuilder sb = new StringBuilder(64 + 48 * rejected).append(this).append('\n');
+            for (int i = 0; i < rejected; i++) {
+                sb.append("line ").append(rejectedLines[i]).append(": ").append(getRejection(i));
+                if (accounts[i] != null) {
+                    sb.append(" (").append(accounts[i]).append(')');
+                }
+                sb.append('\n');
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Returns a one-line summary of the batch.
+         * @return the outcome, counts and timings of the batch
+         */
+        @Override
+        public String toString() {
+            return String.format("%s: %d postings, %d lines rejected, validated in %.1f ms, applied in %.1f ms",
+                    committed ? "Committed" : "Rejected", postings, rejected, validateNanos / 1e6, commitNanos / 1e6);
+        }
+    }
+
+    private final AccountDatabase db;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a batch runner for a database.
+     * @param db   the database
+     * @param pool the pool to validate on
+     */
+    ActivityBatch(AccountDatabase db, ForkJoinPool pool) {
+        this.db = db;
+        this.pool = pool;
+    }
+
+    /**
+     * Validates every line of a file and applies them all if they are all valid.
+     * @param file the activities file
+     * @return the outcome
+     * @throws IOException if the file cannot be read
+     */
+    Result run(File file) throws IOException {
+        Result result = new Result();
+        long start = System.nanoTime();
+        ActivityIngest.Posting[] postings = ActivityIngest.parseChunks(file, pool);
+        int n = postings.length;
+        result.postings = n;
+
+        // Look up each line's account and check what each line can be checked for alone.
+        Account[] accts = new Account[n];
+        long[] fingerprints = new long[n];
+        Rejection[] failed = new Rejection[n];
+        List<ForkJoinTask<?>> tasks = new List<>(n / RANGE + 1);
+        for (int from = 0; from < n; from += RANGE) {
+            int first = from;
+            int last = Math.min(n, from + RANGE);
+            tasks.add(pool.submit(() -> {
+                for (int i = first; i < last; i++) {
+                    failed[i] = check(postings[i], i, accts, fingerprints);
+                }
+            }));
+        }
+        join(tasks);
+
+        // Transaction ids must be new to the database and to the file.
+        TransactionIds seen = null;
+        for (int i = 0; i < n; i++) {
+            if (failed[i] == null && postings[i].id != null) {
+                if (seen == null) {
+                    seen = new TransactionIds(n);
+                }
+                if (db.transactionIds().contains(fingerprints[i]) || !seen.add(fingerprints[i])) {
+                    failed[i] = Rejection.DUPLICATE_ID;
+                }
+            }
+        }
+
+        // Simulate the balances, each account's postings in file order; lines already failed are skipped.
+        int parts = pool.getParallelism() * PARTITIONS_PER_THREAD;
+        int[] counts = new int[parts];
+        int[] partOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (failed[i] == null) {
+                partOf[i] = Math.floorMod(accts[i].getAccountNumber().getKey() * 0x9E3779B9, parts);
+                counts[partOf[i]]++;
+            }
+        }
+        int[][] lines = new int[parts][];
+        for (int k = 0; k < parts; k++) {
+            lines[k] = new int[counts[k]];
+            counts[k] = 0;
+        }
+        for (int i = 0; i < n; i++) {
+            if (failed[i] == null) {
+                lines[partOf[i]][counts[partOf[i]]++] = i;
+            }
+        }
+        tasks = new List<>(parts);
+        for (int[] part : lines) {
+            if (part.length > 0) {
+                tasks.add(pool.submit(() -> simulate(part, postings, accts, failed)));
+            }
+        }
+        join(tasks);
+
+        for (int i = 0; i < n; i++) {
+            if (failed[i] != null) {
+                result.reject(postings[i].line, failed[i], postings[i].account);
+            }
+        }
+        result.validateNanos = System.nanoTime() - start;
+        if (result.rejected > 0) {
+            return result;
+        }
+
+        start = System.nanoTime();
+        db.beginBatch();
+        for (int i = 0; i < n; i++) {
+            ActivityIngest.Posting p = postings[i];
+            long txn = p.id == null ? 0 : fingerprints[i];
+            if (p.type.equals("D")) {
+                db.depositTo(accts[i], p.cents, txn);
+            } else if (!db.withdrawFrom(accts[i], p.cents, txn)) {
+                throw new IllegalStateException("Line " + p.line + " passed validation but could not be applied.");
+            }
+        }
+        db.commitBatch();
+        result.commitNanos = System.nanoTime() - start;
+        result.committed = true;
+        return result;
+    }
+
+    /**
+     * Checks a line for what it can be checked for alone, looking up its account and fingerprinting its id.
+     * @return the reason the line fails, or null
+     */
+    private Rejection check(ActivityIngest.Posting p, int i, Account[] accts, long[] fingerprints) {
+        if (p.invalid != null) {
+            return p.invalid;
+        }
+        if (!p.type.equals("D") && !p.type.equals("W")) {
+            return Rejection.UNKNOWN_TYPE;
+        }
+        accts[i] = db.getAccount(p.account);
+        if (accts[i] == null) {
+            return Rejection.UNKNOWN_ACCOUNT;
+        }
+        if (p.id != null) {
+            fingerprints[i] = TransactionIds.fingerprint(p.id);
+        }
+        return null;
+    }
+
+    /**
+     * Runs a partition's postings against simulated balances, failing the withdrawals the balance does not cover.
+     */
+    private static void simulate(int[] part, ActivityIngest.Posting[] postings, Account[] accts, Rejection[] failed) {
+        IntMap<long[]> balances = new IntMap<>(); // account key -> {balance, withdrawals}
+        for (int i : part) {
+            Account acct = accts[i];
+            int key = acct.getAccountNumber().getKey();
+            long[] state = balances.get(key);
+            if (state == null) {
+                state = new long[]{acct.getBalanceCents(), acct.store.withdrawals(acct.row)};
+                balances.put(key, state);
+            }
+            long cents = postings[i].cents;
+            if (postings[i].type.equals("D")) {
+                state[0] += cents;
+            } else if (state[0] < cents) {
+                failed[i] = Rejection.INSUFFICIENT_FUNDS;
+            } else {
+                state[0] -= cents;
+                if (acct instanceof MoneyMarket) {
+                    state[0] -= MoneyMarket.withdrawalCharge((int) ++state[1]);
+                }
+            }
+        }
+    }
+
+    private static void join(List<ForkJoinTask<?>> tasks) {
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+}
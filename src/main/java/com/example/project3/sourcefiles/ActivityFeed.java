@@ -0,0 +1,333 @@
+package com.example.project3.sourcefiles;
+
+import com.example.project3.util.List;
+import com.example.project3.util.ObjectMap;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Follows an activities file, or a directory of them, applying only the lines appended since they were last read.
+ * The byte offset reached in each file is recorded in the database after each chunk's postings, so a journaled database
+ * journals it with them, in one batch, and checkpoints it with them, and restoring the database restores the matching offset.
+ * The offsets are also saved beside the file or directory, in "name.offsets", once the postings are flushed, for a
+ * database that keeps no journal; an offset the database holds takes precedence over the saved one.
+ * Either way a restart resumes where the last run stopped instead of posting the file again.
+ * While a feed is followed only complete lines are applied, so a line still being written waits for its line break.
+ * A file that becomes shorter than the offset reached is taken to be a new file and is read from the start.
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+public final class ActivityFeed implements Closeable {
+    private static final int CHUNK_BYTES = 1 << 20;
+
+    /**
+     * The offset reached in one file.
+     */
+    private static final class Cursor {
+        final String name;
+        final String path; // the file's absolute path, the key of its offset in the database
+        long offset;
+
+        Cursor(String name, String path, long offset) {
+            this.name = name;
+            this.path = path;
+            this.offset = offset;
+        }
+    }
+
+    private final AccountDatabase db;
+    private final File source;
+    private final boolean directory;
+    private final File offsets;
+    private final List<Cursor> cursors = new List<>();
+    private final ObjectMap<String, Cursor> byName = new ObjectMap<>();
+    private WatchService watcher; // null unless following
+    private Thread thread;
+
+    /**
+     * Opens a feed on an activities file or a directory of activities files, resuming from the offsets the database
+     * holds or, for files it holds none for, the offsets saved by an earlier run.
+     * @param db     the database the postings are applied to
+     * @param source the activities file, or a directory whose files are read in name order
+     * @throws IOException if the saved offsets cannot be read
+     */
+    public ActivityFeed(AccountDatabase db, File source) throws IOException {
+        this.db = db;
+        this.source = source;
+        directory = source.isDirectory();
+        File absolute = source.getAbsoluteFile();
+        offsets = new File(absolute.getParentFile(), absolute.getName() + ".offsets");
+        if (offsets.exists()) {
+            for (String line : Files.readAllLines(offsets.toPath(), StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                int comma = line.lastIndexOf(',');
+                try {
+                    Cursor c = cursor(line.substring(0, comma));
+                    if (db.feedOffset(c.path) < 0) {
+                        c.offset = Long.parseLong(line.substring(comma + 1).trim());
+                    }
+                } catch (IndexOutOfBoundsException | NumberFormatException e) {
+                    throw new IOException(offsets.getName() + " is damaged.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the file or directory the feed reads.
+     * @return the source
+     */
+    public File source() {
+        return source;
+    }
+
+    /**
+     * Retrieves the offset reached in a file of the feed.
+     * @param name the file's name
+     * @return the number of bytes of the file applied, 0 if it was never read
+     */
+    public synchronized long offset(String name) {
+        Cursor c = byName.get(name);
+        return c == null ? Math.max(db.feedOffset(pathOf(name)), 0) : c.offset;
+    }
+
+    /**
+     * Applies the lines appended to the feed's files since they were last read,
+     * then flushes the database and saves the offsets reached.
+     * @param finished whether the files are finished, so a last line without a line break is applied too;
+     *                 otherwise it is left until its line break is written
+     * @return the messages of {@link AccountDatabase#processActivities(File)} for the new lines of each file that had any
+     */
+    public synchronized List<String> catchUp(boolean finished) {
+        List<String> messages = new List<>();
+        boolean moved = false;
+        for (File file : files()) {
+            Cursor c = cursor(file.getName());
+            long before = c.offset;
+            try {
+                read(file, c, finished, messages);
+            } catch (IOException e) {
+                messages.add("Error processing file: " + e.getMessage());
+            }
+            moved |= c.offset != before;
+        }
+        if (moved) {
+            try {
+                db.flush();
+                saveOffsets();
+            } catch (IOException e) {
+                messages.add("Error saving offsets: " + e.getMessage());
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Watches the feed's file or directory and catches up whenever it changes, starting with a catch-up
+     * for what was appended while the feed was not followed.
+     * @param executor where each catch-up runs; it must keep other changes to the database out meanwhile
+     * @param sink     receives the messages of each catch-up
+     * @throws IOException if the file or directory cannot be watched
+     */
+    public synchronized void follow(Executor executor, Consumer<List<String>> sink) throws IOException {
+        if (watcher != null) {
+            throw new IllegalStateException("Already following " + source + ".");
+        }
+        Path dir = (directory ? source : source.getAbsoluteFile().getParentFile()).toPath();
+        WatchService w = dir.getFileSystem().newWatchService();
+        dir.register(w, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watcher = w;
+        thread = new Thread(() -> watch(w, executor, sink), "activity-feed");
+        thread.setDaemon(true);
+        thread.start();
+        executor.execute(() -> sink.accept(catchUp(false)));
+    }
+
+    /**
+     * Stops following the feed, waiting for a catch-up in progress to finish.
+     * @throws IOException if the watch service cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        WatchService w;
+        Thread t;
+        synchronized (this) {
+            w = watcher;
+            t = thread;
+            watcher = null;
+            thread = null;
+        }
+        if (w == null) {
+            return;
+        }
+        w.close();
+        if (t != Thread.currentThread()) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Hands a catch-up to the executor for each batch of changes to the feed's files, until the watch service is closed.
+     */
+    private void watch(WatchService w, Executor executor, Consumer<List<String>> sink) {
+        try {
+            while (true) {
+                WatchKey key = w.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    String name = String.valueOf(event.context());
+                    changed |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || (directory ? !name.startsWith(".") : name.equals(source.getName()));
+                }
+                if (changed) {
+                    executor.execute(() -> sink.accept(catchUp(false)));
+                }
+                if (!key.reset()) {
+                    return; // the directory is gone
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    /**
+     * Applies the lines of a file after its cursor, a chunk at a time, advancing the cursor past each chunk.
+     */
+    private void read(File file, Cursor c, boolean finished, List<String> messages) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < c.offset) {
+                messages.add("\"" + file.getName() + "\" is shorter than the offset reached; reading it from the start.");
+                c.offset = 0;
+                db.feedReached(c.path, 0);
+            }
+            ByteBuffer buf = ByteBuffer.allocate(CHUNK_BYTES);
+            boolean started = false;
+            while (true) {
+                buf.clear();
+                int n = channel.read(buf, c.offset);
+                if (n <= 0) {
+                    break;
+                }
+                byte[] b = buf.array();
+                int end = n;
+                while (end > 0 && b[end - 1] != '\n') {
+                    end--;
+                }
+                if (end == 0 && n < buf.capacity()) {
+                    if (!finished) {
+                        break; // the last line is not finished
+                    }
+                    end = n;
+                } else if (end == 0) {
+                    buf = ByteBuffer.allocate(buf.capacity() * 2); // a line longer than the buffer
+                    continue;
+                }
+                if (!started) {
+                    messages.add("Processing \"" + file.getName() + "\"...");
+                    started = true;
+                }
+                db.beginBatch();
+                applyLines(new String(b, 0, end, StandardCharsets.UTF_8), messages);
+                c.offset += end;
+                db.feedReached(c.path, c.offset);
+                db.commitBatch();
+            }
+            if (started) {
+                messages.add("Account activities in \"" + file.getName() + "\" processed.");
+            }
+        }
+    }
+
+    /**
+     * Applies the non-blank lines of a chunk.
+     */
+    private void applyLines(String text, List<String> messages) {
+        int from = 0;
+        while (from < text.length()) {
+            int nl = text.indexOf('\n', from);
+            int to = nl < 0 ? text.length() : nl;
+            String line = text.substring(from, to).trim();
+            if (!line.isEmpty()) {
+                messages.add(ActivityIngest.apply(db, ActivityIngest.parse(line)));
+            }
+            from = to + 1;
+        }
+    }
+
+    /**
+     * Lists the files of the feed: the file itself, or the directory's files in name order.
+     */
+    private File[] files() {
+        if (!directory) {
+            return source.isFile() ? new File[]{source} : new File[0];
+        }
+        File[] files = source.listFiles(f -> f.isFile() && !f.getName().startsWith("."));
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files);
+        return files;
+    }
+
+    private Cursor cursor(String name) {
+        Cursor c = byName.get(name);
+        if (c == null) {
+            String path = pathOf(name);
+            c = new Cursor(name, path, Math.max(db.feedOffset(path), 0));
+            cursors.add(c);
+            byName.put(name, c);
+        }
+        return c;
+    }
+
+    /**
+     * Finds the absolute path of a file of the feed, the key of its offset in the database.
+     */
+    private String pathOf(String name) {
+        File absolute = source.getAbsoluteFile();
+        return (directory ? new File(absolute, name) : absolute).getPath();
+    }
+
+    /**
+     * Writes the offsets to a temporary file that then replaces the offsets file, so a crash leaves the old offsets or the new.
+     */
+    private void saveOffsets() throws IOException {
+        StringBuilder text = new StringBuilder(cursors.size() * 32);
+        for (Cursor c : cursors) {
+            text.append(c.name).append(',').append(c.offset).append('\n');
+        }
+        File tmp = new File(offsets.getParentFile(), offsets.getName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer out = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(false);
+        }
+        Files.move(tmp.toPath(), offsets.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.project3.sourcefiles;
+
+import com.example.project3.util.List;
+import com.example.project3.util.Money;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.StringTokenizer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses and applies the lines of an activities file, one at a time or in parallel.
+ * The parallel mode reads the file in chunks that are parsed concurrently, then partitions the postings by account holder
+ * and applies the partitions concurrently. A holder's postings stay in file order, and so do each account's,
+ * and a posting only touches its holder's accounts (the loyalty refresh included), so partitions never share an account.
+ * The per-line messages are merged back in file order and match those of the sequential mode.
+ * A line may carry a transaction id in a sixth column; a line whose id was seen recently is skipped. An id is claimed
+ * only once its posting succeeds, so a line that failed can be sent again under the same id. The parallel mode checks
+ * ids against the ones claimed before the file; a file that repeats an id is applied in file order, one line at a time,
+ * so the same lines are skipped in both modes.
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+final class ActivityIngest {
+    private static final int CHUNK_BYTES = 1 << 20;
+    private static final int PARTITIONS_PER_THREAD = 4;
+
+    /**
+     * One parsed line of an activities file: either a posting or the message explaining why the line is invalid.
+     */
+    static final class Posting {
+        final String error;
+        final String type;
+        final String account;
+        final String date;
+        final String location;
+        final long cents;
+        final String id; // the transaction id, null if the line has none
+        final ActivityBatch.Rejection invalid; // why the line is invalid, null if it is not
+        int line;        // the line number in the file, 0 if it is not known
+
+        private Posting(ActivityBatch.Rejection invalid, String error, String type, String account, String date,
+                        String location, long cents, String id) {
+            this.invalid = invalid;
+            this.error = error;
+            this.type = type;
+            this.account = account;
+            this.date = date;
+            this.location = location;
+            this.cents = cents;
+            this.id = id;
+        }
+    }
+
+    private ActivityIngest() {
+    }
+
+    /**
+     * Parses a line of an activities file, "type,account number,date,location,amount" with an optional ",transaction id".
+     * @param line the trimmed, non-empty line
+     * @return the posting, or a posting carrying the error message for the line
+     */
+    static Posting parse(String line) {
+        StringTokenizer tokens = new StringTokenizer(line, ",");
+        if (tokens.countTokens() < 5) {
+            return new Posting(ActivityBatch.Rejection.BAD_FORMAT, "Invalid transaction format: " + line,
+                    null, null, null, null, 0, null);
+        }
+        String type = tokens.nextToken().trim();
+        String account = tokens.nextToken().trim();
+        String date = tokens.nextToken().trim();
+        String location = tokens.nextToken().trim().toUpperCase();
+        String amount = tokens.nextToken().trim();
+        String id = tokens.hasMoreTokens() ? tokens.nextToken().trim() : "";
+        if (id.isEmpty()) {
+            id = null;
+        }
+        try {
+            return new Posting(null, null, type, account, date, location, Money.parse(amount), id);
+        } catch (NumberFormatException e) {
+            return new Posting(ActivityBatch.Rejection.BAD_AMOUNT, "Invalid amount format: " + amount,
+                    type, account, date, location, 0, id);
+        }
+    }
+
+    /**
+     * Applies a parsed line to the database, unless its transaction id was seen recently.
+     * @param db the database
+     * @param p  the parsed line
+     * @return the message reporting the outcome of the line
+     */
+    static String apply(AccountDatabase db, Posting p) {
+        if (p.error != null) {
+            return p.error;
+        }
+        long txn = transaction(p);
+        if (seen(db, txn)) {
+            return duplicate(p);
+        }
+        return post(db, p, txn);
+    }
+
+    /**
+     * Fingerprints a posting's transaction id.
+     * @return the fingerprint, 0 if the posting has no id
+     */
+    private static long transaction(Posting p) {
+        return p.id == null ? 0 : TransactionIds.fingerprint(p.id);
+    }
+
+    /**
+     * Checks whether a transaction id was claimed recently.
+     */
+    private static boolean seen(AccountDatabase db, long txn) {
+        return txn != 0 && db.transactionIds().contains(txn);
+    }
+
+    private static String duplicate(Posting p) {
+        return "Duplicate transaction " + p.id + " skipped for account: " + p.account;
+    }
+
+    /**
+     * Applies a valid posting whose id was not seen, claiming the id if the posting succeeds.
+     */
+    private static String post(AccountDatabase db, Posting p, long txn) {
+        Account acct = db.getAccount(p.account);
+        boolean success = false;
+        if (acct != null && p.type.equals("D")) {
+            db.depositTo(acct, p.cents, txn);
+            success = true;
+        } else if (acct != null && p.type.equals("W")) {
+            success = db.withdrawFrom(acct, p.cents, txn);
+        }
+        if (!success) {
+            return "Transaction failed for account: " + p.account;
+        }
+        StringBuilder message = new StringBuilder(64);
+        message.append(p.account).append("::").append(p.date).append("::").append(p.location)
+                .append("[ATM]::").append(p.type.equals("D") ? "deposit" : "withdrawal").append("::$");
+        return Money.format(message, p.cents).toString();
+    }
+
+    /**
+     * Parses and applies every line of a file in parallel.
+     * @param db   the database
+     * @param file the activities file
+     * @param pool the pool to run on
+     * @return one message per non-blank line, in file order
+     * @throws IOException if the file cannot be read
+     */
+    static String[] run(AccountDatabase db, File file, ForkJoinPool pool) throws IOException {
+        Posting[] postings = parseChunks(file, pool);
+        String[] messages = new String[postings.length];
+        long[] txns = new long[postings.length];
+        TransactionIds inFile = null;
+        for (int i = 0; i < postings.length; i++) {
+            txns[i] = postings[i].error == null ? transaction(postings[i]) : 0;
+            if (txns[i] != 0) {
+                if (inFile == null) {
+                    inFile = new TransactionIds(postings.length);
+                }
+                if (!inFile.add(txns[i])) {
+                    // whether the repeat is skipped depends on how the earlier line turns out
+                    for (int j = 0; j < postings.length; j++) {
+                        messages[j] = apply(db, postings[j]);
+                    }
+                    return messages;
+                }
+            }
+        }
+
+        // Invalid lines, duplicates and unknown accounts need no partition; the rest go to their holder's partition.
+        int parts = pool.getParallelism() * PARTITIONS_PER_THREAD;
+        int[] partOf = new int[postings.length];
+        int[] counts = new int[parts];
+        for (int i = 0; i < postings.length; i++) {
+            Posting p = postings[i];
+            Account acct = p.error == null ? db.getAccount(p.account) : null;
+            if (acct == null) {
+                messages[i] = apply(db, p);
+                partOf[i] = -1;
+            } else if (seen(db, txns[i])) {
+                messages[i] = duplicate(p);
+                partOf[i] = -1;
+            } else {
+                partOf[i] = Math.floorMod(acct.getHolder().hashCode(), parts);
+                counts[partOf[i]]++;
+            }
+        }
+        int[][] lines = new int[parts][];
+        for (int k = 0; k < parts; k++) {
+            lines[k] = new int[counts[k]];
+            counts[k] = 0;
+        }
+        for (int i = 0; i < postings.length; i++) {
+            if (partOf[i] >= 0) {
+                lines[partOf[i]][counts[partOf[i]]++] = i;
+            }
+        }
+
+        List<ForkJoinTask<?>> tasks = new List<>(parts);
+        for (int[] part : lines) {
+            if (part.length > 0) {
+                tasks.add(pool.submit(() -> {
+                    for (int i : part) {
+                        messages[i] = post(db, postings[i], txns[i]);
+                    }
+                }));
+            }
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return messages;
+    }
+
+    /**
+     * The parsed non-blank lines of a chunk, numbered from the chunk's first line, and the number of lines in the chunk.
+     */
+    private static final class Chunk {
+        final Posting[] postings;
+        final int lines;
+
+        Chunk(Posting[] postings, int lines) {
+            this.postings = postings;
+            this.lines = lines;
+        }
+    }
+
+    /**
+     * Reads a file in chunks that end on a line break and parses the chunks concurrently.
+     * @return the parsed non-blank lines, in file order, with their line numbers
+     */
+    static Posting[] parseChunks(File file, ForkJoinPool pool) throws IOException {
+        List<ForkJoinTask<Chunk>> chunks = new List<>();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(CHUNK_BYTES);
+            while (true) {
+                int n = channel.read(buf);
+                byte[] b = buf.array();
+                int limit = buf.position();
+                int end = limit;
+                if (n >= 0) {
+                    while (end > 0 && b[end - 1] != '\n') {
+                        end--;
+                    }
+                    if (end == 0 && limit == b.length) {
+                        // a line longer than the buffer
+                        buf = ByteBuffer.wrap(Arrays.copyOf(b, b.length * 2));
+                        buf.position(limit);
+                        continue;
+                    }
+                }
+                if (end > 0) {
+                    String text = new String(b, 0, end, StandardCharsets.UTF_8);
+                    chunks.add(pool.submit(() -> parseLines(text)));
+                }
+                if (n < 0) {
+                    break;
+                }
+                System.arraycopy(b, end, b, 0, limit - end);
+                buf.position(limit - end);
+            }
+        }
+        int total = 0;
+        for (ForkJoinTask<Chunk> chunk : chunks) {
+            total += chunk.join().postings.length;
+        }
+        Posting[] all = new Posting[total];
+        int at = 0;
+        int lines = 0;
+        for (ForkJoinTask<Chunk> chunk : chunks) {
+            Chunk parsed = chunk.join();
+            for (Posting p : parsed.postings) {
+                p.line += lines;
+            }
+            System.arraycopy(parsed.postings, 0, all, at, parsed.postings.length);
+            at += parsed.postings.length;
+            lines += parsed.lines;
+        }
+        return all;
+    }
+
+    /**
+     * Parses the non-blank lines of a chunk.
+     */
+    private static Chunk parseLines(String text) {
+        List<Posting> parsed = new List<>();
+        int from = 0;
+        int lines = 0;
+        while (from < text.length()) {
+            int nl = text.indexOf('\n', from);
+            int to = nl < 0 ? text.length() : nl;
+            String line = text.substring(from, to).trim();
+            lines++;
+            if (!line.isEmpty()) {
+                Posting p = parse(line);
+                p.line = lines;
+                parsed.add(p);
+            }
+            from = to + 1;
+        }
+        Posting[] out = new Posting[parsed.size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = parsed.get(i);
+        }
+        return new Chunk(out, lines);
+    }
+}
@@ -0,0 +1,404 @@
+package com.example.project3.sourcefiles;
+
+import com.example.project3.util.Date;
+import com.example.project3.util.Money;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An account's postings, each packed into one long in chunked primitive arrays.
+ * A posting keeps its epoch day, branch, deposit/withdrawal flag, ATM flag and amount in cents;
+ * amounts too large for the packed field take a second long. Nothing is allocated until the first posting,
+ * chunks double in size up to a limit, and {@link Activity} objects are only built when iterated.
+ * A log attached to an {@link ActivitySpill} keeps at most a given number of recent postings in memory;
+ * when it grows past that, its older half is written to the spill, and reading the log streams it back from disk.
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+public class ActivityLog implements Iterable<Activity> {
+    private static final int FIRST_CHUNK = 8;
+    private static final int MAX_CHUNK = 1024;
+
+    private static final int AMOUNT_BITS = 38;
+    private static final long AMOUNT_MASK = (1L << AMOUNT_BITS) - 1;
+    private static final long EXTENDED = AMOUNT_MASK; // the amount is in the next long
+    private static final int ATM_BIT = 38;
+    private static final int WITHDRAWAL_BIT = 39;
+    private static final int BRANCH_SHIFT = 40;
+    private static final long BRANCH_MASK = 0x7;
+    private static final int DAY_SHIFT = 43; // the top 21 bits hold the epoch day, signed
+    private static final Branch[] BRANCHES = Branch.values();
+
+    private long[][] chunks;
+    private int chunkCount;
+    private int used;  // longs used in the last chunk
+    private int longs; // longs in memory
+    private int size;  // postings in memory
+    private ActivitySpill spill;
+    private int retain = Integer.MAX_VALUE;
+    private long newestBlock = ActivitySpill.NONE;
+    private int spilled; // postings on disk
+    private int spilledLongs; // longs on disk
+    private int checkpointed; // longs already written to a checkpoint
+    private int checkpointedPostings;
+
+    /**
+     * Retrieves the number of postings in the log.
+     * @return the number of postings
+     */
+    public int size() {
+        return size + spilled;
+    }
+
+    /**
+     * Retrieves the number of postings kept in memory.
+     * @return the number of postings not yet written to a spill
+     */
+    public int resident() {
+        return size;
+    }
+
+    /**
+     * Checks whether the log has no postings.
+     * @return true if the log is empty, otherwise false
+     */
+    public boolean isEmpty() {
+        return size + spilled == 0;
+    }
+
+    /**
+     * Attaches the log to a spill, keeping at most the given number of recent postings in memory.
+     * A log whose older postings are already in another spill stays with that spill.
+     * @param spill  the store for older postings
+     * @param retain the number of postings kept in memory, at least 1
+     */
+    void spillTo(ActivitySpill spill, int retain) {
+        if (spilled == 0) {
+            this.spill = spill;
+        }
+        this.retain = retain;
+        if (size > retain) {
+            spillOldest();
+        }
+    }
+
+    /**
+     * Records an activity.
+     * @param a the activity to record
+     */
+    public void add(Activity a) {
+        add(a.getType(), a.getAmount(), a.getLocation(), a.getDate(), a.isAtm());
+    }
+
+    /**
+     * Records a posting without building an {@link Activity}.
+     * @param type     'D' for a deposit or 'W' for a withdrawal
+     * @param cents    the amount, in cents
+     * @param location the branch where the transaction took place
+     * @param date     the date of the transaction
+     * @param atm      whether the transaction was made at an ATM
+     */
+    public void add(char type, long cents, Branch location, Date date, boolean atm) {
+        boolean fits = cents >= 0 && cents < EXTENDED;
+        long packed = date.toEpochDay() << DAY_SHIFT
+                | (long) location.ordinal() << BRANCH_SHIFT
+                | (type == 'W' ? 1L << WITHDRAWAL_BIT : 0)
+                | (atm ? 1L << ATM_BIT : 0)
+                | (fits ? cents : EXTENDED);
+        append(packed);
+        if (!fits) {
+            append(cents);
+        }
+        size++;
+        if (spill != null && size > retain) {
+            spillOldest();
+        }
+    }
+
+    /**
+     * Writes the older postings in memory to the spill as one block, keeping the newest half of the retained ones.
+     */
+    private void spillOldest() {
+        int keep = retain / 2;
+        Cursor c = residentCursor();
+        long[] block = new long[longs];
+        int n = 0;
+        for (int i = size - keep; i > 0; i--) {
+            long packed = c.read();
+            block[n++] = packed;
+            if ((packed & AMOUNT_MASK) == EXTENDED) {
+                block[n++] = c.read();
+            }
+        }
+        newestBlock = spill.write(newestBlock, block, n);
+        spilled += size - keep;
+        spilledLongs += n;
+
+        long[] rest = new long[Math.max(longs - n, FIRST_CHUNK)];
+        used = longs - n;
+        for (int i = 0; i < used; i++) {
+            rest[i] = c.read();
+        }
+        chunks = new long[2][];
+        chunks[0] = rest;
+        chunkCount = 1;
+        longs = used;
+        size = keep;
+    }
+
+    /**
+     * Appends one long, starting a new chunk when the last one is full.
+     */
+    private void append(long value) {
+        if (chunks == null) {
+            chunks = new long[2][];
+            chunks[0] = new long[FIRST_CHUNK];
+            chunkCount = 1;
+        } else if (used == chunks[chunkCount - 1].length) {
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            }
+            chunks[chunkCount] = new long[Math.min(chunks[chunkCount - 1].length * 2, MAX_CHUNK)];
+            chunkCount++;
+            used = 0;
+        }
+        chunks[chunkCount - 1][used++] = value;
+        longs++;
+    }
+
+    /**
+     * Counts the longs the log's postings are packed into, spilled ones included.
+     * @return the number of longs {@link #writeTo(ByteBuffer)} writes after the two counts
+     */
+    int packedLongs() {
+        return spilledLongs + longs;
+    }
+
+    /**
+     * Writes the log in its packed form: the number of postings, the number of longs, then the longs, oldest first.
+     * @param out the buffer to write to
+     */
+    void writeTo(ByteBuffer out) {
+        out.putInt(size()).putInt(packedLongs());
+        if (spilled > 0) {
+            for (long at : spill.chain(newestBlock)) {
+                for (long v : spill.read(at)) {
+                    out.putLong(v);
+                }
+            }
+        }
+        Cursor c = residentCursor();
+        while (c.hasNext()) {
+            out.putLong(c.read());
+        }
+    }
+
+    /**
+     * Counts the longs of the postings recorded since the last checkpoint.
+     * @return the number of longs {@link #writeTail(ByteBuffer)} writes after the two counts
+     */
+    int tailLongs() {
+        return spilledLongs + longs - checkpointed;
+    }
+
+    /**
+     * Writes the postings recorded since the last checkpoint, in the form {@link #writeTo(ByteBuffer)} uses,
+     * and marks them checkpointed. Only the spill blocks that hold some of them are read back.
+     * @param out the buffer to write to
+     */
+    void writeTail(ByteBuffer out) {
+        out.putInt(size() - checkpointedPostings).putInt(tailLongs());
+        int skip = checkpointed - spilledLongs; // resident longs already checkpointed, negative if some spilled ones were not
+        if (skip < 0) {
+            long[][] blocks = new long[4][];
+            int n = 0;
+            int need = -skip;
+            for (long at = newestBlock; need > 0; at = spill.previous(at)) {
+                if (n == blocks.length) {
+                    blocks = Arrays.copyOf(blocks, n * 2);
+                }
+                blocks[n] = spill.read(at);
+                need -= blocks[n++].length;
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                for (int j = i == n - 1 ? -need : 0; j < blocks[i].length; j++) {
+                    out.putLong(blocks[i][j]);
+                }
+            }
+            skip = 0;
+        }
+        Cursor c = residentCursor();
+        for (int i = 0; i < skip; i++) {
+            c.read();
+        }
+        while (c.hasNext()) {
+            out.putLong(c.read());
+        }
+        markCheckpointed();
+    }
+
+    /**
+     * Marks every posting in the log as written to a checkpoint.
+     */
+    void markCheckpointed() {
+        checkpointed = spilledLongs + longs;
+        checkpointedPostings = size();
+    }
+
+    /**
+     * Appends postings written by {@link #writeTo(ByteBuffer)} or {@link #writeTail(ByteBuffer)}.
+     * A log attached to a spill then writes its older postings out, as if they had been added one by one.
+     * @param in the buffer to read from
+     */
+    void readFrom(ByteBuffer in) {
+        int postings = in.getInt();
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            append(in.getLong());
+        }
+        size += postings;
+        if (spill != null && size > retain) {
+            spillOldest();
+        }
+    }
+
+    /**
+     * Appends one statement line per posting, "\t[date]::[branch]::[deposit|withdrawal]:: $[amount]", each ending in a newline.
+     * Postings are decoded straight into the buffer without building activities, reading spilled ones block by block.
+     * @param sb the buffer to write to
+     * @return the buffer, for chaining
+     */
+    public StringBuilder appendLines(StringBuilder sb) {
+        if (spilled > 0) {
+            for (long at : spill.chain(newestBlock)) {
+                appendLines(sb, new Cursor(spill.read(at)));
+            }
+        }
+        return appendLines(sb, residentCursor());
+    }
+
+    /**
+     * Appends the statement lines of the postings a cursor walks over.
+     */
+    private static StringBuilder appendLines(StringBuilder sb, Cursor c) {
+        while (c.hasNext()) {
+            long packed = c.read();
+            long cents = amount(packed, c);
+            Date date = Date.ofEpochDay(packed >> DAY_SHIFT);
+            sb.append('\t').append(date.getMonth()).append('/').append(date.getDay()).append('/').append(date.getYear())
+                    .append("::").append(branch(packed).name())
+                    .append(isWithdrawal(packed) ? "::withdrawal::" : "::deposit::").append(" $");
+            Money.formatPlain(sb, cents);
+            if (isAtm(packed)) {
+                sb.append(" (ATM)");
+            }
+            sb.append('\n');
+        }
+        return sb;
+    }
+
+    /**
+     * Returns an iterator that decodes each posting into an {@link Activity} as it is reached.
+     * Spilled postings are read back one block at a time.
+     * @return an iterator over the postings in the order they were recorded
+     */
+    @Override
+    public Iterator<Activity> iterator() {
+        return new Iterator<>() {
+            private final ActivitySpill from = spill;
+            private final long[] blocks = spilled > 0 ? spill.chain(newestBlock) : new long[0];
+            private int block = 0;
+            private boolean inMemory = false;
+            private Cursor c;
+
+            @Override
+            public boolean hasNext() {
+                while (c == null || !c.hasNext()) {
+                    if (block < blocks.length) {
+                        c = new Cursor(from.read(blocks[block++]));
+                    } else if (!inMemory) {
+                        inMemory = true;
+                        c = residentCursor();
+                    } else {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Activity next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                long packed = c.read();
+                long cents = amount(packed, c);
+                return new Activity(isWithdrawal(packed) ? 'W' : 'D', cents, branch(packed),
+                        Date.ofEpochDay(packed >> DAY_SHIFT), isAtm(packed));
+            }
+        };
+    }
+
+    private static Branch branch(long packed) {
+        return BRANCHES[(int) ((packed >>> BRANCH_SHIFT) & BRANCH_MASK)];
+    }
+
+    private static boolean isWithdrawal(long packed) {
+        return (packed & (1L << WITHDRAWAL_BIT)) != 0;
+    }
+
+    private static boolean isAtm(long packed) {
+        return (packed & (1L << ATM_BIT)) != 0;
+    }
+
+    /**
+     * Reads a posting's amount, taking the following long if the amount did not fit.
+     */
+    private static long amount(long packed, Cursor c) {
+        long cents = packed & AMOUNT_MASK;
+        return cents == EXTENDED ? c.read() : cents;
+    }
+
+    /**
+     * Walks the postings kept in memory.
+     */
+    private Cursor residentCursor() {
+        return new Cursor(chunks, longs);
+    }
+
+    /**
+     * Walks a run of longs held in one or more chunks, in order.
+     */
+    private static final class Cursor {
+        private final long[][] chunks;
+        private int chunk = 0;
+        private int index = 0;
+        private int remaining;
+
+        Cursor(long[] block) {
+            this(new long[][]{block}, block.length);
+        }
+
+        Cursor(long[][] chunks, int longs) {
+            this.chunks = chunks;
+            this.remaining = longs;
+        }
+
+        boolean hasNext() {
+            return remaining > 0;
+        }
+
+        /**
+         * Reads the next long.
+         */
+        long read() {
+            if (index == chunks[chunk].length) {
+                chunk++;
+                index = 0;
+            }
+            remaining--;
+            return chunks[chunk][index++];
+        }
+    }
+}
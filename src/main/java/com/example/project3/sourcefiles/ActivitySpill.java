@@ -0,0 +1,191 @@
+package com.example.project3.sourcefiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * An append-only, on-disk store for postings that activity logs no longer keep in memory.
+ * Postings are written in blocks, in the packed form of {@link ActivityLog}, to segment files of a fixed size.
+ * Each block records the position of the previous block of the same log, so a log only has to remember
+ * the position of its newest block and reading its history back needs no index on the heap.
+ * The store lives for one run of the bank: segments left over from an earlier run are deleted when it is opened.
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+public class ActivitySpill {
+    static final long NONE = -1;
+    private static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+    private static final int BLOCK_HEADER = 12; // long previous block, int number of longs
+    private static final String PREFIX = "activity-";
+    private static final String SUFFIX = ".seg";
+
+    private final File dir;
+    private final long segmentBytes;
+    private FileChannel[] segments = new FileChannel[0];
+    private long end; // position of the next block
+
+    /**
+     * Opens a store writing its segments to a directory, creating the directory if needed.
+     * @param dir the directory for the segment files
+     * @throws IOException if the directory cannot be created or cleared
+     */
+    public ActivitySpill(File dir) throws IOException {
+        this(dir, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Opens a store with segments of the given size.
+     * @param dir          the directory for the segment files
+     * @param segmentBytes the size at which a new segment file is started
+     * @throws IOException if the directory cannot be created or cleared
+     */
+    ActivitySpill(File dir, long segmentBytes) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir + ".");
+        }
+        File[] stale = dir.listFiles((d, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (stale != null) {
+            for (File f : stale) {
+                if (!f.delete()) {
+                    throw new IOException("Cannot delete " + f + ".");
+                }
+            }
+        }
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Retrieves the number of segment files written so far.
+     * @return the number of segments
+     */
+    public synchronized int segments() {
+        return segments.length;
+    }
+
+    /**
+     * Appends a block of packed postings.
+     * @param previous the position of the log's previous block, or NONE
+     * @param longs    the buffer holding the postings
+     * @param count    the number of longs to write from the start of the buffer
+     * @return the position of the new block
+     */
+    synchronized long write(long previous, long[] longs, int count) {
+        int bytes = BLOCK_HEADER + 8 * count;
+        long offset = end % segmentBytes;
+        if (offset != 0 && offset + bytes > segmentBytes) {
+            end += segmentBytes - offset; // blocks never straddle two segments
+        }
+        long at = end;
+        ByteBuffer buf = ByteBuffer.allocate(bytes);
+        buf.putLong(previous).putInt(count);
+        for (int i = 0; i < count; i++) {
+            buf.putLong(longs[i]);
+        }
+        buf.flip();
+        try {
+            FileChannel channel = segment((int) (at / segmentBytes));
+            long pos = at % segmentBytes;
+            while (buf.hasRemaining()) {
+                pos += channel.write(buf, pos);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write activities: " + e.getMessage(), e);
+        }
+        end = at + bytes;
+        return at;
+    }
+
+    /**
+     * Reads the postings of a block.
+     * @param at the position of the block
+     * @return the packed postings in the block
+     */
+    synchronized long[] read(long at) {
+        try {
+            FileChannel channel = segment((int) (at / segmentBytes));
+            long pos = at % segmentBytes;
+            int count = readFully(channel, pos, BLOCK_HEADER).getInt(8);
+            long[] longs = new long[count];
+            readFully(channel, pos + BLOCK_HEADER, 8 * count).asLongBuffer().get(longs);
+            return longs;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read activities: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lists the blocks of a log, oldest first, by following the chain back from its newest block.
+     * @param newest the position of the log's newest block, or NONE
+     * @return the positions of the log's blocks in the order they were written
+     */
+    synchronized long[] chain(long newest) {
+        long[] positions = new long[8];
+        int n = 0;
+        for (long at = newest; at != NONE; at = previous(at)) {
+            if (n == positions.length) {
+                positions = Arrays.copyOf(positions, n * 2);
+            }
+            positions[n++] = at;
+        }
+        long[] oldestFirst = new long[n];
+        for (int i = 0; i < n; i++) {
+            oldestFirst[i] = positions[n - 1 - i];
+        }
+        return oldestFirst;
+    }
+
+    /**
+     * Reads the position of the block written before a block of the same log.
+     * @param at the position of a block
+     * @return the position of the previous block, or NONE if it is the log's oldest
+     */
+    synchronized long previous(long at) {
+        try {
+            return readFully(segment((int) (at / segmentBytes)), at % segmentBytes, 8).getLong();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read activities: " + e.getMessage(), e);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long pos, int bytes) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(bytes);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, pos + buf.position()) < 0) {
+                throw new IOException("Unexpected end of activity segment.");
+            }
+        }
+        buf.flip();
+        return buf;
+    }
+
+    /**
+     * Finds the channel of a segment, opening segment files up to it as needed.
+     */
+    private FileChannel segment(int index) throws IOException {
+        if (index >= segments.length) {
+            int old = segments.length;
+            segments = Arrays.copyOf(segments, index + 1);
+            for (int i = old; i <= index; i++) {
+                File f = new File(dir, String.format("%s%05d%s", PREFIX, i, SUFFIX));
+                segments[i] = FileChannel.open(f.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+        }
+        return segments[index];
+    }
+
+    /**
+     * Closes the segment files. The store must not be used afterwards.
+     * @throws IOException if a segment file cannot be closed
+     */
+    public synchronized void close() throws IOException {
+        for (FileChannel channel : segments) {
+            channel.close();
+        }
+        segments = new FileChannel[0];
+    }
+}
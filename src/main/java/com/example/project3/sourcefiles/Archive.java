@@ -1,64 +1,840 @@
 package com.example.project3.sourcefiles;
 
 import com.example.project3.util.Date;
+import com.example.project3.util.IntMap;
+import com.example.project3.util.List;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * Represents an archive of closed accounts using a linked list structure.
- * Accounts are stored in a singly linked list, where new accounts are added to the front.
- * This class allows adding and printing archived accounts.
+ * Represents an archive of closed accounts.
+ * A closure is written as a compact tombstone record (account number, holder, close date, final balance,
+ * a summary of the account's activity and its archive line) to append-only segments, and the account itself is not kept.
+ * Only a small summary of each closure stays in memory: its close date, the hash of its holder and where its record is.
+ * Records are read back only when a report or a query needs them.
+ * Closures are indexed by close date and by account holder, so range and holder queries visit only the matching closures.
+ * The archive prints newest first, and can be printed one page at a time.
+ * Segments are kept in a directory, so the archive survives a restart, or on the heap for an archive without one.
+ * Purging old closures leaves dead records behind; segments that are mostly dead are compacted in the background.
  * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
  */
 public class Archive {
-    private AccountNode first;
+    private static final int DEFAULT_SEGMENT_BYTES = 4 << 20;
+    private static final byte CLOSURE = 1;
+    private static final byte PURGE = 2;
+    private static final int HEADER_BYTES = 62;  // a closure record before its strings
+    private static final int PURGE_BYTES = 16;
+    private static final int NO_CUTOFF = Integer.MIN_VALUE;
+    private static final String PREFIX = "archive-";
+    private static final String SUFFIX = ".seg";
+
+    private final File dir; // null when the segments are on the heap
+    private final int segmentBytes;
+    private final IntMap<ArchiveSegment> segments = new IntMap<>();
+    private ArchiveSegment active;
+    private long nextSeq;
+    private int cutoff = NO_CUTOFF; // closures dated before this epoch day have been purged
+    private ExecutorService compactor;
+    private boolean closed;
+
+    // The resident summary, one row per closure in the order they were archived.
+    private long[] seq = new long[16];
+    private int[] closeDay = new int[16];    // epoch day
+    private int[] holder = new int[16];      // hash of the holder, see holderKey()
+    private int[] segment = new int[16];     // segment number of the record
+    private int[] offset = new int[16];      // offset of the record in its segment
+    private int[] length = new int[16];      // bytes in the record
+    private int[] previousOfHolder = new int[16]; // the holder's row before this one, -1 if none
+    private int size;
+    private int[] byDate = new int[16];      // rows by close date, then archive order
+    private IntMap<Integer> newestOfHolder; // holder hash -> the newest row with that hash
+
+    /**
+     * A closed account, as recorded in the archive.
+     */
+    public static final class Closed {
+        private final AccountNumber number;
+        private final Profile holder;
+        private final Date close;
+        private final long finalBalance;
+        private final int postings;
+        private final long deposited;
+        private final long withdrawn;
+        private final String line;
+
+        private Closed(AccountNumber number, Profile holder, Date close, long finalBalance,
+                       int postings, long deposited, long withdrawn, String line) {
+            this.number = number;
+            this.holder = holder;
+            this.close = close;
+            this.finalBalance = finalBalance;
+            this.postings = postings;
+            this.deposited = deposited;
+            this.withdrawn = withdrawn;
+            this.line = line;
+        }
+
+        /**
+         * Retrieves the number of the closed account.
+         * @return the account number
+         */
+        public AccountNumber getAccountNumber() {
+            return number;
+        }
+
+        /**
+         * Retrieves the holder of the closed account.
+         * @return the account holder
+         */
+        public Profile getHolder() {
+            return holder;
+        }
+
+        /**
+         * Retrieves the date the account was closed.
+         * @return the date of closure
+         */
+        public Date getCloseDate() {
+            return close;
+        }
+
+        /**
+         * Retrieves the balance of the account just before it was closed.
+         * @return the final balance, in cents
+         */
+        public long getFinalBalance() {
+            return finalBalance;
+        }
+
+        /**
+         * Retrieves the number of deposits and withdrawals the account recorded.
+         * @return the number of postings
+         */
+        public int getPostings() {
+            return postings;
+        }
 
-    private class AccountNode {
-        Account account;
-        Date close;
-        AccountNode next;
+        /**
+         * Retrieves the total of the account's recorded deposits.
+         * @return the amount deposited, in cents
+         */
+        public long getDeposited() {
+            return deposited;
+        }
+
+        /**
+         * Retrieves the total of the account's recorded withdrawals.
+         * @return the amount withdrawn, in cents
+         */
+        public long getWithdrawn() {
+            return withdrawn;
+        }
 
         /**
-         * Constructs an AccountNode containing the specified account.
-         * @param account the account to be stored in the node.
-         * @param closeDate the date of closure
+         * Returns the archive line of the closure, the account as it was closed followed by its date of closure.
+         * @return a string of the form "[account] Closed[date]"
          */
-        public AccountNode(Account account, Date closeDate) {
-            this.account = account;
-            this.close = closeDate;
-            this.next = null;
+        @Override
+        public String toString() {
+            return line;
         }
     }
 
     /**
-     * Adds a closed account to the archive.
+     * Constructs an empty archive keeping its segments on the heap.
+     */
+    public Archive() {
+        this.dir = null;
+        this.segmentBytes = DEFAULT_SEGMENT_BYTES;
+        active = ArchiveSegment.inMemory(0);
+        segments.put(0, active);
+        rebuildIndexes();
+    }
+
+    /**
+     * Opens an archive kept in a directory, creating the directory if needed, and restores the closures already in it.
+     * @param dir the directory for the segment files
+     * @throws IOException if the directory or a segment cannot be read
+     */
+    public Archive(File dir) throws IOException {
+        this(dir, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Opens an archive kept in a directory, starting a new segment file once one reaches the given size.
+     * @param dir          the directory for the segment files
+     * @param segmentBytes the size at which a new segment is started
+     * @throws IOException if the directory or a segment cannot be read
+     */
+    public Archive(File dir, int segmentBytes) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir + ".");
+        }
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        String[] names = dir.list((d, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        int[] ids = new int[names == null ? 0 : names.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = Integer.parseInt(names[i].substring(PREFIX.length(), names[i].length() - SUFFIX.length()));
+        }
+        Arrays.sort(ids);
+        for (int id : ids) {
+            active = ArchiveSegment.open(segmentFile(id), id);
+            segments.put(id, active);
+            restore(active);
+        }
+        if (active == null || active.size >= segmentBytes) {
+            roll();
+        }
+        dropPurged();
+        sortRowsBySeq();
+        rebuildIndexes();
+    }
+
+    private File segmentFile(int id) {
+        return new File(dir, String.format("%s%05d%s", PREFIX, id, SUFFIX));
+    }
+
+    /**
+     * Reads the records of a segment into the resident summary. A record cut short by a crash ends the segment.
+     */
+    private void restore(ArchiveSegment seg) throws IOException {
+        long at = 0;
+        while (at + 4 <= seg.size) {
+            ByteBuffer head = ByteBuffer.allocate(4);
+            seg.read(head, at);
+            int bytes = head.getInt(0);
+            if (bytes < PURGE_BYTES || at + bytes > seg.size) {
+                break;
+            }
+            ByteBuffer rec = ByteBuffer.allocate(bytes);
+            seg.read(rec, at);
+            if (rec.get(4) == PURGE) {
+                cutoff = Math.max(cutoff, rec.getInt(8));
+            } else {
+                Closed c = decode(rec);
+                long s = rec.getLong(8);
+                nextSeq = Math.max(nextSeq, s + 1);
+                addRow(s, (int) c.close.toEpochDay(), holderKey(c.holder), seg.id, (int) at, bytes);
+                seg.live += bytes;
+            }
+            at += bytes;
+        }
+        seg.size = at;
+    }
+
+    /**
+     * Adds a closed account to the archive. The account's current balance is recorded as its final balance.
      * @param account the account to be archived
      * @param close the date of closure
      */
     public void add(Account account, Date close) {
-        AccountNode newNode = new AccountNode(account, close);
-        newNode.next = first;
-        first = newNode;
+        add(account, close, account.getBalanceCents());
+    }
+
+    /**
+     * Adds a closed account to the archive.
+     * Closures dated before the cutoff of an earlier purge are not kept.
+     * @param account      the account to be archived, as it was closed
+     * @param close        the date of closure
+     * @param finalBalance the balance of the account just before it was closed, in cents
+     */
+    public synchronized void add(Account account, Date close, long finalBalance) {
+        int day = (int) close.toEpochDay();
+        if (day < cutoff)
+            return;
+        int postings = 0;
+        long deposited = 0;
+        long withdrawn = 0;
+        for (Activity a : account.activities) {
+            postings++;
+            if (a.getType() == 'W') {
+                withdrawn += a.getAmount();
+            } else {
+                deposited += a.getAmount();
+            }
+        }
+        Profile h = account.getHolder();
+        byte[] fname = h.getFname().getBytes(StandardCharsets.UTF_8);
+        byte[] lname = h.getLname().getBytes(StandardCharsets.UTF_8);
+        byte[] line = (account + " Closed[" + close + "]").getBytes(StandardCharsets.UTF_8);
+        int bytes = HEADER_BYTES + fname.length + lname.length + line.length;
+        long s = nextSeq++;
+        ByteBuffer rec = ByteBuffer.allocate(bytes);
+        rec.putInt(bytes).put(CLOSURE).put((byte) 0).putShort((short) 0)
+                .putLong(s)
+                .putInt(account.getAccountNumber().getKey())
+                .putInt(day)
+                .putLong(finalBalance)
+                .putInt(postings)
+                .putLong(deposited)
+                .putLong(withdrawn)
+                .putInt((int) h.getDob().toEpochDay())
+                .putShort((short) fname.length).putShort((short) lname.length).putShort((short) line.length)
+                .put(fname).put(lname).put(line)
+                .flip();
+        int at = write(rec);
+        active.live += bytes;
+        int row = addRow(s, day, holderKey(h), active.id, at, bytes);
+        indexDate(row);
+        linkHolder(row);
+    }
+
+    /**
+     * Builds a closure from its record.
+     */
+    private static Closed decode(ByteBuffer rec) {
+        int fname = rec.getShort(56);
+        int lname = rec.getShort(58);
+        int line = rec.getShort(60);
+        byte[] bytes = rec.array();
+        Profile holder = ProfilePool.intern(
+                new String(bytes, HEADER_BYTES, fname, StandardCharsets.UTF_8),
+                new String(bytes, HEADER_BYTES + fname, lname, StandardCharsets.UTF_8),
+                Date.ofEpochDay(rec.getInt(52)));
+        return new Closed(AccountNumber.ofKey(rec.getInt(16)), holder, Date.ofEpochDay(rec.getInt(20)),
+                rec.getLong(24), rec.getInt(32), rec.getLong(36), rec.getLong(44),
+                new String(bytes, HEADER_BYTES + fname + lname, line, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the record of a row.
+     */
+    private Closed read(int row) {
+        ByteBuffer rec = ByteBuffer.allocate(length[row]);
+        try {
+            segments.get(segment[row]).read(rec, offset[row]);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read the archive: " + e.getMessage(), e);
+        }
+        return decode(rec);
+    }
+
+    /**
+     * Appends a record to the active segment, starting a new segment when it is full.
+     * @return the offset of the record in the active segment
+     */
+    private int write(ByteBuffer rec) {
+        try {
+            if (active.size > 0 && active.size + rec.remaining() > segmentBytes) {
+                roll();
+            }
+            return (int) active.append(rec);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write the archive: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Seals the active segment and starts the next one.
+     */
+    private void roll() throws IOException {
+        int id = active == null ? 0 : active.id + 1;
+        if (active != null) {
+            active.force();
+        }
+        active = dir == null ? ArchiveSegment.inMemory(id) : ArchiveSegment.open(segmentFile(id), id);
+        segments.put(id, active);
+    }
+
+    /**
+     * Appends a row to the resident summary.
+     * @return the new row
+     */
+    private int addRow(long s, int day, int holderKey, int seg, int at, int bytes) {
+        if (size == seq.length) {
+            int capacity = size * 2;
+            seq = Arrays.copyOf(seq, capacity);
+            closeDay = Arrays.copyOf(closeDay, capacity);
+            holder = Arrays.copyOf(holder, capacity);
+            segment = Arrays.copyOf(segment, capacity);
+            offset = Arrays.copyOf(offset, capacity);
+            length = Arrays.copyOf(length, capacity);
+            previousOfHolder = Arrays.copyOf(previousOfHolder, capacity);
+            byDate = Arrays.copyOf(byDate, capacity);
+        }
+        seq[size] = s;
+        closeDay[size] = day;
+        holder[size] = holderKey;
+        segment[size] = seg;
+        offset[size] = at;
+        length[size] = bytes;
+        return size++;
+    }
+
+    /**
+     * Hashes a holder for the holder index: the profile's case-insensitive hash, which does not depend on
+     * interning and so is the same after a restart, made non-negative for the index.
+     */
+    private static int holderKey(Profile holder) {
+        return holder.hashCode() & Integer.MAX_VALUE;
+    }
+
+    /**
+     * Links a row behind the previous closure whose holder has the same hash.
+     */
+    private void linkHolder(int row) {
+        Integer previous = newestOfHolder.put(holder[row], row);
+        previousOfHolder[row] = previous == null ? -1 : previous;
+    }
+
+    /**
+     * Adds the newest row to the close-date index, after the rows closed on or before its date.
+     * Accounts are mostly closed in date order, so the row usually goes at the end.
+     * Every row before it is already indexed.
+     */
+    private void indexDate(int row) {
+        int day = closeDay[row];
+        int at = row;
+        if (row > 0 && closeDay[byDate[row - 1]] > day) {
+            at = firstDatedAfter(day, row);
+            System.arraycopy(byDate, at, byDate, at + 1, row - at);
+        }
+        byDate[at] = row;
+    }
+
+    /**
+     * Finds the first position in the close-date index whose row was closed after an epoch day.
+     * @param day     the epoch day
+     * @param indexed the number of rows in the index
+     */
+    private int firstDatedAfter(int day, int indexed) {
+        int lo = 0;
+        int hi = indexed;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (closeDay[byDate[mid]] <= day) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Rebuilds the close-date and holder indexes from the rows.
+     */
+    private void rebuildIndexes() {
+        if (byDate.length < seq.length) {
+            byDate = new int[seq.length];
+        }
+        newestOfHolder = new IntMap<>();
+        for (int row = 0; row < size; row++) {
+            indexDate(row);
+            linkHolder(row);
+        }
+    }
+
+    /**
+     * Puts the restored rows back in the order they were archived; compaction may have moved records between segments.
+     * A record copied by a compaction that did not finish is found twice, and only its first copy is kept.
+     */
+    private void sortRowsBySeq() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(seq[a], seq[b]));
+        long[] s = new long[seq.length];
+        int[] d = new int[seq.length];
+        int[] h = new int[seq.length];
+        int[] g = new int[seq.length];
+        int[] o = new int[seq.length];
+        int[] l = new int[seq.length];
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int r = order[i];
+            if (kept > 0 && s[kept - 1] == seq[r]) {
+                segments.get(segment[r]).live -= length[r];
+                continue;
+            }
+            int k = kept++;
+            s[k] = seq[r];
+            d[k] = closeDay[r];
+            h[k] = holder[r];
+            g[k] = segment[r];
+            o[k] = offset[r];
+            l[k] = length[r];
+        }
+        size = kept;
+        seq = s;
+        closeDay = d;
+        holder = h;
+        segment = g;
+        offset = o;
+        length = l;
+    }
+
+    /**
+     * Removes the rows dated before the cutoff, keeping the others in order.
+     * @return the number of rows removed
+     */
+    private int dropPurged() {
+        int kept = 0;
+        for (int row = 0; row < size; row++) {
+            if (closeDay[row] < cutoff) {
+                segments.get(segment[row]).live -= length[row];
+                continue;
+            }
+            seq[kept] = seq[row];
+            closeDay[kept] = closeDay[row];
+            holder[kept] = holder[row];
+            segment[kept] = segment[row];
+            offset[kept] = offset[row];
+            length[kept] = length[row];
+            kept++;
+        }
+        int removed = size - kept;
+        size = kept;
+        return removed;
+    }
+
+    /**
+     * Retrieves the number of closed accounts in the archive.
+     * @return the number of closures
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the archive has no closed accounts.
+     * @return true if nothing has been archived, otherwise false
+     */
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Finds the accounts closed between two dates, both included.
+     * @param from the first close date to include
+     * @param to   the last close date to include
+     * @return the closures in that range, by close date and then in the order they were archived
+     */
+    public synchronized List<Closed> closedBetween(Date from, Date to) {
+        List<Closed> found = new List<>();
+        long last = to.toEpochDay();
+        for (int i = firstDatedAfter((int) from.toEpochDay() - 1, size); i < size; i++) {
+            int row = byDate[i];
+            if (closeDay[row] > last)
+                break;
+            found.add(read(row));
+        }
+        return found;
+    }
+
+    /**
+     * Finds the closed accounts of a holder.
+     * @param holder the account holder
+     * @return the holder's closures in the order they were archived, empty if there are none
+     */
+    public synchronized List<Closed> closedFor(Profile holder) {
+        List<Closed> found = new List<>();
+        Integer newest = newestOfHolder.get(holderKey(holder));
+        if (newest == null)
+            return found;
+        int count = 0;
+        for (int row = newest; row >= 0; row = previousOfHolder[row]) {
+            count++;
+        }
+        int[] rows = new int[count];
+        for (int row = newest; row >= 0; row = previousOfHolder[row]) {
+            rows[--count] = row;
+        }
+        for (int row : rows) {
+            Closed c = read(row);
+            if (c.holder.equals(holder)) { // another holder may share the hash
+                found.add(c);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Computes the number of pages the archive prints on.
+     * @param pageSize the number of closures per page
+     * @return the number of pages, 0 if the archive is empty
+     */
+    public synchronized int pages(int pageSize) {
+        return (size + pageSize - 1) / pageSize;
+    }
+
+    /**
+     * Returns one page of the archive, newest closures first, one per line.
+     * Only the records on the page are read.
+     * @param page     the page number, starting at 0
+     * @param pageSize the number of closures per page
+     * @return the closures on the page, each followed by a newline; empty past the last page
+     */
+    public synchronized String printPage(int page, int pageSize) {
+        StringBuilder sb = new StringBuilder();
+        int newest = size - 1 - page * pageSize;
+        for (int i = newest; i >= 0 && i > newest - pageSize; i--) {
+            sb.append(read(i)).append("\n");
+        }
+        return sb.toString();
     }
 
     /**
      * Returns a string representation of all archived accounts along with their closure dates.
      * @return a formatted string of archived accounts
      */
-    public String print() {
-        if (first == null) {
+    public synchronized String print() {
+        if (size == 0) {
             return "No closed accounts.";
         }
+        return printPage(0, size).trim();  // Remove trailing newline
+    }
 
-        StringBuilder sb = new StringBuilder();
-        AccountNode current = first;
+    /**
+     * Removes the closures dated before a cutoff, and any dated before it that are added later.
+     * Their records stay in the segments as dead bytes until the segments are compacted in the background.
+     * @param before the first close date to keep
+     * @return the number of closures removed
+     */
+    public synchronized int purgeClosedBefore(Date before) {
+        int day = (int) before.toEpochDay();
+        if (day <= cutoff)
+            return 0;
+        cutoff = day;
+        writePurge();
+        int removed = dropPurged();
+        if (removed > 0) {
+            rebuildIndexes();
+            if (compactable() != null) {
+                if (compactor == null) {
+                    compactor = Executors.newSingleThreadExecutor(r -> {
+                        Thread t = new Thread(r, "archive-compactor");
+                        t.setDaemon(true);
+                        return t;
+                    });
+                }
+                compactor.execute(this::compact);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Records the purge cutoff in the active segment, so a restart drops the same closures.
+     */
+    private void writePurge() {
+        ByteBuffer rec = ByteBuffer.allocate(PURGE_BYTES);
+        rec.putInt(PURGE_BYTES).put(PURGE).put((byte) 0).putShort((short) 0).putInt(cutoff).putInt(0).flip();
+        write(rec);
+    }
 
-        while (current != null) {
-            sb.append(current.account)
-                    .append(" Closed[")
-                    .append(current.close)
-                    .append("]\n");
-            current = current.next;
+    /**
+     * Finds a sealed segment at least half of which is dead.
+     */
+    private ArchiveSegment compactable() {
+        for (int id = 0; id < active.id; id++) {
+            ArchiveSegment seg = segments.get(id);
+            if (seg != null && seg.live * 2 <= seg.size) {
+                return seg;
+            }
         }
+        return null;
+    }
 
-        return sb.toString().trim();  // Remove trailing newline
+    /**
+     * Moves the live records of every mostly dead sealed segment to the active segment and deletes those segments.
+     * @return the number of segments reclaimed
+     */
+    public synchronized int compact() {
+        if (closed)
+            return 0;
+        int reclaimed = 0;
+        ArchiveSegment victim;
+        while ((victim = compactable()) != null) {
+            if (reclaimed == 0 && cutoff != NO_CUTOFF) {
+                writePurge(); // the victim may hold the only record of the cutoff
+            }
+            for (int row = 0; row < size; row++) {
+                if (segment[row] != victim.id)
+                    continue;
+                ByteBuffer rec = ByteBuffer.allocate(length[row]);
+                try {
+                    victim.read(rec, offset[row]);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot read the archive: " + e.getMessage(), e);
+                }
+                rec.flip();
+                offset[row] = write(rec);
+                segment[row] = active.id;
+                active.live += length[row];
+            }
+            try {
+                active.force();
+                victim.close(true);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot compact the archive: " + e.getMessage(), e);
+            }
+            segments.remove(victim.id);
+            reclaimed++;
+        }
+        return reclaimed;
+    }
+
+    /**
+     * Retrieves the purge cutoff, for a snapshot.
+     * @return the epoch day before which closures were purged, or Integer.MIN_VALUE if nothing was
+     */
+    synchronized int purgeCutoff() {
+        return cutoff;
+    }
+
+    /**
+     * Retrieves the sequence number of the newest closure, for a checkpoint.
+     * @return the sequence number, or -1 if nothing was ever archived
+     */
+    synchronized long newestSeq() {
+        return nextSeq - 1;
+    }
+
+    /**
+     * Counts the closures archived after a given one, for a snapshot or checkpoint.
+     * @param afterSeq the sequence number of the last closure already saved, -1 for all of them
+     * @return the number of records {@link #copyRecords(ByteBuffer, long)} writes
+     */
+    synchronized int recordsAfter(long afterSeq) {
+        return size - firstRowAfter(afterSeq);
+    }
+
+    /**
+     * Totals the size of the closure records archived after a given one, for a snapshot or checkpoint.
+     * @param afterSeq the sequence number of the last closure already saved, -1 for all of them
+     * @return the number of bytes {@link #copyRecords(ByteBuffer, long)} writes
+     */
+    synchronized long recordBytes(long afterSeq) {
+        long total = 0;
+        for (int row = firstRowAfter(afterSeq); row < size; row++) {
+            total += length[row];
+        }
+        return total;
+    }
+
+    /**
+     * Copies the closure records archived after a given one, in archive order, into a snapshot or checkpoint.
+     * @param out      the buffer to write to
+     * @param afterSeq the sequence number of the last closure already saved, -1 for all of them
+     */
+    synchronized void copyRecords(ByteBuffer out, long afterSeq) {
+        for (int row = firstRowAfter(afterSeq); row < size; row++) {
+            ByteBuffer rec = out.slice(out.position(), length[row]);
+            try {
+                segments.get(segment[row]).read(rec, offset[row]);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read the archive: " + e.getMessage(), e);
+            }
+            out.position(out.position() + length[row]);
+        }
+    }
+
+    /**
+     * Finds the first row archived after a closure; rows are kept in sequence order.
+     */
+    private int firstRowAfter(long afterSeq) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (seq[mid] <= afterSeq) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Applies the purge cutoff of the archive closure records were copied from, then appends the records
+     * copied by {@link #copyRecords(ByteBuffer, long)}.
+     * @param in        the buffer to read from
+     * @param count     the number of records to read
+     * @param purgedTo  the purge cutoff of the archive they were copied from
+     */
+    synchronized void restoreRecords(ByteBuffer in, int count, int purgedTo) {
+        if (purgedTo > cutoff) {
+            cutoff = purgedTo;
+            writePurge();
+            if (dropPurged() > 0) {
+                rebuildIndexes();
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            int bytes = in.getInt(in.position());
+            ByteBuffer rec = in.slice(in.position(), bytes);
+            in.position(in.position() + bytes);
+            long s = rec.getLong(8);
+            int day = rec.getInt(20);
+            Profile h = decode(copy(rec)).holder;
+            nextSeq = Math.max(nextSeq, s + 1);
+            int at = write(rec);
+            active.live += bytes;
+            int row = addRow(s, day, holderKey(h), active.id, at, bytes);
+            indexDate(row);
+            linkHolder(row);
+        }
+    }
+
+    /**
+     * Copies a record into a heap buffer, which decoding needs.
+     */
+    private static ByteBuffer copy(ByteBuffer rec) {
+        ByteBuffer heap = ByteBuffer.allocate(rec.remaining());
+        heap.put(rec.duplicate()).flip();
+        return heap;
+    }
+
+    /**
+     * Retrieves the number of segments the archive is kept in.
+     * @return the number of segments
+     */
+    public synchronized int segments() {
+        return segments.size();
+    }
+
+    /**
+     * Writes the archive's records to disk, if it is kept in a directory.
+     */
+    public synchronized void flush() {
+        try {
+            active.force();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write the archive: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stops background compaction, flushes the archive and closes its segments. The archive must not be used afterwards.
+     * @throws IOException if a segment cannot be closed
+     */
+    public void close() throws IOException {
+        ExecutorService c;
+        synchronized (this) {
+            closed = true;
+            c = compactor;
+        }
+        if (c != null) {
+            c.shutdown();
+        }
+        synchronized (this) {
+            active.force();
+            for (int id = 0; id <= active.id; id++) {
+                ArchiveSegment seg = segments.get(id);
+                if (seg != null) {
+                    seg.close(false);
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,145 @@
+package com.example.project3.sourcefiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * One append-only segment of the archive, kept in a file or, for an archive without a directory, in a byte array.
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+abstract class ArchiveSegment {
+    final int id;
+    long size; // bytes written
+    long live; // bytes of closures that are still in the archive
+
+    ArchiveSegment(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Opens a segment file, creating it if it does not exist.
+     * @param file the segment file
+     * @param id   the segment number
+     * @return the segment, positioned at the end of what the file holds
+     * @throws IOException if the file cannot be opened
+     */
+    static ArchiveSegment open(File file, int id) throws IOException {
+        return new OnDisk(file, id);
+    }
+
+    /**
+     * Creates an empty segment kept on the heap.
+     * @param id the segment number
+     * @return the segment
+     */
+    static ArchiveSegment inMemory(int id) {
+        return new OnHeap(id);
+    }
+
+    /**
+     * Appends bytes to the end of the segment.
+     * @param src the bytes to write, from its position to its limit
+     * @return the offset the bytes were written at
+     */
+    abstract long append(ByteBuffer src) throws IOException;
+
+    /**
+     * Fills a buffer from the segment.
+     * @param dst the buffer to fill, from its position to its limit
+     * @param at  the offset to read from
+     */
+    abstract void read(ByteBuffer dst, long at) throws IOException;
+
+    /**
+     * Writes appended bytes to durable storage.
+     */
+    abstract void force() throws IOException;
+
+    /**
+     * Releases the segment. A file segment is closed and, if asked, deleted.
+     * @param delete true to delete the segment's file
+     */
+    abstract void close(boolean delete) throws IOException;
+
+    private static final class OnDisk extends ArchiveSegment {
+        private final File file;
+        private final FileChannel channel;
+
+        OnDisk(File file, int id) throws IOException {
+            super(id);
+            this.file = file;
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            size = channel.size();
+        }
+
+        @Override
+        long append(ByteBuffer src) throws IOException {
+            long at = size;
+            while (src.hasRemaining()) {
+                size += channel.write(src, size);
+            }
+            return at;
+        }
+
+        @Override
+        void read(ByteBuffer dst, long at) throws IOException {
+            while (dst.hasRemaining()) {
+                if (channel.read(dst, at + dst.position()) < 0) {
+                    throw new IOException("Unexpected end of " + file.getName() + ".");
+                }
+            }
+        }
+
+        @Override
+        void force() throws IOException {
+            channel.force(false);
+        }
+
+        @Override
+        void close(boolean delete) throws IOException {
+            channel.close();
+            if (delete && !file.delete()) {
+                throw new IOException("Cannot delete " + file + ".");
+            }
+        }
+    }
+
+    private static final class OnHeap extends ArchiveSegment {
+        private byte[] bytes = new byte[256];
+
+        OnHeap(int id) {
+            super(id);
+        }
+
+        @Override
+        long append(ByteBuffer src) {
+            int n = src.remaining();
+            if (size + n > bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.max(size + n, bytes.length * 2L));
+            }
+            int at = (int) size;
+            src.get(bytes, at, n);
+            size += n;
+            return at;
+        }
+
+        @Override
+        void read(ByteBuffer dst, long at) {
+            dst.put(bytes, (int) at, dst.remaining());
+        }
+
+        @Override
+        void force() {
+        }
+
+        @Override
+        void close(boolean delete) {
+            bytes = null;
+        }
+    }
+}
@@ -1,8 +1,7 @@
 package com.example.project3.sourcefiles;
 
 import com.example.project3.util.Date;
-
-import java.text.DecimalFormat;
+import com.example.project3.util.Money;
 
 /**
  * Represents a Certificate Deposit (CD) account.
@@ -11,9 +10,6 @@ import java.text.DecimalFormat;
  * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
  */
 public class CertificateDeposit extends Savings {
-    private int term;  // in months
-    private Date openDate;
-
     /**
      * Constructs a Certificate Deposit account with the specified parameters.
      * @param number   the account number
@@ -24,8 +20,8 @@ public class CertificateDeposit extends Savings {
      */
     public CertificateDeposit(AccountNumber number, Profile holder, double balance, int term, Date openDate) {
         super(number, holder, balance);
-        this.term = term;
-        this.openDate = openDate;
+        store.setTerm(row, term);
+        store.setOpenDate(row, (int) openDate.toEpochDay());
     }
 
     /**
@@ -33,7 +29,7 @@ public class CertificateDeposit extends Savings {
      * @return the term in months
      */
     public int getTerm() {
-        return term;
+        return store.term(row);
     }
 
     /**
@@ -41,58 +37,45 @@ public class CertificateDeposit extends Savings {
      * @return opening date
      */
     public Date getOpenDate() {
-        return openDate;
+        return Date.ofEpochDay(store.openDate(row));
     }
 
 
     /**
      * Calculates and returns the maturity date of the CD.
-     * The maturity date is determined by adding the term length to the opening date.
+     * The maturity date is determined by adding the term length to the opening date,
+     * clamped to the last day of the month when the opening day does not exist in it.
      * @return the maturity date of the CD
      */
     public Date getMaturityDate() {
-        int newYear = openDate.getYear();
-        int newMonth = openDate.getMonth() + term;
-        int newDay = openDate.getDay();
-
-        // Adjust the year and month if months exceed 12
-        while (newMonth > 12) {
-            newMonth -= 12;
-            newYear++;
-        }
-
-        // Get the maximum valid day for the new month and year
-        int maxDaysInMonth = Date.DAYS_IN_MONTH[newMonth - 1];
-
-        // Adjust for leap year if the new month is February
-        if (newMonth == 2 && newYear % Date.QUADRENNIAL == 0 &&
-                (newYear % Date.CENTENNIAL != 0 || newYear % Date.QUATERCENTENNIAL == 0)) {
-            maxDaysInMonth = 29;
-        }
-
-        // If the original day is too large for the new month, adjust it
-        if (newDay > maxDaysInMonth) {
-            newDay = maxDaysInMonth;
-        }
-
-        return new Date(newMonth + "/" + newDay + "/" + newYear);
+        return getOpenDate().plusMonths(getTerm());
     }
 
     /**
      * Computes the monthly interest based on the term length.
-     * @return the monthly interest earned on the CD
+     * @return the monthly interest earned on the CD, in cents
      */
     @Override
-    public double interest() {
-        double rate;
+    public long interest() {
+        return monthlyInterest(balance(), getTerm());
+    }
+
+    /**
+     * Computes the monthly interest on a CD balance for its term, for an account or a store row.
+     * @param balance the balance, in cents
+     * @param term    the term in months
+     * @return the monthly interest earned, in cents
+     */
+    static long monthlyInterest(long balance, int term) {
+        int basisPoints;
         switch (term) {
-            case 3:  rate = 0.03;  break;
-            case 6:  rate = 0.0325; break;
-            case 9:  rate = 0.035;  break;
-            case 12: rate = 0.04;   break;
-            default: rate = 0.03;   break;
+            case 3:  basisPoints = 300; break;
+            case 6:  basisPoints = 325; break;
+            case 9:  basisPoints = 350; break;
+            case 12: basisPoints = 400; break;
+            default: basisPoints = 300; break;
         }
-        return balance * (rate / 12);
+        return Money.monthlyInterest(balance, basisPoints);
     }
 
     /**
@@ -100,7 +83,7 @@ public class CertificateDeposit extends Savings {
      * @return the monthly fee (always 0)
      */
     @Override
-    public double fee() {
+    public long fee() {
 
         return 0;
     }
@@ -112,7 +95,6 @@ public class CertificateDeposit extends Savings {
      */
     @Override
     public String toString() {
-        DecimalFormat df = new DecimalFormat("#,##0.00");
-        return super.toString() + " Term[" + term + "] Date Opened[" + openDate + "] Maturity Date[" + getMaturityDate() + "]";
+        return super.toString() + " Term[" + getTerm() + "] Date Opened[" + getOpenDate() + "] Maturity Date[" + getMaturityDate() + "]";
     }
 }
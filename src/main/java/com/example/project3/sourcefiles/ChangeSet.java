@@ -0,0 +1,146 @@
+package com.example.project3.sourcefiles;
+
+import com.example.project3.util.List;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The accounts a database changed since its last checkpoint, the order accounts were added and removed in,
+ * and the transaction ids claimed.
+ * Each changed account is listed once, in a slot kept in the account, so marking an account costs the same
+ * however often it changes. Accounts of different holders may be marked from different threads.
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+final class ChangeSet {
+    static final int ADD = 0;   // appended to the database
+    static final int CLOSE = 1; // archived; the last account takes its place
+    static final int DROP = 2;  // removed without archiving; later accounts move up
+    private static final int KIND_BITS = 2;
+
+    private final List<Account> changed = new List<>();
+    private int[] ops = new int[16]; // slot << KIND_BITS | kind, in the order they happened
+    private int opCount;
+    private long[] claims = new long[16]; // fingerprints of the transaction ids claimed, in order
+    private int claimCount;
+
+    /**
+     * Marks an account changed.
+     * @param acct the account
+     */
+    void touch(Account acct) {
+        if (acct.changeSlot < 0) {
+            synchronized (changed) {
+                acct.changeSlot = changed.size();
+                changed.add(acct);
+            }
+        }
+    }
+
+    /**
+     * Records that an account was added to, archived from or dropped from the database, and marks it changed.
+     * @param acct the account
+     * @param kind ADD, CLOSE or DROP
+     */
+    void record(Account acct, int kind) {
+        touch(acct);
+        if (opCount == ops.length) {
+            ops = Arrays.copyOf(ops, opCount * 2);
+        }
+        ops[opCount++] = acct.changeSlot << KIND_BITS | kind;
+    }
+
+    /**
+     * Records a transaction id claimed by a posting. Called holding the database's lock.
+     * @param fp the id's fingerprint
+     */
+    void claim(long fp) {
+        if (claimCount == claims.length) {
+            claims = Arrays.copyOf(claims, claimCount * 2);
+        }
+        claims[claimCount++] = fp;
+    }
+
+    /**
+     * Retrieves the number of bytes {@link #writeClaims(ByteBuffer)} writes.
+     * @return the size of the claimed ids
+     */
+    long claimBytes() {
+        return 4 + 8L * claimCount;
+    }
+
+    /**
+     * Writes the claimed ids: their count, then the fingerprints in the order they were claimed.
+     * @param out the buffer to write to
+     */
+    void writeClaims(ByteBuffer out) {
+        out.putInt(claimCount);
+        for (int i = 0; i < claimCount; i++) {
+            out.putLong(claims[i]);
+        }
+    }
+
+    /**
+     * Retrieves the number of changed accounts.
+     * @return the number of slots
+     */
+    int size() {
+        return changed.size();
+    }
+
+    /**
+     * Retrieves the account in a slot.
+     * @param slot the slot
+     * @return the account
+     */
+    Account get(int slot) {
+        return changed.get(slot);
+    }
+
+    /**
+     * Retrieves the number of additions and removals.
+     * @return the number of operations
+     */
+    int operations() {
+        return opCount;
+    }
+
+    /**
+     * Retrieves an addition or removal, packed as the account's slot shifted left by two bits and the kind.
+     * @param i the operation, in order
+     * @return the packed operation
+     */
+    int operation(int i) {
+        return ops[i];
+    }
+
+    static int slotOf(int op) {
+        return op >>> KIND_BITS;
+    }
+
+    static int kindOf(int op) {
+        return op & ((1 << KIND_BITS) - 1);
+    }
+
+    /**
+     * Checks which changed accounts are still in the database, from the order they were added and removed in.
+     * @return one flag per slot, true if the account is open
+     */
+    boolean[] open() {
+        boolean[] open = new boolean[changed.size()];
+        Arrays.fill(open, true);
+        for (int i = 0; i < opCount; i++) {
+            open[slotOf(ops[i])] = kindOf(ops[i]) == ADD;
+        }
+        return open;
+    }
+
+    /**
+     * Marks the set's accounts unchanged, so later changes go to a new set. The set itself keeps its contents.
+     */
+    void release() {
+        for (Account acct : changed) {
+            acct.changeSlot = -1;
+        }
+    }
+}
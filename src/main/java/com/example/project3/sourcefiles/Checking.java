@@ -1,5 +1,7 @@
 package com.example.project3.sourcefiles;
 
+import com.example.project3.util.Money;
+
 /**
  * A regular checking account.
  * Interest = 1.5% annual => monthly = balance * (0.015 / 12)
@@ -20,22 +22,39 @@ public class Checking extends Account {
 
     /**
      * Calculates and returns the monthly interest earned on the account balance.
-     * @return the monthly interest amount
+     * @return the monthly interest amount, in cents
      */
     @Override
-    public double interest() {
-        // 1.5% annual => monthly
-        double annualRate = 0.015;
-        return balance * (annualRate / 12);
+    public long interest() {
+        return monthlyInterest(balance());
     }
 
     /**
      * Determines and returns the monthly maintenance fee for the account.
      * The fee is $15 unless the account balance is at least $1000, otherwise it is 0.
-     * @return the monthly fee amount
+     * @return the monthly fee amount, in cents
      */
     @Override
-    public double fee() {
-        return (balance >= 1000) ? 0 : 15;
+    public long fee() {
+        return monthlyFee(balance());
+    }
+
+    /**
+     * Computes the monthly interest on a checking balance, for an account or a store row.
+     * @param balance the balance, in cents
+     * @return the monthly interest amount, in cents
+     */
+    static long monthlyInterest(long balance) {
+        // 1.5% annual => monthly
+        return Money.monthlyInterest(balance, 150);
+    }
+
+    /**
+     * Computes the monthly fee of a regular checking account with the given balance.
+     * @param balance the balance, in cents
+     * @return $15 if the balance is below $1000, otherwise $0, in cents
+     */
+    static long monthlyFee(long balance) {
+        return (balance >= 1000_00) ? 0 : 15_00;
     }
 }
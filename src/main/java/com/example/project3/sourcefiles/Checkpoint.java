@@ -0,0 +1,280 @@
+package com.example.project3.sourcefiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Saves a database to a directory as a base {@link Snapshot} followed by a chain of incremental checkpoints.
+ * A checkpoint holds only the accounts changed since the previous one, with the postings they gained,
+ * the order accounts were added and removed in, and the closures archived since, so it costs time in proportion
+ * to what changed rather than to the size of the database. Every given number of checkpoints the chain is merged
+ * into a new base snapshot.
+ * <p>
+ * Files are named after the base they belong to: "base-NNNNN.snapshot" and "delta-NNNNN-MMMMM.ckpt".
+ * A new base is written before the old base and its checkpoints are deleted, so a crash in between leaves a usable chain.
+ * A checkpoint file has the snapshot header (its checkpoint count is the number of additions and removals), then the additions and
+ * removals, the holders, the changed accounts with their new postings, the closure records, the transaction ids
+ * claimed since the previous checkpoint, and every offset activity feeds reached.
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+public final class Checkpoint {
+    private static final int MAGIC = 0x424B444C; // "BKDL"
+
+    private final File dir;
+    private final int mergeEvery;
+    private int generation = -1; // number of the current base, -1 if there is none
+    private int deltas;          // checkpoints chained to the current base
+    private AccountDatabase tracked; // the database the chain holds, null until it is restored or merged
+    private long archivedSeq = -1;   // the newest closure the chain holds
+    private boolean unreadable;      // set once the chain failed to restore, so it is never written over
+
+    /**
+     * Opens a checkpoint directory, creating it if needed.
+     * @param dir        the directory
+     * @param mergeEvery the number of checkpoints chained before they are merged into a new base, at least 1
+     * @throws IOException if the directory cannot be created
+     */
+    public Checkpoint(File dir, int mergeEvery) throws IOException {
+        if (mergeEvery < 1) {
+            throw new IllegalArgumentException("At least 1 checkpoint must be chained before merging.");
+        }
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir + ".");
+        }
+        this.dir = dir;
+        this.mergeEvery = mergeEvery;
+        String[] names = dir.list();
+        for (String name : names == null ? new String[0] : names) {
+            if (name.startsWith("base-") && name.endsWith(".snapshot")) {
+                try {
+                    generation = Math.max(generation, Integer.parseInt(name.substring(5, name.length() - 9)));
+                } catch (NumberFormatException e) {
+                    // not one of ours
+                }
+            }
+        }
+        while (generation >= 0 && deltaFile(generation, deltas + 1).exists()) {
+            deltas++;
+        }
+    }
+
+    /**
+     * Checks whether the directory holds a saved database.
+     * @return true if there is a base snapshot
+     */
+    public boolean exists() {
+        return generation >= 0;
+    }
+
+    /**
+     * Retrieves the number of checkpoints chained to the current base.
+     * @return the number of checkpoints since the last merge
+     */
+    public int deltas() {
+        return deltas;
+    }
+
+    /**
+     * Reads the base snapshot and applies its checkpoints in order. The database's changes are tracked from then on.
+     * If the chain cannot be read it is left as it is: no later checkpoint or merge writes over it.
+     * @return the database
+     * @throws IOException if there is no base, or a file cannot be read or is damaged
+     */
+    public AccountDatabase restore() throws IOException {
+        if (generation < 0) {
+            throw new IOException("There is no snapshot in " + dir + ".");
+        }
+        unreadable = true;
+        AccountDatabase db = Snapshot.read(baseFile(generation));
+        for (int n = 1; n <= deltas; n++) {
+            apply(db, deltaFile(generation, n));
+        }
+        unreadable = false;
+        follow(db);
+        return db;
+    }
+
+    /**
+     * Saves what changed in a database since the last checkpoint. The first checkpoint of a database that was not
+     * restored from this directory, and every checkpoint after the chain reaches its length, writes a new base instead.
+     * @param db the database
+     * @throws IOException if the checkpoint cannot be written; the next checkpoint then writes a new base.
+     *                     Also if the chain failed to restore
+     */
+    public void checkpoint(AccountDatabase db) throws IOException {
+        if (db != tracked || deltas >= mergeEvery) {
+            merge(db);
+            return;
+        }
+        tracked = null;
+        long journaled = db.journalPosition();
+        writeDelta(db, db.takeChanges(), deltaFile(generation, deltas + 1));
+        deltas++;
+        tracked = db;
+        discardJournal(db, journaled);
+    }
+
+    /**
+     * Writes a new base snapshot of a database and deletes the old base and its checkpoints.
+     * @param db the database
+     * @throws IOException if the snapshot cannot be written, or the chain failed to restore
+     */
+    public void merge(AccountDatabase db) throws IOException {
+        if (unreadable) {
+            throw new IOException("The accounts in " + dir + " could not be restored; they are left as they are.");
+        }
+        tracked = null;
+        long journaled = db.journalPosition();
+        db.trackChanges();
+        db.takeChanges(); // the base holds them all
+        Snapshot.write(db, baseFile(generation + 1));
+        if (generation >= 0) {
+            for (int n = deltas; n >= 1; n--) {
+                delete(deltaFile(generation, n));
+            }
+            delete(baseFile(generation));
+        }
+        generation++;
+        deltas = 0;
+        follow(db);
+        discardJournal(db, journaled);
+    }
+
+    /**
+     * Lets the database's journal drop the entries a checkpoint now holds.
+     */
+    private static void discardJournal(AccountDatabase db, long journaled) throws IOException {
+        if (db.journal() != null) {
+            db.journal().discardThrough(journaled);
+        }
+    }
+
+    /**
+     * Makes a database the one the chain holds, with all its postings and closures saved.
+     */
+    private void follow(AccountDatabase db) {
+        for (Account acct : db) {
+            acct.activities.markCheckpointed();
+        }
+        archivedSeq = db.getArchive().newestSeq();
+        db.trackChanges();
+        tracked = db;
+    }
+
+    /**
+     * Writes the changed accounts, the additions and removals and the new closures.
+     */
+    private void writeDelta(AccountDatabase db, ChangeSet changes, File file) throws IOException {
+        int n = changes.size();
+        Snapshot.Holders holders = new Snapshot.Holders(n);
+        long bytes = Snapshot.HEADER_BYTES + 4L * changes.operations();
+        for (int i = 0; i < n; i++) {
+            Account acct = changes.get(i);
+            holders.add(acct.getHolder());
+            bytes += Snapshot.ACCOUNT_BYTES + Snapshot.LOG_BYTES + 8L * acct.activities.tailLongs();
+        }
+        Archive archive = db.getArchive();
+        long newest = archive.newestSeq();
+        FeedOffsets feeds = db.feedOffsets();
+        bytes += holders.bytes() + archive.recordBytes(archivedSeq) + changes.claimBytes() + feeds.bytes();
+
+        ByteBuffer out = Snapshot.allocate(bytes);
+        Snapshot.header(out, MAGIC, holders.count(), n, archive.recordsAfter(archivedSeq), archive.purgeCutoff(),
+                changes.operations(), db.journalPosition());
+        for (int i = 0; i < changes.operations(); i++) {
+            out.putInt(changes.operation(i));
+        }
+        holders.write(out);
+        for (int i = 0; i < n; i++) {
+            Account acct = changes.get(i);
+            Snapshot.putAccount(out, acct, holders.indexOf(acct.getHolder()));
+            acct.activities.writeTail(out);
+        }
+        archive.copyRecords(out, archivedSeq);
+        changes.writeClaims(out);
+        feeds.writeTo(out);
+        Snapshot.writeFile(out, file);
+        archivedSeq = newest;
+    }
+
+    /**
+     * Applies a checkpoint: the new closures, claimed transaction ids and feed offsets, then the additions and removals in order,
+     * then the state and new postings of the accounts still open.
+     */
+    private static void apply(AccountDatabase db, File file) throws IOException {
+        ByteBuffer in = Snapshot.map(file, MAGIC, "checkpoint");
+        int holderCount = in.getInt(8);
+        int records = in.getInt(12);
+        int closures = in.getInt(16);
+        int cutoff = in.getInt(20);
+        int[] ops = new int[in.getInt(28)];
+        for (int i = 0; i < ops.length; i++) {
+            ops[i] = in.getInt();
+        }
+        Profile[] holders = Snapshot.readHolders(in, holderCount);
+        Account[] saved = new Account[records];
+        int[] recordAt = new int[records];
+        for (int i = 0; i < records; i++) {
+            recordAt[i] = in.position();
+            saved[i] = Snapshot.getAccount(in, holders);
+            in.getInt();
+            int longs = in.getInt();
+            in.position(in.position() + 8 * longs);
+        }
+        db.getArchive().restoreRecords(in, closures, cutoff);
+        db.readTransactionIds(in);
+        db.feedOffsets().readFrom(in);
+
+        boolean[] added = new boolean[records];
+        boolean[] open = new boolean[records];
+        Arrays.fill(open, true);
+        for (int op : ops) {
+            int slot = ChangeSet.slotOf(op);
+            if (ChangeSet.kindOf(op) == ChangeSet.ADD) {
+                saved[slot].activities.readFrom(in.position(recordAt[slot] + Snapshot.ACCOUNT_BYTES));
+                db.add(saved[slot]);
+                added[slot] = true;
+                open[slot] = true;
+            } else {
+                Account acct = added[slot] ? saved[slot] : db.getAccount(saved[slot].getAccountNumber());
+                if (acct != null) {
+                    db.replayRemoval(acct, ChangeSet.kindOf(op));
+                }
+                open[slot] = false;
+            }
+        }
+        for (int i = 0; i < records; i++) {
+            if (!open[i]) {
+                continue;
+            }
+            Account acct = added[i] ? saved[i] : db.getAccount(saved[i].getAccountNumber());
+            if (acct == null) {
+                throw new IOException(file.getName() + " does not belong to this snapshot.");
+            }
+            Account state = Snapshot.getAccount(in.position(recordAt[i]), holders);
+            if (!added[i]) {
+                acct.activities.readFrom(in);
+            }
+            acct.store.setBalance(acct.row, state.store.balance(state.row));
+            acct.store.setLoyal(acct.row, state.store.loyal(state.row));
+            acct.store.setWithdrawals(acct.row, state.store.withdrawals(state.row));
+        }
+        db.setJournalPosition(Snapshot.journalPosition(in));
+    }
+
+    private File baseFile(int gen) {
+        return new File(dir, String.format("base-%05d.snapshot", gen));
+    }
+
+    private File deltaFile(int gen, int n) {
+        return new File(dir, String.format("delta-%05d-%05d.ckpt", gen, n));
+    }
+
+    private static void delete(File file) throws IOException {
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Cannot delete " + file + ".");
+        }
+    }
+}
@@ -36,7 +36,7 @@ public class CollegeChecking extends Checking {
      * @return the monthly fee, which is always 0
      */
     @Override
-    public double fee() {
+    public long fee() {
         return 0;
     }
 
@@ -0,0 +1,78 @@
+package com.example.project3.sourcefiles;
+
+import com.example.project3.util.List;
+import com.example.project3.util.ObjectMap;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The byte offsets {@link ActivityFeed}s reached in their files, kept with the database they post to,
+ * so an offset is journaled right after the postings of the lines before it and saved with every checkpoint.
+ * Restoring the database then restores the offsets that match its postings.
+ * Files are known by their absolute paths.
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+final class FeedOffsets {
+    private final List<String> paths = new List<>();
+    private final ObjectMap<String, Long> offsets = new ObjectMap<>();
+
+    /**
+     * Retrieves the offset reached in a file.
+     * @param path the file's absolute path
+     * @return the offset, or -1 if the file was never read
+     */
+    synchronized long get(String path) {
+        Long offset = offsets.get(path);
+        return offset == null ? -1 : offset;
+    }
+
+    /**
+     * Records the offset reached in a file.
+     * @param path   the file's absolute path
+     * @param offset the number of bytes of the file applied
+     */
+    synchronized void set(String path, long offset) {
+        if (!offsets.containsKey(path)) {
+            paths.add(path);
+        }
+        offsets.put(path, offset);
+    }
+
+    /**
+     * Retrieves the number of bytes {@link #writeTo(ByteBuffer)} writes.
+     * @return the size of the offsets
+     */
+    synchronized long bytes() {
+        long bytes = 4;
+        for (String path : paths) {
+            bytes += 2 + path.getBytes(StandardCharsets.UTF_8).length + 8;
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the offsets: their count, then each file's path length, UTF-8 path and offset.
+     * @param out the buffer to write to
+     */
+    synchronized void writeTo(ByteBuffer out) {
+        out.putInt(paths.size());
+        for (String path : paths) {
+            byte[] b = path.getBytes(StandardCharsets.UTF_8);
+            out.putShort((short) b.length).put(b).putLong(offsets.get(path));
+        }
+    }
+
+    /**
+     * Reads offsets written by {@link #writeTo(ByteBuffer)}, replacing the ones recorded for the same files.
+     * @param in the buffer, positioned at the count
+     */
+    synchronized void readFrom(ByteBuffer in) {
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            byte[] b = new byte[in.getShort()];
+            in.get(b);
+            set(new String(b, StandardCharsets.UTF_8), in.getLong());
+        }
+    }
+}
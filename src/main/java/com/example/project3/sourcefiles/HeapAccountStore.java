@@ -0,0 +1,259 @@
+package com.example.project3.sourcefiles;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * Columnar storage for accounts on the heap: one primitive array per field, one row per account.
+ * A row holds the packed account number, type, branch, holder id, campus, balance, loyalty flag,
+ * withdrawal count, CD term and open date, so statements, interest and reports scan a few arrays
+ * instead of the account objects.
+ * Holders are kept once in a table, and each row stores the id of its holder there.
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+public class HeapAccountStore extends AccountStore {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final AccountType[] TYPES = AccountType.values();
+    private static final Branch[] BRANCHES = Branch.values();
+    private static final Campus[] CAMPUSES = Campus.values();
+
+    private int[] number;        // packed account number
+    private byte[] type;         // AccountType ordinal
+    private byte[] branch;       // Branch ordinal
+    private int[] holder;        // id in the holder table
+    private byte[] campus;       // Campus ordinal + 1, 0 if none
+    private long[] balance;      // in cents
+    private boolean[] loyal;
+    private int[] withdrawals;
+    private byte[] term;         // CD term in months, 0 for other accounts
+    private int[] openDate;      // CD open date as an epoch day
+    private ActivityLog[] logs;
+    private Account[] views;
+    private int size;
+
+    private Profile[] holders = new Profile[DEFAULT_CAPACITY]; // holder table, by id
+    private int[] holderRows = new int[DEFAULT_CAPACITY];      // rows using each id, 0 for a free id
+    private int[] freeIds = new int[DEFAULT_CAPACITY];
+    private int freeCount;
+    private int holderCount;
+    private final IdentityHashMap<Profile, Integer> holderIds = new IdentityHashMap<>();
+
+    /**
+     * Constructs an empty store with a default capacity.
+     */
+    public HeapAccountStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty store able to hold the given number of rows without growing.
+     * @param capacity the initial number of rows
+     */
+    public HeapAccountStore(int capacity) {
+        number = new int[capacity];
+        type = new byte[capacity];
+        branch = new byte[capacity];
+        holder = new int[capacity];
+        campus = new byte[capacity];
+        balance = new long[capacity];
+        loyal = new boolean[capacity];
+        withdrawals = new int[capacity];
+        term = new byte[capacity];
+        openDate = new int[capacity];
+        logs = new ActivityLog[capacity];
+        views = new Account[capacity];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Account view(int row) {
+        return views[row];
+    }
+
+    @Override
+    int key(int row) {
+        return number[row];
+    }
+
+    @Override
+    AccountType type(int row) {
+        return TYPES[type[row]];
+    }
+
+    @Override
+    Branch branch(int row) {
+        return BRANCHES[branch[row]];
+    }
+
+    @Override
+    Profile holder(int row) {
+        return holders[holder[row]];
+    }
+
+    @Override
+    Campus campus(int row) {
+        return campus[row] == 0 ? null : CAMPUSES[campus[row] - 1];
+    }
+
+    @Override
+    ActivityLog log(int row) {
+        return logs[row];
+    }
+
+    @Override
+    long balance(int row) {
+        return balance[row];
+    }
+
+    @Override
+    void setBalance(int row, long cents) {
+        balance[row] = cents;
+    }
+
+    @Override
+    boolean loyal(int row) {
+        return loyal[row];
+    }
+
+    @Override
+    void setLoyal(int row, boolean value) {
+        loyal[row] = value;
+    }
+
+    @Override
+    int withdrawals(int row) {
+        return withdrawals[row];
+    }
+
+    @Override
+    void setWithdrawals(int row, int count) {
+        withdrawals[row] = count;
+    }
+
+    @Override
+    int term(int row) {
+        return term[row];
+    }
+
+    @Override
+    void setTerm(int row, int months) {
+        term[row] = (byte) months;
+    }
+
+    @Override
+    int openDate(int row) {
+        return openDate[row];
+    }
+
+    @Override
+    void setOpenDate(int row, int epochDay) {
+        openDate[row] = epochDay;
+    }
+
+    @Override
+    int append(Account acct) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        AccountNumber n = acct.number;
+        number[row] = n.getKey();
+        type[row] = (byte) n.getType().ordinal();
+        branch[row] = (byte) n.getBranch().ordinal();
+        holder[row] = holderId(acct.holder);
+        campus[row] = (byte) (acct instanceof CollegeChecking college ? college.getCampus().ordinal() + 1 : 0);
+        logs[row] = acct.activities;
+        views[row] = acct;
+        return row;
+    }
+
+    @Override
+    void drop(int row) {
+        releaseHolder(holder[row]);
+        int last = --size;
+        if (row != last) {
+            number[row] = number[last];
+            type[row] = type[last];
+            branch[row] = branch[last];
+            holder[row] = holder[last];
+            campus[row] = campus[last];
+            balance[row] = balance[last];
+            loyal[row] = loyal[last];
+            withdrawals[row] = withdrawals[last];
+            term[row] = term[last];
+            openDate[row] = openDate[last];
+            logs[row] = logs[last];
+            views[row] = views[last];
+            views[row].bind(this, row);
+        }
+        logs[last] = null;
+        views[last] = null;
+    }
+
+    /**
+     * Finds the id of a holder in the holder table, adding the holder if no row uses it yet.
+     * The table is keyed by identity, so every spelling of a name keeps its own entry.
+     */
+    private int holderId(Profile p) {
+        Integer known = holderIds.get(p);
+        int id;
+        if (known != null) {
+            id = known;
+        } else {
+            if (freeCount > 0) {
+                id = freeIds[--freeCount];
+            } else {
+                if (holderCount == holders.length) {
+                    int grown = holderCount + (holderCount >> 1) + 1;
+                    holders = Arrays.copyOf(holders, grown);
+                    holderRows = Arrays.copyOf(holderRows, grown);
+                }
+                id = holderCount++;
+            }
+            holders[id] = p;
+            holderIds.put(p, id);
+        }
+        holderRows[id]++;
+        return id;
+    }
+
+    /**
+     * Drops a row's use of a holder id, freeing the id once no row uses it.
+     */
+    private void releaseHolder(int id) {
+        if (--holderRows[id] == 0) {
+            holderIds.remove(holders[id]);
+            holders[id] = null;
+            if (freeCount == freeIds.length) {
+                freeIds = Arrays.copyOf(freeIds, freeCount + (freeCount >> 1) + 1);
+            }
+            freeIds[freeCount++] = id;
+        }
+    }
+
+    /**
+     * Grows every column so the given number of rows fits.
+     * @param minCapacity the number of rows that must fit
+     */
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        int capacity = views.length;
+        if (minCapacity <= capacity)
+            return;
+        int newCapacity = Math.max(minCapacity, capacity + (capacity >> 1) + 1);
+        number = Arrays.copyOf(number, newCapacity);
+        type = Arrays.copyOf(type, newCapacity);
+        branch = Arrays.copyOf(branch, newCapacity);
+        holder = Arrays.copyOf(holder, newCapacity);
+        campus = Arrays.copyOf(campus, newCapacity);
+        balance = Arrays.copyOf(balance, newCapacity);
+        loyal = Arrays.copyOf(loyal, newCapacity);
+        withdrawals = Arrays.copyOf(withdrawals, newCapacity);
+        term = Arrays.copyOf(term, newCapacity);
+        openDate = Arrays.copyOf(openDate, newCapacity);
+        logs = Arrays.copyOf(logs, newCapacity);
+        views = Arrays.copyOf(views, newCapacity);
+    }
+}
@@ -0,0 +1,535 @@
+package com.example.project3.sourcefiles;
+
+import com.example.project3.util.BusinessClock;
+import com.example.project3.util.Date;
+import com.example.project3.util.List;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only binary journal of every change made to a database, so the changes since the last
+ * {@link Checkpoint} survive a crash. Entries are encoded into a shared buffer under a short lock and a background
+ * thread writes whatever has gathered with one channel write and one force (group commit): when the buffer holds the
+ * flush size, when the flush interval has passed, or when a caller waits for its entries with {@link #sync()}.
+ * Writers never wait for the disk unless they ask to, or unless the disk falls several flushes behind.
+ * <p>
+ * The journal is kept in files named "journal-NNNNNNNNNNNN.wal" after their first entry's sequence number; a new
+ * file is started each time the journal is opened and after a checkpoint lets the older ones go.
+ * An entry is [int length][int CRC-32 of the rest][long sequence number][byte kind][int epoch day][payload].
+ * A deposit or withdrawal carries the fingerprint of the transaction id it claimed, so replay claims it again.
+ * An activity feed's offset in a file follows the postings of the lines before it, so replay restores the offset
+ * that matches the postings.
+ * <p>
+ * Entries journaled between a BEGIN and a COMMIT marker form a batch, which replay applies only once it reaches the
+ * COMMIT. A batch still open at the end of a file was cut short by a crash, since every run starts a new file,
+ * and is dropped whole. No other change may be journaled while a batch is open.
+ * A torn entry at the end of the newest file, left by a crash during a write, is cut off when the journal is opened.
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+public final class Journal {
+    private static final byte OPEN = 1;
+    private static final byte DEPOSIT = 2;
+    private static final byte WITHDRAW = 3;
+    private static final byte CLOSE = 4;
+    private static final byte DROP = 5;
+    private static final byte STATEMENTS = 6;
+    private static final byte FEED = 7; // the offset an activity feed reached in a file
+    private static final byte BEGIN = 8;  // the entries up to the next COMMIT are applied together or not at all
+    private static final byte COMMIT = 9;
+    private static final int ENTRY_HEADER = 21;
+    private static final int CRC_FROM = 8;
+    private static final int OPEN_BYTES = 26; // before the names
+    private static final int PENDING_FLUSHES = 4; // flushes' worth of entries writers may run ahead of the disk
+
+    private final File dir;
+    private final int flushBytes;
+    private final long flushNanos;
+    private final Object lock = new Object();
+    private final CRC32 crc = new CRC32();
+    private final Thread flusher;
+    private FileChannel channel;
+    private ByteBuffer pending; // entries not yet handed to the flusher
+    private ByteBuffer spare;   // the other buffer, null while the flusher writes it
+    private int entryStart;     // where the entry being encoded starts in the pending buffer
+    private long appended;      // sequence number of the newest entry
+    private long durable;       // sequence number of the newest forced entry
+    private int waiting;        // callers blocked in sync()
+    private IOException failure;
+    private boolean closed;
+
+    /**
+     * Opens the journal in a directory, creating the directory if needed, and starts its flusher.
+     * @param dir         the directory
+     * @param flushBytes  the number of buffered bytes that triggers a write
+     * @param flushMillis the longest an entry waits before it is written, unless a caller syncs sooner
+     * @throws IOException if the directory cannot be created or a journal file is damaged
+     */
+    public Journal(File dir, int flushBytes, long flushMillis) throws IOException {
+        if (flushBytes < 1 || flushMillis < 0) {
+            throw new IllegalArgumentException("The flush size must be positive and the flush interval not negative.");
+        }
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir + ".");
+        }
+        this.dir = dir;
+        this.flushBytes = flushBytes;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        File[] files = files();
+        for (int i = 0; i < files.length; i++) {
+            appended = Math.max(appended, firstOf(files[i]) - 1);
+            ByteBuffer entries = readEntries(files[i]);
+            if (entries.limit() < files[i].length()) {
+                if (i < files.length - 1) {
+                    throw new IOException(files[i].getName() + " is damaged.");
+                }
+                try (FileChannel torn = FileChannel.open(files[i].toPath(), StandardOpenOption.WRITE)) {
+                    torn.truncate(entries.limit());
+                }
+            }
+            for (int at = 0; at < entries.limit(); at += entries.getInt(at)) {
+                appended = Math.max(appended, entries.getLong(at + 8));
+            }
+        }
+        durable = appended;
+        pending = ByteBuffer.allocate(flushBytes);
+        spare = ByteBuffer.allocate(flushBytes);
+        channel = open(appended + 1);
+        flusher = new Thread(this::flushLoop, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Applies the entries a database does not reflect yet, in order, each on the business day it was made.
+     * The entries of a batch are applied when its COMMIT marker is reached; a batch that never committed is dropped.
+     * @param db the database, restored from the last checkpoint or empty
+     * @return the number of entries applied, not counting batch markers
+     * @throws IOException if a journal file cannot be read, or an entry refers to an account the database does not have
+     */
+    public int replay(AccountDatabase db) throws IOException {
+        int applied = 0;
+        for (File file : files()) {
+            ByteBuffer entries = readEntries(file);
+            List<ByteBuffer> batch = null; // the entries of the open batch, null if none is open
+            for (int at = 0; at < entries.limit(); at += entries.getInt(at)) {
+                long seq = entries.getLong(at + 8);
+                if (seq <= db.journalPosition()) {
+                    continue;
+                }
+                byte kind = entries.get(at + 16);
+                if (kind == BEGIN) {
+                    batch = new List<>();
+                } else if (kind == COMMIT) {
+                    if (batch != null) {
+                        for (ByteBuffer e : batch) {
+                            apply(db, e, file);
+                            applied++;
+                        }
+                        batch = null;
+                    }
+                    db.setJournalPosition(seq);
+                } else if (batch != null) {
+                    batch.add(entries.slice(at, entries.getInt(at)));
+                } else {
+                    apply(db, entries.slice(at, entries.getInt(at)), file);
+                    db.setJournalPosition(seq);
+                    applied++;
+                }
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Retrieves the sequence number of the newest entry.
+     * @return the sequence number, 0 if nothing was ever journaled
+     */
+    public long position() {
+        synchronized (lock) {
+            return appended;
+        }
+    }
+
+    /**
+     * Waits until every entry appended so far is on disk.
+     * @throws IllegalStateException if the journal cannot be written
+     */
+    public void sync() {
+        synchronized (lock) {
+            long target = appended;
+            waiting++;
+            lock.notifyAll();
+            try {
+                while (durable < target) {
+                    if (failure != null) {
+                        throw new IllegalStateException("Cannot write the journal: " + failure.getMessage(), failure);
+                    }
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while writing the journal.", e);
+            } finally {
+                waiting--;
+            }
+        }
+    }
+
+    /**
+     * Drops the journal files whose entries a checkpoint now holds, starting a new file.
+     * Nothing is dropped if entries newer than the checkpoint were appended meanwhile.
+     * @param position the last entry the checkpoint reflects
+     * @throws IOException if a file cannot be deleted or created
+     */
+    void discardThrough(long position) throws IOException {
+        sync();
+        synchronized (lock) {
+            if (appended > position || pending.position() > 0 || durable < appended) {
+                return;
+            }
+            channel.close();
+            for (File file : files()) {
+                if (!file.delete()) {
+                    throw new IOException("Cannot delete " + file + ".");
+                }
+            }
+            channel = open(appended + 1);
+        }
+    }
+
+    /**
+     * Continues the sequence after the last entry a restored database reflects, if the journal files are behind it.
+     * @param position the database's journal position
+     */
+    void advanceTo(long position) {
+        synchronized (lock) {
+            if (position > appended) {
+                appended = position;
+                durable = Math.max(durable, position);
+            }
+        }
+    }
+
+    /**
+     * Writes what is buffered, stops the flusher and closes the current file.
+     * @throws IOException if the journal cannot be written
+     */
+    public void close() throws IOException {
+        sync();
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    void opened(Account acct, Date day) {
+        Profile h = acct.getHolder();
+        byte[] fname = h.getFname().getBytes(StandardCharsets.UTF_8);
+        byte[] lname = h.getLname().getBytes(StandardCharsets.UTF_8);
+        AccountStore store = acct.store;
+        int row = acct.row;
+        synchronized (lock) {
+            ByteBuffer b = begin(OPEN, OPEN_BYTES + fname.length + lname.length, day);
+            b.putInt(acct.getAccountNumber().getKey())
+                    .putInt((int) h.getDob().toEpochDay())
+                    .putShort((short) fname.length).putShort((short) lname.length)
+                    .putLong(store.balance(row))
+                    .put((byte) (acct instanceof CollegeChecking college ? college.getCampus().ordinal() + 1 : 0))
+                    .put((byte) store.term(row))
+                    .putInt(store.openDate(row))
+                    .put(fname).put(lname);
+            end(b);
+        }
+    }
+
+    void deposited(Account acct, long cents, long txn, Date day) {
+        posted(DEPOSIT, acct, cents, txn, day);
+    }
+
+    void withdrew(Account acct, long cents, long txn, Date day) {
+        posted(WITHDRAW, acct, cents, txn, day);
+    }
+
+    private void posted(byte kind, Account acct, long cents, long txn, Date day) {
+        synchronized (lock) {
+            ByteBuffer b = begin(kind, 20, day);
+            b.putInt(acct.getAccountNumber().getKey()).putLong(cents).putLong(txn);
+            end(b);
+        }
+    }
+
+    void closed(Account acct, Date close, Date day) {
+        synchronized (lock) {
+            ByteBuffer b = begin(CLOSE, 8, day);
+            b.putInt(acct.getAccountNumber().getKey()).putInt((int) close.toEpochDay());
+            end(b);
+        }
+    }
+
+    void dropped(Account acct, Date day) {
+        synchronized (lock) {
+            ByteBuffer b = begin(DROP, 4, day);
+            b.putInt(acct.getAccountNumber().getKey());
+            end(b);
+        }
+    }
+
+    void feedReached(String path, long offset, Date day) {
+        byte[] b = path.getBytes(StandardCharsets.UTF_8);
+        synchronized (lock) {
+            ByteBuffer e = begin(FEED, 2 + b.length + 8, day);
+            e.putShort((short) b.length).put(b).putLong(offset);
+            end(e);
+        }
+    }
+
+    void beginBatch(Date day) {
+        synchronized (lock) {
+            end(begin(BEGIN, 0, day));
+        }
+    }
+
+    void commitBatch(Date day) {
+        synchronized (lock) {
+            end(begin(COMMIT, 0, day));
+        }
+    }
+
+    void statements(Date day) {
+        synchronized (lock) {
+            end(begin(STATEMENTS, 0, day));
+        }
+    }
+
+    /**
+     * Starts an entry in the pending buffer, waiting if writers are too far ahead of the disk. Called holding the lock.
+     */
+    private ByteBuffer begin(byte kind, int payload, Date day) {
+        int bytes = ENTRY_HEADER + payload;
+        try {
+            while (pending.position() >= PENDING_FLUSHES * flushBytes) {
+                if (failure != null) {
+                    throw new IllegalStateException("Cannot write the journal: " + failure.getMessage(), failure);
+                }
+                lock.notifyAll();
+                lock.wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing the journal.", e);
+        }
+        if (pending.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending = grown.put(pending.flip());
+        }
+        entryStart = pending.position();
+        pending.putInt(bytes).putInt(0).putLong(++appended).put(kind)
+                .putInt((int) day.toEpochDay());
+        return pending;
+    }
+
+    /**
+     * Seals the entry begun last with its checksum and wakes the flusher if a flush is due. Called holding the lock.
+     */
+    private void end(ByteBuffer b) {
+        crc.reset();
+        crc.update(b.duplicate().flip().position(entryStart + CRC_FROM));
+        b.putInt(entryStart + 4, (int) crc.getValue());
+        if (b.position() >= flushBytes) {
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Hands the pending entries to the disk in batches: one write and one force per batch.
+     */
+    private void flushLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long upTo;
+            synchronized (lock) {
+                try {
+                    while (!closed && pending.position() == 0) {
+                        lock.wait();
+                    }
+                    if (pending.position() == 0) {
+                        return;
+                    }
+                    long deadline = System.nanoTime() + flushNanos;
+                    long left;
+                    while (!closed && waiting == 0 && pending.position() < flushBytes
+                            && (left = deadline - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(lock, left);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                batch = pending;
+                pending = spare;
+                spare = null;
+                upTo = appended;
+            }
+            batch.flip();
+            try {
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+            batch.clear();
+            synchronized (lock) {
+                durable = upTo;
+                spare = batch;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Reads a journal file, stopping at the first torn or damaged entry.
+     * @return the file's good entries, from position 0 to the limit
+     */
+    private static ByteBuffer readEntries(File file) throws IOException {
+        ByteBuffer buf;
+        try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buf = ByteBuffer.allocate((int) Math.min(in.size(), Integer.MAX_VALUE));
+            while (buf.hasRemaining() && in.read(buf) >= 0) {
+                // read the whole file
+            }
+        }
+        buf.flip();
+        CRC32 check = new CRC32();
+        int at = 0;
+        while (buf.limit() - at >= ENTRY_HEADER) {
+            int bytes = buf.getInt(at);
+            if (bytes < ENTRY_HEADER || bytes > buf.limit() - at) {
+                break;
+            }
+            check.reset();
+            check.update(buf.duplicate().limit(at + bytes).position(at + CRC_FROM));
+            if ((int) check.getValue() != buf.getInt(at + 4)) {
+                break;
+            }
+            at += bytes;
+        }
+        return buf.limit(at);
+    }
+
+    /**
+     * Applies one entry to a database, with the database's business clock set to the day the entry was made.
+     */
+    private static void apply(AccountDatabase db, ByteBuffer e, File file) throws IOException {
+        byte kind = e.get(16);
+        BusinessClock clock = db.getClock();
+        db.setClock(BusinessClock.fixed(Date.ofEpochDay(e.getInt(17))));
+        try {
+            e.position(ENTRY_HEADER);
+            if (kind == STATEMENTS) {
+                db.printStatements();
+                return;
+            }
+            if (kind == FEED) {
+                String path = utf8(e, e.getShort());
+                db.feedReached(path, e.getLong());
+                return;
+            }
+            AccountNumber number = AccountNumber.ofKey(e.getInt());
+            if (kind == OPEN) {
+                Date dob = Date.ofEpochDay(e.getInt());
+                int fname = e.getShort();
+                int lname = e.getShort();
+                long balance = e.getLong();
+                int campus = e.get();
+                int term = e.get();
+                int openDay = e.getInt();
+                Profile holder = ProfilePool.intern(utf8(e, fname), utf8(e, lname), dob);
+                SerialAllocator.shared().reserve(number.getBranch(), number.getType(), number.getSerial());
+                db.add(AccountStore.rebuild(number, holder, campus == 0 ? null : Campus.values()[campus - 1],
+                        term, openDay, balance, false, 0));
+                return;
+            }
+            Account acct = db.getAccount(number);
+            if (acct == null) {
+                throw new IOException(file.getName() + " refers to account " + number + ", which is not open.");
+            }
+            switch (kind) {
+                case DEPOSIT:
+                    db.depositTo(acct, e.getLong(), transaction(e));
+                    break;
+                case WITHDRAW:
+                    db.withdrawFrom(acct, e.getLong(), transaction(e));
+                    break;
+                case CLOSE:
+                    db.remove(acct, Date.ofEpochDay(e.getInt()));
+                    break;
+                case DROP:
+                    db.remove(acct);
+                    break;
+                default:
+                    throw new IOException(file.getName() + " has an entry of unknown kind " + kind + ".");
+            }
+        } finally {
+            db.setClock(clock);
+        }
+    }
+
+    /**
+     * Reads the transaction id a posting claimed; postings journaled before ids were journaled claimed none.
+     */
+    private static long transaction(ByteBuffer e) {
+        return e.remaining() >= 8 ? e.getLong() : 0;
+    }
+
+    private static String utf8(ByteBuffer in, int length) {
+        byte[] b = new byte[length];
+        in.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lists the journal files, oldest first.
+     */
+    private File[] files() {
+        File[] files = dir.listFiles((d, name) -> name.startsWith("journal-") && name.endsWith(".wal"));
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files);
+        return files;
+    }
+
+    private static long firstOf(File file) {
+        String name = file.getName();
+        return Long.parseLong(name.substring(8, name.length() - 4));
+    }
+
+    /**
+     * Opens the journal file whose first entry has the given sequence number.
+     */
+    private FileChannel open(long first) throws IOException {
+        File file = new File(dir, String.format("journal-%012d.wal", first));
+        FileChannel opened = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        opened.position(opened.size());
+        return opened;
+    }
+}
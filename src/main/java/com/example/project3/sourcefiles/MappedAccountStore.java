@@ -0,0 +1,455 @@
+package com.example.project3.sourcefiles;
+
+import com.example.project3.util.Date;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * An account store whose rows are fixed-width records in a memory-mapped file.
+ * Balance updates write straight into the mapped record, and the only per-row heap state is the
+ * array of account views. A record's type and branch are read from its packed number. The file keeps everything needed to rebuild the accounts, so reopening it
+ * after a restart restores the database without reading accounts.txt.
+ * The file is mapped in segments, so it can grow past the 2 GB limit of a single mapping.
+ * <p>
+ * Holder names have no fixed width, so they are appended to a side file, named after the ledger with ".names"
+ * appended, and each record keeps the offset of its holder's names there. A record holds no process-specific state.
+ * <p>
+ * Reopening a ledger reads no account: it only builds an index of the records by account number, one int per slot,
+ * and an account is bound to its record the first time it is looked up, see {@link #find(int)} and {@link #bind(int)}.
+ * The index follows every added and removed record.
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+public class MappedAccountStore extends AccountStore {
+    private static final int MAGIC = 0x424B4C47; // "BKLG"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 64;
+    private static final int COUNT_OFFSET = 12;
+
+    private static final int NUMBER = 0;       // int, packed account number
+    private static final int LOYAL = 4;        // byte, 1 if loyal
+    private static final int TERM = 5;         // byte, CD term in months
+    private static final int CAMPUS = 6;       // byte, Campus ordinal + 1, 0 if none
+    private static final int BALANCE = 8;      // long, cents
+    private static final int WITHDRAWALS = 16; // int
+    private static final int OPEN_DATE = 20;   // int, epoch day
+    private static final int DOB = 24;         // int, epoch day
+    private static final int NAMES = 32;       // long, offset of the holder's names in the names file
+    static final int RECORD_BYTES = 40;
+
+    private static final int SEGMENT_SHIFT = 16; // 65,536 records per mapping
+    private static final int SEGMENT_RECORDS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_RECORDS - 1;
+    private static final long SEGMENT_BYTES = (long) SEGMENT_RECORDS * RECORD_BYTES;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private final FileChannel names;
+    private long namesEnd;
+    private int[] byNumber; // rows by account number, row + 1 in each slot, 0 for empty
+    Account[] views = new Account[0]; // the account bound to each record, null until it is looked up
+    private int size;
+
+    /**
+     * Opens a ledger file, creating it if it does not exist, maps the records already in it and indexes them by number.
+     * @param path the ledger file
+     * @throws IOException if the file cannot be opened or is not a ledger
+     */
+    public MappedAccountStore(File path) throws IOException {
+        file = new RandomAccessFile(path, "rw");
+        channel = file.getChannel();
+        boolean fresh = channel.size() < HEADER_BYTES;
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        if (fresh) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, RECORD_BYTES);
+            header.putInt(COUNT_OFFSET, 0);
+        } else if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != RECORD_BYTES) {
+            file.close();
+            throw new IOException(path + " is not a version " + VERSION + " account ledger.");
+        }
+        File namesFile = new File(path.getAbsoluteFile().getParentFile(), path.getName() + ".names");
+        names = FileChannel.open(namesFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        namesEnd = names.size();
+        int restored = header.getInt(COUNT_OFFSET);
+        ensureCapacity(restored);
+        size = restored;
+        indexRows();
+    }
+
+    /**
+     * Builds the index of the rows by account number, sized for a load factor of at most one half.
+     */
+    private void indexRows() {
+        int capacity = 16;
+        while (capacity < 2L * size) {
+            capacity <<= 1;
+        }
+        byNumber = new int[capacity];
+        int mask = capacity - 1;
+        for (int row = 0; row < size; row++) {
+            int i = slot(key(row), mask);
+            while (byNumber[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            byNumber[i] = row + 1;
+        }
+    }
+
+    private static int slot(int key, int mask) {
+        return (key * 0x9E3779B9 >>> 7) & mask;
+    }
+
+    /**
+     * Finds a record by account number.
+     * @param key the packed account number
+     * @return the record's row, or -1 if no record has the number
+     */
+    int find(int key) {
+        int mask = byNumber.length - 1;
+        for (int i = slot(key, mask); byNumber[i] != 0; i = (i + 1) & mask) {
+            if (key(byNumber[i] - 1) == key) {
+                return byNumber[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Account view(int row) {
+        return views[row];
+    }
+
+    @Override
+    int key(int row) {
+        return segment(row).getInt(offset(row) + NUMBER);
+    }
+
+    @Override
+    AccountType type(int row) {
+        return AccountNumber.typeOf(key(row));
+    }
+
+    @Override
+    Branch branch(int row) {
+        return AccountNumber.branchOf(key(row));
+    }
+
+    /**
+     * Retrieves a record's holder, from its account if it is bound and from the names file otherwise.
+     */
+    @Override
+    Profile holder(int row) {
+        Account acct = views[row];
+        return acct != null ? acct.holder : readHolder(row);
+    }
+
+    @Override
+    Campus campus(int row) {
+        int campus = segment(row).get(offset(row) + CAMPUS);
+        return campus == 0 ? null : Campus.values()[campus - 1];
+    }
+
+    /**
+     * Retrieves a record's postings. Postings are not kept in the ledger, so a record has none until it is bound.
+     */
+    @Override
+    ActivityLog log(int row) {
+        Account acct = views[row];
+        return acct != null ? acct.activities : null;
+    }
+
+    /**
+     * Finds the mapping holding a record.
+     */
+    private MappedByteBuffer segment(int row) {
+        return segments[row >>> SEGMENT_SHIFT];
+    }
+
+    /**
+     * Finds the offset of a record inside its mapping.
+     */
+    private static int offset(int row) {
+        return (row & SEGMENT_MASK) * RECORD_BYTES;
+    }
+
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        int needed = (minCapacity + SEGMENT_MASK) >>> SEGMENT_SHIFT;
+        if (needed > segments.length) {
+            int old = segments.length;
+            segments = Arrays.copyOf(segments, needed);
+            for (int i = old; i < needed; i++) {
+                try {
+                    segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + i * SEGMENT_BYTES, SEGMENT_BYTES);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot grow the account ledger: " + e.getMessage(), e);
+                }
+            }
+        }
+        if (minCapacity > views.length) {
+            views = Arrays.copyOf(views, Math.max(minCapacity, views.length + (views.length >> 1) + 1));
+        }
+    }
+
+    /**
+     * Adds a row to the index by account number, rebuilding the index larger once it is half full.
+     */
+    private void indexRow(int row) {
+        if (2L * size > byNumber.length) {
+            indexRows();
+            return;
+        }
+        int mask = byNumber.length - 1;
+        int i = slot(key(row), mask);
+        while (byNumber[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        byNumber[i] = row + 1;
+    }
+
+    /**
+     * Finds the slot of the index holding a row, probing from the slot of the row's account number.
+     */
+    private int indexSlot(int key, int row) {
+        int mask = byNumber.length - 1;
+        int i = slot(key, mask);
+        while (byNumber[i] != row + 1) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Removes a row from the index by account number, shifting later entries of its probe run back into the gap.
+     */
+    private void unindexRow(int row) {
+        int mask = byNumber.length - 1;
+        int gap = indexSlot(key(row), row);
+        int j = (gap + 1) & mask;
+        while (byNumber[j] != 0) {
+            int home = slot(key(byNumber[j] - 1), mask);
+            // move j back if its home slot does not lie cyclically in (gap, j]
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                byNumber[gap] = byNumber[j];
+                gap = j;
+            }
+            j = (j + 1) & mask;
+        }
+        byNumber[gap] = 0;
+    }
+
+    @Override
+    int append(Account acct) {
+        long at = writeNames(acct.getHolder());
+        ensureCapacity(size + 1);
+        int row = size++;
+        MappedByteBuffer seg = segment(row);
+        int o = offset(row);
+        seg.putInt(o + NUMBER, acct.getAccountNumber().getKey());
+        seg.put(o + CAMPUS, (byte) (acct instanceof CollegeChecking college ? college.getCampus().ordinal() + 1 : 0));
+        seg.putInt(o + DOB, (int) acct.getHolder().getDob().toEpochDay());
+        seg.putLong(o + NAMES, at);
+        views[row] = acct;
+        indexRow(row);
+        header.putInt(COUNT_OFFSET, size);
+        return row;
+    }
+
+    /**
+     * Appends a holder's names to the names file: the byte lengths of the first and last name, then both in UTF-8.
+     * @return the offset they were written at
+     */
+    private long writeNames(Profile holder) {
+        byte[] fname = holder.getFname().getBytes(StandardCharsets.UTF_8);
+        byte[] lname = holder.getLname().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer b = ByteBuffer.allocate(8 + fname.length + lname.length);
+        b.putInt(fname.length).putInt(lname.length).put(fname).put(lname).flip();
+        long at = namesEnd;
+        try {
+            while (b.hasRemaining()) {
+                namesEnd += names.write(b, namesEnd);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write to the account ledger: " + e.getMessage(), e);
+        }
+        return at;
+    }
+
+    /**
+     * Checks whether a record belongs to a holder, reading the names file only for records with the holder's date of birth.
+     * @param row    the record
+     * @param holder the holder
+     * @return true if the record's holder equals the given one
+     */
+    boolean heldBy(int row, Profile holder) {
+        Account acct = views[row];
+        if (acct != null) {
+            return acct.holder.equals(holder);
+        }
+        return segment(row).getInt(offset(row) + DOB) == (int) holder.getDob().toEpochDay() && readHolder(row).equals(holder);
+    }
+
+    /**
+     * Reads a record's holder back from the names file.
+     */
+    private Profile readHolder(int row) {
+        MappedByteBuffer seg = segment(row);
+        int o = offset(row);
+        long at = seg.getLong(o + NAMES);
+        try {
+            ByteBuffer lengths = ByteBuffer.allocate(8);
+            readFully(lengths, at);
+            byte[] b = new byte[lengths.getInt(0) + lengths.getInt(4)];
+            readFully(ByteBuffer.wrap(b), at + 8);
+            return ProfilePool.intern(new String(b, 0, lengths.getInt(0), StandardCharsets.UTF_8),
+                    new String(b, lengths.getInt(0), lengths.getInt(4), StandardCharsets.UTF_8),
+                    Date.ofEpochDay(seg.getInt(o + DOB)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read the account ledger: " + e.getMessage(), e);
+        }
+    }
+
+    private void readFully(ByteBuffer b, long at) throws IOException {
+        while (b.hasRemaining()) {
+            if (names.read(b, at + b.position()) < 0) {
+                throw new IOException("The names file of the ledger is truncated.");
+            }
+        }
+    }
+
+    /**
+     * Removes a record by copying the last record over it and rebinding the last record's account, if any.
+     */
+    @Override
+    void drop(int row) {
+        unindexRow(row);
+        int last = --size;
+        if (row != last) {
+            int moved = indexSlot(key(last), last);
+            MappedByteBuffer src = segment(last);
+            MappedByteBuffer dst = segment(row);
+            int s = offset(last);
+            int d = offset(row);
+            for (int i = 0; i < RECORD_BYTES; i += 8) {
+                dst.putLong(d + i, src.getLong(s + i));
+            }
+            byNumber[moved] = row + 1;
+            views[row] = views[last];
+            if (views[row] != null) {
+                views[row].bind(this, row);
+            }
+        }
+        views[last] = null;
+        header.putInt(COUNT_OFFSET, size);
+    }
+
+    @Override
+    long balance(int row) {
+        return segment(row).getLong(offset(row) + BALANCE);
+    }
+
+    @Override
+    void setBalance(int row, long cents) {
+        segment(row).putLong(offset(row) + BALANCE, cents);
+    }
+
+    @Override
+    boolean loyal(int row) {
+        return segment(row).get(offset(row) + LOYAL) != 0;
+    }
+
+    @Override
+    void setLoyal(int row, boolean value) {
+        segment(row).put(offset(row) + LOYAL, (byte) (value ? 1 : 0));
+    }
+
+    @Override
+    int withdrawals(int row) {
+        return segment(row).getInt(offset(row) + WITHDRAWALS);
+    }
+
+    @Override
+    void setWithdrawals(int row, int count) {
+        segment(row).putInt(offset(row) + WITHDRAWALS, count);
+    }
+
+    @Override
+    int term(int row) {
+        return segment(row).get(offset(row) + TERM);
+    }
+
+    @Override
+    void setTerm(int row, int months) {
+        segment(row).put(offset(row) + TERM, (byte) months);
+    }
+
+    @Override
+    int openDate(int row) {
+        return segment(row).getInt(offset(row) + OPEN_DATE);
+    }
+
+    @Override
+    void setOpenDate(int row, int epochDay) {
+        segment(row).putInt(offset(row) + OPEN_DATE, epochDay);
+    }
+
+    /**
+     * Returns the account viewing a restored record, creating it on first use.
+     * The account is bound to the record in place, so the record is not written.
+     * @param row the record
+     * @return the account, holding the record's balance, loyalty, withdrawal count, term and open date
+     */
+    Account bind(int row) {
+        Account acct = views[row];
+        if (acct != null) {
+            return acct;
+        }
+        acct = AccountStore.rebuild(AccountNumber.ofKey(key(row)), readHolder(row), campus(row),
+                term(row), openDate(row), balance(row), loyal(row), withdrawals(row));
+        acct.bind(this, row);
+        views[row] = acct;
+        return acct;
+    }
+
+    /**
+     * Flushes the names, changed records and the header to the files.
+     */
+    @Override
+    public void force() {
+        try {
+            names.force(false);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write to the account ledger: " + e.getMessage(), e);
+        }
+        header.force();
+        for (MappedByteBuffer seg : segments) {
+            seg.force();
+        }
+    }
+
+    /**
+     * Flushes the ledger and closes its files. The store must not be used afterwards.
+     * @throws IOException if a file cannot be closed
+     */
+    public void close() throws IOException {
+        force();
+        names.close();
+        file.close();
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.project3.sourcefiles;
 
+import com.example.project3.util.Date;
+import com.example.project3.util.Money;
+
 /**
  * Represents a Money Market savings account with higher interest rates,
  * loyalty benefits, and additional withdrawal fees.
@@ -8,7 +11,12 @@ package com.example.project3.sourcefiles;
  * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
  */
 public class MoneyMarket extends Savings {
-    private int withdrawalCount;
+    /** Balance at or above which a Money Market account is loyal, in cents. */
+    public static final long LOYALTY_BALANCE = 5000_00;
+    /** Charge for each withdrawal beyond the third, in cents. */
+    private static final long EXCESS_WITHDRAWAL_FEE = 10_00;
+    /** Withdrawals made before each further withdrawal is charged. */
+    static final int FREE_WITHDRAWALS = 3;
 
     /**
      * Constructs a Money Market account.
@@ -18,34 +26,53 @@ public class MoneyMarket extends Savings {
      */
     public MoneyMarket(AccountNumber number, Profile holder, double balance) {
         super(number, holder, balance);
-        this.withdrawalCount = 0;
-        if (balance >= 5000) {
-            this.isLoyal = true;
+        if (balance() >= LOYALTY_BALANCE) {
+            setLoyal(true);
         }
     }
 
     /**
      * Calculates the monthly interest earned on the account balance.
-     * @return The interest amount for the current balance.
+     * @return The interest amount for the current balance, in cents.
      */
     @Override
-    public double interest() {
-        double rate = 0.035;
-        if (isLoyal) {
-            rate += 0.0025;
-        }
-        return balance * (rate / 12);
+    public long interest() {
+        return monthlyInterest(balance(), isLoyal());
     }
 
     /**
      * Determines the monthly fee for the Money Market account.
-     * @return $25 if balance is below $2000, plus $10 for each withdrawal beyond three.
+     * @return $25 if balance is below $2000, plus $10 for each withdrawal beyond three, in cents.
      */
     @Override
-    public double fee() {
-        double fee = (balance >= 2000) ? 0 : 25;
-        if (withdrawalCount > 3) {
-            fee += 10;
+    public long fee() {
+        return monthlyFee(balance(), getWithdrawalCount());
+    }
+
+    /**
+     * Computes the monthly interest on a Money Market balance, for an account or a store row.
+     * @param balance the balance, in cents
+     * @param loyal   whether the account is loyal
+     * @return The interest amount, in cents.
+     */
+    static long monthlyInterest(long balance, boolean loyal) {
+        int basisPoints = 350;
+        if (loyal) {
+            basisPoints += 25;
+        }
+        return Money.monthlyInterest(balance, basisPoints);
+    }
+
+    /**
+     * Computes the monthly fee of a Money Market account.
+     * @param balance         the balance, in cents
+     * @param withdrawalCount the withdrawals made this month
+     * @return $25 if balance is below $2000, plus $10 for each withdrawal beyond three, in cents.
+     */
+    static long monthlyFee(long balance, int withdrawalCount) {
+        long fee = (balance >= 2000_00) ? 0 : 25_00;
+        if (withdrawalCount > FREE_WITHDRAWALS) {
+            fee += EXCESS_WITHDRAWAL_FEE;
         }
         return fee;
     }
@@ -53,19 +80,28 @@ public class MoneyMarket extends Savings {
     /**
      * Withdraws a specified amount from the account.
      * Increments the withdrawal count and deducts loyalty status if balance drops below $5000.
-     * @param amount The amount to withdraw.
+     * @param cents The amount to withdraw, in cents.
+     * @param day   The date of the withdrawal.
      */
     @Override
-    public void withdraw(double amount) {
-        super.withdraw(amount);
-        withdrawalCount++;
-        if (balance < 5000) {
-            isLoyal = false;
+    public void withdraw(long cents, Date day) {
+        super.withdraw(cents, day);
+        int withdrawalCount = store.withdrawals(row) + 1;
+        store.setWithdrawals(row, withdrawalCount);
+        if (balance() < LOYALTY_BALANCE) {
+            setLoyal(false);
         }
 
-        if(withdrawalCount > 3){
-            balance -= 10;
-        }
+        store.setBalance(row, store.balance(row) - withdrawalCharge(withdrawalCount));
+    }
+
+    /**
+     * Computes the charge taken from the balance on top of a withdrawal.
+     * @param withdrawalCount the number of withdrawals made, the one charged for included
+     * @return the excess withdrawal fee if the withdrawal is beyond the third, otherwise 0, in cents
+     */
+    static long withdrawalCharge(int withdrawalCount) {
+        return withdrawalCount > FREE_WITHDRAWALS ? EXCESS_WITHDRAWAL_FEE : 0;
     }
 
     /**
@@ -91,7 +127,7 @@ public class MoneyMarket extends Savings {
      */
     @Override
     public String toString() {
-        return super.toString() + String.format(" Withdrawal[%d]", withdrawalCount);
+        return super.toString() + " Withdrawal[" + getWithdrawalCount() + "]";
     }
 
     /**
@@ -99,7 +135,7 @@ public class MoneyMarket extends Savings {
      * @return withdrawal count.
      */
     public int getWithdrawalCount() {
-        return withdrawalCount;
+        return store.withdrawals(row);
     }
 
 }
@@ -9,9 +9,13 @@ import com.example.project3.util.Date;
  * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
  */
 public class Profile implements Comparable<Profile> {
-    private String fname;
-    private String lname;
-    private Date dob;
+    private final String fname;
+    private final String lname;
+    private final Date dob;
+    private final String key;  // case-folded "lname\0fname", the ordering used by compareTo
+    private final int hash;    // case-insensitive hash of the names and date of birth
+    private final Profile group; // the canonical profile of every spelling of this holder, or this one
+    private final int id;      // holder number assigned by a ProfilePool, or -1 if not interned
 
     /**
      * Constructs a Profile with the specified first name, last name, and date of birth.
@@ -24,6 +28,28 @@ public class Profile implements Comparable<Profile> {
         this.fname = fname;
         this.lname = lname;
         this.dob = dob;
+        this.key = fold(lname) + '\0' + fold(fname);
+        this.hash = 31 * key.hashCode() + dob.hashCode();
+        this.group = this;
+        this.id = -1;
+    }
+
+    /**
+     * Constructs an interned Profile for a {@link ProfilePool}.
+     * @param fname the first name of the profile holder.
+     * @param lname the last name of the profile holder.
+     * @param dob   the date of birth of the profile holder.
+     * @param like  an interned profile of the same holder spelled differently, or null if this is the first.
+     * @param id    the holder number to assign if this is the first spelling.
+     */
+    Profile(String fname, String lname, Date dob, Profile like, int id) {
+        this.fname = fname;
+        this.lname = lname;
+        this.dob = dob;
+        this.key = like != null ? like.key : fold(lname) + '\0' + fold(fname);
+        this.hash = like != null ? like.hash : 31 * key.hashCode() + dob.hashCode();
+        this.group = like != null ? like.group : this;
+        this.id = like != null ? like.id : id;
     }
 
     public Date getDob() {
@@ -38,6 +64,23 @@ public class Profile implements Comparable<Profile> {
         return lname;
     }
 
+    /**
+     * Retrieves the holder number assigned when this profile was interned.
+     * All spellings of one holder share the same number.
+     * @return returns the holder number, or -1 if the profile was not interned.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Checks whether this profile came from a {@link ProfilePool}.
+     * @return returns true if the profile is interned.
+     */
+    public boolean isInterned() {
+        return id >= 0;
+    }
+
     /**
      * Compares this profile to another profile based on last name, first name,
      * and date of birth in that order.
@@ -48,11 +91,9 @@ public class Profile implements Comparable<Profile> {
      */
     @Override
     public int compareTo(Profile o) {
-        int cmp = this.lname.compareToIgnoreCase(o.lname);
-        if (cmp < 0) return -1;
-        if (cmp > 0) return 1;
+        if (this.group == o.group) return 0;
 
-        cmp = this.fname.compareToIgnoreCase(o.fname);
+        int cmp = this.key.compareTo(o.key);
         if (cmp < 0) return -1;
         if (cmp > 0) return 1;
 
@@ -77,9 +118,42 @@ public class Profile implements Comparable<Profile> {
         if (!(obj instanceof Profile other)) {
             return false;
         }
-        return (this.fname.equalsIgnoreCase(other.fname)
-                && this.lname.equalsIgnoreCase(other.lname)
-                && this.dob.equals(other.dob));
+        if (this.group == other.group) {
+            return true;
+        }
+        if ((this.isInterned() && other.isInterned()) || this.hash != other.hash) {
+            return false; // interned holders are equal only if they share a group
+        }
+        return this.key.equals(other.key) && this.dob.equals(other.dob);
+    }
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}, ignoring the case of the names.
+     * @return returns the hash code of the profile.
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Case-folds a string the way equalsIgnoreCase() and compareToIgnoreCase() compare it, character by character.
+     * @param s the string to fold.
+     * @return returns the folded string.
+     */
+    static String fold(String s) {
+        StringBuilder sb = null;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            char f = Character.toLowerCase(Character.toUpperCase(c));
+            if (f != c && sb == null) {
+                sb = new StringBuilder(s.length()).append(s, 0, i);
+            }
+            if (sb != null) {
+                sb.append(f);
+            }
+        }
+        return sb == null ? s : sb.toString();
     }
 
     /**
@@ -0,0 +1,109 @@
+package com.example.project3.sourcefiles;
+
+import com.example.project3.util.Date;
+import com.example.project3.util.ObjectMap;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * Interns account holder profiles so each distinct (first name, last name, date of birth) is one shared instance.
+ * Spellings of the same holder that differ only in case share a group, a case-folded sort key, a hash
+ * and a holder number, so comparing two interned profiles is a reference check.
+ * There is one pool per process, which is what lets equality between interned profiles rely on references.
+ * <p>
+ * The pool holds its profiles weakly: a holder that no account, closure or caller refers to any more is forgotten,
+ * so the pool only ever holds the holders still in use. Every spelling refers to its group's first profile, so a
+ * group is only forgotten once none of its spellings is in use, and a holder interned again later starts a new group
+ * that no live profile can be compared against. Holder numbers are not reused, and are not kept across restarts.
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+public final class ProfilePool {
+    private static final ObjectMap<Spelling, Entry> bySpelling = new ObjectMap<>();
+    private static final ObjectMap<Profile, Entry> byHolder = new ObjectMap<>(); // keyed by a plain copy of the group's profile
+    private static final ReferenceQueue<Profile> forgotten = new ReferenceQueue<>();
+    private static int nextId = 0;
+
+    /**
+     * The exact, case-sensitive spelling of a profile.
+     */
+    private record Spelling(String fname, String lname, Date dob) {
+    }
+
+    /**
+     * A weakly held profile, remembering the key it is filed under so it can be removed once the profile is collected.
+     */
+    private static final class Entry extends WeakReference<Profile> {
+        final Object key;
+
+        Entry(Profile profile, Object key) {
+            super(profile, forgotten);
+            this.key = key;
+        }
+    }
+
+    private ProfilePool() {
+    }
+
+    /**
+     * Returns the shared profile for a holder, creating it on first use.
+     * @param fname the first name of the profile holder.
+     * @param lname the last name of the profile holder.
+     * @param dob   the date of birth of the profile holder.
+     * @return the interned profile with exactly this spelling.
+     */
+    public static synchronized Profile intern(String fname, String lname, Date dob) {
+        expunge();
+        Spelling spelling = new Spelling(fname, lname, dob);
+        Profile profile = get(bySpelling.get(spelling));
+        if (profile != null) {
+            return profile;
+        }
+        Profile plain = new Profile(fname, lname, dob);
+        Profile like = get(byHolder.get(plain));
+        profile = new Profile(fname, lname, dob, like, nextId);
+        if (like == null) {
+            byHolder.put(plain, new Entry(profile, plain));
+            nextId++;
+        }
+        bySpelling.put(spelling, new Entry(profile, spelling));
+        return profile;
+    }
+
+    /**
+     * Returns the interned form of a profile.
+     * @param profile a profile, interned or not.
+     * @return the interned profile with the same spelling.
+     */
+    public static Profile intern(Profile profile) {
+        return profile.isInterned() ? profile : intern(profile.getFname(), profile.getLname(), profile.getDob());
+    }
+
+    /**
+     * Counts the spellings the pool holds, after forgetting the ones no longer in use.
+     * @return the number of interned profiles still in use.
+     */
+    public static synchronized int size() {
+        expunge();
+        return bySpelling.size();
+    }
+
+    private static Profile get(Entry entry) {
+        return entry == null ? null : entry.get();
+    }
+
+    /**
+     * Removes the entries of profiles that were collected.
+     */
+    private static void expunge() {
+        for (Entry e; (e = (Entry) forgotten.poll()) != null; ) {
+            if (e.key instanceof Spelling s) {
+                if (bySpelling.get(s) == e) {
+                    bySpelling.remove(s);
+                }
+            } else if (byHolder.get((Profile) e.key) == e) {
+                byHolder.remove((Profile) e.key);
+            }
+        }
+    }
+}
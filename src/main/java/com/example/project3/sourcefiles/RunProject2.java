@@ -1,7 +1,25 @@
 package com.example.project3.sourcefiles;
 
+import com.example.project3.util.BusinessClock;
+
+import java.io.File;
+import java.io.IOException;
+
 public class RunProject2 {
+    /**
+     * Runs the transaction manager. With the arguments "--ledger" and a file name, the accounts are kept in that
+     * memory-mapped ledger file instead of bank.checkpoint and bank.journal.
+     * @param args the command line arguments.
+     */
     public static void main(String[] args){
+        if (args.length == 2 && args[0].equals("--ledger")) {
+            try {
+                new TransactionManager(BusinessClock.getDefault(), new File(args[1])).run();
+            } catch (IOException e) {
+                System.out.println("Error opening ledger: " + e.getMessage());
+            }
+            return;
+        }
         new TransactionManager().run();
     }
 }
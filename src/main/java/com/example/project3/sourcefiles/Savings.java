@@ -1,4 +1,7 @@
 package com.example.project3.sourcefiles;
+
+import com.example.project3.util.Money;
+
 /**
  * Represents a savings account with interest, fees, and loyalty status.
  * Interest: 2.5% annually (0.025/12 per month), plus an additional 0.25% for loyal accounts.
@@ -7,8 +10,6 @@ package com.example.project3.sourcefiles;
  * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
  */
 public class Savings extends Account {
-    protected boolean isLoyal;
-
     /**
      * Constructs a Savings account.
      * @param number  Individual account number.
@@ -17,29 +18,47 @@ public class Savings extends Account {
      */
     public Savings(AccountNumber number, Profile holder, double balance) {
         super(number, holder, balance);
-        this.isLoyal = false;
     }
 
     /**
      * Calculates the monthly interest earned on the account balance.
-     * @return The interest amount for the current balance.
+     * @return The interest amount for the current balance, in cents.
      */
     @Override
-    public double interest() {
-        double rate = 0.025;
-        if (isLoyal) {
-            rate += 0.0025;
-        }
-        return balance * (rate / 12);
+    public long interest() {
+        return monthlyInterest(balance(), isLoyal());
     }
 
     /**
      * Determines the monthly fee for the savings account.
-     * @return $25 if balance is below $500, otherwise $0.
+     * @return $25 if balance is below $500, otherwise $0, in cents.
      */
     @Override
-    public double fee() {
-        return (balance >= 500) ? 0 : 25;
+    public long fee() {
+        return monthlyFee(balance());
+    }
+
+    /**
+     * Computes the monthly interest on a savings balance, for an account or a store row.
+     * @param balance the balance, in cents
+     * @param loyal   whether the account is loyal
+     * @return The interest amount, in cents.
+     */
+    static long monthlyInterest(long balance, boolean loyal) {
+        int basisPoints = 250;
+        if (loyal) {
+            basisPoints += 25;
+        }
+        return Money.monthlyInterest(balance, basisPoints);
+    }
+
+    /**
+     * Computes the monthly fee of a savings account with the given balance.
+     * @param balance the balance, in cents
+     * @return $25 if balance is below $500, otherwise $0, in cents.
+     */
+    static long monthlyFee(long balance) {
+        return (balance >= 500_00) ? 0 : 25_00;
     }
 
     /**
@@ -47,7 +66,7 @@ public class Savings extends Account {
      * @param loyal true if the account should be marked as loyal, otherwise false.
      */
     public void setLoyal(boolean loyal) {
-        this.isLoyal = loyal;
+        store.setLoyal(row, loyal);
     }
 
     /**
@@ -55,7 +74,7 @@ public class Savings extends Account {
      * @return true if the account is loyal, otherwise false.
      */
     public boolean isLoyal() {
-        return isLoyal;
+        return store.loyal(row);
     }
 
     /**
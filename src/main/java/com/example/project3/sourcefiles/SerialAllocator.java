@@ -0,0 +1,170 @@
+package com.example.project3.sourcefiles;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Hands out the 4 digit serials of new account numbers, one free bitmap per (branch, account type).
+ * A serial is claimed by setting its bit with a compare-and-set, so threads never block each other
+ * and a serial that is in use is never issued twice. Each claim starts at a random position and takes
+ * the next free bit from there, so the cost stays flat as the serial space fills up.
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+public class SerialAllocator {
+    public static final int SERIALS = 10_000; // serials 0000 to 9999
+    private static final int WORDS = (SERIALS + 63) >>> 6;
+    private static final int SEED = 9999;
+    private static final int SEEDED_BOUND = 9999; // the draw of the old generator, so saved account numbers still line up
+    private static final SerialAllocator SHARED = seeded(SEED);
+
+    private final AtomicLongArray[] used;
+    private final Random seeded; // null when starting points come from ThreadLocalRandom
+    private final boolean sequential;
+
+    /**
+     * Constructs an allocator with every serial free.
+     * @param seeded     the source of starting points, or null to use ThreadLocalRandom
+     * @param sequential whether every claim starts at serial 0000
+     */
+    private SerialAllocator(Random seeded, boolean sequential) {
+        this.seeded = seeded;
+        this.sequential = sequential;
+        used = new AtomicLongArray[Branch.values().length * AccountType.values().length];
+        for (int i = 0; i < used.length; i++) {
+            AtomicLongArray bits = new AtomicLongArray(WORDS);
+            if ((SERIALS & 63) != 0) {
+                // the bits past 9999 in the last word are never free
+                bits.set(WORDS - 1, -1L << (SERIALS & 63));
+            }
+            used[i] = bits;
+        }
+    }
+
+    /**
+     * Returns the allocator used when an account number is created without one.
+     * It is seeded, so a run opens the same account numbers every time.
+     * @return the shared allocator
+     */
+    public static SerialAllocator shared() {
+        return SHARED;
+    }
+
+    /**
+     * Creates an allocator whose claims start at random positions drawn from ThreadLocalRandom.
+     * @return a new allocator
+     */
+    public static SerialAllocator random() {
+        return new SerialAllocator(null, false);
+    }
+
+    /**
+     * Creates an allocator whose claims start at positions drawn from a seeded generator,
+     * so a single-threaded run issues the same serials every time. With the shared seed and no
+     * collisions it issues exactly the serials the old Random(9999) generator did.
+     * @param seed the seed of the generator
+     * @return a new allocator
+     */
+    public static SerialAllocator seeded(long seed) {
+        return new SerialAllocator(new Random(seed), false);
+    }
+
+    /**
+     * Creates an allocator that always issues the lowest free serial, for reproducible tests.
+     * @return a new allocator
+     */
+    public static SerialAllocator sequential() {
+        return new SerialAllocator(null, true);
+    }
+
+    /**
+     * Returns the bitmap of a branch and account type.
+     */
+    private AtomicLongArray bitsOf(Branch branch, AccountType type) {
+        return used[branch.ordinal() * AccountType.values().length + type.ordinal()];
+    }
+
+    /**
+     * Claims a free serial for a branch and account type.
+     * @param branch the branch of the new account
+     * @param type   the type of the new account
+     * @return the claimed serial, 0 to 9999
+     * @throws IllegalStateException if every serial of the branch and type is in use
+     */
+    public int allocate(Branch branch, AccountType type) {
+        AtomicLongArray bits = bitsOf(branch, type);
+        int start;
+        if (sequential) {
+            start = 0;
+        } else if (seeded != null) {
+            start = seeded.nextInt(SEEDED_BOUND);
+        } else {
+            start = ThreadLocalRandom.current().nextInt(SERIALS);
+        }
+        int word = start >>> 6;
+        long mask = -1L << (start & 63);
+        // one pass over every word, coming back to the starting word for the bits below start
+        for (int n = 0; n <= WORDS; n++) {
+            long current = bits.get(word);
+            long free = ~current & mask;
+            while (free != 0) {
+                long bit = Long.lowestOneBit(free);
+                if (bits.compareAndSet(word, current, current | bit)) {
+                    return (word << 6) + Long.numberOfTrailingZeros(bit);
+                }
+                current = bits.get(word);
+                free = ~current & mask;
+            }
+            word = (word + 1 == WORDS) ? 0 : word + 1;
+            mask = -1L;
+        }
+        throw new IllegalStateException("No serials left for " + branch + " " + type + " accounts.");
+    }
+
+    /**
+     * Marks a serial as in use, e.g. for an account number restored from a file.
+     * @param branch the branch of the account
+     * @param type   the type of the account
+     * @param serial the serial, 0 to 9999
+     * @return true if the serial was free, false if it was already in use
+     */
+    public boolean reserve(Branch branch, AccountType type, int serial) {
+        AtomicLongArray bits = bitsOf(branch, type);
+        int word = serial >>> 6;
+        long bit = 1L << (serial & 63);
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & bit) != 0)
+                return false;
+        } while (!bits.compareAndSet(word, current, current | bit));
+        return true;
+    }
+
+    /**
+     * Frees a serial so it can be issued again.
+     * @param branch the branch of the account
+     * @param type   the type of the account
+     * @param serial the serial, 0 to 9999
+     */
+    public void release(Branch branch, AccountType type, int serial) {
+        AtomicLongArray bits = bitsOf(branch, type);
+        int word = serial >>> 6;
+        long bit = 1L << (serial & 63);
+        long current;
+        do {
+            current = bits.get(word);
+        } while (!bits.compareAndSet(word, current, current & ~bit));
+    }
+
+    /**
+     * Checks whether a serial is in use.
+     * @param branch the branch of the account
+     * @param type   the type of the account
+     * @param serial the serial, 0 to 9999
+     * @return true if the serial has been issued or reserved
+     */
+    public boolean isUsed(Branch branch, AccountType type, int serial) {
+        return (bitsOf(branch, type).get(serial >>> 6) & (1L << (serial & 63))) != 0;
+    }
+}
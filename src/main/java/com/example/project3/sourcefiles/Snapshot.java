@@ -0,0 +1,286 @@
+package com.example.project3.sourcefiles;
+
+import com.example.project3.util.Date;
+import com.example.project3.util.ObjectMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * A versioned binary snapshot of a whole database: every open account with its balance, loyalty flag,
+ * withdrawal count, CD term and open date, college campus and postings, and every archived closure.
+ * A snapshot is built in one buffer and written with one channel transfer to a temporary file that then replaces
+ * the snapshot, so a crash never leaves half a snapshot. Reading maps the file and checks it against its checksum.
+ * <p>
+ * Layout: a 40-byte header (magic, version, holder count, account count, closure count, purge cutoff, CRC-32 of
+ * everything after the header, a count used by checkpoints, and the last {@link Journal} entry the accounts reflect), the holders (date of birth, then the lengths and UTF-8 bytes of the first and last name),
+ * the accounts in database order, the archive's closure records as the archive keeps them, the remembered
+ * transaction ids (a count, then their fingerprints), and the offsets activity feeds reached (see {@link FeedOffsets}).
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+public final class Snapshot {
+    static final int HEADER_BYTES = 40;
+    private static final int MAGIC = 0x424B534E; // "BKSN"
+    private static final int VERSION = 4;      // 2 added the journal position, 3 the transaction ids, 4 the feed offsets
+    private static final int CRC_OFFSET = 24;
+    private static final int HOLDER_BYTES = 8;   // before the names
+    static final int ACCOUNT_BYTES = 27;         // before the postings
+    static final int LOG_BYTES = 8;              // the two counts before the packed postings
+
+    private Snapshot() {
+    }
+
+    /**
+     * Writes a snapshot of a database, replacing any earlier snapshot in the file.
+     * @param db   the database
+     * @param file the snapshot file
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static void write(AccountDatabase db, File file) throws IOException {
+        Holders holders = new Holders(db.size());
+        long bytes = HEADER_BYTES;
+        for (Account acct : db) {
+            holders.add(acct.getHolder());
+            bytes += ACCOUNT_BYTES + LOG_BYTES + 8L * acct.activities.packedLongs();
+        }
+        Archive archive = db.getArchive();
+        bytes += holders.bytes() + archive.recordBytes(-1) + db.transactionIdBytes() + db.feedOffsets().bytes();
+
+        ByteBuffer out = allocate(bytes);
+        header(out, MAGIC, holders.count(), db.size(), archive.recordsAfter(-1), archive.purgeCutoff(), 0,
+                db.journalPosition());
+        holders.write(out);
+        for (Account acct : db) {
+            putAccount(out, acct, holders.indexOf(acct.getHolder()));
+            acct.activities.writeTo(out);
+        }
+        archive.copyRecords(out, -1);
+        db.writeTransactionIds(out);
+        db.feedOffsets().writeTo(out);
+        writeFile(out, file);
+    }
+
+    /**
+     * Reads a snapshot into a new database.
+     * The serials of the restored account numbers are reserved, so new accounts do not reuse them.
+     * @param file the snapshot file
+     * @return the database
+     * @throws IOException if the file cannot be read, is not a snapshot, or is damaged
+     */
+    public static AccountDatabase read(File file) throws IOException {
+        ByteBuffer in = map(file, MAGIC, "snapshot");
+        Profile[] holders = readHolders(in, in.getInt(8));
+        int accounts = in.getInt(12);
+        AccountDatabase db = new AccountDatabase();
+        db.ensureCapacity(accounts);
+        for (int i = 0; i < accounts; i++) {
+            Account acct = getAccount(in, holders);
+            acct.activities.readFrom(in);
+            db.add(acct);
+        }
+        db.getArchive().restoreRecords(in, in.getInt(16), in.getInt(20));
+        db.readTransactionIds(in);
+        db.feedOffsets().readFrom(in);
+        db.setJournalPosition(journalPosition(in));
+        return db;
+    }
+
+    /**
+     * The holders of the accounts written to a file, numbered in order of first appearance.
+     */
+    static final class Holders {
+        private final ObjectMap<Profile, Integer> index;
+        private Profile[] holders;
+        private byte[][] names;
+        private int count;
+        private long bytes;
+
+        Holders(int expected) {
+            index = new ObjectMap<>(expected);
+            holders = new Profile[Math.max(expected, 1)];
+            names = new byte[2 * holders.length][];
+        }
+
+        /**
+         * Numbers a holder, if it is not numbered yet.
+         * @param h the holder
+         */
+        void add(Profile h) {
+            if (index.containsKey(h)) {
+                return;
+            }
+            if (count == holders.length) {
+                holders = Arrays.copyOf(holders, count * 2);
+                names = Arrays.copyOf(names, count * 4);
+            }
+            index.put(h, count);
+            holders[count] = h;
+            names[2 * count] = h.getFname().getBytes(StandardCharsets.UTF_8);
+            names[2 * count + 1] = h.getLname().getBytes(StandardCharsets.UTF_8);
+            bytes += HOLDER_BYTES + names[2 * count].length + names[2 * count + 1].length;
+            count++;
+        }
+
+        int indexOf(Profile h) {
+            return index.get(h);
+        }
+
+        int count() {
+            return count;
+        }
+
+        long bytes() {
+            return bytes;
+        }
+
+        /**
+         * Writes each holder's date of birth, then the lengths and UTF-8 bytes of the first and last name.
+         * @param out the buffer to write to
+         */
+        void write(ByteBuffer out) {
+            for (int i = 0; i < count; i++) {
+                out.putInt((int) holders[i].getDob().toEpochDay())
+                        .putShort((short) names[2 * i].length).putShort((short) names[2 * i + 1].length)
+                        .put(names[2 * i]).put(names[2 * i + 1]);
+            }
+        }
+    }
+
+    /**
+     * Reads the holders written by {@link Holders#write(ByteBuffer)}.
+     */
+    static Profile[] readHolders(ByteBuffer in, int count) {
+        Profile[] holders = new Profile[count];
+        for (int i = 0; i < count; i++) {
+            Date dob = Date.ofEpochDay(in.getInt());
+            int fname = in.getShort();
+            int lname = in.getShort();
+            holders[i] = ProfilePool.intern(utf8(in, fname), utf8(in, lname), dob);
+        }
+        return holders;
+    }
+
+    /**
+     * Writes an account's number, holder and state: everything but its postings.
+     */
+    static void putAccount(ByteBuffer out, Account acct, int holder) {
+        AccountStore store = acct.store;
+        int row = acct.row;
+        out.putInt(acct.getAccountNumber().getKey())
+                .putInt(holder)
+                .putLong(store.balance(row))
+                .put((byte) (store.loyal(row) ? 1 : 0))
+                .putInt(store.withdrawals(row))
+                .put((byte) store.term(row))
+                .putInt(store.openDate(row))
+                .put((byte) (acct instanceof CollegeChecking college ? college.getCampus().ordinal() + 1 : 0));
+    }
+
+    /**
+     * Rebuilds an account written by {@link #putAccount(ByteBuffer, Account, int)}, without postings,
+     * and reserves its serial so new accounts do not reuse it.
+     */
+    static Account getAccount(ByteBuffer in, Profile[] holders) {
+        AccountNumber number = AccountNumber.ofKey(in.getInt());
+        Profile holder = holders[in.getInt()];
+        long balance = in.getLong();
+        boolean loyal = in.get() != 0;
+        int withdrawals = in.getInt();
+        int term = in.get();
+        int openDay = in.getInt();
+        int campus = in.get();
+        SerialAllocator.shared().reserve(number.getBranch(), number.getType(), number.getSerial());
+        return AccountStore.rebuild(number, holder, campus == 0 ? null : Campus.values()[campus - 1],
+                term, openDay, balance, loyal, withdrawals);
+    }
+
+    /**
+     * Allocates the buffer a file is built in.
+     */
+    static ByteBuffer allocate(long bytes) throws IOException {
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IOException("The database is too large to save in one file.");
+        }
+        return ByteBuffer.allocateDirect((int) bytes);
+    }
+
+    /**
+     * Writes the 40-byte header; the checksum is filled in by {@link #writeFile(ByteBuffer, File)}.
+     */
+    static void header(ByteBuffer out, int magic, int holders, int accounts, int closures, int cutoff, int extra,
+                       long journaled) {
+        out.putInt(magic).putInt(VERSION).putInt(holders).putInt(accounts)
+                .putInt(closures).putInt(cutoff).putInt(0).putInt(extra).putLong(journaled);
+    }
+
+    /**
+     * Reads the last journal entry a snapshot or checkpoint reflects.
+     */
+    static long journalPosition(ByteBuffer in) {
+        return in.getLong(32);
+    }
+
+    /**
+     * Checksums a built file and writes it to a temporary file with one channel transfer,
+     * then moves the temporary file over the file, so a crash leaves either the old file or the new one.
+     */
+    static void writeFile(ByteBuffer out, File file) throws IOException {
+        out.flip();
+        CRC32 crc = new CRC32();
+        crc.update(out.duplicate().position(HEADER_BYTES));
+        out.putInt(CRC_OFFSET, (int) crc.getValue());
+
+        File tmp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(false);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a file and checks its magic number, version and checksum.
+     * @return the file's bytes, positioned after the header
+     */
+    static ByteBuffer map(File file, int magic, String kind) throws IOException {
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file.getName() + " is not a " + kind + ".");
+            }
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (in.getInt(0) != magic) {
+            throw new IOException(file.getName() + " is not a " + kind + ".");
+        }
+        if (in.getInt(4) != VERSION) {
+            throw new IOException(file.getName() + " is a version " + in.getInt(4) + " " + kind
+                    + "; version " + VERSION + " is supported.");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(in.duplicate().position(HEADER_BYTES));
+        if ((int) crc.getValue() != in.getInt(CRC_OFFSET)) {
+            throw new IOException(file.getName() + " is damaged.");
+        }
+        in.position(HEADER_BYTES);
+        return in;
+    }
+
+    private static String utf8(ByteBuffer in, int length) {
+        byte[] b = new byte[length];
+        in.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
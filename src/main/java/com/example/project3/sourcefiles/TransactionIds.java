@@ -0,0 +1,185 @@
+package com.example.project3.sourcefiles;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The transaction ids seen recently, to skip activity lines that were already applied.
+ * Ids are kept in two generations of a fixed size; when the newer generation fills up the older one is dropped,
+ * so memory stays bounded and at least one generation's worth of the most recent ids is always remembered.
+ * <p>
+ * An id is reduced to a 64-bit fingerprint. Each generation checks a Bloom filter first, which rules out almost
+ * every new id without touching the larger table, and only a filter hit probes the generation's open-addressing
+ * table of exact fingerprints. Two ids sharing a fingerprint would be taken for the same id, a chance of about
+ * one in 2^64 / n^2 for n ids remembered. Ids are claimed from one thread at a time, through the database.
+ * <p>
+ * The remembered fingerprints are saved with each base {@link Snapshot}, and the ones claimed since with each checkpoint
+ * and in the journal entry of the posting that claimed them, so a restart remembers the same ids.
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+final class TransactionIds {
+    static final int DEFAULT_GENERATION = 1 << 20; // ids per generation
+    private static final int BITS_PER_ID = 16;     // Bloom filter bits per id, about 1 false hit in 2000
+    private static final int HASHES = 11;          // Bloom filter probes per id
+
+    /**
+     * One generation: its Bloom filter and its table of fingerprints.
+     */
+    private static final class Generation {
+        private final long[] bloom;
+        private final int bloomMask;
+        private long[] table = new long[16]; // fingerprints, 0 for an empty slot
+        private int size;
+
+        Generation(int capacity) {
+            int bits = 64;
+            while (bits < (long) capacity * BITS_PER_ID && bits < 1 << 30) {
+                bits <<= 1;
+            }
+            bloom = new long[bits >>> 6];
+            bloomMask = bits - 1;
+        }
+
+        boolean contains(long fp) {
+            int h1 = (int) fp;
+            int h2 = (int) (fp >>> 32) | 1;
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & bloomMask;
+                if ((bloom[bit >>> 6] & 1L << bit) == 0) {
+                    return false;
+                }
+            }
+            int mask = table.length - 1;
+            for (int i = slot(fp, mask); table[i] != 0; i = (i + 1) & mask) {
+                if (table[i] == fp) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(long fp) {
+            int h1 = (int) fp;
+            int h2 = (int) (fp >>> 32) | 1;
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & bloomMask;
+                bloom[bit >>> 6] |= 1L << bit;
+            }
+            if (2 * (size + 1) > table.length) {
+                long[] old = table;
+                table = new long[old.length * 2];
+                for (long f : old) {
+                    if (f != 0) {
+                        insert(f);
+                    }
+                }
+            }
+            insert(fp);
+            size++;
+        }
+
+        private void insert(long fp) {
+            int mask = table.length - 1;
+            int i = slot(fp, mask);
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = fp;
+        }
+
+        private static int slot(long fp, int mask) {
+            return (int) (fp ^ fp >>> 29) & mask;
+        }
+    }
+
+    private final int capacity;
+    private Generation current;
+    private Generation previous; // null until the first generation fills up
+
+    /**
+     * Creates an empty set of ids.
+     * @param capacity the ids per generation, at least 1
+     */
+    TransactionIds(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("A generation must hold at least 1 transaction id.");
+        }
+        this.capacity = capacity;
+        current = new Generation(capacity);
+    }
+
+    /**
+     * Records a transaction id unless it was seen recently.
+     * @param id the transaction id
+     * @return true if the id is new, false if it was seen
+     */
+    boolean add(String id) {
+        return add(fingerprint(id));
+    }
+
+    /**
+     * Records a transaction id's fingerprint unless it was seen recently.
+     * @param fp the fingerprint, from {@link #fingerprint(String)}
+     * @return true if the id is new, false if it was seen
+     */
+    boolean add(long fp) {
+        if (contains(fp)) {
+            return false;
+        }
+        if (current.size == capacity) {
+            previous = current;
+            current = new Generation(capacity);
+        }
+        current.add(fp);
+        return true;
+    }
+
+    /**
+     * Checks whether a transaction id was seen recently, without recording it.
+     * @param fp the id's fingerprint, from {@link #fingerprint(String)}
+     * @return true if the id was seen
+     */
+    boolean contains(long fp) {
+        return current.contains(fp) || previous != null && previous.contains(fp);
+    }
+
+    /**
+     * Counts the remembered ids.
+     * @return the number of fingerprints in both generations
+     */
+    int size() {
+        return current.size + (previous == null ? 0 : previous.size);
+    }
+
+    /**
+     * Writes the remembered fingerprints: their count, then the older generation's and the newer generation's.
+     * Adding them back in that order to a set of the same generation size restores both generations.
+     * @param out the buffer to write to
+     */
+    void writeTo(ByteBuffer out) {
+        out.putInt(size());
+        for (Generation g : new Generation[]{previous, current}) {
+            if (g != null) {
+                for (long fp : g.table) {
+                    if (fp != 0) {
+                        out.putLong(fp);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Hashes an id to 64 bits: FNV-1a over its characters, then the MurmurHash3 finalizer to spread the bits.
+     * The fingerprint is never 0, which marks an empty slot.
+     */
+    static long fingerprint(String id) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h = (h ^ id.charAt(i)) * 0x100000001B3L;
+        }
+        h = (h ^ h >>> 33) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ h >>> 33) * 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+}
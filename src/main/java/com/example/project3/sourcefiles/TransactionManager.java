@@ -1,11 +1,12 @@
 package com.example.project3.sourcefiles;
 
+import com.example.project3.util.BusinessClock;
 import com.example.project3.util.Date;
+import com.example.project3.util.List;
+import com.example.project3.util.Money;
 
 import java.io.File;
 import java.io.IOException;
-import java.text.DecimalFormat;
-import java.time.LocalDate;
 import java.util.Scanner;
 import java.util.StringTokenizer;
 
@@ -15,16 +16,93 @@ import java.util.StringTokenizer;
  * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
  */
 public class TransactionManager {
+    private static final int RETAINED_ACTIVITIES = 256; // postings kept in memory per account in ledger mode
+    private static final int ARCHIVE_PAGE = 50;          // closures printed per page of the archive
+    private static final String CHECKPOINTS = "bank.checkpoint";
+    private static final int MERGE_EVERY = 8;            // checkpoints chained before they are merged into a new snapshot
+    private static final String JOURNAL = "bank.journal";
+    private static final int JOURNAL_FLUSH_BYTES = 64 << 10;
+    private static final long JOURNAL_FLUSH_MILLIS = 5;
     private AccountDatabase db;
+    private final BusinessClock clock;
+    private Checkpoint checkpoints; // null in ledger mode, where the ledger already keeps the accounts
+    private Journal journal;        // null in ledger mode
+    private final List<ActivityFeed> feeds = new List<>();
 
     /**
-     * Constructor that initializes a new account database and loads the accounts.txt file.
+     * Constructor that restores the accounts saved in the bank.checkpoint directory, or loads the accounts.txt file if nothing is saved.
      */
     public TransactionManager() {
+        this(BusinessClock.getDefault());
+    }
+
+    /**
+     * Constructor that restores the accounts saved in the bank.checkpoint directory and replays the changes journaled
+     * in bank.journal since, or loads the accounts.txt file if nothing is saved,
+     * using the given clock for today's date in age and date checks.
+     * Every change is journaled and each command's changes are on disk before the next command is read.
+     * The accounts that changed are checkpointed to bank.checkpoint after each batch of activities and when the transaction manager terminates.
+     * @param clock the business clock supplying today's date.
+     */
+    public TransactionManager(BusinessClock clock) {
+        this.clock = clock;
+        try {
+            checkpoints = new Checkpoint(new File(CHECKPOINTS), MERGE_EVERY);
+            journal = new Journal(new File(JOURNAL), JOURNAL_FLUSH_BYTES, JOURNAL_FLUSH_MILLIS);
+            if (checkpoints.exists() || journal.position() > 0) {
+                AccountDatabase restored = checkpoints.exists() ? checkpoints.restore() : new AccountDatabase();
+                int replayed = journal.replay(restored);
+                db = restored;
+                db.setClock(clock);
+                db.journalTo(journal);
+                System.out.println(db.size() + " accounts restored from \"" + CHECKPOINTS + "\", "
+                        + replayed + " journal entries replayed.");
+                return;
+            }
+        } catch (IOException e) {
+            // The saved accounts and the journal are left as they are for recovery; this session saves nothing over them.
+            System.out.println("Error restoring accounts: " + e.getMessage());
+            System.out.println("Changes will not be saved until \"" + CHECKPOINTS + "\" and \"" + JOURNAL + "\" are repaired.");
+            checkpoints = null;
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException ignored) {
+                    // nothing was journaled
+                }
+            }
+            journal = null;
+        }
         db = new AccountDatabase();
+        db.setClock(clock);
+        if (journal != null) {
+            db.journalTo(journal);
+        }
         loadAccountsFromFile("accounts.txt");
     }
 
+    /**
+     * Constructor that keeps the accounts in a memory-mapped ledger file.
+     * The accounts.txt file is loaded only when the ledger has no accounts yet;
+     * otherwise the accounts saved in the ledger are restored.
+     * Each account keeps only its recent postings in memory; older ones are spilled to a directory next to the ledger.
+     * @param clock  the business clock supplying today's date.
+     * @param ledger the ledger file.
+     * @throws IOException if the ledger cannot be opened.
+     */
+    public TransactionManager(BusinessClock clock, File ledger) throws IOException {
+        this.clock = clock;
+        db = AccountDatabase.mapped(ledger);
+        db.setClock(clock);
+        db.retainActivities(new ActivitySpill(new File(ledger.getAbsoluteFile().getParentFile(), ledger.getName() + ".activities")),
+                RETAINED_ACTIVITIES);
+        if (db.isEmpty()) {
+            loadAccountsFromFile("accounts.txt");
+        } else {
+            System.out.println(db.size() + " accounts restored from \"" + ledger.getName() + "\".");
+        }
+    }
+
     /**
      * Runs the transaction manager &amp; processes user commands.
      */
@@ -37,13 +115,34 @@ public class TransactionManager {
 
             if (!line.isEmpty()) {
                 line = line.replaceAll("\\s+", " ").trim();  // Normalize spaces (replace multiple spaces with one)
-                if (!processCommand(line)) {
-                    break;
+                synchronized (this) { // followed feeds catch up between commands
+                    if (!processCommand(line)) {
+                        break;
+                    }
+                    if (journal != null) {
+                        journal.sync();
+                    }
                 }
             }
         }
 
         sc.close();
+        for (ActivityFeed feed : feeds) {
+            try {
+                feed.close();
+            } catch (IOException e) {
+                System.out.println("Error closing feed: " + e.getMessage());
+            }
+        }
+        db.flush();
+        checkpoint();
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.out.println("Error closing journal: " + e.getMessage());
+            }
+        }
         System.out.println("Transaction Manager is terminated.");
     }
 
@@ -69,11 +168,17 @@ public class TransactionManager {
                 processWithdraw(st);
                 break;
             case "A":
-                db.processActivities(new File("activities.txt"));
+                processActivities();
+                break;
+            case "AF":
+                processFollow(st);
+                break;
+            case "AB":
+                processBatch(st);
                 break;
             case "PA":
                 System.out.println("*List of accounts closed in the archive.");
-                db.printArchive();
+                printArchive();
                 break;
             case "PS":
                 System.out.println("*Account statements by account holder.");
@@ -100,6 +205,70 @@ public class TransactionManager {
         return true;
     }
 
+    /**
+     * Applies the lines appended to activities.txt since it was last read.
+     */
+    private void processActivities() {
+        try {
+            feed(new File("activities.txt")).catchUp(true);
+        } catch (IOException e) {
+            System.out.println("Error processing file: " + e.getMessage());
+        }
+        checkpoint();
+    }
+
+    /**
+     * Applies an activities file all or nothing, activities.txt if none is given, and prints the outcome
+     * with every line that failed validation.
+     * @param st the tokens of the command, after the command
+     */
+    private void processBatch(StringTokenizer st) {
+        File file = new File(st.hasMoreTokens() ? st.nextToken() : "activities.txt");
+        try {
+            System.out.print(db.processActivitiesBatch(file).report());
+        } catch (IOException e) {
+            System.out.println("Error processing file: " + e.getMessage());
+        }
+        checkpoint();
+    }
+
+    /**
+     * Follows an activities file or directory, activities.txt if none is given,
+     * applying lines as they are appended and printing their messages.
+     * @param st the tokens of the command, after the command
+     */
+    private void processFollow(StringTokenizer st) {
+        File source = new File(st.hasMoreTokens() ? st.nextToken() : "activities.txt");
+        try {
+            feed(source).follow(task -> {
+                synchronized (this) {
+                    task.run();
+                }
+            }, messages -> {
+                for (String message : messages) {
+                    System.out.println(message);
+                }
+            });
+            System.out.println("Following \"" + source + "\".");
+        } catch (IOException | IllegalStateException e) {
+            System.out.println("Error following " + source + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Finds the feed reading a file or directory, opening it the first time.
+     */
+    private ActivityFeed feed(File source) throws IOException {
+        for (ActivityFeed feed : feeds) {
+            if (feed.source().getAbsoluteFile().equals(source.getAbsoluteFile())) {
+                return feed;
+            }
+        }
+        ActivityFeed feed = new ActivityFeed(db, source);
+        feeds.add(feed);
+        return feed;
+    }
+
     /**
      * Loads accounts from a given file into the database.
      * @param filename the file to load accounts from
@@ -116,6 +285,35 @@ public class TransactionManager {
         }
     }
 
+    /**
+     * Saves the accounts that changed since the last checkpoint, unless the accounts are kept in a ledger.
+     */
+    private void checkpoint() {
+        if (checkpoints == null) {
+            return;
+        }
+        try {
+            checkpoints.checkpoint(db);
+        } catch (IOException e) {
+            System.out.println("Error saving checkpoint: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Prints the archive of closed accounts one page at a time, newest closures first.
+     */
+    private void printArchive() {
+        int pages = db.getArchive().pages(ARCHIVE_PAGE);
+        if (pages == 0) {
+            System.out.println("No closed accounts.");
+            return;
+        }
+        for (int page = 0; page < pages; page++) {
+            System.out.print(db.printArchivePage(page, ARCHIVE_PAGE));
+        }
+        System.out.println("*end of list.");
+    }
+
 
     /**
      * Processes the request to open an account.
@@ -151,9 +349,9 @@ public class TransactionManager {
             return;
         }
 
-        double deposit = 0;
+        long deposit;
         try {
-            deposit = Double.parseDouble(depositStr);
+            deposit = Money.parse(depositStr);
         } catch (NumberFormatException e) {
             System.out.println("For input string: " + "\"" + depositStr + "\"" + " - not a valid amount.");
             return;
@@ -164,7 +362,7 @@ public class TransactionManager {
             return;
         }
 
-        Profile profile = new Profile(fName, lName, dob);
+        Profile profile = ProfilePool.intern(fName, lName, dob);
         AccountType acctType = null;
         Campus campus = null;
         int term = 0;
@@ -182,7 +380,7 @@ public class TransactionManager {
 
             case "moneymarket":
                 acctType = AccountType.MONEY_MARKET;
-                if (deposit < 2000) {
+                if (deposit < 2000_00) {
                     System.out.println("Minimum of $2,000 to open a Money Market account.");
                     return;
                 }
@@ -227,7 +425,7 @@ public class TransactionManager {
                     System.out.println("Invalid open date: " + openDateStr);
                     return;
                 }
-                if (deposit < 1000) {
+                if (deposit < 1000_00) {
                     System.out.println("Minimum of $1,000 to open a Certificate Deposit account.");
                     return;
                 }
@@ -248,8 +446,8 @@ public class TransactionManager {
         //Checking if account already exists
         boolean isDuplicate = false;
 
-        for (Account acc : db) {
-            if (acc.getHolder().equals(profile) && acc.getAccountNumber().getType() == acctType) {
+        for (Account acc : db.getAccounts(profile)) {
+            if (acc.getAccountNumber().getType() == acctType) {
                 // Special handling for Certificate Deposit (CD) accounts
                 if (acctType == AccountType.CD) {
                     CertificateDeposit existingCD = (CertificateDeposit) acc;
@@ -272,33 +470,14 @@ public class TransactionManager {
 
 
         //Creating accounts after verifying there are no duplicates
-        AccountNumber accountNum = new AccountNumber(branch, acctType);
-        Account newAccount = null;
-        switch (acctType) {
-            case CHECKING:
-                newAccount = new Checking(accountNum, profile, deposit);
-                break;
-
-            case SAVINGS:
-                newAccount = new Savings(accountNum, profile, deposit);
-                break;
-
-            case MONEY_MARKET:
-                newAccount = new MoneyMarket(accountNum, profile, deposit);
-                break;
-
-            case COLLEGE_CHECKING:
-                newAccount = new CollegeChecking(accountNum, profile, deposit, campus);
-                break;
-
-            case CD:
-                newAccount = new CertificateDeposit(accountNum, profile, deposit, term, openDate);
-                break;
-
-            default:
-                System.out.println("Unexpected error: account type not recognized.");
-                return;
+        AccountNumber accountNum;
+        try {
+            accountNum = new AccountNumber(branch, acctType);
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+            return;
         }
+        Account newAccount = AccountStore.open(accountNum, profile, campus, term, openDate, deposit);
 
         // Finally, add the account to the database
         db.add(newAccount);
@@ -331,34 +510,22 @@ public class TransactionManager {
         String token = st.nextToken();
 
         if (token.matches("\\d{9}")) {  // Case 1: Closing by account number
-            AccountNumber acctNum = buildAccountNumberFromString(token);
-            if (acctNum == null) {
+            if (AccountNumber.parseKey(token) == -1) {
                 System.out.println("Invalid account number.");
                 return;
             }
 
-            Account acct = null;
-            for (int i = 0; i < db.size(); i++) {
-                if (db.get(i).getAccountNumber().equals(acctNum)) {
-                    acct = db.get(i);
-                    break;
-                }
-            }
-
+            Account acct = db.getAccount(token);
             if (acct == null) {
                 System.out.println("Account not found.");
                 return;
             }
 
             System.out.println("Closing account " + acct.getAccountNumber());
-            System.out.println("--interest earned: " + acct.fee());
+            System.out.println("--interest earned: " + Money.format(acct.interest()));
 
-            if(!findAccountByNumber(acct.getAccountNumber())){
-                db.remove(acct);
-                System.out.println(acct.getAccountNumber() + " has been closed.");
-            } else{
-                System.out.println(acctNum + " account does not exist.");
-            }
+            db.remove(acct, closingDate);
+            System.out.println(acct.getAccountNumber() + " has been closed.");
 
 
         } else {
@@ -417,25 +584,23 @@ public class TransactionManager {
 
         String acctNumStr = st.nextToken();
         String amountStr = st.nextToken();
-        double amount;
+        long amount;
 
         try {
-            amount = Double.parseDouble(amountStr);
+            amount = Money.parse(amountStr);
         } catch (NumberFormatException e) {
             System.out.println("For input string: \"" + amountStr + "\" - not a valid amount.");
             return;
         }
 
         if (amount <= 0) {
-            System.out.println(amount + " - deposit amount cannot be 0 or negative.");
+            System.out.println(Money.toDollars(amount) + " - deposit amount cannot be 0 or negative.");
             return;
         }
 
-
-        DecimalFormat df = new DecimalFormat("#,##0.00");
-        boolean success = db.deposit(acctNumStr, amount);
+        boolean success = db.depositCents(acctNumStr, amount);
         if (success) {
-            System.out.printf("$%s deposited to %s%n", df.format(amount), acctNumStr);
+            System.out.printf("$%s deposited to %s%n", Money.format(amount), acctNumStr);
         } else {
             System.out.println(acctNumStr + " does not exist.");
         }
@@ -453,57 +618,43 @@ public class TransactionManager {
 
         String acctNumStr = st.nextToken();
         String amountStr = st.nextToken();
-        double amount;
+        long amount;
 
         try {
-            amount = Double.parseDouble(amountStr);
+            amount = Money.parse(amountStr);
         } catch (NumberFormatException e) {
             System.out.println("For input string: \"" + amountStr + "\" - not a valid amount.");
             return;
         }
 
         if (amount <= 0) {
-            System.out.println(amount + " withdrawal amount cannot be 0 or negative.");
-            return;
-        }
-
-        AccountNumber acctNum = db.buildAccountNumberFromString(acctNumStr);
-        if (acctNum == null) {
-            System.out.println(acctNumStr + " does not exist.");
+            System.out.println(Money.toDollars(amount) + " withdrawal amount cannot be 0 or negative.");
             return;
         }
 
-        Account account = null;
-        for (Account acct : db) {
-            if (acct.getAccountNumber().equals(acctNum)) {
-                account = acct;
-                break;
-            }
-        }
-
+        Account account = db.getAccount(acctNumStr);
         if (account == null) {
             System.out.println(acctNumStr + " does not exist.");
             return;
         }
 
-        double currentBalance = account.getBalance();
+        long currentBalance = account.getBalanceCents();
 
-        DecimalFormat df = new DecimalFormat("#,##0.00");
         if (currentBalance < amount) {
-            System.out.printf("%s balance below $2,000 - withdrawing $%s - insufficient funds.%n", acctNumStr, df.format(amount));
+            System.out.printf("%s balance below $2,000 - withdrawing $%s - insufficient funds.%n", acctNumStr, Money.format(amount));
             return;
         }
 
         // Check if balance will fall below $2,000 after withdrawal
-        boolean isBelow2000 = (currentBalance - amount < 2000);
+        boolean isBelow2000 = (currentBalance - amount < 2000_00);
 
-        // Perform withdrawal (no boolean return, so we just update balance)
-        account.withdraw(amount);
+        // Perform withdrawal through the database so loyalty stays current
+        db.withdrawCents(acctNumStr, amount);
 
         if (isBelow2000) {
-            System.out.printf("%s balance below $2,000 - $%s withdrawn from %s%n", acctNumStr, df.format(amount), acctNumStr);
+            System.out.printf("%s balance below $2,000 - $%s withdrawn from %s%n", acctNumStr, Money.format(amount), acctNumStr);
         } else {
-            System.out.printf("$%s withdrawn from %s%n", df.format(amount), acctNumStr);
+            System.out.printf("$%s withdrawn from %s%n", Money.format(amount), acctNumStr);
         }
     }
 
@@ -527,9 +678,7 @@ public class TransactionManager {
      * @return returns true if DOB is a future date, otherwise false.
      */
     public boolean isFutureDate(Date dob) {
-        LocalDate currentDate = LocalDate.now();
-        LocalDate birthDate = LocalDate.of(dob.getYear(), dob.getMonth(), dob.getDay());
-        return birthDate.isAfter(currentDate);
+        return clock.isFuture(dob);
     }
 
     /**
@@ -538,17 +687,7 @@ public class TransactionManager {
      * @return returns true if individual is at least 18, otherwise false.
      */
     private boolean isAgeAtLeast18(Date dob) {
-        LocalDate currentDate = LocalDate.now();
-        LocalDate birthDate = LocalDate.of(dob.getYear(), dob.getMonth(), dob.getDay());
-
-
-        int age = currentDate.getYear() - birthDate.getYear();
-        if(currentDate.getMonthValue() < birthDate.getMonthValue() ||
-                (currentDate.getMonthValue() == birthDate.getMonthValue() && currentDate.getDayOfMonth() < birthDate.getDayOfMonth())){
-            age --;
-        }
-
-        return age >= 18;
+        return clock.ageOf(dob) >= 18;
     }
 
     /**
@@ -557,60 +696,11 @@ public class TransactionManager {
      * @return returns true if individual is at below 24, otherwise false.
      */
     private boolean isEligibleForCollege(Date dob) {
-        int currentYear = java.time.Year.now().getValue();
-        int birthYear = dob.getYear();
-        int age = currentYear - birthYear;
+        int age = clock.today().getYear() - dob.getYear();
 
         return age < 24;
     }
 
 
 
-    /**
-     * Builds an account number from a string representation
-     * @param numStr Account number as a string
-     * @return returns account number object if valid, otherwise null
-     */
-    private AccountNumber buildAccountNumberFromString(String numStr) {
-        if (numStr.length() != 9)
-            return null;
-        String branchCode = numStr.substring(0, 3);
-        String typeCode = numStr.substring(3, 5);
-        String serial = numStr.substring(5);
-        Branch branch = null;
-        for (Branch b : Branch.values()) {
-            if (b.getBranchCode().equals(branchCode)) {
-                branch = b;
-                break;
-            }
-        }
-        if (branch == null)
-            return null;
-        AccountType type = AccountType.fromCode(typeCode);
-        if (type == null)
-            return null;
-        try {
-            Integer.parseInt(serial);
-        } catch (NumberFormatException e) {
-            return null;
-        }
-        return new AccountNumber(branch, type, serial);
-    }
-
-    /**
-     * Searches for account in database using account number
-     *
-     * @param acctNum account number to check for
-     * @return returns account associated with account number if found, otherwise returns null
-     */
-    private boolean findAccountByNumber(AccountNumber acctNum) {
-        for (int i = 0; i < db.size(); i++) {
-            Account account = db.get(i);
-            if (account != null && account.getAccountNumber().equals(acctNum)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
 }
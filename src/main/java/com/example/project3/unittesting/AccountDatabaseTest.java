@@ -2,8 +2,18 @@ package com.example.project3.unittesting;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import com.example.project3.sourcefiles.*;
+import com.example.project3.util.BusinessClock;
 import com.example.project3.util.Date;
+import com.example.project3.util.List;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 //import static org.junit.Assert.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -14,6 +24,8 @@ public class AccountDatabaseTest {
     private Checking checkingAccount;
     private Savings savingsAccount;
     private Profile holder;
+    @TempDir
+    File dir;
 
     @BeforeEach
     public void setUp() {
@@ -62,4 +74,343 @@ public class AccountDatabaseTest {
         assertEquals(3000, moneyMarketAccount.getBalance(), 0.01);
         assertFalse(moneyMarketAccount.isLoyal()); // No longer loyal
     }
+
+    @Test
+    public void getAccount() {
+        // Lookups by 9 digit string and by AccountNumber go through the index
+        assertSame(checkingAccount, db.getAccount(checkingAccount.getAccountNumber().toString()));
+        assertSame(savingsAccount, db.getAccount(savingsAccount.getAccountNumber()));
+
+        // Malformed numbers and unknown branch codes are rejected
+        assertNull(db.getAccount("12345"));
+        assertNull(db.getAccount("900011234"));
+
+        // Closed accounts are no longer found
+        db.remove(checkingAccount, new Date("2/1/2025"));
+        assertNull(db.getAccount(checkingAccount.getAccountNumber().toString()));
+        assertFalse(db.deposit(checkingAccount.getAccountNumber().toString(), 100));
+        assertSame(moneyMarketAccount, db.getAccount(moneyMarketAccount.getAccountNumber().toString()));
+    }
+
+    @Test
+    public void loyaltyStatus() {
+        // Savings is loyal while the holder has a checking account
+        assertTrue(savingsAccount.isLoyal());
+        assertFalse(moneyMarketAccount.isLoyal());
+
+        // Money Market becomes loyal once its balance crosses $5,000
+        assertTrue(db.deposit(moneyMarketAccount.getAccountNumber().toString(), 1000));
+        assertTrue(moneyMarketAccount.isLoyal());
+
+        // Closing the checking account drops the savings loyalty
+        db.remove(checkingAccount, new Date("2/1/2025"));
+        assertFalse(savingsAccount.isLoyal());
+        assertTrue(moneyMarketAccount.isLoyal());
+        assertEquals(2, db.getAccounts(holder).size());
+    }
+
+    @Test
+    public void reportsKeepStorageOrder() {
+        String report = db.printByType();
+
+        // Checking, then savings, then money market
+        assertTrue(report.indexOf(checkingAccount.getAccountNumber().toString())
+                < report.indexOf(savingsAccount.getAccountNumber().toString()));
+        assertTrue(report.indexOf(savingsAccount.getAccountNumber().toString())
+                < report.indexOf(moneyMarketAccount.getAccountNumber().toString()));
+
+        // The database itself is left in the order accounts were opened
+        db.printByBranch();
+        db.printByHolder();
+        assertSame(checkingAccount, db.get(0));
+        assertSame(moneyMarketAccount, db.get(1));
+        assertSame(savingsAccount, db.get(2));
+    }
+
+    @Test
+    public void rowStatementsMatchTheAccounts() {
+        Profile lower = new Profile("john", "doe", new Date("01/01/1985"));
+        db.add(new CollegeChecking(new AccountNumber(Branch.EDISON, AccountType.COLLEGE_CHECKING), lower, 300, Campus.CAMDEN));
+        db.add(new CertificateDeposit(new AccountNumber(Branch.EDISON, AccountType.CD), holder, 2500, 12, new Date("8/31/2024")));
+
+        // the same accounts outside of any database print their statements from their own rows
+        StringBuilder expected = new StringBuilder();
+        for (Account acct : db) {
+            expected.append(copyOf(acct).statement()).append("\n");
+        }
+        assertEquals(expected.toString(), db.printStatements());
+
+        // every holder keeps the spelling it was opened with
+        String report = db.printByHolder();
+        assertTrue(report.contains("Holder[john doe 1/1/1985]"), report);
+        assertTrue(report.contains("Holder[John Doe 1/1/1985]"), report);
+        assertTrue(report.contains("Campus[CAMDEN]"), report);
+        assertTrue(report.contains("Term[12] Date opened[8/31/2024] Maturity date[8/31/2025]"), report);
+    }
+
+    private static Account copyOf(Account acct) {
+        AccountNumber number = acct.getAccountNumber();
+        Profile holder = acct.getHolder();
+        Account copy;
+        if (acct instanceof CollegeChecking college) {
+            copy = new CollegeChecking(number, holder, 0, college.getCampus());
+        } else if (acct instanceof Checking) {
+            copy = new Checking(number, holder, 0);
+        } else if (acct instanceof CertificateDeposit cd) {
+            copy = new CertificateDeposit(number, holder, 0, cd.getTerm(), cd.getOpenDate());
+        } else if (acct instanceof MoneyMarket) {
+            copy = new MoneyMarket(number, holder, 0);
+        } else {
+            copy = new Savings(number, holder, 0);
+        }
+        if (acct instanceof Savings savings) {
+            ((Savings) copy).setLoyal(savings.isLoyal());
+        }
+        copy.setBalanceCents(acct.getBalanceCents());
+        return copy;
+    }
+
+    @Test
+    public void closedAccountsKeepTheirState() {
+        assertTrue(db.withdraw(moneyMarketAccount.getAccountNumber().toString(), 100));
+
+        // Closing the first account moves another account's row into its place
+        db.remove(checkingAccount, new Date("2/1/2025"));
+        assertEquals(0, checkingAccount.getBalance(), 0.01);
+        assertEquals(3900, moneyMarketAccount.getBalance(), 0.01);
+        assertEquals(1, moneyMarketAccount.getWithdrawalCount());
+        assertEquals(2000, savingsAccount.getBalance(), 0.01);
+
+        // Removed accounts stay readable and can be changed on their own
+        db.remove(moneyMarketAccount);
+        moneyMarketAccount.deposit(50_00);
+        assertEquals(3950, moneyMarketAccount.getBalance(), 0.01);
+        assertEquals(2000, savingsAccount.getBalance(), 0.01);
+    }
+
+    @Test
+    public void removalMovesTheLastAccountIntoPlace() {
+        db.remove(checkingAccount);
+        assertEquals(2, db.size());
+        assertSame(savingsAccount, db.get(0));
+        assertSame(moneyMarketAccount, db.get(1));
+        assertNull(db.getAccount(checkingAccount.getAccountNumber()));
+        assertSame(savingsAccount, db.getAccount(savingsAccount.getAccountNumber()));
+
+        // removing an account that is not in the database changes nothing
+        db.remove(checkingAccount);
+        db.remove(new Checking(checkingAccount.getAccountNumber(), holder, 10), new Date("2/1/2025"));
+        assertEquals(2, db.size());
+        assertEquals(0, db.getArchive().size());
+
+        // an open account number cannot be added twice
+        assertThrows(IllegalArgumentException.class, () -> db.add(new Savings(savingsAccount.getAccountNumber(), holder, 5)));
+        assertEquals(2, db.size());
+        db.add(new Checking(checkingAccount.getAccountNumber(), holder, 10));
+        assertEquals(10, db.getAccount(checkingAccount.getAccountNumber()).getBalance(), 0.01);
+
+        // positional changes would bypass the indexes
+        assertThrows(UnsupportedOperationException.class, () -> db.removeAt(0));
+        assertThrows(UnsupportedOperationException.class, () -> db.set(0, checkingAccount));
+        assertEquals(3, db.size());
+        assertSame(savingsAccount, db.getAccount(savingsAccount.getAccountNumber()));
+    }
+
+    @Test
+    public void mappedLedgerSurvivesRestart() throws Exception {
+        File ledger = new File(dir, "ledger.bin");
+
+        AccountDatabase mapped = AccountDatabase.mapped(ledger);
+        mapped.add(checkingAccount);
+        mapped.add(moneyMarketAccount);
+        Profile student = new Profile("Annemarie-Christabel", "Lee-Vandenberghe-Okonkwo", new Date("5/6/2004"));
+        mapped.add(new CollegeChecking(new AccountNumber(Branch.EDISON, AccountType.COLLEGE_CHECKING),
+                student, 300, Campus.CAMDEN));
+        mapped.add(new CertificateDeposit(new AccountNumber(Branch.EDISON, AccountType.CD),
+                holder, 2500, 6, new Date("8/31/2024")));
+        assertTrue(mapped.withdraw(moneyMarketAccount.getAccountNumber().toString(), 250.25));
+        mapped.remove(checkingAccount);
+        mapped.flush();
+
+        // accounts are read from the ledger one at a time as they are looked up
+        AccountDatabase restored = AccountDatabase.mapped(ledger);
+        assertEquals(3, restored.size());
+        Account mm = restored.getAccount(moneyMarketAccount.getAccountNumber());
+        assertEquals(3749.75, mm.getBalance(), 0.001);
+        assertEquals(1, ((MoneyMarket) mm).getWithdrawalCount());
+        assertNull(restored.getAccount(checkingAccount.getAccountNumber()));
+
+        assertEquals(mapped.printByHolder(), restored.printByHolder());
+        assertSame(mm, restored.getAccount(moneyMarketAccount.getAccountNumber()));
+        assertEquals(student.toString(), restored.getAccounts(student).get(0).getHolder().toString());
+    }
+
+    @Test
+    public void reopenedLedgerWorksOnItsRecords() throws Exception {
+        File ledger = new File(dir, "ledger.bin");
+        File twinLedger = new File(dir, "twin.bin");
+        for (File file : new File[]{ledger, twinLedger}) {
+            AccountDatabase mapped = AccountDatabase.mapped(file);
+            mapped.add(new Checking(checkingAccount.getAccountNumber(), holder, 1000));
+            mapped.add(new MoneyMarket(moneyMarketAccount.getAccountNumber(), holder, 4000));
+            mapped.add(new Savings(savingsAccount.getAccountNumber(), holder, 2000));
+            mapped.add(new CertificateDeposit(new AccountNumber(Branch.EDISON, AccountType.CD, 17),
+                    new Profile("Jane", "Roe", new Date("5/6/1990")), 2500, 6, new Date("8/31/2024")));
+            mapped.flush();
+        }
+
+        // one copy works on the records as they are, the other lists every account first
+        AccountDatabase lazy = AccountDatabase.mapped(ledger);
+        AccountDatabase listed = AccountDatabase.mapped(twinLedger);
+        int count = 0;
+        for (Account acct : listed) {
+            count++;
+        }
+        assertEquals(4, count);
+        AccountNumber college = new AccountNumber(Branch.EDISON, AccountType.COLLEGE_CHECKING, 3);
+        for (AccountDatabase db : new AccountDatabase[]{lazy, listed}) {
+            db.add(new CollegeChecking(college, holder, 300, Campus.NEWARK));
+            assertThrows(IllegalArgumentException.class, () -> db.add(new Checking(checkingAccount.getAccountNumber(), holder, 5)));
+            assertTrue(db.deposit(moneyMarketAccount.getAccountNumber().toString(), 1500));
+            db.remove(db.getAccount(checkingAccount.getAccountNumber()), new Date("2/1/2025"));
+            assertNull(db.getAccount(checkingAccount.getAccountNumber()));
+            assertEquals(3, db.getAccounts(holder).size());
+        }
+
+        assertEquals(listed.size(), lazy.size());
+        assertEquals(listed.printByType(), lazy.printByType());
+        assertEquals(listed.printByBranch(), lazy.printByBranch());
+        assertEquals(listed.printByHolder(), lazy.printByHolder());
+        assertTrue(lazy.printByHolder().contains("Withdrawal[0]"));
+        assertEquals(listed.printStatements(), lazy.printStatements());
+        assertTrue(((MoneyMarket) lazy.getAccount(moneyMarketAccount.getAccountNumber())).isLoyal());
+
+        // listing the rest afterwards keeps every position on its row
+        for (int i = 0; i < lazy.size(); i++) {
+            assertEquals(listed.get(i).getAccountNumber(), lazy.get(i).getAccountNumber());
+        }
+    }
+
+    @Test
+    public void activityLogKeepsPostings() {
+        ActivityLog log = new ActivityLog();
+        Activity small = new Activity('D', 125_50, Branch.EDISON, new Date("3/4/2024"), true);
+        Activity large = new Activity('W', 5_000_000_000_00L, Branch.WARREN, new Date("12/31/2025"), false);
+        log.add(small);
+        log.add(large);
+        assertEquals(2, log.size());
+
+        assertEquals(small + "\n" + large + "\n", log.appendLines(new StringBuilder()).toString());
+        Iterator<Activity> it = log.iterator();
+        Activity first = it.next();
+        assertEquals('D', first.getType());
+        assertEquals(125_50, first.getAmount());
+        assertTrue(first.isAtm());
+        assertEquals(new Date("3/4/2024"), first.getDate());
+        Activity second = it.next();
+        assertEquals(5_000_000_000_00L, second.getAmount());
+        assertEquals(Branch.WARREN, second.getLocation());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void spilledActivitiesStayInStatements() throws Exception {
+        ActivitySpill spill = new ActivitySpill(new File(dir, "activities"));
+        db.retainActivities(spill, 4);
+
+        ActivityLog expected = new ActivityLog();
+        Date today = BusinessClock.getDefault().today();
+        for (int i = 1; i <= 25; i++) {
+            assertTrue(db.depositCents(checkingAccount.getAccountNumber().toString(), i * 100_00L));
+            expected.add('D', i * 100_00L, Branch.BRIDGEWATER, today, false);
+        }
+        assertEquals(1, spill.segments());
+        assertTrue(checkingAccount.statement().contains("[Activity]\n" + expected.appendLines(new StringBuilder()) + "[interest]"));
+        spill.close();
+    }
+
+    @Test
+    public void parallelActivitiesMatchSequential() throws Exception {
+        AccountDatabase sequential = new AccountDatabase();
+        AccountDatabase parallel = new AccountDatabase();
+        ArrayList<String> lines = new ArrayList<>();
+        Random random = new Random(42);
+        for (AccountDatabase target : new AccountDatabase[]{sequential, parallel}) {
+            SerialAllocator serials = SerialAllocator.sequential();
+            for (int h = 0; h < 40; h++) {
+                Profile p = new Profile("F" + h, "L" + h, new Date("1/1/1980"));
+                Branch branch = Branch.values()[h % Branch.values().length];
+                target.add(new Checking(new AccountNumber(branch, AccountType.CHECKING, serials), p, 100));
+                target.add(new MoneyMarket(new AccountNumber(branch, AccountType.MONEY_MARKET, serials), p, 4900));
+            }
+        }
+        for (int i = 0; i < 5000; i++) {
+            Account acct = sequential.get(random.nextInt(sequential.size()));
+            String type = random.nextBoolean() ? "D" : "W";
+            lines.add(type + "," + acct.getAccountNumber() + ",2/2/2025,edison," + random.nextInt(200));
+            if (i % 997 == 0) {
+                lines.add("D,123456789,2/2/2025,edison,5");
+                lines.add("W," + acct.getAccountNumber() + ",2/2/2025");
+                lines.add("");
+            }
+        }
+        File file = new File(dir, "activities.txt");
+        Files.write(file.toPath(), lines);
+
+        List<String> expected = sequential.processActivities(file);
+        List<String> actual = parallel.processActivitiesParallel(file, new ForkJoinPool(4));
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), actual.get(i));
+        }
+        assertEquals(sequential.printByHolder(), parallel.printByHolder());
+        assertEquals(sequential.printStatements(), parallel.printStatements());
+    }
+
+    @Test
+    public void repeatedTransactionIdsAreSkipped() throws Exception {
+        String checking = checkingAccount.getAccountNumber().toString();
+        ArrayList<String> lines = new ArrayList<>();
+        for (String id : new String[]{"a", "b", "a", "", "", "c", "b", "d", "e", "a"}) {
+            lines.add("D," + checking + ",2/2/2025,edison,1" + (id.isEmpty() ? "" : "," + id));
+        }
+        File file = new File(dir, "activities.txt");
+        Files.write(file.toPath(), lines);
+
+        // two ids per generation: "a" is still remembered after "c", and forgotten after "e"
+        db.setTransactionWindow(2);
+        List<String> messages = db.processActivities(file);
+        assertEquals("Duplicate transaction a skipped for account: " + checking, messages.get(3));
+        assertEquals("Duplicate transaction b skipped for account: " + checking, messages.get(7));
+        assertEquals(1008, checkingAccount.getBalance(), 0.01);
+
+        AccountDatabase parallel = new AccountDatabase();
+        parallel.add(new Checking(checkingAccount.getAccountNumber(), holder, 1000));
+        parallel.setTransactionWindow(2);
+        List<String> parallelMessages = parallel.processActivitiesParallel(file, new ForkJoinPool(2));
+        for (int i = 0; i < messages.size(); i++) {
+            assertEquals(messages.get(i), parallelMessages.get(i));
+        }
+
+        // the default window remembers every id of the file, so a second run posts only the lines without an id
+        AccountDatabase again = new AccountDatabase();
+        again.add(new Checking(checkingAccount.getAccountNumber(), holder, 1000));
+        again.processActivities(file);
+        again.processActivities(file);
+        assertEquals(1009, again.getAccount(checking).getBalance(), 0.01);
+    }
+
+    @Test
+    public void failedLinesLeaveTheirIdUnclaimed() throws Exception {
+        String moneyMarket = moneyMarketAccount.getAccountNumber().toString();
+        File file = new File(dir, "activities.txt");
+        Files.writeString(file.toPath(), "W," + moneyMarket + ",2/2/2025,warren,5000,w1\n");
+        assertEquals("Transaction failed for account: " + moneyMarket, db.processActivities(file).get(1));
+
+        // the same id goes through once the line can be applied
+        Files.writeString(file.toPath(), "W," + moneyMarket + ",2/2/2025,warren,50,w1\n");
+        assertFalse(db.processActivitiesParallel(file, new ForkJoinPool(2)).get(1).startsWith("Duplicate"));
+        assertEquals(3950, moneyMarketAccount.getBalance(), 0.01);
+        assertTrue(db.processActivities(file).get(1).startsWith("Duplicate transaction w1"));
+    }
 }
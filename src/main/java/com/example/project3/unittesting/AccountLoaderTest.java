@@ -0,0 +1,67 @@
+package com.example.project3.unittesting;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.example.project3.sourcefiles.*;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountLoaderTest {
+    @TempDir
+    File dir;
+
+    @Test
+    public void loaderReportsRejectedLines() throws Exception {
+        File file = new File(dir, "accounts.txt");
+        Files.writeString(file.toPath(), String.join("\n",
+                "Checking, Edison ,Ann,Lee,5/6/1990,100.25",
+                "",
+                "savings,edison,Ann,Lee,5/6/1990",
+                "savings,edison,Ann,Lee,5/6/1990,12x",
+                "savings,edison,Ann,Lee,2/30/1990,10",
+                "savings,newark,Ann,Lee,5/6/1990,10",
+                "loan,edison,Ann,Lee,5/6/1990,10",
+                "college,edison,Ann,Lee,5/6/2004,10,9",
+                "certificate,edison,Ann,Lee,5/6/1990,1000,six,1/1/2024",
+                "certificate,edison,Ann,Lee,5/6/1990,1000,6,13/1/2024",
+                "COLLEGE,Warren,Ann,Lee,5/6/2004,10,3\r",
+                "certificate,princeton,Ann,Lee,5/6/1990,1000,6,1/1/2024"));
+
+        AccountDatabase fresh = new AccountDatabase();
+        AccountLoader.Result result = fresh.loadAccounts(file);
+        assertEquals(12, result.getLines());
+        assertEquals(3, result.getLoaded());
+        assertEquals(3, fresh.size());
+        assertEquals(8, result.getRejected());
+        AccountLoader.Rejection[] expected = {
+                AccountLoader.Rejection.MISSING_FIELDS, AccountLoader.Rejection.BAD_AMOUNT,
+                AccountLoader.Rejection.BAD_DATE_OF_BIRTH, AccountLoader.Rejection.UNKNOWN_BRANCH,
+                AccountLoader.Rejection.UNKNOWN_TYPE, AccountLoader.Rejection.BAD_CAMPUS,
+                AccountLoader.Rejection.BAD_TERM, AccountLoader.Rejection.BAD_OPEN_DATE};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(i + 3, result.getRejectedLine(i));
+            assertEquals(expected[i], result.getRejection(i));
+        }
+        assertEquals(100.25, fresh.get(0).getBalance(), 0.001);
+        assertEquals(Branch.EDISON, fresh.get(0).getAccountNumber().getBranch());
+        assertEquals(Campus.CAMDEN, ((CollegeChecking) fresh.get(1)).getCampus());
+        assertEquals(AccountType.CD, fresh.get(2).getAccountNumber().getType());
+    }
+
+    @Test
+    public void depositsLoadInExactCents() throws Exception {
+        File file = new File(dir, "accounts.txt");
+        Files.writeString(file.toPath(), String.join("\n",
+                "checking,edison,Ann,Lee,5/6/1990,90071992547409.93", // more cents than a double holds exactly
+                "moneymarket,edison,Ann,Lee,5/6/1990,5000.00"));
+
+        AccountDatabase fresh = new AccountDatabase();
+        assertEquals(2, fresh.loadAccounts(file).getLoaded());
+        assertEquals(9007199254740993L, fresh.get(0).getBalanceCents());
+        assertEquals(500000, fresh.get(1).getBalanceCents());
+        assertTrue(((MoneyMarket) fresh.get(1)).isLoyal());
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.project3.unittesting;
+
+import org.junit.jupiter.api.Test;
+import com.example.project3.sourcefiles.AccountNumber;
+import com.example.project3.sourcefiles.AccountType;
+import com.example.project3.sourcefiles.Branch;
+import com.example.project3.sourcefiles.SerialAllocator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountNumberTest {
+    private static final int[] SERIALS = {0, 1, 42, 999, 1000, 8191, 8192, 9999};
+
+    @Test
+    public void rendersBranchTypeAndSerial() {
+        assertEquals("100010000", new AccountNumber(Branch.EDISON, AccountType.CHECKING, 0).toString());
+        assertEquals("200051234", new AccountNumber(Branch.BRIDGEWATER, AccountType.CD, "1234").toString());
+        assertEquals("500049999", new AccountNumber(Branch.WARREN, AccountType.COLLEGE_CHECKING, 9999).toString());
+
+        AccountNumber number = new AccountNumber(Branch.PRINCETON, AccountType.SAVINGS, 7);
+        assertEquals("300020007", number.toString());
+        assertSame(number.toString(), number.toString());
+        assertEquals(Branch.PRINCETON, number.getBranch());
+        assertEquals(AccountType.SAVINGS, number.getType());
+        assertEquals(7, number.getSerial());
+    }
+
+    @Test
+    public void keysRoundTripThroughText() {
+        for (Branch branch : Branch.values()) {
+            for (AccountType type : AccountType.values()) {
+                for (int serial : SERIALS) {
+                    AccountNumber number = new AccountNumber(branch, type, serial);
+                    assertEquals(number.getKey(), AccountNumber.parseKey(number.toString()));
+                    assertEquals(branch, number.getBranch());
+                    assertEquals(type, number.getType());
+                    assertEquals(serial, number.getSerial());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void keysOrderLikeTheText() {
+        ArrayList<AccountNumber> numbers = new ArrayList<>();
+        for (Branch branch : Branch.values()) {
+            for (AccountType type : AccountType.values()) {
+                for (int serial : SERIALS) {
+                    numbers.add(new AccountNumber(branch, type, serial));
+                }
+            }
+        }
+        for (AccountNumber a : numbers) {
+            for (AccountNumber b : numbers) {
+                assertEquals(Integer.signum(a.toString().compareTo(b.toString())), Integer.signum(a.compareTo(b)),
+                        a + " vs " + b);
+                assertEquals(Integer.signum(a.toString().compareTo(b.toString())),
+                        Integer.signum(Integer.compare(a.getKey(), b.getKey())), a + " vs " + b);
+            }
+        }
+    }
+
+    @Test
+    public void rejectsMalformedText() {
+        assertEquals(-1, AccountNumber.parseKey(null));
+        assertEquals(-1, AccountNumber.parseKey("10001000"));
+        assertEquals(-1, AccountNumber.parseKey("1000100000"));
+        assertEquals(-1, AccountNumber.parseKey("10001000a"));
+        assertEquals(-1, AccountNumber.parseKey("600010000")); // no such branch
+        assertEquals(-1, AccountNumber.parseKey("100060000")); // no such type
+        assertEquals(-1, AccountNumber.parseKey("100000000"));
+        assertThrows(IllegalArgumentException.class, () -> new AccountNumber(Branch.EDISON, AccountType.CHECKING, 10000));
+        assertThrows(IllegalArgumentException.class, () -> new AccountNumber(Branch.EDISON, AccountType.CHECKING, -1));
+    }
+
+    @Test
+    public void equalNumbersHashAlike() {
+        AccountNumber a = new AccountNumber(Branch.PISCATAWAY, AccountType.MONEY_MARKET, 55);
+        AccountNumber b = new AccountNumber(Branch.PISCATAWAY, AccountType.MONEY_MARKET, "0055");
+        assertNotSame(a, b);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(0, a.compareTo(b));
+        assertEquals(a.getKey(), a.hashCode());
+
+        assertNotEquals(a, new AccountNumber(Branch.PISCATAWAY, AccountType.MONEY_MARKET, 56));
+        assertNotEquals(a, new AccountNumber(Branch.PISCATAWAY, AccountType.SAVINGS, 55));
+        assertNotEquals(a, new AccountNumber(Branch.EDISON, AccountType.MONEY_MARKET, 55));
+        assertNotEquals(a, "400030055");
+        assertFalse(a.equals(null));
+
+        HashSet<Integer> keys = new HashSet<>();
+        for (Branch branch : Branch.values()) {
+            for (AccountType type : AccountType.values()) {
+                for (int serial : SERIALS) {
+                    assertTrue(keys.add(new AccountNumber(branch, type, serial).hashCode()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void allocatedNumbersAreDistinct() {
+        SerialAllocator allocator = SerialAllocator.random();
+        HashSet<AccountNumber> numbers = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(numbers.add(new AccountNumber(Branch.WARREN, AccountType.CHECKING, allocator)));
+        }
+        for (AccountNumber number : numbers) {
+            assertEquals(Branch.WARREN, number.getBranch());
+            assertEquals(AccountType.CHECKING, number.getType());
+        }
+    }
+}
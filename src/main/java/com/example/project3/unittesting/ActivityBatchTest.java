@@ -0,0 +1,78 @@
+package com.example.project3.unittesting;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.example.project3.sourcefiles.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ActivityBatchTest {
+    @TempDir
+    File dir;
+
+    @Test
+    public void batchIsAllOrNothing() throws Exception {
+        Profile holder = Fixtures.holder();
+        Checking checkingAccount = Fixtures.checking(holder);
+        MoneyMarket moneyMarketAccount = Fixtures.moneyMarket(holder);
+        Savings savingsAccount = Fixtures.savings(holder);
+        AccountDatabase db = Fixtures.database(checkingAccount, moneyMarketAccount, savingsAccount);
+        String checking = checkingAccount.getAccountNumber().toString();
+        String moneyMarket = moneyMarketAccount.getAccountNumber().toString();
+        ArrayList<String> lines = new ArrayList<>();
+        lines.add("D," + checking + ",2/2/2025,edison,100,t1");
+        for (int i = 0; i < 3; i++) {
+            lines.add("W," + moneyMarket + ",2/2/2025,warren,1000");
+        }
+        lines.add("W," + moneyMarket + ",2/2/2025,warren,995"); // the fourth withdrawal is charged $10
+        lines.add("");
+        lines.add("W," + moneyMarket + ",2/2/2025,warren,1");
+        lines.add("D," + checking + ",2/2/2025");
+        lines.add("D," + checking + ",2/2/2025,edison,ten");
+        lines.add("X," + checking + ",2/2/2025,edison,5");
+        lines.add("D,123456789,2/2/2025,edison,5");
+        lines.add("D," + checking + ",2/2/2025,edison,100,t1");
+        File file = new File(dir, "activities.txt");
+        Files.write(file.toPath(), lines);
+
+        String before = db.printByHolder();
+        ActivityBatch.Result rejected = db.processActivitiesBatch(file, new ForkJoinPool(3));
+        assertFalse(rejected.isCommitted());
+        assertEquals(before, db.printByHolder());
+        assertEquals(11, rejected.getPostings());
+        ActivityBatch.Rejection[] expected = {ActivityBatch.Rejection.INSUFFICIENT_FUNDS, ActivityBatch.Rejection.BAD_FORMAT,
+                ActivityBatch.Rejection.BAD_AMOUNT, ActivityBatch.Rejection.UNKNOWN_TYPE,
+                ActivityBatch.Rejection.UNKNOWN_ACCOUNT, ActivityBatch.Rejection.DUPLICATE_ID};
+        assertEquals(expected.length, rejected.getRejected());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(i + 7, rejected.getRejectedLine(i));
+            assertEquals(expected[i], rejected.getRejection(i));
+        }
+        assertNull(rejected.getRejectedAccount(1));
+        assertEquals(moneyMarket, rejected.getRejectedAccount(0));
+        assertTrue(rejected.report().contains("line 7: INSUFFICIENT_FUNDS (" + moneyMarket + ")"));
+
+        // the valid lines are applied as the sequential mode would apply them
+        Files.write(file.toPath(), lines.subList(0, 5));
+        AccountDatabase sequential = new AccountDatabase();
+        sequential.add(new Checking(checkingAccount.getAccountNumber(), holder, 1000));
+        sequential.add(new MoneyMarket(moneyMarketAccount.getAccountNumber(), holder, 4000));
+        sequential.add(new Savings(savingsAccount.getAccountNumber(), holder, 2000));
+        sequential.processActivities(file);
+        ActivityBatch.Result committed = db.processActivitiesBatch(file);
+        assertTrue(committed.isCommitted());
+        assertEquals(0, committed.getRejected());
+        assertEquals(-5, moneyMarketAccount.getBalance(), 0.01);
+        assertEquals(sequential.printStatements(), db.printStatements());
+
+        // its transaction id is now taken, so the same file is rejected
+        ActivityBatch.Result again = db.processActivitiesBatch(file);
+        assertFalse(again.isCommitted());
+        assertEquals(1, again.count(ActivityBatch.Rejection.DUPLICATE_ID));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.project3.unittesting;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.example.project3.sourcefiles.*;
+import com.example.project3.util.List;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ActivityFeedTest {
+    @TempDir
+    File dir;
+
+    @Test
+    public void activityFeedAppliesOnlyNewLines() throws Exception {
+        Checking checkingAccount = Fixtures.checking(Fixtures.holder());
+        AccountDatabase db = Fixtures.database(checkingAccount);
+        File file = new File(dir, "activities.txt");
+        String checking = checkingAccount.getAccountNumber().toString();
+        Files.writeString(file.toPath(), "D," + checking + ",2/2/2025,edison,100\n\nW," + checking + ",2/2");
+
+        ActivityFeed feed = new ActivityFeed(db, file);
+        List<String> messages = feed.catchUp(false);
+        assertEquals(3, messages.size());
+        assertEquals(1100, checkingAccount.getBalance(), 0.01);
+        assertEquals(0, feed.catchUp(false).size());
+
+        // the unfinished line is applied once it is finished, and a restart resumes after it
+        Files.writeString(file.toPath(), "/2025,edison,50\n", StandardOpenOption.APPEND);
+        assertEquals(3, feed.catchUp(false).size());
+        assertEquals(1050, checkingAccount.getBalance(), 0.01);
+        ActivityFeed restarted = new ActivityFeed(db, file);
+        assertEquals(file.length(), restarted.offset("activities.txt"));
+        assertEquals(0, restarted.catchUp(false).size());
+        assertEquals(1050, checkingAccount.getBalance(), 0.01);
+
+        // a finished file's last line needs no line break
+        Files.writeString(file.toPath(), "D," + checking + ",2/3/2025,edison,10", StandardOpenOption.APPEND);
+        assertEquals(0, restarted.catchUp(false).size());
+        assertEquals(3, restarted.catchUp(true).size());
+        assertEquals(1060, checkingAccount.getBalance(), 0.01);
+
+        // a followed directory picks up new files as they appear
+        File feeds = new File(dir, "branches");
+        assertTrue(feeds.mkdir());
+        ActivityFeed branches = new ActivityFeed(db, feeds);
+        BlockingQueue<List<String>> caughtUp = new LinkedBlockingQueue<>();
+        branches.follow(Runnable::run, caughtUp::add);
+        assertEquals(0, caughtUp.take().size());
+        Files.writeString(new File(feeds, "edison.txt").toPath(), "D," + checking + ",2/3/2025,edison,25\n");
+        List<String> followed;
+        do {
+            followed = caughtUp.poll(30, TimeUnit.SECONDS);
+            assertNotNull(followed);
+        } while (followed.isEmpty());
+        assertEquals(3, followed.size());
+        branches.close();
+        assertEquals(1085, checkingAccount.getBalance(), 0.01);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.project3.unittesting;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.example.project3.sourcefiles.*;
+import com.example.project3.util.Date;
+import com.example.project3.util.List;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArchiveTest {
+    @TempDir
+    File dir;
+
+    @Test
+    public void archiveQueries() {
+        Profile holder = Fixtures.holder();
+        Checking checkingAccount = Fixtures.checking(holder);
+        Savings savingsAccount = Fixtures.savings(holder);
+        AccountDatabase db = Fixtures.database(checkingAccount, savingsAccount);
+        Profile other = new Profile("Jane", "Roe", new Date("2/2/1990"));
+        Checking janes = new Checking(new AccountNumber(Branch.EDISON, AccountType.CHECKING), other, 10);
+        db.add(janes);
+        db.remove(savingsAccount, new Date("3/15/2025"));
+        db.remove(janes, new Date("1/10/2025"));
+        db.remove(checkingAccount, new Date("3/1/2025"));
+
+        Archive archive = db.getArchive();
+        assertEquals(3, archive.size());
+        List<Archive.Closed> march = archive.closedBetween(new Date("3/1/2025"), new Date("3/31/2025"));
+        assertEquals(2, march.size());
+        assertEquals(checkingAccount.getAccountNumber(), march.get(0).getAccountNumber());
+        assertEquals(savingsAccount.getAccountNumber(), march.get(1).getAccountNumber());
+        assertEquals(0, archive.closedBetween(new Date("1/11/2025"), new Date("2/28/2025")).size());
+
+        assertEquals(2, archive.closedFor(new Profile("JOHN", "doe", new Date("1/1/1985"))).size());
+        assertEquals(janes.getAccountNumber(), archive.closedFor(other).get(0).getAccountNumber());
+
+        assertEquals(2, archive.pages(2));
+        assertEquals(checkingAccount + " Closed[3/1/2025]\n" + janes + " Closed[1/10/2025]\n", db.printArchivePage(0, 2));
+        assertEquals(savingsAccount + " Closed[3/15/2025]\n", db.printArchivePage(1, 2));
+        assertEquals("", db.printArchivePage(2, 2));
+    }
+
+    @Test
+    public void lateClosuresKeepDateOrder() {
+        Profile holder = Fixtures.holder();
+        Archive archive = new Archive();
+        int[] days = {3, 3, 5, 8, 4, 8, 9, 1, 9, 10, 12, 7};
+        AccountNumber[] numbers = new AccountNumber[days.length];
+        for (int i = 0; i < days.length; i++) {
+            Checking acct = new Checking(new AccountNumber(Branch.EDISON, AccountType.CHECKING), holder, i);
+            numbers[i] = acct.getAccountNumber();
+            archive.add(acct, new Date("6/" + days[i] + "/2025"), acct.getBalanceCents());
+        }
+        for (int from = 1; from <= 13; from++) {
+            for (int to = from; to <= 13; to++) {
+                List<Archive.Closed> found = archive.closedBetween(new Date("6/" + from + "/2025"), new Date("6/" + to + "/2025"));
+                int n = 0;
+                for (int day = from; day <= to; day++) {
+                    for (int i = 0; i < days.length; i++) {
+                        if (days[i] == day) {
+                            assertEquals(numbers[i], found.get(n++).getAccountNumber());
+                        }
+                    }
+                }
+                assertEquals(n, found.size());
+            }
+        }
+    }
+
+    @Test
+    public void archiveSurvivesPurgeCompactionAndRestart() throws Exception {
+        Profile holder = Fixtures.holder();
+        Archive archive = new Archive(dir, 512);
+        for (int day = 1; day <= 20; day++) {
+            Checking acct = new Checking(new AccountNumber(Branch.EDISON, AccountType.CHECKING), holder, day);
+            acct.deposit(5_00);
+            acct.withdraw(2_00);
+            archive.add(acct, new Date("1/" + day + "/2024"), acct.getBalanceCents());
+        }
+        int segments = archive.segments();
+        assertTrue(segments > 2);
+
+        assertEquals(14, archive.purgeClosedBefore(new Date("1/15/2024")));
+        archive.compact();
+        assertTrue(archive.segments() < segments);
+        String printed = archive.print();
+        archive.close();
+
+        Archive reopened = new Archive(dir, 512);
+        assertEquals(6, reopened.size());
+        assertEquals(printed, reopened.print());
+        List<Archive.Closed> closed = reopened.closedBetween(new Date("1/1/2024"), new Date("12/31/2024"));
+        assertEquals(new Date("1/15/2024"), closed.get(0).getCloseDate());
+        assertEquals(18_00, closed.get(0).getFinalBalance());
+        assertEquals(2, closed.get(0).getPostings());
+        assertEquals(5_00, closed.get(0).getDeposited());
+        assertEquals(2_00, closed.get(0).getWithdrawn());
+        assertEquals(6, reopened.closedFor(holder).size());
+        reopened.close();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.project3.unittesting;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.example.project3.sourcefiles.*;
+import com.example.project3.util.Date;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointTest {
+    @TempDir
+    File dir;
+
+    @Test
+    public void checkpointChainMatchesLiveDatabase() throws Exception {
+        Profile holder = Fixtures.holder();
+        Checking checkingAccount = Fixtures.checking(holder);
+        MoneyMarket moneyMarketAccount = Fixtures.moneyMarket(holder);
+        Savings savingsAccount = Fixtures.savings(holder);
+        AccountDatabase db = Fixtures.database(checkingAccount, moneyMarketAccount, savingsAccount);
+        Checkpoint checkpoints = new Checkpoint(dir, 3);
+        checkpoints.checkpoint(db);
+        assertEquals(0, checkpoints.deltas());
+
+        Profile student = new Profile("Ann", "Lee", new Date("5/6/2004"));
+        Checking annsChecking = new Checking(new AccountNumber(Branch.EDISON, AccountType.CHECKING), student, 75);
+        Savings annsSavings = new Savings(new AccountNumber(Branch.EDISON, AccountType.SAVINGS), student, 300);
+        db.add(annsChecking);
+        db.add(annsSavings);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(db.withdraw(moneyMarketAccount.getAccountNumber().toString(), 10));
+        }
+        assertTrue(db.deposit(savingsAccount.getAccountNumber().toString(), 25));
+        checkpoints.checkpoint(db);
+        assertEquals(1, checkpoints.deltas());
+
+        db.remove(checkingAccount, new Date("2/1/2025"));
+        assertTrue(db.deposit(annsSavings.getAccountNumber().toString(), 5));
+        db.remove(annsChecking);
+        Checking brief = new Checking(new AccountNumber(Branch.WARREN, AccountType.CHECKING), student, 20);
+        db.add(brief);
+        db.remove(brief, new Date("2/2/2025"));
+        db.printStatements();
+        checkpoints.checkpoint(db);
+        assertEquals(2, checkpoints.deltas());
+
+        AccountDatabase restored = new Checkpoint(dir, 3).restore();
+        assertEquals(db.printByHolder(), restored.printByHolder());
+        assertEquals(db.printByType(), restored.printByType());
+        assertEquals(db.printArchive(), restored.printArchive());
+        assertEquals(db.printStatements(), restored.printStatements());
+
+        checkpoints.checkpoint(db);
+        checkpoints.checkpoint(db);
+        assertEquals(0, checkpoints.deltas());
+        assertEquals(db.printStatements(), new Checkpoint(dir, 3).restore().printStatements());
+    }
+
+    @Test
+    public void damagedChainIsNeverWrittenOver() throws Exception {
+        Checking checkingAccount = Fixtures.checking(Fixtures.holder());
+        AccountDatabase db = Fixtures.database(checkingAccount);
+        Checkpoint checkpoints = new Checkpoint(dir, 3);
+        checkpoints.checkpoint(db);
+        assertTrue(db.deposit(checkingAccount.getAccountNumber().toString(), 25));
+        checkpoints.checkpoint(db);
+        File[] files = dir.listFiles();
+        Arrays.sort(files);
+        File delta = files[files.length - 1];
+        byte[] bytes = Files.readAllBytes(delta.toPath());
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(delta.toPath(), bytes);
+
+        Checkpoint reopened = new Checkpoint(dir, 3);
+        assertThrows(IOException.class, reopened::restore);
+        assertThrows(IOException.class, () -> reopened.checkpoint(new AccountDatabase()));
+        File[] after = dir.listFiles();
+        Arrays.sort(after);
+        assertArrayEquals(files, after);
+        assertArrayEquals(bytes, Files.readAllBytes(delta.toPath()));
+    }
+
+    @Test
+    public void claimedTransactionIdsSurviveRestore() throws Exception {
+        Checking checkingAccount = Fixtures.checking(Fixtures.holder());
+        AccountDatabase db = Fixtures.database(checkingAccount);
+        String checking = checkingAccount.getAccountNumber().toString();
+        File checkpointDir = new File(dir, "checkpoints");
+        File journalDir = new File(dir, "journal");
+        Checkpoint checkpoints = new Checkpoint(checkpointDir, 3);
+        post(db, checking, "t1");
+        checkpoints.checkpoint(db); // a base, holding t1
+        post(db, checking, "t2");
+        checkpoints.checkpoint(db); // a checkpoint, holding t2
+        Journal journal = new Journal(journalDir, 256, 1);
+        db.journalTo(journal);
+        post(db, checking, "t3");             // only in the journal
+        journal.close();
+        assertEquals(1030, checkingAccount.getBalance(), 0.01);
+
+        AccountDatabase restored = new Checkpoint(checkpointDir, 3).restore();
+        Journal reopened = new Journal(journalDir, 256, 1);
+        reopened.replay(restored);
+        reopened.close();
+        for (String id : new String[]{"t1", "t2", "t3"}) {
+            assertTrue(post(restored, checking, id).startsWith("Duplicate transaction " + id));
+        }
+        assertEquals(1030, restored.getAccount(checkingAccount.getAccountNumber()).getBalance(), 0.01);
+        assertFalse(post(restored, checking, "t4").startsWith("Duplicate"));
+    }
+
+    /**
+     * Processes an activities file of one $10 deposit to an account carrying the given transaction id.
+     * @return the message for the line
+     */
+    private String post(AccountDatabase target, String account, String id) throws IOException {
+        File file = new File(dir, "activities.txt");
+        Files.writeString(file.toPath(), "D," + account + ",2/2/2025,edison,10," + id + "\n");
+        return target.processActivities(file).get(1);
+    }
+}
@@ -4,6 +4,7 @@ import org.testng.annotations.Test;
 import com.example.project3.util.Date;
 
 //import static org.junit.Assert.*;
+import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertTrue;
 
@@ -35,4 +36,22 @@ public class DateTest {
         Date d6 = new Date("12/31/2001");
         assertTrue(d6.isValid());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void plusMonths() {
+        //Day exists in the new month
+        assertEquals(new Date("4/15/2025"), new Date("1/15/2025").plusMonths(3));
+
+        //Crosses into the next year
+        assertEquals(new Date("3/10/2026"), new Date("9/10/2025").plusMonths(6));
+
+        //Clamped to the end of February, in a leap year and not
+        assertEquals(new Date("2/29/2024"), new Date("11/30/2023").plusMonths(3));
+        assertEquals(new Date("2/28/2025"), new Date("8/31/2024").plusMonths(6));
+
+        //Epoch days round-trip across a leap day
+        Date d = new Date("2/28/2024");
+        assertEquals(new Date("3/1/2024"), d.plusDays(2));
+        assertEquals(19_781, d.toEpochDay());
+    }
+}
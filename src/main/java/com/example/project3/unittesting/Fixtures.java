@@ -0,0 +1,40 @@
+package com.example.project3.unittesting;
+
+import com.example.project3.sourcefiles.*;
+import com.example.project3.util.Date;
+
+/**
+ * Builds the accounts the database tests start from: John Doe's checking, money market and savings accounts.
+ * Each account draws a fresh number, so a test can open as many as it needs.
+ */
+final class Fixtures {
+    private Fixtures() {
+    }
+
+    static Profile holder() {
+        return new Profile("John", "Doe", new Date("01/01/1985"));
+    }
+
+    static Checking checking(Profile holder) {
+        return new Checking(new AccountNumber(Branch.BRIDGEWATER, AccountType.CHECKING), holder, 1000);
+    }
+
+    static MoneyMarket moneyMarket(Profile holder) {
+        return new MoneyMarket(new AccountNumber(Branch.WARREN, AccountType.MONEY_MARKET), holder, 4000);
+    }
+
+    static Savings savings(Profile holder) {
+        return new Savings(new AccountNumber(Branch.PRINCETON, AccountType.SAVINGS), holder, 2000);
+    }
+
+    /**
+     * Opens a database holding the given accounts, in order.
+     */
+    static AccountDatabase database(Account... accounts) {
+        AccountDatabase db = new AccountDatabase();
+        for (Account acct : accounts) {
+            db.add(acct);
+        }
+        return db;
+    }
+}
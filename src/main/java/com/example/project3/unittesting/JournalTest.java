@@ -0,0 +1,178 @@
+package com.example.project3.unittesting;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.example.project3.sourcefiles.*;
+import com.example.project3.util.BusinessClock;
+import com.example.project3.util.Date;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournalTest {
+    private File checkpointDir;
+    private File journalDir;
+    @TempDir
+    File dir;
+
+    @BeforeEach
+    public void setUp() {
+        checkpointDir = new File(dir, "checkpoints");
+        journalDir = new File(dir, "journal");
+    }
+
+    @Test
+    public void journalReplaysOnTopOfCheckpoint() throws Exception {
+        Profile holder = Fixtures.holder();
+        Checking checkingAccount = Fixtures.checking(holder);
+        MoneyMarket moneyMarketAccount = Fixtures.moneyMarket(holder);
+        AccountDatabase db = Fixtures.database(checkingAccount, moneyMarketAccount);
+        Checkpoint checkpoints = new Checkpoint(checkpointDir, 3);
+        Journal journal = new Journal(journalDir, 256, 1);
+        db.journalTo(journal);
+        assertTrue(db.deposit(checkingAccount.getAccountNumber().toString(), 40));
+        checkpoints.checkpoint(db);
+
+        Profile student = new Profile("Ann", "Lee", new Date("5/6/2004"));
+        Savings annsSavings = new Savings(new AccountNumber(Branch.EDISON, AccountType.SAVINGS), student, 300);
+        db.add(annsSavings);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(db.withdraw(moneyMarketAccount.getAccountNumber().toString(), 10));
+        }
+        assertTrue(db.deposit(annsSavings.getAccountNumber().toString(), 5));
+        db.remove(checkingAccount, new Date("2/1/2025"));
+        db.printStatements();
+        journal.close();
+
+        AccountDatabase restored = new Checkpoint(checkpointDir, 3).restore();
+        Journal reopened = new Journal(journalDir, 256, 1);
+        assertEquals(8, reopened.replay(restored));
+        assertEquals(db.printByHolder(), restored.printByHolder());
+        assertEquals(db.printArchive(), restored.printArchive());
+        assertEquals(db.printStatements(), restored.printStatements());
+        reopened.close();
+
+        // a torn entry at the end is dropped, the entries before it are kept
+        File[] files = journalDir.listFiles();
+        Arrays.sort(files);
+        Files.write(files[files.length - 1].toPath(), new byte[]{0, 0, 0, 99, 1, 2}, StandardOpenOption.APPEND);
+        AccountDatabase again = new Checkpoint(checkpointDir, 3).restore();
+        Journal recovered = new Journal(journalDir, 256, 1);
+        assertEquals(8, recovered.replay(again));
+        assertEquals(db.printArchive(), again.printArchive());
+        recovered.close();
+    }
+
+    @Test
+    public void postingsAndEntriesAreDatedByTheDatabaseClock() throws Exception {
+        Profile holder = Fixtures.holder();
+        Checking checkingAccount = Fixtures.checking(holder);
+        MoneyMarket moneyMarketAccount = Fixtures.moneyMarket(holder);
+        AccountDatabase db = Fixtures.database(checkingAccount, moneyMarketAccount);
+        Date day = new Date("3/4/2024");
+        db.setClock(BusinessClock.fixed(day));
+        Checkpoint checkpoints = new Checkpoint(checkpointDir, 3);
+        checkpoints.checkpoint(db);
+        Journal journal = new Journal(journalDir, 256, 1);
+        db.journalTo(journal);
+        assertTrue(db.deposit(checkingAccount.getAccountNumber().toString(), 40));
+        assertTrue(db.withdraw(moneyMarketAccount.getAccountNumber().toString(), 10));
+        journal.close();
+
+        ActivityLog deposits = new ActivityLog();
+        deposits.add('D', 40_00, Branch.BRIDGEWATER, day, false);
+        ActivityLog withdrawals = new ActivityLog();
+        withdrawals.add('W', 10_00, Branch.WARREN, day, false);
+        String deposited = "[Activity]\n" + deposits.appendLines(new StringBuilder());
+        String withdrew = "[Activity]\n" + withdrawals.appendLines(new StringBuilder());
+        assertTrue(checkingAccount.statement().contains(deposited));
+        assertTrue(moneyMarketAccount.statement().contains(withdrew));
+
+        // replay dates the postings by the day each entry was journaled, whatever the restoring database's clock says
+        AccountDatabase restored = new Checkpoint(checkpointDir, 3).restore();
+        BusinessClock later = BusinessClock.fixed(new Date("5/6/2025"));
+        restored.setClock(later);
+        Journal reopened = new Journal(journalDir, 256, 1);
+        assertEquals(2, reopened.replay(restored));
+        reopened.close();
+        assertSame(later, restored.getClock());
+        assertTrue(restored.getAccount(checkingAccount.getAccountNumber()).statement().contains(deposited));
+        assertTrue(restored.getAccount(moneyMarketAccount.getAccountNumber()).statement().contains(withdrew));
+    }
+
+    @Test
+    public void feedOffsetsAreRestoredWithTheirPostings() throws Exception {
+        Checking checkingAccount = Fixtures.checking(Fixtures.holder());
+        AccountDatabase db = Fixtures.database(checkingAccount);
+        Checkpoint checkpoints = new Checkpoint(checkpointDir, 3);
+        checkpoints.checkpoint(db);
+        Journal journal = new Journal(journalDir, 256, 1);
+        db.journalTo(journal);
+        String checking = checkingAccount.getAccountNumber().toString();
+        File file = new File(dir, "activities.txt");
+        Files.writeString(file.toPath(), "D," + checking + ",2/2/2025,edison,100\n");
+        ActivityFeed feed = new ActivityFeed(db, file);
+        assertEquals(3, feed.catchUp(false).size());
+        long first = file.length();
+        checkpoints.checkpoint(db); // the checkpoint holds the first line's offset
+        Files.writeString(file.toPath(), "D," + checking + ",2/3/2025,edison,50\n", StandardOpenOption.APPEND);
+        assertEquals(3, feed.catchUp(false).size()); // only the journal holds the second
+        journal.close();
+        // the saved offsets are stale, as after a crash before they were written
+        Files.writeString(new File(dir, "activities.txt.offsets").toPath(), "activities.txt,0\n");
+
+        assertEquals(first, new ActivityFeed(new Checkpoint(checkpointDir, 3).restore(), file).offset("activities.txt"));
+        AccountDatabase restored = new Checkpoint(checkpointDir, 3).restore();
+        Journal reopened = new Journal(journalDir, 256, 1);
+        reopened.replay(restored);
+        reopened.close();
+        ActivityFeed resumed = new ActivityFeed(restored, file);
+        assertEquals(file.length(), resumed.offset("activities.txt"));
+        assertEquals(0, resumed.catchUp(true).size());
+        assertEquals(1150, restored.getAccount(checkingAccount.getAccountNumber()).getBalance(), 0.01);
+    }
+
+    @Test
+    public void batchWithoutItsCommitIsDropped() throws Exception {
+        Checking checkingAccount = Fixtures.checking(Fixtures.holder());
+        AccountDatabase db = Fixtures.database(checkingAccount);
+        Checkpoint checkpoints = new Checkpoint(checkpointDir, 3);
+        checkpoints.checkpoint(db);
+        Journal journal = new Journal(journalDir, 256, 1);
+        db.journalTo(journal);
+        assertTrue(db.deposit(checkingAccount.getAccountNumber().toString(), 40));
+        String checking = checkingAccount.getAccountNumber().toString();
+        File file = new File(dir, "activities.txt");
+        Files.writeString(file.toPath(), "D," + checking + ",2/2/2025,edison,100,b1\nD," + checking + ",2/2/2025,edison,5,b2\n");
+        assertTrue(db.processActivitiesBatch(file).isCommitted());
+        journal.close();
+
+        AccountDatabase replayed = new Checkpoint(checkpointDir, 3).restore();
+        Journal reopened = new Journal(journalDir, 256, 1);
+        assertEquals(3, reopened.replay(replayed));
+        reopened.close();
+        assertEquals(db.printByHolder(), replayed.printByHolder());
+        assertFalse(replayed.processActivitiesBatch(file).isCommitted());
+
+        // cut the commit marker off, as a crash before it reached the disk would
+        File[] files = journalDir.listFiles();
+        Arrays.sort(files);
+        File last = files[files.length - 2]; // the newest file is the one the replay above started
+        try (FileChannel channel = FileChannel.open(last.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 21); // a marker is a bare 21-byte entry header
+        }
+        AccountDatabase cut = new Checkpoint(checkpointDir, 3).restore();
+        Journal recovered = new Journal(journalDir, 256, 1);
+        assertEquals(1, recovered.replay(cut));
+        recovered.close();
+        assertEquals(1040, cut.getAccount(checking).getBalance(), 0.01);
+        assertTrue(cut.processActivitiesBatch(file).isCommitted());
+        assertEquals(1145, cut.getAccount(checking).getBalance(), 0.01);
+    }
+}
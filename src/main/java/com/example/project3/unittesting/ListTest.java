@@ -0,0 +1,113 @@
+package com.example.project3.unittesting;
+
+import org.junit.jupiter.api.Test;
+import com.example.project3.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ListTest {
+
+    @Test
+    public void growsByHalfAndKeepsElements() {
+        List<Integer> list = new List<>();
+        assertEquals(4, capacity(list));
+        for (int i = 0; i < 5; i++) {
+            list.add(i);
+        }
+        assertEquals(7, capacity(list)); // 4 + 4 / 2 + 1
+        for (int i = 5; i < 1000; i++) {
+            list.add(i);
+        }
+        assertEquals(1000, list.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, (int) list.get(i));
+        }
+        assertTrue(capacity(list) < 1500);
+    }
+
+    @Test
+    public void emptyCapacityGrowsOnFirstAdd() {
+        List<String> list = new List<>(0);
+        assertEquals(0, capacity(list));
+        list.add("a");
+        assertEquals(4, capacity(list));
+        assertEquals("[a]", list.toString());
+        assertThrows(IllegalArgumentException.class, () -> new List<String>(-1));
+    }
+
+    @Test
+    public void ensureCapacityGrowsOnlyWhenNeeded() {
+        List<Integer> list = new List<>(10);
+        Object[] before = objects(list);
+        list.ensureCapacity(10);
+        assertSame(before, objects(list));
+        list.ensureCapacity(100);
+        assertEquals(100, capacity(list));
+        Object[] reserved = objects(list);
+        for (int i = 0; i < 100; i++) {
+            list.add(i);
+        }
+        assertSame(reserved, objects(list));
+        list.ensureCapacity(101);
+        assertEquals(151, capacity(list)); // the geometric size beats the requested one
+        assertEquals(99, (int) list.get(99));
+    }
+
+    @Test
+    public void addAllAppendsInOrder() {
+        List<String> list = new List<>();
+        list.add("a");
+        List<String> other = new List<>();
+        other.add("b");
+        other.add("c");
+        list.addAll(other);
+        list.addAll(new String[]{"d", "e", "f", "g", "h", "i"});
+        assertEquals(9, list.size());
+        assertEquals("[a, b, c, d, e, f, g, h, i]", list.toString());
+        assertEquals(2, other.size());
+
+        list.addAll(new List<String>());
+        list.addAll(new String[0]);
+        assertEquals(9, list.size());
+    }
+
+    @Test
+    public void addAllGrowsAtMostOnce() {
+        List<Integer> list = new List<>(2);
+        list.add(0);
+        Integer[] batch = new Integer[50];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = i + 1;
+        }
+        list.addAll(batch);
+        assertEquals(51, capacity(list));
+        assertEquals(51, list.size());
+        assertEquals(50, (int) list.get(50));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(51));
+    }
+
+    @Test
+    public void removeAtShiftsAndClearsTheLastSlot() {
+        List<String> list = new List<>();
+        list.addAll(new String[]{"a", "b", "c"});
+        assertEquals("a", list.removeAt(0));
+        assertEquals("[b, c]", list.toString());
+        assertNull(objects(list)[2]);
+        list.remove("c");
+        list.remove("x");
+        assertEquals(1, list.size());
+        assertEquals(-1, list.indexOf("c"));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.removeAt(1));
+    }
+
+    /**
+     * Retrieves the backing array; it is an Object[] whatever the element type.
+     */
+    private static Object[] objects(List<?> list) {
+        return list.getObjects();
+    }
+
+    private static int capacity(List<?> list) {
+        return objects(list).length;
+    }
+}
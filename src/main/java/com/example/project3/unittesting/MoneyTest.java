@@ -0,0 +1,78 @@
+package com.example.project3.unittesting;
+
+import org.junit.jupiter.api.Test;
+import com.example.project3.util.Money;
+
+import java.text.DecimalFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoneyTest {
+
+    @Test
+    public void parsesDecimalsExactly() {
+        assertEquals(150000, Money.parse("1500"));
+        assertEquals(80099, Money.parse("800.99"));
+        assertEquals(80090, Money.parse("800.9"));
+        assertEquals(80000, Money.parse("800."));
+        assertEquals(-50, Money.parse("-.5"));
+        assertEquals(300, Money.parse("+3"));
+        assertEquals(0, Money.parse("0.00"));
+        assertEquals(1234, Money.parse("x12.34y", 1, 6));
+        assertEquals(123456789012345678L, Money.parse("1234567890123456.78"));
+    }
+
+    @Test
+    public void parsesOtherNumbersThroughDoubles() {
+        assertEquals(113, Money.parse("1.125")); // rounded half up to the cent
+        assertEquals(100000, Money.parse("1e3"));
+        assertThrows(NumberFormatException.class, () -> Money.parse(""));
+        assertThrows(NumberFormatException.class, () -> Money.parse("."));
+        assertThrows(NumberFormatException.class, () -> Money.parse("12a"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("1.2.3"));
+    }
+
+    @Test
+    public void convertsDollars() {
+        assertEquals(30, Money.ofDollars(0.1 + 0.2));
+        assertEquals(-1999, Money.ofDollars(-19.99));
+        assertEquals(1.5, Money.toDollars(150), 0);
+    }
+
+    @Test
+    public void roundsMonthlyInterestHalfEven() {
+        assertEquals(125, Money.monthlyInterest(100000, 150)); // 1.5% of $1,000 over 12 months
+        assertEquals(0, Money.monthlyInterest(400, 150));      // 0.5 cents
+        assertEquals(2, Money.monthlyInterest(1200, 150));     // 1.5 cents
+        assertEquals(2, Money.monthlyInterest(2000, 150));     // 2.5 cents
+        assertEquals(3, Money.monthlyInterest(2100, 150));     // 2.625 cents
+        assertEquals(0, Money.monthlyInterest(-400, 150));     // -0.5 cents
+        assertEquals(-2, Money.monthlyInterest(-1200, 150));   // -1.5 cents
+        assertEquals(0, Money.monthlyInterest(100000, 0));
+    }
+
+    @Test
+    public void formatsLikeDecimalFormat() {
+        assertEquals("0.00", Money.format(0));
+        assertEquals("-0.05", Money.format(-5));
+        assertEquals("999.99", Money.format(99999));
+        assertEquals("1,000.00", Money.format(100000));
+        assertEquals("1,234,567.89", Money.format(123456789));
+        assertEquals("$-12,345.60", Money.format(new StringBuilder("$"), -1234560).toString());
+
+        DecimalFormat reference = new DecimalFormat("#,##0.00");
+        for (long cents : new long[]{1, 10, 101, 99_999_99, 100_000_00, 12_345_678_90L, -100_000_01}) {
+            assertEquals(reference.format(Money.toDollars(cents)), Money.format(cents));
+        }
+    }
+
+    @Test
+    public void formatsPlainLikeStringFormat() {
+        assertEquals("1234567.89", Money.formatPlain(new StringBuilder(), 123456789).toString());
+        assertEquals("-0.50", Money.formatPlain(new StringBuilder(), -50).toString());
+        for (long cents : new long[]{0, 7, 250, 100_000_00, -99_99}) {
+            assertEquals(String.format("%.2f", Money.toDollars(cents)),
+                    Money.formatPlain(new StringBuilder(), cents).toString());
+        }
+    }
+}
@@ -2,10 +2,14 @@ package com.example.project3.unittesting;
 
 import org.junit.jupiter.api.Test;
 import com.example.project3.sourcefiles.Profile;
+import com.example.project3.sourcefiles.ProfilePool;
 import com.example.project3.util.Date;
 
 //import static org.junit.Assert.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ProfileTest {
@@ -36,4 +40,44 @@ public class ProfileTest {
         assertTrue(p4.compareTo(p2) > 0);
         assertEquals(0, p5.compareTo(p6));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void intern() {
+        Date dob = new Date("3/4/1990");
+        Profile a = ProfilePool.intern("Jane", "Doe", dob);
+        Profile b = ProfilePool.intern("Jane", "Doe", new Date("3/4/1990"));
+        Profile c = ProfilePool.intern("JANE", "doe", dob); // same holder, different spelling
+        Profile d = ProfilePool.intern("Jane", "Doe", new Date("3/5/1990"));
+
+        assertSame(a, b);
+        assertNotSame(a, c);
+        assertEquals(a, c);
+        assertEquals(0, c.compareTo(a));
+        assertEquals(a.hashCode(), c.hashCode());
+        assertEquals(a.getId(), c.getId());
+        assertEquals("JANE doe 3/4/1990", c.toString());
+
+        assertNotEquals(a, d);
+        assertTrue(a.compareTo(d) < 0);
+        assertNotEquals(a.getId(), d.getId());
+
+        // interned and plain profiles still compare by value
+        assertEquals(a, new Profile("jane", "DOE", dob));
+    }
+
+    @Test
+    public void poolForgetsHoldersNoLongerInUse() throws InterruptedException {
+        Date dob = new Date("6/7/1970");
+        Profile kept = ProfilePool.intern("Kept", "Holder", dob);
+        int before = ProfilePool.size();
+        for (int i = 0; i < 1000; i++) {
+            ProfilePool.intern("Passing" + i, "Holder", dob);
+        }
+        for (int attempt = 0; attempt < 100 && ProfilePool.size() > before; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertTrue(ProfilePool.size() <= before);
+        assertSame(kept, ProfilePool.intern("Kept", "Holder", new Date("6/7/1970")));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.project3.unittesting;
+
+import org.junit.jupiter.api.Test;
+import com.example.project3.sourcefiles.AccountDatabase;
+import com.example.project3.sourcefiles.AccountNumber;
+import com.example.project3.sourcefiles.AccountType;
+import com.example.project3.sourcefiles.Branch;
+import com.example.project3.sourcefiles.Checking;
+import com.example.project3.sourcefiles.Profile;
+import com.example.project3.sourcefiles.SerialAllocator;
+import com.example.project3.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SerialAllocatorTest {
+
+    @Test
+    public void sequentialModeIssuesLowestFreeSerial() {
+        SerialAllocator allocator = SerialAllocator.sequential();
+        assertEquals(0, allocator.allocate(Branch.EDISON, AccountType.CHECKING));
+        assertEquals(1, allocator.allocate(Branch.EDISON, AccountType.CHECKING));
+        // each branch and type has its own serials
+        assertEquals(0, allocator.allocate(Branch.EDISON, AccountType.SAVINGS));
+
+        assertTrue(allocator.reserve(Branch.WARREN, AccountType.CD, 0));
+        assertFalse(allocator.reserve(Branch.WARREN, AccountType.CD, 0));
+        assertEquals(1, allocator.allocate(Branch.WARREN, AccountType.CD));
+
+        AccountNumber number = new AccountNumber(Branch.PRINCETON, AccountType.MONEY_MARKET, allocator);
+        assertEquals("300030000", number.toString());
+    }
+
+    @Test
+    public void neverReissuesAndReportsExhaustion() {
+        SerialAllocator allocator = SerialAllocator.random();
+        boolean[] seen = new boolean[SerialAllocator.SERIALS];
+        for (int i = 0; i < SerialAllocator.SERIALS; i++) {
+            int serial = allocator.allocate(Branch.BRIDGEWATER, AccountType.SAVINGS);
+            assertFalse(seen[serial]);
+            seen[serial] = true;
+        }
+        assertThrows(IllegalStateException.class,
+                () -> allocator.allocate(Branch.BRIDGEWATER, AccountType.SAVINGS));
+
+        allocator.release(Branch.BRIDGEWATER, AccountType.SAVINGS, 4321);
+        assertEquals(4321, allocator.allocate(Branch.BRIDGEWATER, AccountType.SAVINGS));
+    }
+
+    @Test
+    public void removedAccountsGiveTheirSerialsBack() {
+        AccountDatabase db = new AccountDatabase();
+        Profile holder = new Profile("Serial", "Reuse", new Date("3/3/1993"));
+        // open and remove more accounts than the branch has serials for one type
+        for (int i = 0; i < 2 * SerialAllocator.SERIALS; i++) {
+            Checking acct = new Checking(new AccountNumber(Branch.PISCATAWAY, AccountType.CHECKING), holder, 10);
+            db.add(acct);
+            db.remove(acct);
+            assertFalse(SerialAllocator.shared().isUsed(Branch.PISCATAWAY, AccountType.CHECKING,
+                    acct.getAccountNumber().getSerial()));
+        }
+        assertTrue(db.isEmpty());
+
+        // a closed account stays in the archive under its number, so its serial is kept
+        Checking closed = new Checking(new AccountNumber(Branch.PISCATAWAY, AccountType.CHECKING), holder, 10);
+        db.add(closed);
+        db.remove(closed, new Date("4/1/2025"));
+        assertTrue(SerialAllocator.shared().isUsed(Branch.PISCATAWAY, AccountType.CHECKING,
+                closed.getAccountNumber().getSerial()));
+    }
+}
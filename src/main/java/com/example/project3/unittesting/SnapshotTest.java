@@ -0,0 +1,48 @@
+package com.example.project3.unittesting;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.example.project3.sourcefiles.*;
+import com.example.project3.util.Date;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotTest {
+    @TempDir
+    File dir;
+
+    @Test
+    public void snapshotRoundTrip() throws Exception {
+        Profile holder = Fixtures.holder();
+        Profile student = new Profile("Ann", "Lee", new Date("5/6/2004"));
+        MoneyMarket moneyMarket = Fixtures.moneyMarket(holder);
+        Savings savings = Fixtures.savings(holder);
+        AccountDatabase db = Fixtures.database(Fixtures.checking(holder), moneyMarket, savings);
+        db.add(new CollegeChecking(new AccountNumber(Branch.EDISON, AccountType.COLLEGE_CHECKING), student, 250, Campus.NEWARK));
+        db.add(new CertificateDeposit(new AccountNumber(Branch.EDISON, AccountType.CD), holder, 1000, 12, new Date("1/15/2024")));
+        for (int i = 0; i < 4; i++) {
+            assertTrue(db.withdraw(moneyMarket.getAccountNumber().toString(), 10));
+        }
+        assertTrue(db.deposit(savings.getAccountNumber().toString(), 123.45));
+        Checking closed = new Checking(new AccountNumber(Branch.WARREN, AccountType.CHECKING), student, 40);
+        db.add(closed);
+        db.remove(closed, new Date("2/1/2025"));
+
+        File file = new File(dir, "bank.snapshot");
+        Snapshot.write(db, file);
+        AccountDatabase restored = Snapshot.read(file);
+        assertEquals(db.size(), restored.size());
+        assertEquals(db.printByHolder(), restored.printByHolder());
+        assertEquals(db.printStatements(), restored.printStatements());
+        assertEquals(db.printArchive(), restored.printArchive());
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file.toPath(), bytes);
+        assertThrows(IOException.class, () -> Snapshot.read(file));
+    }
+}
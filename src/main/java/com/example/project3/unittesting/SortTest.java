@@ -0,0 +1,131 @@
+package com.example.project3.unittesting;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.example.project3.sourcefiles.*;
+import com.example.project3.util.Date;
+import com.example.project3.util.Sort;
+import com.example.project3.util.SortedView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SortTest {
+    private final ArrayList<Account> accounts = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        Profile[] holders = {
+                new Profile("Ann", "Lee", new Date("5/6/2004")),
+                new Profile("ann", "LEE", new Date("5/6/2004")), // the same holder spelled differently
+                new Profile("Ann", "Lee", new Date("5/6/1990")),
+                new Profile("Bob", "Adams", new Date("1/2/1980")),
+                new Profile("Zoe", "adams", new Date("1/2/1980"))
+        };
+        for (Profile holder : holders) {
+            for (Branch branch : Branch.values()) {
+                accounts.add(new Checking(new AccountNumber(branch, AccountType.CHECKING), holder, 100));
+                accounts.add(new Savings(new AccountNumber(branch, AccountType.SAVINGS), holder, 200));
+            }
+            accounts.add(new MoneyMarket(new AccountNumber(Branch.WARREN, AccountType.MONEY_MARKET), holder, 3000));
+            accounts.add(new CertificateDeposit(new AccountNumber(Branch.EDISON, AccountType.CD), holder, 1000,
+                    6, new Date("8/31/2024")));
+        }
+        accounts.add(new CollegeChecking(new AccountNumber(Branch.PISCATAWAY, AccountType.COLLEGE_CHECKING),
+                holders[0], 50, Campus.NEW_BRUNSWICK));
+        Collections.shuffle(accounts, new Random(7));
+    }
+
+    @Test
+    public void comparatorsKeepTheReportOrders() {
+        for (char key : new char[]{'B', 'H', 'T'}) {
+            assertEquals(numbers(expected(key)), numbers(sorted(Sort.comparator(key))), "sort key " + key);
+        }
+        assertThrows(IllegalArgumentException.class, () -> Sort.comparator('X'));
+    }
+
+    @Test
+    public void viewsKeepTheReportOrdersAsAccountsComeAndGo() {
+        for (char key : new char[]{'B', 'H', 'T'}) {
+            SortedView<Account> view = Sort.view(key);
+            for (Account acct : accounts) {
+                view.add(acct);
+            }
+            ArrayList<Account> expected = expected(key);
+            for (int i = 0; i < accounts.size(); i += 3) {
+                Account gone = accounts.get(i);
+                assertTrue(view.remove(gone));
+                expected.removeIf(acct -> acct == gone); // accounts of one holder and type are equal()
+            }
+            assertFalse(view.remove(accounts.get(0)));
+            ArrayList<Account> listed = new ArrayList<>();
+            for (Account acct : view) {
+                listed.add(acct);
+            }
+            assertEquals(expected.size(), view.size());
+            assertEquals(numbers(expected), numbers(listed), "sort key " + key);
+        }
+        assertThrows(IllegalArgumentException.class, () -> Sort.view('X'));
+    }
+
+    @Test
+    public void reportsListAccountsInTheSameOrders() {
+        AccountDatabase db = new AccountDatabase();
+        for (Account acct : accounts) {
+            db.add(acct);
+        }
+        assertEquals(numbers(expected('B')), reported(db.printByBranch()));
+        assertEquals(numbers(expected('H')), reported(db.printByHolder()));
+        assertEquals(numbers(expected('T')), reported(db.printByType()));
+    }
+
+    /**
+     * Sorts the accounts by the rules of the original reports: county then city for 'B', last name, first name
+     * (ignoring case) and date of birth for 'H', and type code for 'T', with ties broken by the account number.
+     */
+    private ArrayList<Account> expected(char key) {
+        Comparator<Account> order;
+        if (key == 'B') {
+            order = Comparator.comparing((Account a) -> a.getAccountNumber().getBranch().getCounty())
+                    .thenComparing(a -> a.getAccountNumber().getBranch().name());
+        } else if (key == 'H') {
+            order = Comparator.comparing((Account a) -> a.getHolder().getLname(), String.CASE_INSENSITIVE_ORDER)
+                    .thenComparing(a -> a.getHolder().getFname(), String.CASE_INSENSITIVE_ORDER)
+                    .thenComparing(a -> a.getHolder().getDob());
+        } else {
+            order = Comparator.comparing((Account a) -> a.getAccountNumber().getType().getCode());
+        }
+        return sorted(order.thenComparing(a -> a.getAccountNumber().toString()));
+    }
+
+    private ArrayList<Account> sorted(Comparator<Account> order) {
+        ArrayList<Account> copy = new ArrayList<>(accounts);
+        copy.sort(order);
+        return copy;
+    }
+
+    private static ArrayList<String> numbers(ArrayList<Account> list) {
+        ArrayList<String> numbers = new ArrayList<>();
+        for (Account acct : list) {
+            numbers.add(acct.getAccountNumber().toString());
+        }
+        return numbers;
+    }
+
+    /**
+     * Reads the account numbers of a report, in the order they are listed.
+     */
+    private static ArrayList<String> reported(String report) {
+        ArrayList<String> numbers = new ArrayList<>();
+        for (String line : report.split("\n")) {
+            if (line.startsWith("Account#[")) {
+                numbers.add(line.substring(9, line.indexOf(']')));
+            }
+        }
+        return numbers;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.project3.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Supplies the current business date as a {@link Date}.
+ * The date is built once and cached until the next midnight of the clock's time zone,
+ * so callers that need today's date on every transaction only read a field.
+ * A clock can be injected, e.g. a fixed one to make date-dependent tests deterministic.
+ *
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+public class BusinessClock {
+    private static volatile BusinessClock defaultClock = new BusinessClock(Clock.systemDefaultZone());
+
+    private final Clock clock;
+    private volatile Today today;
+
+    /**
+     * A cached date and the instants, in epoch milliseconds, between which it is today.
+     */
+    private static final class Today {
+        final Date date;
+        final long start;
+        final long end;
+
+        Today(Date date, long start, long end) {
+            this.date = date;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Constructs a business clock reading the given clock.
+     * @param clock the source of the current instant and time zone
+     */
+    public BusinessClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Creates a business clock that always reports the given date.
+     * @param date the date to report as today
+     * @return the fixed clock
+     */
+    public static BusinessClock fixed(Date date) {
+        ZoneId zone = ZoneId.systemDefault();
+        Instant noon = LocalDate.of(date.getYear(), date.getMonth(), date.getDay())
+                .atTime(12, 0).atZone(zone).toInstant();
+        return new BusinessClock(Clock.fixed(noon, zone));
+    }
+
+    /**
+     * Returns the clock used by accounts and transactions that were not given one.
+     * @return the default business clock, reading the system clock unless replaced
+     */
+    public static BusinessClock getDefault() {
+        return defaultClock;
+    }
+
+    /**
+     * Replaces the default business clock.
+     * @param clock the new default clock
+     */
+    public static void setDefault(BusinessClock clock) {
+        defaultClock = clock;
+    }
+
+    /**
+     * Returns today's date, rebuilding it only when the clock has moved past the cached day.
+     * @return today's date
+     */
+    public Date today() {
+        long now = clock.millis();
+        Today t = today;
+        if (t == null || now >= t.end || now < t.start) {
+            ZoneId zone = clock.getZone();
+            LocalDate date = LocalDate.ofInstant(Instant.ofEpochMilli(now), zone);
+            long start = date.atStartOfDay(zone).toInstant().toEpochMilli();
+            long end = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            t = new Today(new Date(date.getYear(), date.getMonthValue(), date.getDayOfMonth()), start, end);
+            today = t;
+        }
+        return t.date;
+    }
+
+    /**
+     * Checks whether a date is after today.
+     * @param date the date to check
+     * @return true if the date is in the future, otherwise false
+     */
+    public boolean isFuture(Date date) {
+        return date.compareTo(today()) > 0;
+    }
+
+    /**
+     * Computes the age in whole years, as of today, of someone born on the given date.
+     * @param dob the date of birth
+     * @return the number of birthdays since the date of birth
+     */
+    public int ageOf(Date dob) {
+        Date now = today();
+        int age = now.getYear() - dob.getYear();
+        if (now.getMonth() < dob.getMonth()
+                || (now.getMonth() == dob.getMonth() && now.getDay() < dob.getDay())) {
+            age--;
+        }
+        return age;
+    }
+}
@@ -7,9 +7,7 @@ package com.example.project3.util;
  * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
  */
 public class Date implements Comparable<Date> {
-    private int year;
-    private int month;
-    private int day;
+    private final int packed; // year << 10 | month << 6 | day
 
     public static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
 
@@ -17,15 +15,101 @@ public class Date implements Comparable<Date> {
     public static final int CENTENNIAL = 100;
     public static final int QUATERCENTENNIAL = 400;
 
+    private static final int MONTH_SHIFT = 6;
+    private static final int YEAR_SHIFT = 10;
+    private static final int DAY_MASK = (1 << MONTH_SHIFT) - 1; // days saturate at 63
+    private static final int MONTH_MASK = (1 << (YEAR_SHIFT - MONTH_SHIFT)) - 1; // months saturate at 15
+    private static final int MONTHS_PER_YEAR = 12;
+    private static final int DAYS_PER_ERA = 146_097; // days in 400 years
+    private static final int DAYS_0000_TO_1970 = 719_468; // from 3/1/0000 to 1/1/1970
+
     /**
      * Constructs a Date object from a string in the format MM/DD/YYYY.
      * @param date the date string in MM/DD/YYYY format.
+     * @throws NumberFormatException if the string is not three numbers separated by slashes.
      */
     public Date(String date) {
-        String[] dateParts = date.split("/");
-        this.month = Integer.parseInt(dateParts[0]);
-        this.day = Integer.parseInt(dateParts[1]);
-        this.year = Integer.parseInt(dateParts[2]);
+        this.packed = parsePacked(date, 0, date.length());
+    }
+
+    /**
+     * Constructs a Date object from its year, month and day.
+     * Out-of-range months and days are kept as invalid dates, see {@link #isValid()}.
+     * @param year  the year.
+     * @param month the month (1-12).
+     * @param day   the day of the month.
+     */
+    public Date(int year, int month, int day) {
+        this.packed = pack(year, month, day);
+    }
+
+    /**
+     * Constructs a Date object from its packed form.
+     * @param packed the packed year, month and day.
+     */
+    private Date(int packed) {
+        this.packed = packed;
+    }
+
+    /**
+     * Parses a date in MM/DD/YYYY format from part of a character sequence, without building substrings.
+     * @param s    the text holding the date.
+     * @param from the index of the first character of the date.
+     * @param to   the index after the last character of the date.
+     * @return the parsed date.
+     * @throws NumberFormatException if the range is not three numbers separated by slashes.
+     */
+    public static Date parse(CharSequence s, int from, int to) {
+        return new Date(parsePacked(s, from, to));
+    }
+
+    /**
+     * Parses a date in MM/DD/YYYY format straight to its packed form.
+     */
+    private static int parsePacked(CharSequence s, int from, int to) {
+        int month = 0, day = 0, year = 0;
+        int i = from;
+        for (int f = 0; f < 3; f++) {
+            if (f > 0) {
+                if (i >= to || s.charAt(i) != '/')
+                    throw new NumberFormatException("Not a date: \"" + s.subSequence(from, to) + "\"");
+                i++;
+            }
+            boolean negative = false;
+            if (i < to && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                negative = s.charAt(i) == '-';
+                i++;
+            }
+            int start = i;
+            long value = 0;
+            while (i < to && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+                value = Math.min(value * 10 + (s.charAt(i++) - '0'), Integer.MAX_VALUE);
+            }
+            if (i == start)
+                throw new NumberFormatException("Not a date: \"" + s.subSequence(from, to) + "\"");
+            int field = (int) (negative ? -value : value);
+            if (f == 0) {
+                month = field;
+            } else if (f == 1) {
+                day = field;
+            } else {
+                year = field;
+            }
+        }
+        if (i != to)
+            throw new NumberFormatException("Not a date: \"" + s.subSequence(from, to) + "\"");
+        return pack(year, month, day);
+    }
+
+    /**
+     * Packs a year, month and day into one int that orders like the dates.
+     * Months and days outside their bit widths saturate, which keeps them invalid.
+     */
+    private static int pack(int year, int month, int day) {
+        int y = Math.max(-(1 << 20), Math.min(year, (1 << 20) - 1));
+        int m = Math.max(0, Math.min(month, MONTH_MASK));
+        int d = Math.max(0, Math.min(day, DAY_MASK));
+        return y << YEAR_SHIFT | m << MONTH_SHIFT | d;
     }
 
     /**
@@ -33,7 +117,7 @@ public class Date implements Comparable<Date> {
      * @return the year as an integer.
      */
     public int getYear() {
-        return year;
+        return packed >> YEAR_SHIFT;
     }
 
     /**
@@ -41,7 +125,7 @@ public class Date implements Comparable<Date> {
      * @return the month as an integer (1-12).
      */
     public int getMonth() {
-        return month;
+        return (packed >>> MONTH_SHIFT) & MONTH_MASK;
     }
 
     /**
@@ -49,14 +133,15 @@ public class Date implements Comparable<Date> {
      * @return the day as an integer.
      */
     public int getDay() {
-        return day;
+        return packed & DAY_MASK;
     }
 
     /**
      * Determines whether the given year is a leap year.
+     * @param year the year to check.
      * @return true if the year is a leap year, false otherwise.
      */
-    private boolean isLeapYear() {
+    public static boolean isLeapYear(int year) {
         if (year % QUADRENNIAL == 0) {
             if (year % CENTENNIAL == 0) {
                 return year % QUATERCENTENNIAL == 0;
@@ -66,48 +151,109 @@ public class Date implements Comparable<Date> {
         return false;
     }
 
+    /**
+     * Returns the number of days in a month.
+     * @param year  the year, for February.
+     * @param month the month (1-12).
+     * @return the number of days in the month.
+     */
+    public static int daysInMonth(int year, int month) {
+        if (month == 2 && isLeapYear(year)) {
+            return 29; // February has 29 days in a leap year
+        }
+        return DAYS_IN_MONTH[month - 1];
+    }
+
     /**
      * Checks whether this date is a valid calendar date.
      * The method validates the month, day, and ensures the year is within a reasonable range.
      * @return true if the date is valid, false otherwise.
      */
     public boolean isValid() {
+        int month = getMonth();
         if (month < 1 || month > 12) {
             return false;
         }
 
-        int daysInMonth = DAYS_IN_MONTH[month - 1];
-        if (month == 2 && isLeapYear()) {
-            daysInMonth = 29; // February has 29 days in a leap year
-        }
-
-        if (day < 1 || day > daysInMonth) {
+        int day = getDay();
+        if (day < 1 || day > daysInMonth(getYear(), month)) {
             return false;
         }
 
-        if (year < 1900) {
+        if (getYear() < 1900) {
             return false;
         }
 
         return true;
     }
 
+    /**
+     * Returns this date moved by a number of months.
+     * If the day does not exist in the new month it is clamped to the month's last day, e.g. 1/31 plus one month is 2/28.
+     * @param months the number of months to add, may be negative.
+     * @return the new date.
+     */
+    public Date plusMonths(int months) {
+        int total = getYear() * MONTHS_PER_YEAR + (getMonth() - 1) + months;
+        int year = Math.floorDiv(total, MONTHS_PER_YEAR);
+        int month = Math.floorMod(total, MONTHS_PER_YEAR) + 1;
+        return new Date(year, month, Math.min(getDay(), daysInMonth(year, month)));
+    }
+
+    /**
+     * Returns this date moved by a number of days.
+     * @param days the number of days to add, may be negative.
+     * @return the new date.
+     */
+    public Date plusDays(int days) {
+        return ofEpochDay(toEpochDay() + days);
+    }
+
+    /**
+     * Counts the days from 1/1/1970 to this date.
+     * @return the epoch day, negative for earlier dates.
+     */
+    public long toEpochDay() {
+        int year = getYear();
+        int month = getMonth();
+        if (month <= 2) {
+            year--; // count years from March so February's leap day comes last
+        }
+        long era = Math.floorDiv(year, QUATERCENTENNIAL);
+        long yearOfEra = year - era * QUATERCENTENNIAL;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + getDay() - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / QUADRENNIAL - yearOfEra / CENTENNIAL + dayOfYear;
+        return era * DAYS_PER_ERA + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * Builds the date that lies a number of days after 1/1/1970.
+     * @param epochDay the epoch day.
+     * @return the date.
+     */
+    public static Date ofEpochDay(long epochDay) {
+        long days = epochDay + DAYS_0000_TO_1970;
+        long era = Math.floorDiv(days, DAYS_PER_ERA);
+        long dayOfEra = days - era * DAYS_PER_ERA;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / (DAYS_PER_ERA - 1)) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / QUADRENNIAL - yearOfEra / CENTENNIAL);
+        int shiftedMonth = (int) ((5 * dayOfYear + 2) / 153); // 0 is March
+        int day = (int) (dayOfYear - (153L * shiftedMonth + 2) / 5 + 1);
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * QUATERCENTENNIAL + (month <= 2 ? 1 : 0);
+        return new Date((int) year, month, day);
+    }
+
     /**
      * Compares this date with another date.
-     * The comparison is based on year, then month, then day.
+     * The comparison is based on year, then month, then day, which the packed form orders by directly.
      * @param other the date to compare against.
      * @return a negative integer, zero, or a positive integer if this date is
      *         earlier than, equal to, or later than the specified date.
      */
     @Override
     public int compareTo(Date other) {
-        if (this.year != other.year) {
-            return this.year - other.year;
-        }
-        if (this.month != other.month) {
-            return this.month - other.month;
-        }
-        return this.day - other.day;
+        return Integer.compare(this.packed, other.packed);
     }
 
     /**
@@ -121,8 +267,16 @@ public class Date implements Comparable<Date> {
         if (obj == null || !(obj instanceof Date)) {
             return false;
         }
-        Date other = (Date) obj;
-        return (this.year == other.year && this.month == other.month && this.day == other.day);
+        return this.packed == ((Date) obj).packed;
+    }
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}.
+     * @return the hash code of the date.
+     */
+    @Override
+    public int hashCode() {
+        return packed;
     }
 
     /**
@@ -131,7 +285,7 @@ public class Date implements Comparable<Date> {
      */
     @Override
     public String toString() {
-        return month + "/" + day + "/" + year;
+        return getMonth() + "/" + getDay() + "/" + getYear();
     }
 
     /**
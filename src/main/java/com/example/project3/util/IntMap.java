@@ -0,0 +1,215 @@
+package com.example.project3.util;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map keyed by non-negative primitive ints.
+ * Keys are stored in a plain int array and probed linearly, so lookups never box the key
+ * and never follow a chain of nodes. Removal uses backward-shift deletion instead of tombstones,
+ * which keeps probe sequences short no matter how many keys come and go.
+ *
+ * @param <V> the type of values stored
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+public class IntMap<V> {
+    private static final int EMPTY = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private V[] values;
+    private int size;
+    private int mask;
+
+    /**
+     * Constructs an empty map with a small default capacity.
+     */
+    public IntMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * Constructs an empty map able to hold the given number of keys without resizing.
+     * @param expected the number of keys expected to be stored
+     */
+    public IntMap(int expected) {
+        allocate(tableSizeFor(expected));
+    }
+
+    /**
+     * Returns a power-of-two table size that keeps the load factor at or below one half.
+     * @param expected the number of keys expected to be stored
+     * @return the table size to allocate
+     */
+    private static int tableSizeFor(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expected * 2L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Allocates empty key and value tables of the given power-of-two size.
+     * @param capacity the table size
+     */
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = (V[]) new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Spreads the bits of a key so that consecutive account numbers do not cluster.
+     * @param key the key to hash
+     * @return the starting slot for the key
+     */
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Finds the slot holding the given key.
+     * @param key the key to find
+     * @return the slot of the key, or -1 if absent
+     */
+    private int find(int key) {
+        int i = slot(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key)
+                return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Retrieves the value mapped to a key.
+     * @param key the key to look up
+     * @return the mapped value, or null if the key is absent
+     */
+    public V get(int key) {
+        int i = find(key);
+        return i == -1 ? null : values[i];
+    }
+
+    /**
+     * Checks whether a key is present in the map.
+     * @param key the key to check for
+     * @return true if the key is mapped, otherwise false
+     */
+    public boolean containsKey(int key) {
+        return find(key) != -1;
+    }
+
+    /**
+     * Maps a key to a value, replacing any previous mapping.
+     * @param key   a non-negative key
+     * @param value the value to store
+     * @return the previous value for the key, or null if there was none
+     * @throws IllegalArgumentException if the key is negative
+     */
+    public V put(int key, V value) {
+        if (key < 0)
+            throw new IllegalArgumentException("Negative key: " + key);
+        int i = slot(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                V old = values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length)
+            rehash(keys.length << 1);
+        return null;
+    }
+
+    /**
+     * Removes the mapping for a key and shifts later entries of its probe run back into the gap.
+     * @param key the key to remove
+     * @return the removed value, or null if the key was absent
+     */
+    public V remove(int key) {
+        int i = find(key);
+        if (i == -1)
+            return null;
+        V old = values[i];
+        int gap = i;
+        int j = (i + 1) & mask;
+        while (keys[j] != EMPTY) {
+            int home = slot(keys[j]);
+            // move j back if its home slot does not lie cyclically in (gap, j]
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+            j = (j + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = null;
+        size--;
+        return old;
+    }
+
+    /**
+     * Grows the table so that the given number of keys fits without another resize.
+     * @param expected the number of keys expected to be stored
+     */
+    public void ensureCapacity(int expected) {
+        int capacity = tableSizeFor(expected);
+        if (capacity > keys.length)
+            rehash(capacity);
+    }
+
+    /**
+     * Re-inserts every mapping into a table of the given size.
+     * @param capacity the new power-of-two table size
+     */
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        V[] oldValues = values;
+        allocate(capacity);
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldKeys[k] == EMPTY)
+                continue;
+            int i = slot(oldKeys[k]);
+            while (keys[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[k];
+            values[i] = oldValues[k];
+        }
+    }
+
+    /**
+     * Removes every mapping from the map.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Retrieves the number of mappings in the map.
+     * @return the number of keys stored
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the map is empty.
+     * @return true if the map has no mappings, otherwise false
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.project3.util;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -10,15 +11,29 @@ import java.util.NoSuchElementException;
  * @author YourName
  */
 public class List<E> implements Iterable<E> {
+    private static final int DEFAULT_CAPACITY = 4;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
     private E[] objects;
     private int size;
 
     /**
      * Constructs an empty list with an initial capacity of 4.
      */
-    @SuppressWarnings("unchecked")
     public List() {
-        objects = (E[]) new Object[4];
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty list that can hold the given number of elements before it has to grow.
+     * @param initialCapacity the initial capacity of the list
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    @SuppressWarnings("unchecked")
+    public List(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Negative capacity: " + initialCapacity);
+        objects = (E[]) new Object[initialCapacity];
         size = 0;
     }
 
@@ -36,15 +51,25 @@ public class List<E> implements Iterable<E> {
     }
 
     /**
-     * Expands the internal array by increasing its size by 4.
+     * Expands the internal array to hold at least the given number of elements.
+     * The capacity grows by half each time, so n adds copy O(n) elements in total.
+     * @param minCapacity the number of elements that must fit
      */
-    @SuppressWarnings("unchecked")
-    private void grow() {
-        E[] newArray = (E[]) new Object[objects.length + 4];
-        for (int i = 0; i < size; i++) {
-            newArray[i] = objects[i];
-        }
-        objects = newArray;
+    private void grow(int minCapacity) {
+        if (minCapacity < 0 || minCapacity > MAX_CAPACITY)
+            throw new OutOfMemoryError("List capacity exceeded");
+        long geometric = (long) objects.length + (objects.length >> 1) + 1;
+        int newCapacity = (int) Math.min(MAX_CAPACITY, Math.max(geometric, minCapacity));
+        objects = Arrays.copyOf(objects, Math.max(newCapacity, DEFAULT_CAPACITY));
+    }
+
+    /**
+     * Makes sure the list can hold the given number of elements without growing again.
+     * @param minCapacity the number of elements that must fit
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > objects.length)
+            grow(minCapacity);
     }
 
     /**
@@ -62,10 +87,31 @@ public class List<E> implements Iterable<E> {
      */
     public void add(E e) {
         if (size == objects.length)
-            grow();
+            grow(size + 1);
         objects[size++] = e;
     }
 
+    /**
+     * Adds every element of another list to the end of this list, growing at most once.
+     * @param other the list whose elements to add
+     */
+    public void addAll(List<? extends E> other) {
+        int count = other.size;
+        ensureCapacity(size + count);
+        System.arraycopy(other.objects, 0, objects, size, count);
+        size += count;
+    }
+
+    /**
+     * Adds every element of an array to the end of this list, growing at most once.
+     * @param elements the elements to add
+     */
+    public void addAll(E[] elements) {
+        ensureCapacity(size + elements.length);
+        System.arraycopy(elements, 0, objects, size, elements.length);
+        size += elements.length;
+    }
+
     /**
      * Removes the first specified element from the list.
      * @param e the element to remove
@@ -74,11 +120,23 @@ public class List<E> implements Iterable<E> {
         int idx = find(e);
         if (idx == -1)
             return;
-        for (int i = idx; i < size - 1; i++) {
-            objects[i] = objects[i + 1];
-        }
+        removeAt(idx);
+    }
+
+    /**
+     * Removes the element at the specified index, shifting later elements down.
+     * @param index the index of the element to remove
+     * @return the removed element
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public E removeAt(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException();
+        E removed = objects[index];
+        System.arraycopy(objects, index + 1, objects, index, size - index - 1);
         size--;
         objects[size] = null;
+        return removed;
     }
 
     /**
@@ -0,0 +1,174 @@
+package com.example.project3.util;
+
+/**
+ * Fixed-point money arithmetic on amounts held as a long number of cents.
+ * Balances, postings, interest and fees are all exact in cents; nothing here allocates
+ * except the String-returning conveniences, and the formatters write straight into a StringBuilder.
+ *
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+public final class Money {
+    public static final long CENTS_PER_DOLLAR = 100;
+
+    private static final long BASIS_POINTS = 10_000; // 1% = 100 basis points
+    private static final long MONTHS_PER_YEAR = 12;
+
+    private Money() {
+    }
+
+    /**
+     * Converts a dollar amount to cents, rounding to the nearest cent.
+     * @param dollars the amount in dollars
+     * @return the amount in cents
+     */
+    public static long ofDollars(double dollars) {
+        return Math.round(dollars * CENTS_PER_DOLLAR);
+    }
+
+    /**
+     * Converts an amount in cents to dollars, for display code that still works in doubles.
+     * @param cents the amount in cents
+     * @return the amount in dollars
+     */
+    public static double toDollars(long cents) {
+        return cents / (double) CENTS_PER_DOLLAR;
+    }
+
+    /**
+     * Parses a dollar amount such as "1500", "800.99" or "-.5" to cents.
+     * @param s the amount as text
+     * @return the amount in cents
+     * @throws NumberFormatException if the text is not a number
+     */
+    public static long parse(CharSequence s) {
+        return parse(s, 0, s.length());
+    }
+
+    /**
+     * Parses a dollar amount in part of a character sequence to cents, without allocating.
+     * Plain decimals with at most two fraction digits are parsed exactly;
+     * anything else Double.parseDouble() accepts is parsed through a double and rounded to the cent.
+     * @param s    the text holding the amount
+     * @param from the index of the first character of the amount
+     * @param to   the index after the last character of the amount
+     * @return the amount in cents
+     * @throws NumberFormatException if the text is not a number
+     */
+    public static long parse(CharSequence s, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+        long dollars = 0;
+        int digits = 0;
+        while (i < to && isDigit(s.charAt(i)) && digits < 16) {
+            dollars = dollars * 10 + (s.charAt(i++) - '0');
+            digits++;
+        }
+        long cents = 0;
+        int fraction = 0;
+        if (i < to && s.charAt(i) == '.') {
+            i++;
+            while (i < to && isDigit(s.charAt(i)) && fraction < 2) {
+                cents = cents * 10 + (s.charAt(i++) - '0');
+                fraction++;
+            }
+        }
+        if (i == to && digits + fraction > 0) {
+            if (fraction == 1)
+                cents *= 10;
+            long total = dollars * CENTS_PER_DOLLAR + cents;
+            return negative ? -total : total;
+        }
+        return ofDollars(Double.parseDouble(s.subSequence(from, to).toString()));
+    }
+
+    /**
+     * Checks whether a character is an ASCII digit.
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Computes one month of interest at an annual rate, rounded half-even to the cent.
+     * @param cents              the balance in cents
+     * @param annualBasisPoints  the annual rate in basis points, e.g. 150 for 1.5%
+     * @return the monthly interest in cents
+     */
+    public static long monthlyInterest(long cents, int annualBasisPoints) {
+        long numerator = cents * annualBasisPoints;
+        long denominator = BASIS_POINTS * MONTHS_PER_YEAR;
+        long quotient = Math.floorDiv(numerator, denominator);
+        long twiceRemainder = 2 * Math.floorMod(numerator, denominator);
+        if (twiceRemainder > denominator || (twiceRemainder == denominator && (quotient & 1) != 0)) {
+            quotient++;
+        }
+        return quotient;
+    }
+
+    /**
+     * Appends an amount with thousands separators and two decimals, like DecimalFormat("#,##0.00").
+     * @param sb    the buffer to write to
+     * @param cents the amount in cents
+     * @return the buffer, for chaining
+     */
+    public static StringBuilder format(StringBuilder sb, long cents) {
+        return write(sb, cents, true);
+    }
+
+    /**
+     * Appends an amount with two decimals and no separators, like String.format("%.2f").
+     * @param sb    the buffer to write to
+     * @param cents the amount in cents
+     * @return the buffer, for chaining
+     */
+    public static StringBuilder formatPlain(StringBuilder sb, long cents) {
+        return write(sb, cents, false);
+    }
+
+    /**
+     * Formats an amount with thousands separators and two decimals.
+     * @param cents the amount in cents
+     * @return the formatted amount, e.g. "1,234.50"
+     */
+    public static String format(long cents) {
+        return format(new StringBuilder(16), cents).toString();
+    }
+
+    /**
+     * Writes the digits of an amount into a buffer.
+     * @param sb       the buffer to write to
+     * @param cents    the amount in cents
+     * @param grouping whether to separate thousands with commas
+     * @return the buffer
+     */
+    private static StringBuilder write(StringBuilder sb, long cents, boolean grouping) {
+        if (cents < 0) {
+            sb.append('-');
+        }
+        long abs = Math.abs(cents);
+        long dollars = abs / CENTS_PER_DOLLAR;
+        int fraction = (int) (abs % CENTS_PER_DOLLAR);
+
+        int start = sb.length();
+        int count = 0;
+        do {
+            if (grouping && count > 0 && count % 3 == 0) {
+                sb.append(',');
+            }
+            sb.append((char) ('0' + dollars % 10));
+            dollars /= 10;
+            count++;
+        } while (dollars > 0);
+        // digits went in least significant first
+        for (int i = start, j = sb.length() - 1; i < j; i++, j--) {
+            char c = sb.charAt(i);
+            sb.setCharAt(i, sb.charAt(j));
+            sb.setCharAt(j, c);
+        }
+        return sb.append('.').append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+    }
+}
@@ -1,69 +1,103 @@
 package com.example.project3.util;
 
 import com.example.project3.sourcefiles.Account;
-import com.example.project3.sourcefiles.AccountDatabase;
+import com.example.project3.sourcefiles.AccountNumber;
+import com.example.project3.sourcefiles.Branch;
+
+import java.util.Comparator;
 
 public class Sort {
+    private static final long KEY_WEIGHT = 1L << 32; // packed account numbers fit in an int
+    private static final int[] BRANCH_RANK = branchRanks();
+    private static final Comparator<Account> BY_HOLDER = (a, b) -> a.getHolder().compareTo(b.getHolder());
+
     /**
-     * Sorts the list of accounts based on the specified key.
-     * 'B' - Sort by Branch (County, then City)
-     * 'H' - Sort by Holder (Name, then Account Number)
-     * 'T' - Sort by Type (Type, then Account Number)
-     *
-     * @param list the list of accounts to sort
-     * @param key  the sorting criteria
+     * Creates an empty view that keeps accounts in the report order for the given key.
+     * Each account's packed key is extracted once, when it is added, and kept with it;
+     * only the holder report also compares the holders themselves.
+     * @param key the sorting criteria, 'B', 'H' or 'T'
+     * @return an empty sorted view
+     * @throws IllegalArgumentException if the key is not a known sorting criteria
      */
-    public static void account(AccountDatabase list, char key) {
-        int n = list.size();
-        for (int i = 0; i < n - 1; i++) {
-            int min = i;
-            for (int j = i + 1; j < n; j++) {
-                boolean swap = false;
-
-                switch (key) {
-                    case 'B': // Sort by Branch (County, then City)
-                        String county1 = list.get(min).getAccountNumber().getBranch().getCounty();
-                        String city1 = list.get(min).getAccountNumber().getBranch().name();
-                        String county2 = list.get(j).getAccountNumber().getBranch().getCounty();
-                        String city2 = list.get(j).getAccountNumber().getBranch().name();
-
-                        if (county1.compareTo(county2) > 0 ||
-                                (county1.equals(county2) && city1.compareTo(city2) > 0)) {
-                            swap = true;
-                        }
-                        break;
+    public static SortedView<Account> view(char key) {
+        switch (key) {
+            case 'B':
+            case 'T':
+                return new SortedView<>(null, a -> sortKey(a, key));
+            case 'H':
+                return new SortedView<>(BY_HOLDER, a -> sortKey(a, key));
+            default:
+                throw new IllegalArgumentException("Unknown sort key: " + key);
+        }
+    }
 
-                    case 'H': // Sort by Holder (Name, then Account Number)
-                        int holderComparison = list.get(min).getHolder().compareTo(list.get(j).getHolder());
-                        if (holderComparison > 0 ||
-                                (holderComparison == 0 &&
-                                        list.get(min).getAccountNumber().compareTo(list.get(j).getAccountNumber()) > 0)) {
-                            swap = true;
-                        }
-                        break;
+    /**
+     * Returns the ordering of the account reports for the given key, for collections that keep accounts sorted as they change.
+     * 'B' - by Branch (County, then City, then Account Number)
+     * 'H' - by Holder (Name, then Account Number)
+     * 'T' - by Type (Type, then Account Number)
+     * Each comparison works on the packed account number, so it never walks the account or builds strings.
+     * @param key the sorting criteria, 'B', 'H' or 'T'
+     * @return a comparator over accounts
+     * @throws IllegalArgumentException if the key is not a known sorting criteria
+     */
+    public static Comparator<Account> comparator(char key) {
+        switch (key) {
+            case 'B':
+            case 'T':
+                return (a, b) -> Long.compare(sortKey(a, key), sortKey(b, key));
+            case 'H':
+                return BY_HOLDER.thenComparingLong(a -> sortKey(a, key));
+            default:
+                throw new IllegalArgumentException("Unknown sort key: " + key);
+        }
+    }
 
-                    case 'T': // Sort by Type (Type, then Account Number)
-                        String type1 = list.get(min).getAccountNumber().getType().getCode();
-                        String type2 = list.get(j).getAccountNumber().getType().getCode();
+    /**
+     * Extracts the packed primitive part of an account's sort key.
+     * @param acct the account
+     * @param key  the sorting criteria
+     * @return the packed key
+     */
+    private static long sortKey(Account acct, char key) {
+        return sortKey(acct.getAccountNumber().getKey(), key);
+    }
 
-                        if (type1.compareTo(type2) > 0 ||
-                                (type1.equals(type2) &&
-                                        list.get(min).getAccountNumber().compareTo(list.get(j).getAccountNumber()) > 0)) {
-                            swap = true;
-                        }
-                        break;
-                }
+    /**
+     * Packs the primitive part of a report sort key from a packed account number, without an account.
+     * 'B' packs the branch's (county, city) rank above the account number, so accounts of one branch
+     * follow in type code and serial order. 'T' packs the type ordinal above the account number,
+     * and 'H' uses the account number, which breaks ties between accounts of the same holder.
+     * @param number the packed account number
+     * @param key    the sorting criteria
+     * @return the packed key
+     */
+    public static long sortKey(int number, char key) {
+        switch (key) {
+            case 'B':
+                return BRANCH_RANK[AccountNumber.branchOf(number).ordinal()] * KEY_WEIGHT + number;
+            case 'T':
+                return AccountNumber.typeOf(number).ordinal() * KEY_WEIGHT + number;
+            default:
+                return number;
+        }
+    }
 
-                if (swap) {
-                    min = j;
+    /**
+     * Ranks every branch by county name and then city name, the order used by the branch report.
+     * @return the rank of each branch, indexed by ordinal
+     */
+    private static int[] branchRanks() {
+        Branch[] branches = Branch.values();
+        int[] rank = new int[branches.length];
+        for (Branch b : branches) {
+            for (Branch other : branches) {
+                int cmp = other.getCounty().compareTo(b.getCounty());
+                if (cmp < 0 || (cmp == 0 && other.name().compareTo(b.name()) < 0)) {
+                    rank[b.ordinal()]++;
                 }
             }
-
-            if (min != i) {
-                Account temp = list.get(i);
-                list.set(i, list.get(min));
-                list.set(min, temp);
-            }
         }
+        return rank;
     }
 }
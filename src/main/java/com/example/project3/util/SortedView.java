@@ -0,0 +1,305 @@
+package com.example.project3.util;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongFunction;
+
+/**
+ * An ordered collection kept in an AVL tree, so adds and removes cost O(log n)
+ * and iteration visits the elements in comparator order without any sort step.
+ * A view can also order by a primitive key, extracted once when an element is added and kept in its node,
+ * so comparisons during later adds, removes and searches do not walk the elements.
+ * Elements that compare equal are kept in insertion order; removal matches the exact element instance.
+ *
+ * @param <E> the type of elements stored
+ * @author Yakelin Melendez-Gonzalez, Nivedha Sundar
+ */
+public class SortedView<E> implements Iterable<E> {
+    private final Comparator<? super E> order; // null to order by the key alone
+    private final ToLongFunction<? super E> key; // null when the comparator decides alone
+    private Node<E> root;
+    private int size;
+
+    private static class Node<E> {
+        E value;
+        long key;
+        Node<E> left;
+        Node<E> right;
+        int height = 1;
+
+        Node(E value, long key) {
+            this.value = value;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Constructs an empty view ordered by the given comparator.
+     * @param order the ordering of the view
+     */
+    public SortedView(Comparator<? super E> order) {
+        this(order, null);
+    }
+
+    /**
+     * Constructs an empty view ordered by a comparator and then by a primitive key.
+     * The key of an element must not change while the element is in the view.
+     * @param order the leading ordering, or null to order by the key alone
+     * @param key   extracts the key that orders elements the comparator finds equal
+     */
+    public SortedView(Comparator<? super E> order, ToLongFunction<? super E> key) {
+        this.order = order;
+        this.key = key;
+    }
+
+    /**
+     * Adds an element at its sorted position.
+     * @param e the element to add
+     */
+    public void add(E e) {
+        root = insert(root, e, keyOf(e));
+        size++;
+    }
+
+    /**
+     * Removes the given element instance from the view.
+     * @param e the element to remove
+     * @return true if the element was in the view, otherwise false
+     */
+    public boolean remove(E e) {
+        int before = size;
+        root = delete(root, e, keyOf(e));
+        return size < before;
+    }
+
+    /**
+     * Retrieves the number of elements in the view.
+     * @return the size of the view
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the view is empty.
+     * @return true if the view has no elements, otherwise false
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Extracts an element's key, 0 for a view without one.
+     */
+    private long keyOf(E e) {
+        return key == null ? 0 : key.applyAsLong(e);
+    }
+
+    /**
+     * Compares an element and its key with a node.
+     */
+    private int compare(E e, long k, Node<E> node) {
+        int cmp = order == null ? 0 : order.compare(e, node.value);
+        return cmp != 0 ? cmp : Long.compare(k, node.key);
+    }
+
+    /**
+     * Inserts an element into a subtree, after any elements equal to it.
+     * @param node the root of the subtree
+     * @param e    the element to insert
+     * @param k    the element's key
+     * @return the new root of the subtree
+     */
+    private Node<E> insert(Node<E> node, E e, long k) {
+        if (node == null)
+            return new Node<>(e, k);
+        if (compare(e, k, node) < 0) {
+            node.left = insert(node.left, e, k);
+        } else {
+            node.right = insert(node.right, e, k);
+        }
+        return balance(node);
+    }
+
+    /**
+     * Deletes an element instance from a subtree.
+     * @param node the root of the subtree
+     * @param e    the element to delete
+     * @param k    the element's key
+     * @return the new root of the subtree
+     */
+    private Node<E> delete(Node<E> node, E e, long k) {
+        if (node == null)
+            return null;
+        int cmp = compare(e, k, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, e, k);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, e, k);
+        } else if (node.value != e) {
+            // an equal element that is not the one asked for; the target can sit on either side
+            int before = size;
+            node.left = delete(node.left, e, k);
+            if (size == before)
+                node.right = delete(node.right, e, k);
+        } else {
+            size--;
+            if (node.left == null)
+                return node.right;
+            if (node.right == null)
+                return node.left;
+            Node<E> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.value = successor.value;
+            node.key = successor.key;
+            node.right = deleteMin(node.right);
+        }
+        return balance(node);
+    }
+
+    /**
+     * Deletes the leftmost node of a subtree.
+     * @param node the root of the subtree
+     * @return the new root of the subtree
+     */
+    private Node<E> deleteMin(Node<E> node) {
+        if (node.left == null)
+            return node.right;
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    /**
+     * Returns the height of a subtree, 0 for an empty one.
+     */
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * Recomputes a node's height from its children.
+     */
+    private static void update(Node<?> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+    }
+
+    /**
+     * Restores the AVL height invariant at a node with one or two rotations.
+     * @param node the node to rebalance
+     * @return the new root of the subtree
+     */
+    private Node<E> balance(Node<E> node) {
+        update(node);
+        int skew = height(node.left) - height(node.right);
+        if (skew > 1) {
+            if (height(node.left.left) < height(node.left.right))
+                node.left = rotateLeft(node.left);
+            return rotateRight(node);
+        }
+        if (skew < -1) {
+            if (height(node.right.right) < height(node.right.left))
+                node.right = rotateRight(node.right);
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    /**
+     * Rotates a subtree right around its left child.
+     */
+    private Node<E> rotateRight(Node<E> node) {
+        Node<E> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    /**
+     * Rotates a subtree left around its right child.
+     */
+    private Node<E> rotateLeft(Node<E> node) {
+        Node<E> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    /**
+     * Returns an iterator over the elements in sorted order.
+     * The view must not be changed while the iterator is in use.
+     * @return an in-order iterator for this view
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new InOrderIterator();
+    }
+
+    /**
+     * Returns an iterator over the elements in sorted order, starting at the first element
+     * that does not compare less than the given one.
+     * The view must not be changed while the iterator is in use.
+     * @param from the lower bound, compared with the view's ordering
+     * @return an in-order iterator starting at the lower bound
+     */
+    public Iterator<E> iterator(E from) {
+        return new InOrderIterator(from);
+    }
+
+    /**
+     * An in-order iterator that keeps the path to the next element on an array stack.
+     */
+    private class InOrderIterator implements Iterator<E> {
+        @SuppressWarnings("unchecked")
+        private final Node<E>[] stack = (Node<E>[]) new Node<?>[height(root) + 1];
+        private int depth = 0;
+
+        InOrderIterator() {
+            pushLeft(root);
+        }
+
+        /**
+         * Starts at the first element not less than a bound, keeping on the stack
+         * only the ancestors that are still to be visited.
+         */
+        InOrderIterator(E from) {
+            long k = keyOf(from);
+            Node<E> node = root;
+            while (node != null) {
+                if (compare(from, k, node) <= 0) {
+                    stack[depth++] = node;
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+        }
+
+        private void pushLeft(Node<E> node) {
+            while (node != null) {
+                stack[depth++] = node;
+                node = node.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            Node<E> node = stack[--depth];
+            pushLeft(node.right);
+            return node.value;
+        }
+    }
+}